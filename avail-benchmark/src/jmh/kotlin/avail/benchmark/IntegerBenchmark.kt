@@ -0,0 +1,131 @@
+/*
+ * IntegerBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.descriptor.numbers.A_Number
+import avail.descriptor.numbers.A_Number.Companion.minusCanDestroy
+import avail.descriptor.numbers.A_Number.Companion.plusCanDestroy
+import avail.descriptor.numbers.A_Number.Companion.timesCanDestroy
+import avail.descriptor.numbers.IntegerDescriptor
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromBigInteger
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromLong
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.math.BigInteger
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks of [IntegerDescriptor] arithmetic, for operands that fit in a
+ * single slot, and for operands that span several.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class IntegerBenchmark
+{
+	/** The number of bits in each operand. */
+	@Param("20", "62", "256")
+	var bits = 0
+
+	/** The left operand. */
+	private lateinit var left: A_Number
+
+	/** The right operand. */
+	private lateinit var right: A_Number
+
+	/** Build the shared operands. */
+	@Setup
+	fun setUp()
+	{
+		left = operand(bits, 0x5DEECE66DL)
+		right = operand(bits, 0x9E3779B9L)
+	}
+
+	/**
+	 * Measure addition.
+	 *
+	 * @return
+	 *   The sum.
+	 */
+	@Benchmark
+	fun add(): A_Number = left.plusCanDestroy(right, false)
+
+	/**
+	 * Measure subtraction.
+	 *
+	 * @return
+	 *   The difference.
+	 */
+	@Benchmark
+	fun subtract(): A_Number = left.minusCanDestroy(right, false)
+
+	/**
+	 * Measure multiplication.
+	 *
+	 * @return
+	 *   The product.
+	 */
+	@Benchmark
+	fun multiply(): A_Number = left.timesCanDestroy(right, false)
+
+	companion object
+	{
+		/**
+		 * Answer a shared, positive integer with the given number of bits,
+		 * using the salt to vary the lower bits.
+		 *
+		 * @param bits
+		 *   The number of bits.
+		 * @param salt
+		 *   A value to mix into the low bits.
+		 * @return
+		 *   The integer.
+		 */
+		private fun operand(bits: Int, salt: Long): A_Number
+		{
+			val topBit = BigInteger.ONE.shiftLeft(bits - 1)
+			val value = topBit.or(BigInteger.valueOf(salt).mod(topBit))
+			return when
+			{
+				value.bitLength() < 63 -> fromLong(value.toLong())
+				else -> fromBigInteger(value)
+			}.makeShared()
+		}
+	}
+}
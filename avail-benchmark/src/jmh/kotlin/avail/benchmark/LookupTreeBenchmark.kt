@@ -0,0 +1,145 @@
+/*
+ * LookupTreeBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.descriptor.methods.A_Definition
+import avail.descriptor.methods.AbstractDefinitionDescriptor.Companion.newAbstractDefinition
+import avail.descriptor.methods.MethodDescriptor.Companion.newMethod
+import avail.descriptor.methods.MethodDescriptor.Companion.runtimeDispatcher
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.A_Tuple
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.types.FunctionTypeDescriptor.Companion.functionType
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.inclusive
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types
+import avail.dispatch.LookupStatistics
+import avail.dispatch.LookupTree
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
+import avail.performance.StatisticReport.DYNAMIC_LOOKUP
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Benchmarks of dispatching through a [LookupTree], using the same adaptor
+ * that methods use, for trees of various sizes and depths.  The trees expand
+ * lazily, so after warm-up this measures only the traversal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class LookupTreeBenchmark
+{
+	/** The number of definitions of the method. */
+	@Param("4", "32", "256")
+	var definitionCount = 0
+
+	/**
+	 * How the definitions' signatures relate.  When `"disjoint"`, each
+	 * definition accepts a separate range of integers, so each lookup selects
+	 * one, and the depth grows logarithmically.  When `"nested"`, each range
+	 * includes the previous one, so each lookup must distinguish the most
+	 * specific of many applicable definitions.
+	 */
+	@Param("disjoint", "nested")
+	var shape = ""
+
+	/** The root of the lookup tree. */
+	private lateinit var root: LookupTree<A_Definition, A_Tuple>
+
+	/** The arguments of each lookup. */
+	private lateinit var argumentLists: List<List<A_BasicObject>>
+
+	/** The statistics that the lookups update, as a method's would. */
+	private val stats = LookupStatistics("benchmark", DYNAMIC_LOOKUP)
+
+	/** Build the definitions, the tree, and the arguments. */
+	@Setup
+	fun setUp()
+	{
+		val method = newMethod(1)
+		val nested = shape == "nested"
+		val definitions = List(definitionCount) {
+			val range =
+				if (nested) inclusive(0, it.toLong())
+				else inclusive(it * 10L, it * 10L + 9)
+			newAbstractDefinition(
+				method, nil, functionType(tuple(range), Types.TOP.o))
+		}
+		root = runtimeDispatcher.createRoot(
+			definitions,
+			listOf(restrictionForType(Types.ANY.o, BOXED_FLAG)),
+			Unit)
+		val limit = if (nested) definitionCount else definitionCount * 10
+		val random = Random(seed)
+		argumentLists = List(lookupsPerInvocation) {
+			listOf(fromInt(random.nextInt(limit)).makeShared())
+		}
+	}
+
+	/**
+	 * Measure dispatching a batch of arguments.
+	 *
+	 * @param blackhole
+	 *   Where to discard the lookup results.
+	 */
+	@Benchmark
+	fun lookup(blackhole: Blackhole)
+	{
+		for (arguments in argumentLists)
+		{
+			blackhole.consume(
+				runtimeDispatcher.lookupByValues(root, arguments, Unit, stats))
+		}
+	}
+
+	companion object
+	{
+		/** The number of lookups per invocation. */
+		private const val lookupsPerInvocation = 256
+
+		/** The seed for generating arguments, so runs are repeatable. */
+		private const val seed = 42
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * SerializerBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.AvailRuntime
+import avail.builder.ModuleNameResolver
+import avail.builder.ModuleRoots
+import avail.descriptor.maps.A_Map.Companion.mapAtPuttingCanDestroy
+import avail.descriptor.maps.MapDescriptor.Companion.emptyMap
+import avail.descriptor.numbers.A_Number.Companion.timesCanDestroy
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromLong
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.sets.SetDescriptor.Companion.setFromCollection
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.files.FileManager
+import avail.serialization.Deserializer
+import avail.serialization.Serializer
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Benchmarks of [Serializer] and [Deserializer] round trips of plain data:
+ * a tuple of records, each a map holding a string, an integer, a large
+ * integer, and a set.  No modules are involved, so the [AvailRuntime] needs no
+ * module roots, and no library is loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class SerializerBenchmark
+{
+	/** The number of records in the serialized tuple. */
+	@Param("10", "1000")
+	var recordCount = 0
+
+	/** The [FileManager] of the [runtime]. */
+	private lateinit var fileManager: FileManager
+
+	/** The [AvailRuntime] required by the [Deserializer]. */
+	private lateinit var runtime: AvailRuntime
+
+	/** The object to serialize. */
+	private lateinit var value: AvailObject
+
+	/** The serialized form of [value]. */
+	private lateinit var bytes: ByteArray
+
+	/** Create the runtime and the data. */
+	@Setup(Level.Trial)
+	fun setUp()
+	{
+		fileManager = FileManager()
+		val roots = ModuleRoots(fileManager, "") { }
+		runtime = AvailRuntime(ModuleNameResolver(roots), fileManager)
+		fileManager.associateRuntime(runtime)
+		val random = Random(seed)
+		val records = List(recordCount) { index ->
+			emptyMap
+				.mapAtPuttingCanDestroy(
+					stringFrom("name"), stringFrom("record $index"), true)
+				.mapAtPuttingCanDestroy(
+					stringFrom("count"), fromInt(random.nextInt()), true)
+				.mapAtPuttingCanDestroy(
+					stringFrom("total"),
+					fromLong(random.nextLong()).timesCanDestroy(
+						fromLong(random.nextLong()), true),
+					true)
+				.mapAtPuttingCanDestroy(
+					stringFrom("tags"),
+					setFromCollection(
+						List(4) { fromInt(random.nextInt(100)) }),
+					true)
+		}
+		value = tupleFromList(records).makeShared()
+		bytes = serialize(value)
+	}
+
+	/** Shut down the runtime. */
+	@TearDown(Level.Trial)
+	fun tearDown()
+	{
+		runtime.destroy()
+	}
+
+	/**
+	 * Serialize the given object.
+	 *
+	 * @param obj
+	 *   The object to serialize.
+	 * @return
+	 *   The serialized bytes.
+	 */
+	private fun serialize(obj: A_BasicObject): ByteArray
+	{
+		val out = ByteArrayOutputStream(4096)
+		Serializer(out).serialize(obj)
+		return out.toByteArray()
+	}
+
+	/**
+	 * Measure serialization.
+	 *
+	 * @return
+	 *   The serialized bytes.
+	 */
+	@Benchmark
+	fun serialize(): ByteArray = serialize(value)
+
+	/**
+	 * Measure deserialization.
+	 *
+	 * @return
+	 *   The reconstructed object.
+	 */
+	@Benchmark
+	fun deserialize(): AvailObject? =
+		Deserializer(ByteArrayInputStream(bytes), runtime).deserialize()
+
+	/**
+	 * Measure a full round trip.
+	 *
+	 * @return
+	 *   The reconstructed object.
+	 */
+	@Benchmark
+	fun roundTrip(): AvailObject? =
+		Deserializer(ByteArrayInputStream(serialize(value)), runtime)
+			.deserialize()
+
+	companion object
+	{
+		/** The seed for generating records, so runs are repeatable. */
+		private const val seed = 42
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * SetAndMapBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.descriptor.maps.A_Map
+import avail.descriptor.maps.A_Map.Companion.mapAtOrNull
+import avail.descriptor.maps.A_Map.Companion.mapAtPuttingCanDestroy
+import avail.descriptor.maps.HashedMapBinDescriptor
+import avail.descriptor.maps.MapDescriptor.Companion.emptyMap
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.sets.A_Set
+import avail.descriptor.sets.A_Set.Companion.hasElement
+import avail.descriptor.sets.A_Set.Companion.setWithElementCanDestroy
+import avail.descriptor.sets.HashedSetBinDescriptor
+import avail.descriptor.sets.SetDescriptor.Companion.emptySet
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Benchmarks of insertion into and lookup within sets and maps.  Beyond a
+ * handful of elements, these are organized as [HashedSetBinDescriptor]s and
+ * [HashedMapBinDescriptor]s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class SetAndMapBenchmark
+{
+	/** The number of elements in each set and map. */
+	@Param("10", "1000", "100000")
+	var size = 0
+
+	/** The shared integers that serve as elements and keys. */
+	private lateinit var elements: List<AvailObject>
+
+	/** The integers to look up, about half of which are present. */
+	private lateinit var probes: List<AvailObject>
+
+	/** A shared set containing the [elements]. */
+	private lateinit var set: A_Set
+
+	/** A shared map from each of the [elements] to itself. */
+	private lateinit var map: A_Map
+
+	/** Build the shared inputs. */
+	@Setup
+	fun setUp()
+	{
+		val random = Random(seed)
+		elements = List(size) { fromInt(random.nextInt()).makeShared() }
+		probes = List(probesPerInvocation) {
+			if (random.nextBoolean()) elements[random.nextInt(size)]
+			else fromInt(random.nextInt()).makeShared()
+		}
+		set = buildSet().makeShared()
+		map = buildMap().makeShared()
+	}
+
+	/**
+	 * Add each of the [elements] to a new set, destructively where possible.
+	 *
+	 * @return
+	 *   The set.
+	 */
+	private fun buildSet(): A_Set =
+		elements.fold(emptySet) { set, element ->
+			set.setWithElementCanDestroy(element, true)
+		}
+
+	/**
+	 * Add each of the [elements] to a new map, destructively where possible.
+	 *
+	 * @return
+	 *   The map.
+	 */
+	private fun buildMap(): A_Map =
+		elements.fold(emptyMap) { map, element ->
+			map.mapAtPuttingCanDestroy(element, element, true)
+		}
+
+	/**
+	 * Measure insertion into a set.
+	 *
+	 * @return
+	 *   The set.
+	 */
+	@Benchmark
+	fun setInsert(): A_Set = buildSet()
+
+	/**
+	 * Measure insertion into a map.
+	 *
+	 * @return
+	 *   The map.
+	 */
+	@Benchmark
+	fun mapInsert(): A_Map = buildMap()
+
+	/**
+	 * Measure membership tests on a set.
+	 *
+	 * @param blackhole
+	 *   Where to discard the results.
+	 */
+	@Benchmark
+	fun setLookup(blackhole: Blackhole)
+	{
+		val theSet = set
+		for (probe in probes) blackhole.consume(theSet.hasElement(probe))
+	}
+
+	/**
+	 * Measure lookups in a map.
+	 *
+	 * @param blackhole
+	 *   Where to discard the results.
+	 */
+	@Benchmark
+	fun mapLookup(blackhole: Blackhole)
+	{
+		val theMap = map
+		for (probe in probes) blackhole.consume(theMap.mapAtOrNull(probe))
+	}
+
+	companion object
+	{
+		/** The number of lookups per invocation. */
+		private const val probesPerInvocation = 1024
+
+		/** The seed for generating elements, so runs are repeatable. */
+		private const val seed = 42
+	}
+}
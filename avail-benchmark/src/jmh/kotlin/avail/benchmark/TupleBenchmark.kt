@@ -0,0 +1,135 @@
+/*
+ * TupleBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.descriptor.tuples.A_Tuple
+import avail.descriptor.tuples.A_Tuple.Companion.concatenateWith
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
+import avail.descriptor.tuples.TreeTupleDescriptor
+import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
+import avail.descriptor.tuples.TupleDescriptor.Companion.tupleFromIntegerList
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Benchmarks of [TreeTupleDescriptor], the representation that large tuples
+ * take on when they're built by concatenation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class TupleBenchmark
+{
+	/** The total number of elements in the tuple. */
+	@Param("1000", "100000")
+	var size = 0
+
+	/** The flat tuples that are concatenated to form the tree tuple. */
+	private lateinit var chunks: List<A_Tuple>
+
+	/** The result of concatenating the [chunks]. */
+	private lateinit var tree: A_Tuple
+
+	/** The one-based indices to look up in [subscript]. */
+	private lateinit var indices: IntArray
+
+	/** Build the shared inputs. */
+	@Setup
+	fun setUp()
+	{
+		chunks = (0 until size step chunkSize).map { start ->
+			tupleFromIntegerList(
+				(start until min(start + chunkSize, size)).toList()
+			).makeShared()
+		}
+		tree = concatenateChunks().makeShared()
+		val random = Random(seed)
+		indices = IntArray(lookupsPerInvocation) { random.nextInt(size) + 1 }
+	}
+
+	/**
+	 * Concatenate the [chunks] left to right, as a loop accumulating a
+	 * tuple would.
+	 *
+	 * @return
+	 *   The concatenated tuple.
+	 */
+	private fun concatenateChunks(): A_Tuple =
+		chunks.fold(emptyTuple) { tuple, chunk ->
+			tuple.concatenateWith(chunk, true)
+		}
+
+	/**
+	 * Measure building a tree tuple by repeated concatenation.
+	 *
+	 * @return
+	 *   The resulting tuple.
+	 */
+	@Benchmark
+	fun concatenate(): A_Tuple = concatenateChunks()
+
+	/**
+	 * Measure random subscripting into a tree tuple.
+	 *
+	 * @param blackhole
+	 *   Where to discard the elements.
+	 */
+	@Benchmark
+	fun subscript(blackhole: Blackhole)
+	{
+		val theTree = tree
+		for (index in indices) blackhole.consume(theTree.tupleAt(index))
+	}
+
+	companion object
+	{
+		/** The size of each flat tuple concatenated into the tree. */
+		private const val chunkSize = 50
+
+		/** The number of subscripts per invocation of [subscript]. */
+		private const val lookupsPerInvocation = 1024
+
+		/** The seed for generating indices, so runs are repeatable. */
+		private const val seed = 42
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * WorkStealingQueueBenchmark.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.benchmark
+
+import avail.interpreter.execution.Interpreter
+import avail.utility.WorkStealingQueue
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Group
+import org.openjdk.jmh.annotations.GroupThreads
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Threads
+import java.util.concurrent.TimeUnit
+
+/**
+ * Throughput benchmarks of [WorkStealingQueue].  The benchmark threads are not
+ * [Interpreter] threads, so they all feed the same subqueue, and every poll
+ * that finds it empty scans the others, which is the contended case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class WorkStealingQueueBenchmark
+{
+	/** The queue under test. */
+	private lateinit var queue: WorkStealingQueue<Int>
+
+	/** Create the queue, with a few tasks already waiting. */
+	@Setup
+	fun setUp()
+	{
+		queue = WorkStealingQueue(parallelism)
+		repeat(initialTasks) { queue.offer(it) }
+	}
+
+	/**
+	 * Measure a single thread adding and then removing a task.
+	 *
+	 * @return
+	 *   The removed task.
+	 */
+	@Benchmark
+	@Threads(1)
+	fun offerThenPollUncontended(): Int?
+	{
+		queue.offer(1)
+		return queue.poll()
+	}
+
+	/**
+	 * Measure several threads each adding and then removing a task.
+	 *
+	 * @return
+	 *   The removed task.
+	 */
+	@Benchmark
+	@Threads(4)
+	fun offerThenPollContended(): Int?
+	{
+		queue.offer(1)
+		return queue.poll()
+	}
+
+	/**
+	 * The producer side of a producer/consumer pair.
+	 */
+	@Benchmark
+	@Group("producerConsumer")
+	@GroupThreads(2)
+	fun produce()
+	{
+		// Keep the queue from growing without bound when the consumers fall
+		// behind.
+		if (queue.size < maximumBacklog) queue.offer(1)
+	}
+
+	/**
+	 * The consumer side of a producer/consumer pair.
+	 *
+	 * @return
+	 *   The removed task, or `null` if none was available.
+	 */
+	@Benchmark
+	@Group("producerConsumer")
+	@GroupThreads(2)
+	fun consume(): Int? = queue.poll()
+
+	companion object
+	{
+		/** The number of subqueues, as for a small interpreter pool. */
+		private const val parallelism = 4
+
+		/** The number of tasks in the queue at the start of each trial. */
+		private const val initialTasks = 16
+
+		/** The most tasks the producers will leave waiting. */
+		private const val maximumBacklog = 10_000
+	}
+}
@@ -34,6 +34,7 @@ package avail.tools.compiler
 
 import avail.AvailRuntime
 import avail.builder.AvailBuilder
+import avail.builder.ModuleImage
 import avail.builder.ModuleNameResolver
 import avail.builder.RenamesFileParserException
 import avail.compiler.CompilerProgressReporter
@@ -50,6 +51,7 @@ import avail.tools.compiler.configuration.EnvironmentConfigurator
 import avail.utility.NullOutputStream
 import avail.utility.configuration.ConfigurationException
 import java.io.FileNotFoundException
+import java.io.IOException
 import java.io.PrintStream
 import java.util.concurrent.locks.ReentrantLock
 
@@ -90,6 +92,19 @@ import java.util.concurrent.locks.ReentrantLock
  * > The path to the output directory where documentation and data files will
  * > appear when Stacks documentation is generated. Requires -g.
  *
+ * -p
+ * --profile
+ * > Sample the Avail functions running during compilation, and write the
+ * > samples to the specified file as collapsed stacks, suitable for generating
+ * > a flame graph. A summary of the samples is also printed. Requires -c.
+ *
+ * -i
+ * --moduleImage
+ * > Take the serialized modules from the module image in the specified file,
+ * > wherever it is still current, instead of reading them from the
+ * > repositories. After a successful compilation, rewrite the image with every
+ * > loaded module. Requires -c.
+ *
  * -q
  * --quiet
  * > Mute all output originating from user code.
@@ -350,12 +365,52 @@ object Compiler
 			// Compile modules.
 			if (configuration.compileModules)
 			{
+				val profilePath = configuration.profilePath
+				if (profilePath !== null)
+				{
+					runtime.samplingProfiler.start()
+				}
 				val builder = AvailBuilder(runtime)
+				val imagePath = configuration.moduleImagePath
+				if (imagePath !== null)
+				{
+					builder.moduleImage = ModuleImage.read(imagePath.toFile())
+				}
 				builder.buildTarget(
 					moduleName!!,
 					localTracker(configuration),
 					globalTracker(configuration),
 					builder.buildProblemHandler)
+				if (imagePath !== null && !builder.shouldStopBuild)
+				{
+					try
+					{
+						builder.writeModuleImage(imagePath.toFile())
+					}
+					catch (e: IOException)
+					{
+						System.err.println(
+							"Could not write module image to $imagePath: "
+								+ e.localizedMessage)
+					}
+				}
+				if (profilePath !== null)
+				{
+					val profiler = runtime.samplingProfiler
+					profiler.stop()
+					System.out.append(profiler.report())
+					try
+					{
+						profilePath.toFile().writeText(
+							profiler.collapsedStacks())
+					}
+					catch (e: IOException)
+					{
+						System.err.println(
+							"Could not write samples to $profilePath: "
+								+ e.localizedMessage)
+					}
+				}
 
 				// Successful compilation.
 				if (configuration.reports.isNotEmpty())
@@ -44,6 +44,8 @@ import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.COMP
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.DOCUMENTATION_PATH
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.GENERATE_DOCUMENTATION
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.HELP
+import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.MODULE_IMAGE
+import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.PROFILE_PATH
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.QUIET
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.SHOW_STATISTICS
 import avail.tools.compiler.configuration.CommandLineConfigurator.OptionKey.TARGET_MODULE_NAME
@@ -132,6 +134,18 @@ class CommandLineConfigurator constructor(
 		 */
 		DOCUMENTATION_PATH,
 
+		/**
+		 * The option to sample Avail CPU time during compilation, and write
+		 * the samples as collapsed stacks.
+		 */
+		PROFILE_PATH,
+
+		/**
+		 * The option to take the serialized modules from a module image, and
+		 * to rewrite the image after a successful compilation.
+		 */
+		MODULE_IMAGE,
+
 		/**
 		 * The option to mute all output originating from user code.
 		 */
@@ -239,6 +253,43 @@ class CommandLineConfigurator constructor(
 						"$keyword: invalid path: ${e.localizedMessage}")
 				}
 			}
+			optionWithArgument(
+				PROFILE_PATH,
+				listOf("p", "profile"),
+				"Sample the Avail functions running during compilation, and "
+				+ "write the samples to the specified file as collapsed "
+				+ "stacks, suitable for generating a flame graph. A summary of "
+				+ "the samples is also printed. Requires -c.")
+			{
+				configuration.profilePath = try
+				{
+					Paths.get(argument)
+				}
+				catch (e: InvalidPathException)
+				{
+					throw OptionProcessingException(
+						"$keyword: invalid path: ${e.localizedMessage}")
+				}
+			}
+			optionWithArgument(
+				MODULE_IMAGE,
+				listOf("i", "moduleImage"),
+				"Take the serialized modules from the module image in the "
+				+ "specified file, wherever it is still current, instead of "
+				+ "reading them from the repositories. After a successful "
+				+ "compilation, rewrite the image with every loaded module. "
+				+ "Requires -c.")
+			{
+				configuration.moduleImagePath = try
+				{
+					Paths.get(argument)
+				}
+				catch (e: InvalidPathException)
+				{
+					throw OptionProcessingException(
+						"$keyword: invalid path: ${e.localizedMessage}")
+				}
+			}
 			option(
 				QUIET,
 				listOf("q", "quiet"),
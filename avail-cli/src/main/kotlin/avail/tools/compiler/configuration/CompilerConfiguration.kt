@@ -50,6 +50,7 @@ import java.io.IOException
 import java.io.Reader
 import java.io.StringReader
 import java.nio.charset.StandardCharsets.UTF_8
+import java.nio.file.Path
 import java.util.EnumSet
 import java.util.concurrent.Semaphore
 import java.util.concurrent.locks.ReentrantLock
@@ -185,6 +186,20 @@ class CompilerConfiguration constructor(private val fileManager: FileManager)
 	/** The Stacks documentation path. */
 	internal var documentationPath = StacksGenerator.defaultDocumentationPath
 
+	/**
+	 * The path to which samples of the running Avail functions should be
+	 * written as collapsed stacks, or `null` if compilation should not be
+	 * sampled.
+	 */
+	internal var profilePath: Path? = null
+
+	/**
+	 * The path of the module image from which to take serialized modules, and
+	 * which to rewrite after a successful compilation, or `null` if modules
+	 * should only be read from the repositories.
+	 */
+	internal var moduleImagePath: Path? = null
+
 	/**
 	 * `true` iff the compiler should mute all output originating from user
 	 * code. `false` by default.
@@ -48,6 +48,7 @@ import avail.descriptor.fiber.FiberDescriptor.ExecutionState
 import avail.descriptor.module.A_Module
 import avail.error.ErrorCodeRangeRegistry
 import avail.files.FileManager
+import avail.performance.MetricsExporter
 import avail.persistence.cache.Repository
 import avail.server.configuration.AvailServerConfiguration
 import avail.server.configuration.CommandLineConfigurator
@@ -86,6 +87,7 @@ import java.io.FileNotFoundException
 import java.io.IOException
 import java.net.InetSocketAddress
 import java.nio.ByteBuffer
+import java.nio.file.Paths
 import java.util.Collections.sort
 import java.util.Collections.synchronizedMap
 import java.util.TimerTask
@@ -1401,6 +1403,11 @@ class AvailServer constructor(
 			}
 			val runtime = AvailRuntime(resolver, fileManager)
 			val server = AvailServer(configuration, runtime, fileManager)
+			configuration.metricsPath?.let { path ->
+				MetricsExporter.startPeriodicSnapshots(
+					Paths.get(path),
+					configuration.metricsPeriodSeconds * 1000L)
+			}
 			try
 			{
 				if (configuration.startWebSocketAdapter)
@@ -126,6 +126,15 @@ class AvailServerConfiguration constructor(private val fileManager: FileManager)
 	/** The server port. */
 	var serverPort = 40000
 
+	/**
+	 * The path to the file to which metrics snapshots are periodically
+	 * written, or `null` if they should not be written.
+	 */
+	var metricsPath: String? = null
+
+	/** The number of seconds between metrics snapshots. */
+	var metricsPeriodSeconds = 60
+
 	/**
 	 * Answer the [module&#32;name&#32;resolver][ModuleNameResolver] correct for
 	 * the current configuration.
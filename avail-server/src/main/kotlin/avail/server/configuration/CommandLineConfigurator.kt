@@ -40,6 +40,8 @@ import avail.server.configuration.CommandLineConfigurator.OptionKey.AVAIL_RENAME
 import avail.server.configuration.CommandLineConfigurator.OptionKey.AVAIL_ROOTS
 import avail.server.configuration.CommandLineConfigurator.OptionKey.DOCUMENT_ROOT
 import avail.server.configuration.CommandLineConfigurator.OptionKey.HELP
+import avail.server.configuration.CommandLineConfigurator.OptionKey.METRICS_FILE
+import avail.server.configuration.CommandLineConfigurator.OptionKey.METRICS_PERIOD
 import avail.server.configuration.CommandLineConfigurator.OptionKey.SERVER_AUTHORITY
 import avail.server.configuration.CommandLineConfigurator.OptionKey.SERVER_PORT
 import avail.server.configuration.CommandLineConfigurator.OptionKey.WEB_SOCKET_ADAPTER
@@ -121,6 +123,17 @@ class CommandLineConfigurator constructor(
 		 */
 		DOCUMENT_ROOT,
 
+		/**
+		 * Specification of the file to which periodic metrics snapshots are
+		 * written.
+		 */
+		METRICS_FILE,
+
+		/**
+		 * Specification of the period between metrics snapshots.
+		 */
+		METRICS_PERIOD,
+
 		/**
 		 * Request display of help text.
 		 */
@@ -202,6 +215,34 @@ class CommandLineConfigurator constructor(
 				{
 					configuration.documentPath = argument
 				}
+			optionWithArgument(
+				METRICS_FILE,
+				listOf("metricsFile"),
+				"The path to a file to which a JSON snapshot of the runtime's "
+				+ "statistics is periodically written. Each snapshot replaces "
+				+ "the previous one, and covers all statistics recorded so "
+				+ "far. If not specified, then no snapshots are written.")
+				{
+					configuration.metricsPath = argument
+				}
+			optionWithArgument(
+				METRICS_PERIOD,
+				listOf("metricsPeriod"),
+				"The number of seconds between metrics snapshots. If not "
+				+ "specified, then the period defaults to 60 seconds.")
+				{
+					try
+					{
+						val seconds = Integer.parseInt(argument)
+						if (seconds <= 0) throw NumberFormatException()
+						configuration.metricsPeriodSeconds = seconds
+					}
+					catch (e: NumberFormatException)
+					{
+						throw OptionProcessingException(
+							"expected a positive integer", e)
+					}
+				}
 			helpOption(
 				HELP,
 				"The Avail server understands the following options: ",
@@ -36,8 +36,13 @@ import avail.server.AvailServer
 import avail.server.AvailServer.Companion.receiveMessageThen
 import avail.server.messages.Message
 import avail.utility.evaluation.Combinator.recurse
+import java.nio.ByteBuffer
 import java.util.Deque
 import java.util.LinkedList
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.min
 
 /**
  * An `AbstractTransportChannel` represents an abstract connection between an
@@ -69,26 +74,50 @@ abstract class AbstractTransportChannel<T> constructor(
 	open val heartbeat: Heartbeat = NoHeartbeat
 
 	/**
-	 * A [queue][Deque] of [messages][Message] awaiting transmission by the
-	 * [adapter][TransportAdapter].
+	 * A lock-free [queue][ConcurrentLinkedQueue] of [messages][Message]
+	 * awaiting transmission by the [adapter][TransportAdapter], in the order
+	 * in which they were [enqueued][enqueueMessageThen]. Any number of threads
+	 * may add to it, but only the thread that holds [transmitting] removes
+	 * from it.
 	 */
-	protected val sendQueue: Deque<Message> = LinkedList()
+	protected val sendQueue = ConcurrentLinkedQueue<Message>()
+
+	/**
+	 * The number of [messages][Message] that have been enqueued but not yet
+	 * transmitted. Those beyond [maximumSendQueueDepth] belong to paused
+	 * [senders].
+	 */
+	private val sendQueueDepth = AtomicInteger(0)
+
+	/**
+	 * Whether some thread is currently responsible for draining the
+	 * [sendQueue]. Only that thread may remove messages from it.
+	 */
+	private val transmitting = AtomicBoolean(false)
 
 	/**
 	 * Should the [channel][AbstractTransportChannel] close after emptying the
 	 * [message&#32;queue][sendQueue]?
 	 */
+	@Volatile
 	@Suppress("MemberVisibilityCanBePrivate")
 	protected var shouldCloseAfterEmptyingSendQueue = false
 
 	/**
-	 * A [queue][Deque] of [pairs][Pair] of [messages][Message] and
-	 * continuations, as supplied to calls of
-	 * [enqueueMessageThen][enqueueMessageThen]. The maximum depth of this queue
-	 * is proportional to the size of the I/O thread pool.
+	 * A [queue][ConcurrentLinkedQueue] of the continuations supplied to calls
+	 * of [enqueueMessageThen] whose messages did not fit within the
+	 * [maximumSendQueueDepth]. Each is run once enough earlier messages have
+	 * been transmitted. The maximum depth of this queue is proportional to the
+	 * size of the I/O thread pool.
 	 */
 	@Suppress("MemberVisibilityCanBePrivate")
-	protected val senders: Deque<Pair<Message, ()->Unit>> = LinkedList()
+	protected val senders = ConcurrentLinkedQueue<()->Unit>()
+
+	/**
+	 * The number of paused [senders] that transmission has made room for but
+	 * that have not yet been resumed.
+	 */
+	private val sendersToResume = AtomicInteger(0)
 
 	/**
 	 * A [queue][Deque] of [messages][Message] awaiting processing by the
@@ -97,6 +126,25 @@ abstract class AbstractTransportChannel<T> constructor(
 	@Suppress("MemberVisibilityCanBePrivate")
 	protected val receiveQueue: Deque<Message> = LinkedList()
 
+	/**
+	 * A small direct buffer for reading the fixed-size fields that frame each
+	 * incoming [message][Message]. Reads from a transport never overlap, so
+	 * one buffer per channel suffices.
+	 */
+	private val headerBuffer = ByteBuffer.allocateDirect(8)
+
+	/**
+	 * Answer this channel's [headerBuffer], cleared and limited to the given
+	 * size. Only the current reader of the transport may use it.
+	 *
+	 * @param size
+	 *   The number of bytes to read, at most 8.
+	 * @return
+	 *   The buffer.
+	 */
+	internal fun headerBuffer(size: Int): ByteBuffer =
+		headerBuffer.clear().limit(size)
+
 	/**
 	 * The [TransportAdapter] that created this
 	 * [channel][AbstractTransportChannel].
@@ -124,6 +172,12 @@ abstract class AbstractTransportChannel<T> constructor(
 	/** The maximum send queue depth for the message queue. */
 	protected abstract val maximumSendQueueDepth: Int
 
+	/**
+	 * The maximum number of [messages][Message] to hand to the
+	 * [adapter][TransportAdapter] for a single write.
+	 */
+	protected open val maximumSendBatchSize: Int get() = 32
+
 	override fun closeImmediately(reason: DisconnectReason)
 	{
 		channelCloseHandler.reason = reason
@@ -140,116 +194,154 @@ abstract class AbstractTransportChannel<T> constructor(
 	}
 
 	/**
-	 * Begin transmission of the enqueued messages, starting with the specified
-	 * [message][Message]. The argument must be the first message in the message
-	 * queue.
-	 *
-	 * @param message
-	 *   The first message in the message queue (still enqueued).
+	 * Transmit the enqueued messages until the [sendQueue] is empty. The
+	 * caller must have acquired [transmitting]. Each round drains up to
+	 * [maximumSendBatchSize] messages and hands them to the
+	 * [adapter][TransportAdapter] together, so that they can be written to
+	 * the transport with a single gathering write.
 	 */
 	@Suppress("MemberVisibilityCanBePrivate")
-	protected fun beginTransmission(message: Message)
+	protected fun beginTransmission()
 	{
 		val adapter = adapter
-		adapter.sendUserData(
-			this,
-			message,
-			success = {
-				recurse { sendMore ->
-					val nextMessage: Message?
-					val pair: Pair<Message, ()->Unit>?
-					synchronized(sendQueue) {
-						// The message remains on the queue during transmission
-						// (in order to simplify the execution model). Remove it
-						// *after* transmission completes.
-						val sentMessage = sendQueue.removeFirst()
-						if (sentMessage.closeAfterSending)
-						{
-							adapter.sendClose(this, ServerMessageDisconnect)
-							return@recurse
-						}
-						// Remove the oldest sender, but release the monitor
-						// before evaluating it.
-						pair = senders.pollFirst()
-						if (pair !== null)
-						{
-							sendQueue.addLast(pair.first)
-						}
-						nextMessage = sendQueue.peekFirst()
-						assert(sendQueue.size <= maximumSendQueueDepth)
-					}
-					// Begin transmission of the next message.
-					if (nextMessage !== null)
+		recurse { sendMore ->
+			val batch = mutableListOf<Message>()
+			while (batch.size < maximumSendBatchSize)
+			{
+				val message = sendQueue.poll() ?: break
+				batch.add(message)
+				// Nothing may be sent after a message that closes the channel.
+				if (message.closeAfterSending) break
+			}
+			if (batch.isEmpty())
+			{
+				// If a close is in progress, but awaiting the queue to empty,
+				// then finish the close. Otherwise, relinquish transmission,
+				// then reclaim it if a message or close request arrived in the
+				// meantime.
+				if (shouldCloseAfterEmptyingSendQueue)
+				{
+					adapter.sendClose(this)
+					return@recurse
+				}
+				transmitting.set(false)
+				val reclaim = sendQueue.isNotEmpty()
+					|| shouldCloseAfterEmptyingSendQueue
+				if (reclaim && transmitting.compareAndSet(false, true))
+				{
+					sendMore()
+				}
+				return@recurse
+			}
+			adapter.sendUserData(
+				this,
+				batch,
+				success = {
+					if (batch.last().closeAfterSending)
 					{
-						adapter.sendUserData(this, nextMessage, sendMore, { })
+						adapter.sendClose(this, ServerMessageDisconnect)
 					}
 					else
 					{
-						synchronized(sendQueue) {
-							// If a close is in progress, but awaiting the queue
-							// to empty, then finish the close.
-							if (shouldCloseAfterEmptyingSendQueue)
-							{
-								adapter.sendClose(this)
-								return@recurse
-							}
+						// Make room for as many paused senders as messages
+						// were transmitted, then proceed them.
+						val depth = sendQueueDepth.getAndAdd(-batch.size)
+						val paused = depth - maximumSendQueueDepth
+						if (paused > 0)
+						{
+							sendersToResume.addAndGet(min(paused, batch.size))
+							resumeSenders()
 						}
+						sendMore()
 					}
-					// Proceed the paused client.
-					pair?.second?.invoke()
-				}
-			},
-			failure = {  })
+				},
+				failure = { })
+		}
+	}
+
+	/**
+	 * Resume as many paused [senders] as [sendersToResume] permits. Both the
+	 * transmitting thread and newly paused senders call this, since a sender
+	 * may be granted room before it has finished pausing.
+	 */
+	private fun resumeSenders()
+	{
+		while (true)
+		{
+			if (sendersToResume.getAndDecrement() <= 0)
+			{
+				sendersToResume.incrementAndGet()
+				return
+			}
+			val sender = senders.poll()
+			if (sender === null)
+			{
+				// Give back the permit, but look again in case a sender paused
+				// after the poll but before it could see the permit.
+				sendersToResume.incrementAndGet()
+				if (senders.isEmpty()) return
+				continue
+			}
+			sender()
+		}
 	}
 
 	override fun enqueueMessageThen(
 		message: Message,
 		enqueueSucceeded: ()->Unit)
 	{
-		val beginTransmitting: Boolean
-		val invokeContinuationNow: Boolean
-		val maxQueueDepth = maximumSendQueueDepth
-		synchronized(sendQueue) {
-			val size = sendQueue.size
-			// On the transition from empty to nonempty, begin consuming the
-			// message queue.
-			when
-			{
-				size == 0 ->
-				{
-					// If there is no room available on the message queue, then
-					// pause the client until room becomes available.
-					sendQueue.addLast(message)
-					beginTransmitting = true
-					invokeContinuationNow = true
-				}
-				size < maxQueueDepth ->
-				{
-					// If the queue is nonempty and there is room available on
-					// the message queue, then simply enqueue the message.
-					sendQueue.addLast(message)
-					beginTransmitting = false
-					invokeContinuationNow = true
-				}
-				else ->
-				{
-					assert(size == maxQueueDepth)
-					senders.addLast(message to enqueueSucceeded)
-					beginTransmitting = false
-					invokeContinuationNow = false
-				}
-			}
+		// The message itself is always enqueued immediately, preserving the
+		// order of messages. If there is no room available on the message
+		// queue, then pause the client until room becomes available.
+		val hasRoom =
+			sendQueueDepth.incrementAndGet() <= maximumSendQueueDepth
+		if (!hasRoom)
+		{
+			senders.add(enqueueSucceeded)
 		}
-		// Initiate the asynchronous transmission "loop".
-		if (beginTransmitting)
+		sendQueue.add(message)
+		// On the transition from idle to busy, initiate the asynchronous
+		// transmission "loop".
+		if (transmitting.compareAndSet(false, true))
 		{
-			beginTransmission(message)
+			beginTransmission()
 		}
-		// Run the supplied continuation to proceed the execution of the client.
-		if (invokeContinuationNow)
+		// Run the supplied continuation to proceed the execution of the
+		// client, or see whether room was made before it paused.
+		if (hasRoom)
 		{
 			enqueueSucceeded()
 		}
+		else
+		{
+			resumeSenders()
+		}
+	}
+
+	/**
+	 * Close this channel politely once every enqueued [message][Message] has
+	 * been transmitted, or right away if none are pending.
+	 *
+	 * @param reason
+	 *   The [DisconnectReason] for the close.
+	 */
+	protected fun closeAfterEmptyingSendQueue(reason: DisconnectReason)
+	{
+		channelCloseHandler.reason = reason
+		shouldCloseAfterEmptyingSendQueue = true
+		if (transmitting.compareAndSet(false, true))
+		{
+			if (sendQueue.isEmpty())
+			{
+				adapter.sendClose(this, reason)
+			}
+			else
+			{
+				beginTransmission()
+			}
+		}
+		// Otherwise the transmitting thread will notice the request once it
+		// empties the queue.
 	}
 
 	/** The maximum receive queue depth for the message queue. */
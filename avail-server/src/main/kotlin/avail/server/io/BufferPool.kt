@@ -0,0 +1,307 @@
+/*
+ * BufferPool.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.server.io
+
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.min
+
+/**
+ * A `BufferPool` recycles [direct][ByteBuffer.allocateDirect] [ByteBuffer]s of
+ * a single size, so that the server's transports can stage outgoing data in
+ * native memory without allocating (and later cleaning up) a fresh direct
+ * buffer for every message.
+ *
+ * Outgoing frames are [staged][Batch.add] in a [Batch], which packs them
+ * contiguously, spilling into as many buffers as necessary.  The buffers are
+ * meant to be written with a single gathering write and then
+ * [released][release] back to the pool.  When no idle buffer is available
+ * and the data still to be staged is small, a heap buffer of
+ * [smallBufferSize] is used instead of allocating another direct buffer; it
+ * isn't retained by the pool.
+ *
+ * @property bufferSize
+ *   The capacity of each pooled buffer.
+ * @property maximumPooled
+ *   The maximum number of idle buffers to retain.
+ * @property smallBufferSize
+ *   The capacity of the heap buffers used for small amounts of data when the
+ *   pool is empty.  It must not exceed [bufferSize].
+ *
+ * @constructor
+ * Construct a [BufferPool].
+ *
+ * @param bufferSize
+ *   The capacity of each pooled buffer.
+ * @param maximumPooled
+ *   The maximum number of idle buffers to retain.
+ * @param smallBufferSize
+ *   The capacity of the heap buffers used for small amounts of data when the
+ *   pool is empty.
+ */
+internal class BufferPool constructor(
+	val bufferSize: Int,
+	private val maximumPooled: Int,
+	val smallBufferSize: Int = min(bufferSize, 1 shl 12))
+{
+	init
+	{
+		assert(smallBufferSize in 1 .. bufferSize)
+	}
+
+	/** The idle buffers. */
+	private val idle = ConcurrentLinkedQueue<ByteBuffer>()
+
+	/** The number of [idle] buffers, maintained separately for speed. */
+	private val idleCount = AtomicInteger(0)
+
+	/** The number of buffers currently idle in this pool. */
+	val idleBuffers: Int get() = idleCount.get()
+
+	/**
+	 * Answer an empty buffer of [bufferSize], reusing an idle one if
+	 * possible.
+	 *
+	 * @return
+	 *   A cleared direct buffer.
+	 */
+	fun acquire(): ByteBuffer
+	{
+		val buffer = idle.poll() ?: return ByteBuffer.allocateDirect(bufferSize)
+		idleCount.decrementAndGet()
+		return buffer.clear()
+	}
+
+	/**
+	 * Answer an empty buffer into which to stage the given number of bytes,
+	 * reusing an idle one if possible.  If the pool is empty and the bytes fit
+	 * in a heap buffer of [smallBufferSize], answer a new one of those rather
+	 * than allocating a direct buffer.
+	 *
+	 * @param needed
+	 *   The number of bytes that remain to be staged.
+	 * @return
+	 *   A cleared buffer.
+	 */
+	private fun acquireFor(needed: Int): ByteBuffer
+	{
+		val buffer = idle.poll()
+		return when
+		{
+			buffer !== null ->
+			{
+				idleCount.decrementAndGet()
+				buffer.clear()
+			}
+			needed <= smallBufferSize -> ByteBuffer.allocate(smallBufferSize)
+			else -> ByteBuffer.allocateDirect(bufferSize)
+		}
+	}
+
+	/**
+	 * Return buffers obtained from this pool. The caller must not use them
+	 * afterward. Buffers that did not come from this pool, including the heap
+	 * buffers used for small data, are ignored.
+	 *
+	 * @param buffers
+	 *   The buffers to release.
+	 */
+	fun release(buffers: Array<ByteBuffer>)
+	{
+		for (buffer in buffers)
+		{
+			if (!buffer.isDirect || buffer.capacity() != bufferSize) continue
+			if (idleCount.incrementAndGet() > maximumPooled)
+			{
+				idleCount.decrementAndGet()
+				return
+			}
+			idle.add(buffer)
+		}
+	}
+
+	/**
+	 * A `Batch` packs a sequence of frames, each a header followed by a
+	 * payload, contiguously into buffers from its [BufferPool].  A header is
+	 * never split across buffers, but a payload may be.  A `Batch` is not
+	 * thread-safe.
+	 */
+	inner class Batch
+	{
+		/** The buffers staged so far, the last of which is being filled. */
+		private val buffers = mutableListOf<ByteBuffer>()
+
+		/**
+		 * Answer the buffer being filled if it has room for at least the given
+		 * number of bytes, otherwise start filling a new one.
+		 *
+		 * @param minimum
+		 *   The number of bytes that must fit in the buffer.
+		 * @param needed
+		 *   The number of bytes that remain to be staged for the current
+		 *   frame.
+		 * @return
+		 *   The buffer to fill.
+		 */
+		private fun bufferWithRoom(minimum: Int, needed: Int): ByteBuffer
+		{
+			val current = buffers.lastOrNull()
+			if (current !== null && current.remaining() >= minimum)
+			{
+				return current
+			}
+			return acquireFor(needed).also { buffers.add(it) }
+		}
+
+		/**
+		 * Copy a header and a payload after the frames already in this batch.
+		 *
+		 * @param headerSize
+		 *   The number of bytes that `header` will write; it must not exceed
+		 *   [smallBufferSize].
+		 * @param header
+		 *   What to do to write the header into a buffer.
+		 * @param payload
+		 *   The payload to copy after the header, from its position to its
+		 *   limit.  Its position is not changed.
+		 * @param transform
+		 *   What to do to each copied payload byte, given its index within the
+		 *   payload; by default, nothing.
+		 */
+		fun add(
+			headerSize: Int,
+			header: (ByteBuffer)->Unit,
+			payload: ByteBuffer,
+			transform: ((Byte, Int)->Byte)? = null)
+		{
+			assert(headerSize <= smallBufferSize)
+			val source = payload.duplicate()
+			var buffer = bufferWithRoom(
+				headerSize, headerSize + source.remaining())
+			val headerStart = buffer.position()
+			header(buffer)
+			assert(buffer.position() == headerStart + headerSize)
+			var index = 0
+			while (source.hasRemaining())
+			{
+				if (!buffer.hasRemaining())
+				{
+					buffer = bufferWithRoom(1, source.remaining())
+				}
+				val end = source.position() + min(
+					source.remaining(), buffer.remaining())
+				if (transform === null)
+				{
+					val slice = source.duplicate().limit(end)
+					buffer.put(slice)
+					source.position(end)
+				}
+				else
+				{
+					while (source.position() < end)
+					{
+						buffer.put(transform(source.get(), index++))
+					}
+				}
+			}
+		}
+
+		/**
+		 * Finish staging.  The batch must not be used afterward.
+		 *
+		 * @return
+		 *   The buffers, each flipped and ready to be written, in order.
+		 */
+		fun finish(): Array<ByteBuffer> =
+			Array(buffers.size) { buffers[it].flip() }
+	}
+
+	/**
+	 * Copy a header and a payload into as many buffers as necessary.  This
+	 * is a [Batch] with a single frame.
+	 *
+	 * @param headerSize
+	 *   The number of bytes that `header` will write; it must not exceed
+	 *   [smallBufferSize].
+	 * @param header
+	 *   What to do to write the header into the first buffer.
+	 * @param payload
+	 *   The payload to copy after the header, from its position to its limit.
+	 *   Its position is not changed.
+	 * @param transform
+	 *   What to do to each copied payload byte, given its index within the
+	 *   payload; by default, nothing.
+	 * @return
+	 *   The buffers, each flipped and ready to be written.
+	 */
+	fun stage(
+		headerSize: Int,
+		header: (ByteBuffer)->Unit,
+		payload: ByteBuffer,
+		transform: ((Byte, Int)->Byte)? = null
+	): Array<ByteBuffer> =
+		Batch().apply { add(headerSize, header, payload, transform) }.finish()
+
+	/**
+	 * Answer a function that [releases][release] the given buffers the first
+	 * time it is invoked and does nothing thereafter. This suits completion
+	 * paths that might be reached more than once.
+	 *
+	 * @param buffers
+	 *   The buffers to release.
+	 * @return
+	 *   The releasing function.
+	 */
+	fun releaserOf(buffers: Array<ByteBuffer>): ()->Unit
+	{
+		val released = AtomicBoolean(false)
+		return {
+			if (released.compareAndSet(false, true))
+			{
+				release(buffers)
+			}
+		}
+	}
+
+	companion object
+	{
+		/**
+		 * The pool shared by all server transports. Its buffers are large
+		 * enough that a typical batch of messages needs only one, and at most
+		 * 16MiB is retained while idle.
+		 */
+		val shared = BufferPool(1 shl 16, 256)
+	}
+}
@@ -35,6 +35,7 @@ package avail.server.io
 import avail.io.SimpleCompletionHandler
 import avail.server.AvailServer
 import avail.server.AvailServer.Companion.logger
+import avail.server.io.TransportAdapter.Companion.writeFully
 import avail.server.messages.Message
 import avail.utility.IO
 import java.io.IOException
@@ -146,7 +147,7 @@ class SocketAdapter @Throws(IOException::class) constructor(
 	{
 		val strongChannel = channel as SocketChannel
 		val transport = strongChannel.transport
-		val buffer = ByteBuffer.allocateDirect(4)
+		val buffer = strongChannel.headerBuffer(4)
 		SimpleCompletionHandler<Int>(
 			{
 				if (remoteEndClosed(transport, value))
@@ -204,36 +205,43 @@ class SocketAdapter @Throws(IOException::class) constructor(
 		channel: AbstractTransportChannel<AsynchronousSocketChannel>,
 		payload: Message,
 		success: ()->Unit,
+		failure: (Throwable)->Unit
+	) = sendUserData(channel, listOf(payload), success, failure)
+
+	override fun sendUserData(
+		channel: AbstractTransportChannel<AsynchronousSocketChannel>,
+		payloads: List<Message>,
+		success: ()->Unit,
 		failure: (Throwable)->Unit)
 	{
 		val strongChannel = channel as SocketChannel
-		val content = StandardCharsets.UTF_8.encode(payload.stringContent)
-		// Append the size prefix onto the output buffer.
-		val buffer = ByteBuffer.allocateDirect(content.limit() + 4)
-		buffer.putInt(content.limit())
-		buffer.put(content)
-		buffer.rewind()
-		val transport = strongChannel.transport
-		SimpleCompletionHandler<Int>(
-			{
-				if (buffer.hasRemaining())
-				{
-					handler.guardedDo {
-						transport.write(buffer, Unit, handler)
-					}
-				}
-				else success()
-			},
+		// The content is already encoded as UTF-8, so stage it after its size
+		// prefix.  Pack all the messages together.
+		val batch = pool.Batch()
+		payloads.forEach {
+			val content = it.content
+			batch.add(4, { buffer -> buffer.putInt(content.size) },
+				ByteBuffer.wrap(content))
+		}
+		val buffers = batch.finish()
+		val release = pool.releaserOf(buffers)
+		writeFully(
+			strongChannel.transport,
+			buffers,
 			{
-				logger.log(
-					Level.WARNING,
-					"failed while attempting to send message",
-					throwable)
-				strongChannel.closeImmediately(
-					CommunicationErrorDisconnect(throwable))
-				failure(throwable)
+				release()
+				success()
 			}
-		).guardedDo { transport.write(buffer, Unit, handler) }
+		) { throwable ->
+			release()
+			logger.log(
+				Level.WARNING,
+				"failed while attempting to send message",
+				throwable)
+			strongChannel.closeImmediately(
+				CommunicationErrorDisconnect(throwable))
+			failure(throwable)
+		}
 	}
 
 	override fun sendClose(
@@ -325,6 +333,12 @@ class SocketAdapter @Throws(IOException::class) constructor(
 
 	companion object
 	{
+		/**
+		 * The [BufferPool] from which outgoing [messages][Message] are
+		 * staged.
+		 */
+		private val pool = BufferPool.shared
+
 		/**
 		 * Answer whether the remote end of the
 		 * [transport][AsynchronousSocketChannel] closed. If it did, then log
@@ -83,17 +83,7 @@ internal class SocketChannel constructor(
 
 	override fun scheduleClose(reason: DisconnectReason)
 	{
-		synchronized(sendQueue) {
-			if (!sendQueue.isEmpty())
-			{
-				shouldCloseAfterEmptyingSendQueue = true
-				channelCloseHandler.reason = reason
-			}
-			else
-			{
-				adapter.sendClose(this, reason)
-			}
-		}
+		closeAfterEmptyingSendQueue(reason)
 	}
 
 	companion object
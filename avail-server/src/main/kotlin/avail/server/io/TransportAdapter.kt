@@ -32,8 +32,11 @@
 
 package avail.server.io
 
+import avail.io.SimpleCompletionHandler
 import avail.server.AvailServer
 import avail.server.messages.Message
+import java.nio.ByteBuffer
+import java.nio.channels.AsynchronousSocketChannel
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
@@ -83,6 +86,26 @@ interface TransportAdapter<T> : AutoCloseable
 		success: ()->Unit,
 		failure: (Throwable)->Unit)
 
+	/**
+	 * Send several [messages][Message] bearing user data over the specified
+	 * [channel][AbstractTransportChannel], in order, ideally with a single
+	 * gathering write.
+	 *
+	 * @param channel
+	 *   A channel.
+	 * @param payloads
+	 *   The payloads.
+	 * @param success
+	 *   What to do after sending all of the messages.
+	 * @param failure
+	 *   What to do if sending the messages fails.
+	 */
+	fun sendUserData(
+		channel: AbstractTransportChannel<T>,
+		payloads: List<Message>,
+		success: ()->Unit,
+		failure: (Throwable)->Unit)
+
 	/**
 	 * Send a polite close notification across the given
 	 * [channel][AbstractTransportChannel].
@@ -136,4 +159,62 @@ interface TransportAdapter<T> : AutoCloseable
 	 */
 	fun millisTimer (task: Long, action: () -> Unit): ScheduledFuture<*> =
 		timer.schedule(action, task, TimeUnit.MILLISECONDS)
+
+	companion object
+	{
+		/**
+		 * Write the given buffers to the transport in order, using gathering
+		 * writes until every buffer has been drained.
+		 *
+		 * @param transport
+		 *   The [AsynchronousSocketChannel] to write to.
+		 * @param buffers
+		 *   The [ByteBuffer]s to write, each ready for reading.
+		 * @param success
+		 *   What to do after every buffer has been written.
+		 * @param failure
+		 *   What to do if a write fails.
+		 */
+		internal fun writeFully(
+			transport: AsynchronousSocketChannel,
+			buffers: Array<ByteBuffer>,
+			success: ()->Unit,
+			failure: (Throwable)->Unit)
+		{
+			var first = 0
+			SimpleCompletionHandler<Long>(
+				{
+					while (first < buffers.size
+						&& !buffers[first].hasRemaining())
+					{
+						first++
+					}
+					if (first < buffers.size)
+					{
+						handler.guardedDo {
+							transport.write(
+								buffers,
+								first,
+								buffers.size - first,
+								0L,
+								TimeUnit.MILLISECONDS,
+								Unit,
+								handler)
+						}
+					}
+					else success()
+				},
+				{ failure(throwable) }
+			).guardedDo {
+				transport.write(
+					buffers,
+					0,
+					buffers.size,
+					0L,
+					TimeUnit.MILLISECONDS,
+					Unit,
+					handler)
+			}
+		}
+	}
 }
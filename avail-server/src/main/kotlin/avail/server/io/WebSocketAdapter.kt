@@ -35,8 +35,10 @@
 package avail.server.io
 
 import avail.io.SimpleCompletionHandler
+import avail.performance.MetricsExporter
 import avail.server.AvailServer
 import avail.server.AvailServer.Companion.logger
+import avail.server.io.TransportAdapter.Companion.writeFully
 import avail.server.messages.Message
 import avail.utility.IO
 import avail.utility.evaluation.Combinator.recurse
@@ -282,6 +284,9 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 		/** Switching protocols. */
 		SWITCHING_PROTOCOLS(101),
 
+		/** OK. */
+		OK(200),
+
 		/** Bad request. */
 		BAD_REQUEST(400),
 
@@ -379,6 +384,46 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 				).guardedDo { transport.write(bytes, Unit, handler) }
 			}
 
+			/**
+			 * Write a successful HTTP response with the given content to the
+			 * specified [channel][WebSocketChannel], and then close it.
+			 *
+			 * @param channel
+			 *   A channel.
+			 * @param contentType
+			 *   The value of the `Content-Type` header.
+			 * @param content
+			 *   The response body, which is encoded as UTF-8.
+			 */
+			internal fun respond(
+				channel: WebSocketChannel,
+				contentType: String,
+				content: String)
+			{
+				val body = StandardCharsets.UTF_8.encode(content)
+				val header = StandardCharsets.US_ASCII.encode(
+					String.format(
+						"HTTP/1.1 %03d OK\r\n"
+							+ "Content-Type: %s\r\n"
+							+ "Content-Length: %d\r\n"
+							+ "Connection: close\r\n\r\n",
+						HttpStatusCode.OK.statusCode,
+						contentType,
+						body.remaining()))
+				writeFully(
+					channel.transport,
+					arrayOf(header, body),
+					{ channel.scheduleClose(ServerMessageDisconnect) },
+					{ throwable ->
+						logger.log(
+							Level.WARNING,
+							"unable to write HTTP response to $channel",
+							throwable)
+						channel.closeImmediately(
+							CommunicationErrorDisconnect(throwable))
+					})
+			}
+
 			/**
 			 * Answer the parsed [request][ClientRequest]. If the headers do not
 			 * describe a valid request, then
@@ -971,6 +1016,14 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 					}
 				}
 			}
+			else if (request.uri.substringBefore('?') == "/metrics")
+			{
+				// Publish the runtime's statistics for Prometheus.
+				ClientRequest.respond(
+					channel,
+					"text/plain; version=0.0.4; charset=utf-8",
+					MetricsExporter.prometheusText())
+			}
 			else
 			{
 				ClientRequest.badRequest(
@@ -1155,31 +1208,30 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 		/** The length of the payload. */
 		var payloadLength: Long = 0
 
-		/** The masking key (valid only if [isMasked] is `true`). */
-		var maskingKey: ByteBuffer? = null
+		/**
+		 * The masking key, most significant byte first (valid only if
+		 * [isMasked] is `true`).
+		 */
+		var maskingKey: Int = 0
 
 		/**
-		 * The payload. This must not be
-		 * [allocated&#32;directly][ByteBuffer.allocateDirect], as access to the
-		 * [backing&#32;array][ByteBuffer.array] is required.
+		 * The payload. When received, it is backed by an array of exactly
+		 * [payloadLength] bytes, which may be used directly.
 		 */
 		var payloadData: ByteBuffer? = null
 
 		/**
-		 * Answer a [buffer][ByteBuffer] that encodes the WebSocket
-		 * [frame][Frame].
+		 * Encode the WebSocket [frame][Frame] after those already in the given
+		 * [batch][BufferPool.Batch].
 		 *
-		 * @return
-		 *   A buffer.
+		 * @param batch
+		 *   The `Batch` into which to stage the frame.
 		 */
-		fun asByteBuffer(): ByteBuffer
+		fun encodeInto(batch: BufferPool.Batch)
 		{
 			assert(opcode!!.isValid)
-			assert(payloadLength == payloadData!!.limit().toLong())
-			var len = payloadLength.toInt()
-			assert(len.toLong() == payloadLength)
-			// Compute the length of the entire frame.
-			len += 2
+			val payload = payloadData!!
+			assert(payloadLength == payload.limit().toLong())
 			val ext =
 				when
 				{
@@ -1187,46 +1239,38 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 					payloadLength < 65536 -> 2
 					else -> 8
 				}
-			len += ext
-			len += if (isMasked) 4 else 0
-			val buffer = ByteBuffer.allocateDirect(len)
-			buffer.put(
-				((if (isFinalFragment) 0x80 else 0x00)
-					or opcode!!.ordinal).toByte())
-			buffer.put(
-				((if (isMasked) 0x80 else 0x00)
-					or when
-					{
-						payloadLength < 126 -> payloadLength.toInt()
-						payloadLength < 65536 -> 126
-						else -> 127
-					}).toByte())
-			when (ext)
-			{
-				2 -> buffer.putShort(payloadLength.toShort())
-				8 -> buffer.putLong(payloadLength)
-				else -> {}
-			}
-			val payload = payloadData!!
+			val headerSize = 2 + ext + if (isMasked) 4 else 0
+			val mask = maskingKey
+			val transform: ((Byte, Int)->Byte)? =
+				if (isMasked) ({ b, i -> b xor maskByte(mask, i) }) else null
 			payload.rewind()
-			if (isMasked)
-			{
-				val mask = maskingKey!!
-				buffer.put(mask)
-				mask.rewind()
-				for (i in 0 until payloadLength.toInt())
-				{
-					val j = i and 3
-					buffer.put((payload.get(i) xor mask.get(j)))
-				}
-			}
-			else
-			{
-				buffer.put(payload)
-			}
-			assert(!buffer.hasRemaining())
-			buffer.rewind()
-			return buffer
+			batch.add(
+				headerSize,
+				{ buffer ->
+					buffer.put(
+						((if (isFinalFragment) 0x80 else 0x00)
+							or opcode!!.ordinal).toByte())
+					buffer.put(
+						((if (isMasked) 0x80 else 0x00)
+							or when
+							{
+								payloadLength < 126 -> payloadLength.toInt()
+								payloadLength < 65536 -> 126
+								else -> 127
+							}).toByte())
+					when (ext)
+					{
+						2 -> buffer.putShort(payloadLength.toShort())
+						8 -> buffer.putLong(payloadLength)
+						else -> {}
+					}
+					if (isMasked)
+					{
+						buffer.putInt(mask)
+					}
+				},
+				payload,
+				transform)
 		}
 	}
 
@@ -1241,22 +1285,30 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 		channel: AbstractTransportChannel<AsynchronousSocketChannel>)
 	{
 		val strongChannel = channel as WebSocketChannel
-		val bytes = ByteArrayOutputStream(1024)
+		// The payloads of the frames of the message. The payload of a
+		// message that arrives in a single frame is used without copying.
+		val fragments = mutableListOf<ByteArray>()
 		val processMessage = {
-			val message = Message(bytes.toByteArray(), strongChannel.state)
+			val content = when (fragments.size)
+			{
+				1 -> fragments[0]
+				else ->
+				{
+					val joined = ByteArray(fragments.sumOf { it.size })
+					var position = 0
+					fragments.forEach {
+						it.copyInto(joined, position)
+						position += it.size
+					}
+					joined
+				}
+			}
+			val message = Message(content, strongChannel.state)
 			strongChannel.receiveMessage(message)
 		}
 		recurse { readFrame ->
 			readFrameThen(strongChannel) { frame ->
-				try
-				{
-					bytes.write(frame.payloadData!!.array())
-				}
-				catch (e: IOException)
-				{
-					assert(false) { "This never happens!" }
-					throw RuntimeException(e)
-				}
+				fragments.add(frame.payloadData!!.array())
 				when (val opcode = frame.opcode!!)
 				{
 					Opcode.CONTINUATION ->
@@ -1324,7 +1376,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 						else
 						{
 							channel.heartbeat.receiveHeartbeat()
-							sendPong(strongChannel, bytes.toByteArray())
+							sendPong(strongChannel, fragments[0])
 						}
 						readMessage(strongChannel)
 						return@readFrameThen
@@ -1364,16 +1416,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 				else
 				{
 					readFrameThen(strongChannel) { continuationFrame ->
-						try
-						{
-							bytes.write(continuationFrame.payloadData!!.array())
-						}
-						catch (e: IOException)
-						{
-							assert(false) { "This never happens!" }
-							throw RuntimeException(e)
-						}
-
+						fragments.add(continuationFrame.payloadData!!.array())
 						if (continuationFrame.opcode !== Opcode.CONTINUATION)
 						{
 							fail(
@@ -1414,23 +1457,56 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 		channel: AbstractTransportChannel<AsynchronousSocketChannel>,
 		payload: Message,
 		success: ()->Unit,
+		failure: (Throwable)->Unit
+	) = sendUserData(channel, listOf(payload), success, failure)
+
+	/**
+	 * Send a [frame][Frame] bearing user data for each of the given payloads
+	 * over the specified [channel][WebSocketChannel], writing all of the
+	 * frames with gathering writes.
+	 *
+	 * @param channel
+	 *   A channel.
+	 * @param payloads
+	 *   The payloads.
+	 * @param success
+	 *   What to do after sending the frames.
+	 * @param failure
+	 *   What to do if sending the frames fails.
+	 */
+	override fun sendUserData(
+		channel: AbstractTransportChannel<AsynchronousSocketChannel>,
+		payloads: List<Message>,
+		success: ()->Unit,
 		failure: (Throwable)->Unit)
 	{
 		val strongChannel = channel as WebSocketChannel
-		if (strongChannel.state.generalBinary)
-		{
-			sendFrame(
-				strongChannel,
-				Opcode.BINARY,
-				ByteBuffer.wrap(payload.content),
-				success,
-				failure)
+		// The content of a text message is already encoded as UTF-8.
+		val opcode =
+			if (strongChannel.state.generalBinary) Opcode.BINARY
+			else Opcode.TEXT
+		val batch = pool.Batch()
+		payloads.forEach {
+			stageFrame(batch, opcode, ByteBuffer.wrap(it.content))
 		}
-		else
-		{
-			val content = payload.stringContent
-			val buffer = StandardCharsets.UTF_8.encode(content)
-			sendFrame(strongChannel, Opcode.TEXT, buffer, success, failure)
+		val buffers = batch.finish()
+		val release = pool.releaserOf(buffers)
+		writeFully(
+			strongChannel.transport,
+			buffers,
+			{
+				release()
+				success()
+			}
+		) { throwable ->
+			release()
+			logger.log(
+				Level.WARNING,
+				"failed while attempting to send user data",
+				throwable)
+			strongChannel.closeImmediately(
+				CommunicationErrorDisconnect(throwable))
+			failure(throwable)
 		}
 	}
 
@@ -1599,7 +1675,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			frame: Frame,
 			continuation: ()->Unit)
 		{
-			val buffer = ByteBuffer.allocateDirect(1)
+			val buffer = channel.headerBuffer(1)
 			val transport = channel.transport
 			SimpleCompletionHandler<Int>(
 				{
@@ -1649,7 +1725,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			frame: Frame,
 			continuation: ()->Unit)
 		{
-			val buffer = ByteBuffer.allocateDirect(1)
+			val buffer = channel.headerBuffer(1)
 			val transport = channel.transport
 			SimpleCompletionHandler<Int>(
 				{
@@ -1718,7 +1794,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			frame: Frame,
 			continuation: ()->Unit)
 		{
-			val buffer = ByteBuffer.allocateDirect(2)
+			val buffer = channel.headerBuffer(2)
 			val transport = channel.transport
 			SimpleCompletionHandler<Int>(
 				{
@@ -1787,7 +1863,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			frame: Frame,
 			continuation: ()->Unit)
 		{
-			val buffer = ByteBuffer.allocateDirect(8)
+			val buffer = channel.headerBuffer(8)
 			val transport = channel.transport
 			SimpleCompletionHandler<Int>(
 				{
@@ -1868,7 +1944,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			frame: Frame,
 			continuation: ()->Unit)
 		{
-			val buffer = ByteBuffer.allocateDirect(4)
+			val buffer = channel.headerBuffer(4)
 			val transport = channel.transport
 			SimpleCompletionHandler<Int>(
 				{
@@ -1884,7 +1960,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 					else
 					{
 						buffer.flip()
-						frame.maskingKey = buffer
+						frame.maskingKey = buffer.int
 						readPayloadDataThen(channel, frame, continuation)
 					}
 				},
@@ -1932,12 +2008,7 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 					{
 						buffer.flip()
 						if (frame.isMasked) {
-							val mask = frame.maskingKey!!
-							for (i in 0 until frame.payloadLength.toInt()) {
-								val j = i and 3
-								buffer.put(
-									i, (buffer.get(i) xor mask.get(j)))
-							}
+							unmask(buffer, frame.maskingKey)
 						}
 						assert(buffer.position() == 0)
 						frame.payloadData = buffer
@@ -1957,6 +2028,95 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			).guardedDo { transport.read(buffer, Unit, handler) }
 		}
 
+		/**
+		 * The [BufferPool] from which outgoing [frames][Frame] are staged.
+		 */
+		private val pool = BufferPool.shared
+
+		/**
+		 * Stage an unmasked, final WebSocket [frame][Frame] with the specified
+		 * [opcode][Opcode] and [payload][ByteBuffer] after those already in
+		 * the given [batch][BufferPool.Batch].
+		 *
+		 * @param batch
+		 *   The batch.
+		 * @param opcode
+		 *   The opcode.
+		 * @param payload
+		 *   The payload.
+		 */
+		private fun stageFrame(
+			batch: BufferPool.Batch,
+			opcode: Opcode,
+			payload: ByteBuffer)
+		{
+			val frame = Frame()
+			frame.isFinalFragment = true
+			frame.isMasked = false
+			frame.opcode = opcode
+			frame.payloadData = payload
+			frame.payloadLength = payload.limit().toLong()
+			frame.encodeInto(batch)
+		}
+
+		/**
+		 * Answer [pooled][pool] [ByteBuffer]s, ready for writing to a
+		 * transport, that hold an unmasked, final WebSocket [frame][Frame]
+		 * with the specified [opcode][Opcode] and [payload][ByteBuffer]. The
+		 * caller must [release][BufferPool.release] them after writing them.
+		 *
+		 * @param opcode
+		 *   The opcode.
+		 * @param payload
+		 *   The payload.
+		 * @return
+		 *   The encoded frame.
+		 */
+		private fun frameBuffers(
+			opcode: Opcode,
+			payload: ByteBuffer
+		): Array<ByteBuffer> =
+			pool.Batch().apply { stageFrame(this, opcode, payload) }.finish()
+
+		/**
+		 * Answer the byte of a masking key that applies to the payload byte
+		 * at the given index.
+		 *
+		 * @param mask
+		 *   The masking key, most significant byte first.
+		 * @param index
+		 *   The index of the payload byte.
+		 * @return
+		 *   The masking byte.
+		 */
+		internal fun maskByte(mask: Int, index: Int): Byte =
+			(mask ushr (24 - 8 * (index and 3))).toByte()
+
+		/**
+		 * Unmask the payload in place, four bytes at a time where possible.
+		 *
+		 * @param buffer
+		 *   The masked payload, occupying the whole of the buffer up to its
+		 *   limit.
+		 * @param mask
+		 *   The masking key, most significant byte first.
+		 */
+		internal fun unmask(buffer: ByteBuffer, mask: Int)
+		{
+			val limit = buffer.limit()
+			var i = 0
+			while (i + 4 <= limit)
+			{
+				buffer.putInt(i, buffer.getInt(i) xor mask)
+				i += 4
+			}
+			while (i < limit)
+			{
+				buffer.put(i, buffer.get(i) xor maskByte(mask, i))
+				i++
+			}
+		}
+
 		/**
 		 * Send a WebSocket [frame][Frame] based on the specified
 		 * [opcode][Opcode] and [payload][ByteBuffer].
@@ -1981,34 +2141,25 @@ class WebSocketAdapter @Throws(IOException::class) constructor(
 			success: (()->Unit)? = null,
 			failure: ((Throwable)->Unit)? = null)
 		{
-			val frame = Frame()
-			frame.isFinalFragment = true
-			frame.isMasked = false
-			frame.opcode = opcode
-			frame.payloadData = payload
-			frame.payloadLength = payload.limit().toLong()
-			val buffer = frame.asByteBuffer()
-			val transport = channel.transport
-			SimpleCompletionHandler<Int>(
+			val buffers = frameBuffers(opcode, payload)
+			val release = pool.releaserOf(buffers)
+			writeFully(
+				channel.transport,
+				buffers,
 				{
-					if (buffer.hasRemaining())
-					{
-						handler.guardedDo {
-							transport.write(buffer, Unit, handler)
-						}
-					}
-					else success?.invoke()
-				},
-				{
-					logger.log(
-						Level.WARNING,
-						"failed while attempting to send $opcode",
-						throwable)
-					channel.closeImmediately(
-						CommunicationErrorDisconnect(throwable))
-					failure?.invoke(throwable)
+					release()
+					success?.invoke()
 				}
-			).guardedDo { transport.write(buffer, Unit, handler) }
+			) { throwable ->
+				release()
+				logger.log(
+					Level.WARNING,
+					"failed while attempting to send $opcode",
+					throwable)
+				channel.closeImmediately(
+					CommunicationErrorDisconnect(throwable))
+				failure?.invoke(throwable)
+			}
 		}
 
 		/**
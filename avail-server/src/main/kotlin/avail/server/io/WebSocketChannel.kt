@@ -114,17 +114,7 @@ internal class WebSocketChannel constructor(
 	{
 		if (handshakeSucceeded)
 		{
-			synchronized(sendQueue) {
-				if (!sendQueue.isEmpty())
-				{
-					shouldCloseAfterEmptyingSendQueue = true
-					channelCloseHandler.reason = reason
-				}
-				else
-				{
-					adapter.sendClose(this, reason)
-				}
-			}
+			closeAfterEmptyingSendQueue(reason)
 		}
 		else
 		{
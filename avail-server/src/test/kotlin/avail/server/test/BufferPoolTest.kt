@@ -0,0 +1,258 @@
+/*
+ * BufferPoolTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.server.test
+
+import avail.server.io.BufferPool
+import avail.server.io.WebSocketAdapter
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import kotlin.experimental.xor
+
+/**
+ * A test of [BufferPool] and of the masking used by [WebSocketAdapter].
+ */
+class BufferPoolTest
+{
+	/**
+	 * Concatenate the readable contents of the given buffers.
+	 *
+	 * @param buffers
+	 *   The staged buffers.
+	 * @return
+	 *   Their contents, in order.
+	 */
+	private fun contentsOf(buffers: Array<ByteBuffer>): ByteArray
+	{
+		val out = ByteArray(buffers.sumOf { it.remaining() })
+		var position = 0
+		buffers.forEach { buffer ->
+			val length = buffer.remaining()
+			buffer.duplicate().get(out, position, length)
+			position += length
+		}
+		return out
+	}
+
+	/**
+	 * Answer a payload of the given size with recognizable content.
+	 *
+	 * @param size
+	 *   The number of bytes.
+	 * @return
+	 *   The payload.
+	 */
+	private fun payloadOf(size: Int): ByteArray =
+		ByteArray(size) { (it * 31 + size).toByte() }
+
+	/**
+	 * Answer what staging the given payloads after four-byte size prefixes
+	 * should produce.
+	 *
+	 * @param payloads
+	 *   The payloads.
+	 * @return
+	 *   The expected bytes.
+	 */
+	private fun sizePrefixed(payloads: List<ByteArray>): ByteArray
+	{
+		val out = ByteBuffer.allocate(payloads.sumOf { it.size + 4 })
+		payloads.forEach { out.putInt(it.size).put(it) }
+		return out.array()
+	}
+
+	/**
+	 * A single frame larger than a buffer spans several buffers, all but the
+	 * last of which are full, and leaves the payload's position alone.
+	 */
+	@Test
+	fun testStageSpansBuffers()
+	{
+		val pool = BufferPool(64, 16, 16)
+		// Prime the pool, so that every buffer is a pooled direct buffer.
+		pool.release(Array(4) { pool.acquire() })
+		val content = payloadOf(200)
+		val payload = ByteBuffer.wrap(content)
+		val buffers = pool.stage(4, { it.putInt(content.size) }, payload)
+		assertEquals(0, payload.position())
+		assertArrayEquals(sizePrefixed(listOf(content)), contentsOf(buffers))
+		assertEquals(4, buffers.size)
+		buffers.dropLast(1).forEach { assertEquals(64, it.remaining()) }
+		buffers.forEach { assertTrue(it.isDirect) }
+	}
+
+	/** A batch packs small frames contiguously into a shared buffer. */
+	@Test
+	fun testBatchPacksFrames()
+	{
+		val pool = BufferPool(64, 16, 16)
+		// Prime the pool, so that direct buffers are reused.
+		pool.release(Array(4) { pool.acquire() })
+		val payloads = listOf(10, 0, 20, 7, 60, 3).map(::payloadOf)
+		val batch = pool.Batch()
+		payloads.forEach { content ->
+			batch.add(
+				4, { it.putInt(content.size) }, ByteBuffer.wrap(content))
+		}
+		val buffers = batch.finish()
+		assertArrayEquals(sizePrefixed(payloads), contentsOf(buffers))
+		// The 124 bytes of headers and payloads fill the first buffer and
+		// most of the second.
+		assertEquals(2, buffers.size)
+		assertEquals(2, pool.idleBuffers)
+		pool.release(buffers)
+		assertEquals(4, pool.idleBuffers)
+	}
+
+	/** A header is never split across buffers. */
+	@Test
+	fun testHeaderNotSplit()
+	{
+		val pool = BufferPool(16, 16, 16)
+		val first = payloadOf(10)
+		val second = payloadOf(5)
+		val batch = pool.Batch()
+		batch.add(4, { it.putInt(first.size) }, ByteBuffer.wrap(first))
+		batch.add(4, { it.putInt(second.size) }, ByteBuffer.wrap(second))
+		val buffers = batch.finish()
+		assertEquals(listOf(14, 9), buffers.map { it.remaining() })
+		assertArrayEquals(
+			sizePrefixed(listOf(first, second)), contentsOf(buffers))
+	}
+
+	/**
+	 * When the pool is empty, small data is staged in heap buffers, which are
+	 * not retained when released, while large data gets direct buffers.
+	 */
+	@Test
+	fun testSmallDataUsesHeapWhenEmpty()
+	{
+		val pool = BufferPool(1024, 16, 64)
+		val small = pool.stage(4, { it.putInt(10) }, ByteBuffer.allocate(10))
+		assertEquals(1, small.size)
+		assertFalse(small[0].isDirect)
+		assertEquals(14, small[0].remaining())
+		pool.release(small)
+		assertEquals(0, pool.idleBuffers)
+		val large = pool.stage(4, { it.putInt(100) }, ByteBuffer.allocate(100))
+		assertEquals(1, large.size)
+		assertTrue(large[0].isDirect)
+		pool.release(large)
+		assertEquals(1, pool.idleBuffers)
+		// Now an idle direct buffer is preferred even for small data.
+		val reused = pool.stage(4, { it.putInt(1) }, ByteBuffer.allocate(1))
+		assertTrue(reused[0].isDirect)
+		assertEquals(0, pool.idleBuffers)
+	}
+
+	/** The pool retains no more than its maximum number of idle buffers. */
+	@Test
+	fun testMaximumPooled()
+	{
+		val pool = BufferPool(64, 3, 16)
+		pool.release(Array(5) { pool.acquire() })
+		assertEquals(3, pool.idleBuffers)
+		pool.release(arrayOf(ByteBuffer.allocateDirect(32)))
+		assertEquals(3, pool.idleBuffers)
+	}
+
+	/**
+	 * A releaser releases its buffers only the first time it's invoked.
+	 */
+	@Test
+	fun testReleaser()
+	{
+		val pool = BufferPool(64, 16, 16)
+		val release = pool.releaserOf(Array(2) { pool.acquire() })
+		release()
+		release()
+		assertEquals(2, pool.idleBuffers)
+	}
+
+	/**
+	 * Answer the given bytes masked with the given key, computed byte by byte
+	 * as described by RFC 6455.
+	 *
+	 * @param bytes
+	 *   The bytes to mask.
+	 * @param mask
+	 *   The masking key, most significant byte first.
+	 * @return
+	 *   The masked bytes.
+	 */
+	private fun masked(bytes: ByteArray, mask: Int): ByteArray
+	{
+		val key = ByteBuffer.allocate(4).putInt(mask).array()
+		return ByteArray(bytes.size) { bytes[it] xor key[it % 4] }
+	}
+
+	/**
+	 * Unmasking in place, a word at a time, agrees with bytewise masking for
+	 * every length of tail.
+	 */
+	@Test
+	fun testUnmask()
+	{
+		val mask = 0x1234_ABCD
+		for (size in 0 .. 13)
+		{
+			val content = payloadOf(size)
+			val buffer = ByteBuffer.wrap(masked(content, mask))
+			WebSocketAdapter.unmask(buffer, mask)
+			assertArrayEquals(content, buffer.array())
+			assertEquals(0, buffer.position())
+		}
+	}
+
+	/**
+	 * Staging with a masking transform, as an outgoing masked frame does,
+	 * masks the payload continuously across buffer boundaries.
+	 */
+	@Test
+	fun testMaskedStaging()
+	{
+		val pool = BufferPool(16, 16, 16)
+		val mask = -0x3501_2389
+		val content = payloadOf(45)
+		val buffers = pool.stage(
+			2,
+			{ it.putShort(content.size.toShort()) },
+			ByteBuffer.wrap(content)
+		) { b, i -> b xor WebSocketAdapter.maskByte(mask, i) }
+		val staged = contentsOf(buffers)
+		assertArrayEquals(
+			masked(content, mask), staged.copyOfRange(2, staged.size))
+	}
+}
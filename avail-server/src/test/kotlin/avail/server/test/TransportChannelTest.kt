@@ -0,0 +1,279 @@
+/*
+ * TransportChannelTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.server.test
+
+import avail.server.AvailServer
+import avail.server.io.AbstractTransportChannel
+import avail.server.io.AvailServerChannel
+import avail.server.io.AvailServerChannel.ProtocolState
+import avail.server.io.DisconnectReason
+import avail.server.io.TransportAdapter
+import avail.server.messages.Message
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A test of the lock-free send path of [AbstractTransportChannel], in which
+ * any number of threads may enqueue messages while a single thread transmits
+ * them.
+ */
+class TransportChannelTest
+{
+	/**
+	 * A [TransportAdapter] that records the [messages][Message] it is asked to
+	 * send, and reports their transmission by way of [complete].
+	 *
+	 * @property complete
+	 *   How to run the success continuation of a transmission.
+	 */
+	private class RecordingAdapter constructor(
+		private val complete: (()->Unit) -> Unit
+	) : TransportAdapter<Unit>
+	{
+		/** The transmitted messages, in order of transmission. */
+		val sent = ConcurrentLinkedQueue<Message>()
+
+		/** The number of transmissions that have been reported. */
+		val transmissions = AtomicInteger(0)
+
+		/** Whether a transmission is in progress. */
+		private val inFlight = AtomicBoolean(false)
+
+		/** Whether two transmissions were ever in progress at once. */
+		@Volatile
+		var overlapped = false
+
+		override val server: AvailServer
+			get() = throw UnsupportedOperationException()
+
+		override val timer: ScheduledExecutorService =
+			Executors.newSingleThreadScheduledExecutor()
+
+		override val onChannelCloseAction
+			: (DisconnectReason, AvailServerChannel) -> Unit = { _, _ -> }
+
+		override fun readMessage(channel: AbstractTransportChannel<Unit>) =
+			throw UnsupportedOperationException()
+
+		override fun sendUserData(
+			channel: AbstractTransportChannel<Unit>,
+			payload: Message,
+			success: ()->Unit,
+			failure: (Throwable)->Unit
+		) = sendUserData(channel, listOf(payload), success, failure)
+
+		override fun sendUserData(
+			channel: AbstractTransportChannel<Unit>,
+			payloads: List<Message>,
+			success: ()->Unit,
+			failure: (Throwable)->Unit)
+		{
+			if (!inFlight.compareAndSet(false, true))
+			{
+				overlapped = true
+			}
+			sent.addAll(payloads)
+			complete {
+				inFlight.set(false)
+				transmissions.incrementAndGet()
+				success()
+			}
+		}
+
+		override fun sendClose(channel: AbstractTransportChannel<Unit>) =
+			throw UnsupportedOperationException()
+
+		override fun sendClose(
+			channel: AbstractTransportChannel<Unit>,
+			reason: DisconnectReason
+		) = throw UnsupportedOperationException()
+
+		override fun receiveClose(channel: AbstractTransportChannel<Unit>) =
+			throw UnsupportedOperationException()
+
+		override fun close()
+		{
+			timer.shutdownNow()
+		}
+	}
+
+	/**
+	 * An [AbstractTransportChannel] over a [RecordingAdapter].
+	 *
+	 * @property adapter
+	 *   The adapter.
+	 * @property maximumSendQueueDepth
+	 *   The number of messages that may be pending before senders pause.
+	 */
+	private class TestChannel constructor(
+		override val adapter: RecordingAdapter,
+		override val maximumSendQueueDepth: Int
+	) : AbstractTransportChannel<Unit>({ _, _ -> })
+	{
+		override val transport = Unit
+		override val isOpen = true
+		override val maximumReceiveQueueDepth = 10
+		override fun closeTransport() = Unit
+		override fun scheduleClose(reason: DisconnectReason) = Unit
+
+		/** The number of senders currently paused. */
+		val pausedSenders get() = senders.size
+	}
+
+	/**
+	 * Answer a [Message] that identifies its sender and its position in that
+	 * sender's sequence.
+	 *
+	 * @param sender
+	 *   The index of the sender.
+	 * @param sequence
+	 *   The index of the message within the sender's messages.
+	 * @return
+	 *   The message.
+	 */
+	private fun messageOf(sender: Int, sequence: Int) = Message(
+		ByteBuffer.allocate(8).putInt(sender).putInt(sequence).array(),
+		ProtocolState.BINARY)
+
+	/**
+	 * Many senders, each of which enqueues its next message only once the
+	 * previous one has been accepted, deliver every message exactly once and
+	 * in the order in which each sender enqueued them.
+	 */
+	@Test
+	fun testConcurrentSenders()
+	{
+		val senderCount = 8
+		val messageCount = 500
+		val completer = Executors.newFixedThreadPool(2)
+		val producers = Executors.newFixedThreadPool(senderCount)
+		val adapter = RecordingAdapter { completer.execute(it) }
+		val channel = TestChannel(adapter, 4)
+		val finished = CountDownLatch(senderCount)
+		val start = CountDownLatch(1)
+		try
+		{
+			fun sendFrom(sender: Int, sequence: Int)
+			{
+				if (sequence == messageCount)
+				{
+					finished.countDown()
+					return
+				}
+				channel.enqueueMessageThen(messageOf(sender, sequence)) {
+					sendFrom(sender, sequence + 1)
+				}
+			}
+			repeat(senderCount) { sender ->
+				producers.execute {
+					start.await()
+					sendFrom(sender, 0)
+				}
+			}
+			start.countDown()
+			assertTrue(finished.await(30, TimeUnit.SECONDS))
+			val total = senderCount * messageCount
+			val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30)
+			while (adapter.sent.size < total && System.nanoTime() < deadline)
+			{
+				Thread.sleep(1)
+			}
+			assertEquals(total, adapter.sent.size)
+			val nextSequence = IntArray(senderCount)
+			adapter.sent.forEach { message ->
+				val buffer = ByteBuffer.wrap(message.content)
+				val sender = buffer.int
+				assertEquals(nextSequence[sender]++, buffer.int)
+			}
+			nextSequence.forEach { assertEquals(messageCount, it) }
+			assertFalse(adapter.overlapped)
+		}
+		finally
+		{
+			producers.shutdownNow()
+			completer.shutdownNow()
+			adapter.close()
+		}
+	}
+
+	/**
+	 * Senders that enqueue beyond the maximum depth are paused, and are
+	 * resumed in order as transmissions make room for them.
+	 */
+	@Test
+	fun testPausedSendersResume()
+	{
+		val pending = ArrayDeque<()->Unit>()
+		val adapter = RecordingAdapter { pending.addLast(it) }
+		val channel = TestChannel(adapter, 2)
+		val resumed = mutableListOf<Int>()
+		try
+		{
+			repeat(5) { sequence ->
+				channel.enqueueMessageThen(messageOf(0, sequence)) {
+					resumed.add(sequence)
+				}
+			}
+			// Only the first message is being transmitted, and the senders
+			// beyond the maximum depth are paused.
+			assertEquals(listOf(0, 1), resumed)
+			assertEquals(3, channel.pausedSenders)
+			assertEquals(1, adapter.sent.size)
+			// Transmitting the first message makes room for one sender, and
+			// sends the rest as a single batch.
+			pending.removeFirst()()
+			assertEquals(listOf(0, 1, 2), resumed)
+			assertEquals(2, channel.pausedSenders)
+			assertEquals(5, adapter.sent.size)
+			// Transmitting the batch makes room for the remaining senders.
+			pending.removeFirst()()
+			assertEquals(listOf(0, 1, 2, 3, 4), resumed)
+			assertEquals(0, channel.pausedSenders)
+			assertTrue(pending.isEmpty())
+			assertEquals(2, adapter.transmissions.get())
+		}
+		finally
+		{
+			adapter.close()
+		}
+	}
+}
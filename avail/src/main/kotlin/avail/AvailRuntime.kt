@@ -33,6 +33,7 @@ package avail
 
 import avail.AvailRuntime.Companion.specialObject
 import avail.AvailRuntimeConfiguration.availableProcessors
+import avail.AvailRuntimeConfiguration.maxFiberInterpreters
 import avail.AvailRuntimeConfiguration.maxInterpreters
 import avail.AvailThread.Companion.current
 import avail.ImmutableList.Companion.length
@@ -59,9 +60,11 @@ import avail.descriptor.fiber.A_Fiber
 import avail.descriptor.fiber.A_Fiber.Companion.continuation
 import avail.descriptor.fiber.A_Fiber.Companion.executionState
 import avail.descriptor.fiber.A_Fiber.Companion.fiberHelper
+import avail.descriptor.fiber.A_Fiber.Companion.fiberName
 import avail.descriptor.fiber.A_Fiber.Companion.priority
 import avail.descriptor.fiber.A_Fiber.Companion.setSuccessAndFailure
 import avail.descriptor.fiber.A_Fiber.Companion.suspendingFunction
+import avail.descriptor.fiber.A_Fiber.Companion.uniqueId
 import avail.descriptor.fiber.FiberDescriptor
 import avail.descriptor.fiber.FiberDescriptor.Companion.stringificationPriority
 import avail.descriptor.fiber.FiberDescriptor.ExecutionState
@@ -254,10 +257,17 @@ import avail.interpreter.primitive.style.P_DefaultStyler
 import avail.io.IOSystem
 import avail.io.TextInterface
 import avail.io.TextInterface.Companion.systemTextInterface
+import avail.optimizer.BackgroundOptimizer
+import avail.optimizer.OptimizationProfile
 import avail.optimizer.jvm.CheckedMethod
 import avail.optimizer.jvm.CheckedMethod.Companion.instanceMethod
 import avail.optimizer.jvm.ReferencedInGeneratedCode
+import avail.performance.AvailEvents
+import avail.performance.FiberRunEvent
+import avail.performance.SafePointEvent
+import avail.performance.SamplingProfiler
 import avail.utility.ObjectTracer
+import avail.utility.TimingWheel
 import avail.utility.WorkStealingQueue
 import avail.utility.cast
 import avail.utility.evaluation.OnceSupplier
@@ -372,8 +382,8 @@ class AvailRuntime constructor(
 	 */
 	@Suppress("UNCHECKED_CAST")
 	val executor = ThreadPoolExecutor(
-		min(availableProcessors, maxInterpreters),
-		maxInterpreters,
+		min(availableProcessors, maxFiberInterpreters),
+		maxFiberInterpreters,
 		10L,
 		TimeUnit.SECONDS,
 		WorkStealingQueue<AvailTask>(maxInterpreters)
@@ -415,29 +425,69 @@ class AvailRuntime constructor(
 		executor.execute(AvailTask(priority, body))
 	}
 
+	/**
+	 * The [BackgroundOptimizer] that translates hot [A_RawFunction]s into
+	 * optimized [L2Chunk]s without stalling the fibers that run them.
+	 */
+	val backgroundOptimizer = BackgroundOptimizer(this)
+
+	/**
+	 * The [OptimizationProfile] that remembers which [A_RawFunction]s were
+	 * worth optimizing, so that a subsequent run can optimize them sooner, or
+	 * `null` if [AvailRuntimeConfiguration.optimizationProfiles] wasn't set
+	 * when this runtime was created.
+	 */
+	val optimizationProfile: OptimizationProfile? =
+		if (AvailRuntimeConfiguration.optimizationProfiles)
+		{
+			OptimizationProfile().apply { startPeriodicSaves() }
+		}
+		else null
+
+	/**
+	 * The [SamplingProfiler] that attributes time to the [A_RawFunction]s
+	 * found running on each tick of the [clock].
+	 */
+	val samplingProfiler = SamplingProfiler()
+
 	/**
 	 * The number of clock ticks since this [runtime][AvailRuntime] was created.
 	 */
 	val clock = AvailRuntimeSupport.Clock()
 
+	/**
+	 * The [TimingWheel] that schedules fiber wakeups and delayed forks.  It is
+	 * advanced by the [timer] on each tick of the [clock], so scheduling and
+	 * cancelling a task don't involve the timer's own queue.
+	 */
+	val timingWheel = TimingWheel(clockPeriodMillis, clock.get())
+
 	/**
 	 * The [timer][Timer] that managed scheduled [tasks][TimerTask] for this
 	 * [runtime][AvailRuntime]. The timer thread is not an
 	 * [Avail&#32;thread][AvailThread], and therefore cannot directly execute
 	 * [fibers][FiberDescriptor]. It may, however, schedule fiber-related tasks.
+	 * Each tick of the [clock] also advances the [timingWheel], running the
+	 * tasks whose deadlines have arrived.
 	 *
 	 * Additionally, we help drive the dynamic optimization of [A_RawFunction]s
 	 * into [L2Chunk]s by iterating over the existing Interpreters, asking each
 	 * one to significantly decrease the countdown for whatever raw function is
-	 * running (being careful not to cross zero).
+	 * running (being careful not to cross zero).  The same polls feed the
+	 * [samplingProfiler], while it is sampling.
 	 */
-	val timer = fixedRateTimer("timer for Avail runtime", true, period = 10) {
+	val timer = fixedRateTimer(
+		"timer for Avail runtime", true, period = clockPeriodMillis
+	) {
 		clock.increment()
+		timingWheel.advanceTo(clock.get())
+		val sampling = samplingProfiler.isSampling
 		interpreterHolders.forEach { holder ->
-			holder.get()
-				?.pollActiveRawFunction()
-				?.decreaseCountdownToReoptimizeFromPoll(
-					L2Chunk.decrementForPolledActiveCode)
+			val interpreter = holder.get() ?: return@forEach
+			val code = interpreter.pollActiveRawFunction()
+			if (sampling) samplingProfiler.recordSample(code)
+			code?.decreaseCountdownToReoptimizeFromPoll(
+				L2Chunk.decrementForPolledActiveCode)
 		}
 	}
 
@@ -1007,6 +1057,12 @@ class AvailRuntime constructor(
 		 */
 		fun currentRuntime(): AvailRuntime = current().runtime
 
+		/**
+		 * The number of milliseconds between ticks of a runtime's [clock].
+		 * This is also the resolution of its [timingWheel].
+		 */
+		const val clockPeriodMillis = 10L
+
 		/**
 		 * The [CheckedMethod] for [implicitObserveFunction].
 		 */
@@ -1750,41 +1806,7 @@ class AvailRuntime constructor(
 			}
 			finally
 			{
-				// Deal with this interpreter task having just completed.
-				while (true)
-				{
-					val old = activeDiversionQueue.get()
-					val surplus = old.interpreterSurplus
-					assert(surplus > 0)
-					if (surplus == 1)
-					{
-						// This is the last interpreter task finishing up.
-						val queuedSafeTasks = old.postponedSafeTasks
-						val new = old.copy(
-							interpreterSurplus = -queuedSafeTasks.length,
-							postponedSafeTasks = null)
-						if (!activeDiversionQueue.compareAndSet(old, new))
-							continue
-						// The replacement was successful, which means we're now
-						// processing safe-point tasks.  Add the ones from the
-						// queue, which are already accounted for in the new
-						// state's negative counter.  It can't race up to zero,
-						// since we haven't activated the tasks that are able to
-						// increment the counter.
-						queuedSafeTasks
-							.iterableWith { it.rest }
-							.forEach { execute(it.first) }
-						break
-					}
-					else
-					{
-						val new = old.copy(interpreterSurplus = surplus - 1)
-						if (!activeDiversionQueue.compareAndSet(old, new))
-							continue
-						// It decremented correctly (to non-zero).
-						break
-					}
-				}
+				interpreterTaskFinished()
 			}
 		}
 		// Now try to add the new interpreter task.
@@ -1822,6 +1844,69 @@ class AvailRuntime constructor(
 		}
 	}
 
+	/**
+	 * Attempt to account for an interpreter task that is about to run on some
+	 * thread other than the [executor]'s, such as one belonging to the
+	 * [backgroundOptimizer].  Answer `true` if the task may run now, in which
+	 * case the caller must invoke [interpreterTaskFinished] when it completes.
+	 * Answer `false` if a safe point is running or has been requested, in
+	 * which case the caller should postpone its work, typically via
+	 * [whenRunningInterpretersDo].
+	 *
+	 * @return
+	 *   Whether the caller may proceed as an interpreter task.
+	 */
+	fun tryBeginInterpreterTask(): Boolean
+	{
+		while (true)
+		{
+			val old = activeDiversionQueue.get()
+			val surplus = old.interpreterSurplus
+			if (surplus < 0 || old.postponedSafeTasks !== null) return false
+			val new = old.copy(interpreterSurplus = surplus + 1)
+			if (activeDiversionQueue.compareAndSet(old, new)) return true
+		}
+	}
+
+	/**
+	 * Deal with an interpreter task having just completed.  If it was the last
+	 * one running, launch any safe-point tasks that were waiting for it.
+	 */
+	fun interpreterTaskFinished()
+	{
+		while (true)
+		{
+			val old = activeDiversionQueue.get()
+			val surplus = old.interpreterSurplus
+			assert(surplus > 0)
+			if (surplus == 1)
+			{
+				// This is the last interpreter task finishing up.
+				val queuedSafeTasks = old.postponedSafeTasks
+				val new = old.copy(
+					interpreterSurplus = -queuedSafeTasks.length,
+					postponedSafeTasks = null)
+				if (!activeDiversionQueue.compareAndSet(old, new)) continue
+				// The replacement was successful, which means we're now
+				// processing safe-point tasks.  Add the ones from the queue,
+				// which are already accounted for in the new state's negative
+				// counter.  It can't race up to zero, since we haven't
+				// activated the tasks that are able to increment the counter.
+				queuedSafeTasks
+					.iterableWith { it.rest }
+					.forEach { execute(it.first) }
+				break
+			}
+			else
+			{
+				val new = old.copy(interpreterSurplus = surplus - 1)
+				if (!activeDiversionQueue.compareAndSet(old, new)) continue
+				// It decremented correctly (to non-zero).
+				break
+			}
+		}
+	}
+
 	/**
 	 * Request that the specified action be executed at the next safe-point.
 	 * No interpreter tasks are running at a safe-point.
@@ -1834,8 +1919,17 @@ class AvailRuntime constructor(
 	 */
 	fun whenSafePointDo(priority: Int, safeAction: ()->Unit)
 	{
+		val recording = AvailEvents.isRecording
+		val queuedAt = if (recording) AvailRuntimeSupport.captureNanos() else 0L
 		val task = AvailTask(priority)
 		{
+			val event = if (recording) SafePointEvent() else null
+			if (event !== null)
+			{
+				event.queuedNanos =
+					AvailRuntimeSupport.captureNanos() - queuedAt
+				event.begin()
+			}
 			try
 			{
 				safeAction()
@@ -1848,6 +1942,12 @@ class AvailRuntime constructor(
 			}
 			finally
 			{
+				if (event !== null && event.shouldCommit())
+				{
+					event.end()
+					event.priority = priority
+					event.commit()
+				}
 				// Deal with this safe-point task having just completed.
 				while (true)
 				{
@@ -1942,6 +2042,8 @@ class AvailRuntime constructor(
 		setup: Interpreter.()->Unit)
 	{
 		assert(aFiber.executionState.indicatesSuspension)
+		val recording = AvailEvents.isRecording
+		val queuedAt = if (recording) AvailRuntimeSupport.captureNanos() else 0L
 		// We cannot simply run the specified function, we must queue a new
 		// task to run when interpreters are allowed to run.
 		whenRunningInterpretersDo(
@@ -1949,6 +2051,10 @@ class AvailRuntime constructor(
 			AvailTask.forFiberResumption(aFiber) {
 				assert(aFiber === fiberOrNull())
 				assert(aFiber.executionState === RUNNING)
+				val event = if (recording) FiberRunEvent() else null
+				val startedAt =
+					if (recording) AvailRuntimeSupport.captureNanos() else 0L
+				event?.begin()
 				setup()
 				if (exitNow)
 				{
@@ -1963,6 +2069,16 @@ class AvailRuntime constructor(
 					run()
 				}
 				assert(fiberOrNull() === null)
+				if (event !== null && event.shouldCommit())
+				{
+					event.end()
+					event.fiberId = aFiber.uniqueId
+					event.fiberName = aFiber.fiberName.asNativeString()
+					event.priority = aFiber.priority
+					event.outcome = aFiber.executionState.name
+					event.queuedNanos = startedAt - queuedAt
+					event.commit()
+				}
 			})
 	}
 
@@ -2291,6 +2407,8 @@ class AvailRuntime constructor(
 	fun destroy()
 	{
 		timer.cancel()
+		backgroundOptimizer.destroy()
+		optimizationProfile?.destroy()
 		executor.shutdownNow()
 		ioSystem.destroy()
 		callbackSystem.destroy()
@@ -31,10 +31,14 @@
  */
 package avail
 
+import avail.builder.StatementPipeline
+import avail.compiler.ReusablePrefix
 import avail.descriptor.methods.MacroDescriptor
 import avail.interpreter.execution.Interpreter
+import avail.optimizer.BackgroundOptimizer
 import java.io.IOException
 import java.util.Date
+import kotlin.math.max
 
 /**
  * This class contains static state and methods related to the current running
@@ -67,11 +71,64 @@ object AvailRuntimeConfiguration
 	/** The number of available processors. */
 	val availableProcessors = Runtime.getRuntime().availableProcessors()
 
+	/**
+	 * The maximum number of [Interpreter]s that can be constructed for running
+	 * fibers in this runtime.
+	 */
+	val maxFiberInterpreters = availableProcessors
+
+	/**
+	 * The maximum number of [Interpreter]s dedicated to translating hot code
+	 * into optimized chunks in the [BackgroundOptimizer].
+	 */
+	val maxOptimizerInterpreters = max(1, availableProcessors / 4)
+
 	/**
 	 * The maximum number of [Interpreter]s that can be constructed for
-	 * this runtime.
+	 * this runtime, including those used by the [BackgroundOptimizer].
+	 */
+	val maxInterpreters = maxFiberInterpreters + maxOptimizerInterpreters
+
+	/**
+	 * Whether to translate hot code in the [BackgroundOptimizer] rather than
+	 * synchronously, in the fiber that happened to exhaust the countdown.
+	 */
+	var optimizeInBackground = true
+
+	/**
+	 * Whether code that stays hot after its `SECOND_JVM_TRANSLATION` is
+	 * eventually retranslated at the `CHASED_BLOCKS` optimization level, which
+	 * inlines the bodies of small non-primitive callees.  Off by default, but
+	 * enabled by setting the `avail.chaseBlocks` system property to `true`.
+	 * Only chunks translated after a change are affected by it.
+	 */
+	var chaseBlocks = System.getProperty("avail.chaseBlocks").toBoolean()
+
+	/**
+	 * Whether each new [AvailRuntime] keeps an `OptimizationProfile`, which
+	 * remembers across runs the highest optimization level that each raw
+	 * function reached.  The profile is saved periodically, when the JVM shuts
+	 * down, and when the runtime is destroyed, in a `.profile` file beside
+	 * each module root's repository.  Off by default, but enabled by setting
+	 * the `avail.optimizationProfiles` system property to `true`.
+	 */
+	var optimizationProfiles =
+		System.getProperty("avail.optimizationProfiles").toBoolean()
+
+	/**
+	 * The maximum number of a repository module's top-level statements that
+	 * may be deserialized ahead of the statement currently being executed.
+	 * Zero disables this look-ahead, deserializing each statement only when
+	 * the previous one has completed.  See [StatementPipeline].
+	 */
+	var moduleLoadLookahead = 8
+
+	/**
+	 * Whether to replay the unchanged top-level statements at the start of an
+	 * edited module from its previous compilation, compiling only the
+	 * statements from the first change onward.  See [ReusablePrefix].
 	 */
-	val maxInterpreters = availableProcessors
+	var incrementalRecompilation = true
 
 	/**
 	 * Whether to show all [macro][MacroDescriptor] expansions as
@@ -82,6 +82,7 @@ import avail.anvil.actions.RetrievePreviousCommand
 import avail.anvil.actions.SearchOpenModuleDialogAction
 import avail.anvil.actions.SetDocumentationPathAction
 import avail.anvil.actions.ShowCCReportAction
+import avail.anvil.actions.ShowSamplingProfileAction
 import avail.anvil.actions.ShowVMReportAction
 import avail.anvil.actions.SubmitInputAction
 import avail.anvil.actions.ToggleDebugAfterUnload
@@ -93,6 +94,7 @@ import avail.anvil.actions.ToggleDebugJVMCodeGeneration
 import avail.anvil.actions.ToggleDebugWorkUnits
 import avail.anvil.actions.ToggleFastLoaderAction
 import avail.anvil.actions.ToggleL2SanityCheck
+import avail.anvil.actions.ToggleSamplingProfilerAction
 import avail.anvil.actions.ToggleVisibleRootsAction
 import avail.anvil.actions.TraceCompilerAction
 import avail.anvil.actions.TraceLoadedStatementsAction
@@ -662,6 +664,13 @@ class AvailWorkbench internal constructor(
 	/** The [reset VM report data action][ResetVMReportDataAction]. */
 	private val resetVMReportDataAction = ResetVMReportDataAction(this)
 
+	/** The [ToggleSamplingProfilerAction]. */
+	private val toggleSamplingProfilerAction =
+		ToggleSamplingProfilerAction(this)
+
+	/** The [ShowSamplingProfileAction]. */
+	private val showSamplingProfileAction = ShowSamplingProfileAction(this)
+
 	/** The [DebugAction], which opens an [AvailDebugger]. */
 	private val debugAction = DebugAction(this)
 
@@ -2077,6 +2086,8 @@ class AvailWorkbench internal constructor(
 				{
 					item(showVMReportAction)
 					item(resetVMReportDataAction)
+					check(toggleSamplingProfilerAction)
+					item(showSamplingProfileAction)
 					separator()
 					item(debugAction)
 					separator()
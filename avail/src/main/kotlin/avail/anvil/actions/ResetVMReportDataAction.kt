@@ -61,6 +61,7 @@ class ResetVMReportDataAction constructor(
 		{
 			report.clear()
 		}
+		workbench.runtime.samplingProfiler.clear()
 		workbench.writeText("Statistics cleared.\n", INFO)
 	}
 
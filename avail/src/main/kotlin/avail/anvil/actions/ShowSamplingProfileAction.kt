@@ -0,0 +1,94 @@
+/*
+ * ShowSamplingProfileAction.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.anvil.actions
+
+import avail.anvil.AvailWorkbench
+import avail.anvil.streams.StreamStyle.ERR
+import avail.anvil.streams.StreamStyle.INFO
+import avail.anvil.streams.StreamStyle.REPORT
+import avail.performance.SamplingProfiler
+import java.awt.event.ActionEvent
+import java.io.File
+import java.io.IOException
+import javax.swing.Action
+import javax.swing.JFileChooser
+
+/**
+ * A `ShowSamplingProfileAction` reports the samples gathered by the runtime's
+ * [SamplingProfiler], and then offers to save them as collapsed stacks for a
+ * flame graph tool.
+ *
+ * @constructor
+ * Construct a new `ShowSamplingProfileAction`.
+ *
+ * @param workbench
+ *   The owning [AvailWorkbench].
+ */
+class ShowSamplingProfileAction constructor(
+	workbench: AvailWorkbench
+) : AbstractWorkbenchAction(workbench, "Show Avail CPU samples…")
+{
+	// Do nothing
+	override fun updateIsEnabled(busy: Boolean) {}
+
+	override fun actionPerformed(event: ActionEvent)
+	{
+		val profiler = workbench.runtime.samplingProfiler
+		workbench.writeText(profiler.report(), REPORT)
+		val chooser = JFileChooser()
+		chooser.dialogTitle = "Save Collapsed Stacks"
+		chooser.selectedFile = File("avail-samples.collapsed")
+		if (chooser.showSaveDialog(workbench) == JFileChooser.APPROVE_OPTION)
+		{
+			val file = chooser.selectedFile
+			try
+			{
+				file.writeText(profiler.collapsedStacks())
+				workbench.writeText("Saved samples to $file.\n", INFO)
+			}
+			catch (e: IOException)
+			{
+				workbench.writeText(
+					"Could not save samples to $file: ${e.localizedMessage}\n",
+					ERR)
+			}
+		}
+	}
+
+	init
+	{
+		putValue(
+			Action.SHORT_DESCRIPTION,
+			"Report the sampled Avail CPU time, and save it for a flame graph.")
+	}
+}
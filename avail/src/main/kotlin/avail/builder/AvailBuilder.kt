@@ -87,6 +87,7 @@ import avail.utility.stackToString
 import org.availlang.persistence.IndexedFile
 import org.availlang.persistence.IndexedFile.Companion.appendCRC
 import java.io.File
+import java.io.IOException
 import java.lang.String.format
 import java.nio.file.Path
 import java.nio.file.attribute.BasicFileAttributes
@@ -151,6 +152,30 @@ class AvailBuilder constructor(val runtime: AvailRuntime)
 	private val allLoadedModules =
 		synchronizedMap(mutableMapOf<ResolvedModuleName, LoadedModule>())
 
+	/**
+	 * The [ModuleImage] from which to take the serialized forms of modules
+	 * loaded from repositories, or `null` to always read them from the
+	 * repositories.
+	 */
+	@Volatile
+	var moduleImage: ModuleImage? = null
+
+	/**
+	 * Write a [ModuleImage] of every currently loaded module to the specified
+	 * file, so that a subsequent process can install it as its builder's
+	 * [moduleImage].
+	 *
+	 * @param file
+	 *   The image file.
+	 * @throws IOException
+	 *   If the image can't be written.
+	 */
+	@Throws(IOException::class)
+	fun writeModuleImage(file: File)
+	{
+		ModuleImage.write(file, loadedModulesCopy())
+	}
+
 	/** Whom to notify when modules load and unload. */
 	private val subscriptions = mutableSetOf<(LoadedModule, Boolean)->Unit>()
 
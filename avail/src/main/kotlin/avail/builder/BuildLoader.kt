@@ -33,12 +33,14 @@
 package avail.builder
 
 import avail.AvailRuntime
+import avail.AvailRuntimeConfiguration.incrementalRecompilation
 import avail.builder.AvailBuilder.LoadedModule
 import avail.compiler.AvailCompiler
 import avail.compiler.CompilationContext
 import avail.compiler.CompilerProgressReporter
 import avail.compiler.GlobalProgressReporter
 import avail.compiler.ModuleHeader
+import avail.compiler.ReusablePrefix
 import avail.compiler.problems.Problem
 import avail.compiler.problems.ProblemHandler
 import avail.compiler.problems.ProblemType.EXECUTION
@@ -46,7 +48,6 @@ import avail.descriptor.fiber.A_Fiber.Companion.fiberHelper
 import avail.descriptor.fiber.A_Fiber.Companion.setSuccessAndFailure
 import avail.descriptor.fiber.FiberDescriptor.Companion.loaderPriority
 import avail.descriptor.fiber.FiberDescriptor.Companion.newLoaderFiber
-import avail.descriptor.functions.A_Function
 import avail.descriptor.functions.A_RawFunction.Companion.codeStartingLineNumber
 import avail.descriptor.functions.A_RawFunction.Companion.methodName
 import avail.descriptor.functions.A_RawFunction.Companion.module
@@ -70,7 +71,10 @@ import avail.descriptor.types.A_Type.Companion.returnType
 import avail.interpreter.execution.AvailLoader
 import avail.interpreter.execution.AvailLoader.Phase
 import avail.interpreter.execution.Interpreter
+import avail.performance.AvailEvents
+import avail.performance.ModuleLoadEvent
 import avail.persistence.cache.Repository
+import avail.persistence.cache.Repository.CheckpointRecord
 import avail.persistence.cache.Repository.ManifestRecord
 import avail.persistence.cache.Repository.ModuleArchive
 import avail.persistence.cache.Repository.ModuleCompilation
@@ -78,6 +82,7 @@ import avail.persistence.cache.Repository.ModuleCompilationKey
 import avail.persistence.cache.Repository.ModuleVersion
 import avail.persistence.cache.Repository.ModuleVersionKey
 import avail.persistence.cache.Repository.StylingRecord
+import avail.persistence.cache.StyleRun
 import avail.serialization.Deserializer
 import avail.serialization.Serializer
 import avail.utility.evaluation.Combinator.recurse
@@ -268,6 +273,10 @@ internal class BuildLoader constructor(
 					val compilationKey =
 						ModuleCompilationKey(predecessorCompilationTimes)
 					val compilation = version.getCompilation(compilationKey)
+					val afterLoad = recordingModuleLoad(
+						moduleName,
+						if (compilation !== null) "load" else "compile",
+						completionAction)
 					if (compilation !== null)
 					{
 						// The current version of the module is already
@@ -277,13 +286,12 @@ internal class BuildLoader constructor(
 							version,
 							compilation,
 							versionKey.sourceDigest,
-							completionAction)
+							afterLoad)
 					}
 					else
 					{
 						// Compile the module and cache its compiled form.
-						compileModule(
-							moduleName, compilationKey, completionAction)
+						compileModule(moduleName, compilationKey, afterLoad)
 					}
 				}
 			) { code, ex ->
@@ -295,6 +303,45 @@ internal class BuildLoader constructor(
 		}
 	}
 
+	/**
+	 * If a flight recording is running, begin a [ModuleLoadEvent] for the
+	 * specified module, and answer a replacement for the given completion
+	 * action that also commits the event.  Otherwise answer the completion
+	 * action itself.
+	 *
+	 * @param moduleName
+	 *   The [resolved&#32;name][ResolvedModuleName] of the module that is
+	 *   about to be loaded or compiled.
+	 * @param phase
+	 *   Either `"load"` or `"compile"`.
+	 * @param completionAction
+	 *   What to do after loading the module, successfully or not.
+	 * @return
+	 *   The action to run after loading the module.
+	 */
+	private fun recordingModuleLoad(
+		moduleName: ResolvedModuleName,
+		phase: String,
+		completionAction: ()->Unit
+	): ()->Unit
+	{
+		if (!AvailEvents.isRecording) return completionAction
+		val event = ModuleLoadEvent()
+		event.begin()
+		return {
+			if (event.shouldCommit())
+			{
+				event.end()
+				event.moduleName = moduleName.qualifiedName
+				event.phase = phase
+				event.succeeded =
+					availBuilder.getLoadedModule(moduleName) !== null
+				event.commit()
+			}
+			completionAction()
+		}
+	}
+
 	/**
 	 * Load the specified [module][ModuleDescriptor] from the
 	 * [repository][Repository] and into the
@@ -302,6 +349,11 @@ internal class BuildLoader constructor(
 	 *
 	 * Note that the predecessors of this module must have already been loaded.
 	 *
+	 * The repository holds the module's top-level statements, not their
+	 * effects, so each statement is replayed in its own loader fiber.  If the
+	 * builder has a [ModuleImage] with a matching entry, the serialized header
+	 * and statements are taken from the image rather than the repository.
+	 *
 	 * @param moduleName
 	 *   The [resolved&#32;name][ResolvedModuleName] of the module that should
 	 *   be loaded.
@@ -356,10 +408,14 @@ internal class BuildLoader constructor(
 				problemHandler.handle(problem)
 			}
 		}
-		// Read the module header from the repository.
+		// Read the module header from the image or repository.
 		try
 		{
-			val bytes = version.moduleHeader
+			val bytes = availBuilder.moduleImage?.headerFor(
+					moduleName.qualifiedName,
+					sourceDigest,
+					compilation.compilationTime)
+				?: version.moduleHeader
 			val inputStream = validatedBytesFrom(bytes)
 			val deserializer = Deserializer(inputStream, availBuilder.runtime)
 			val header = ModuleHeader(moduleName)
@@ -384,8 +440,12 @@ internal class BuildLoader constructor(
 		val deserializer: Deserializer
 		try
 		{
-			// Read the module data from the repository.
-			val bytes = compilation.bytes
+			// Read the module data from the image or repository.
+			val bytes = availBuilder.moduleImage?.bodyFor(
+					moduleName.qualifiedName,
+					sourceDigest,
+					compilation.compilationTime)
+				?: compilation.bytes
 			val inputStream = validatedBytesFrom(bytes)
 			deserializer = Deserializer(inputStream, availBuilder.runtime) {
 				throw Exception("Not yet implemented") // TODO MvG
@@ -403,30 +463,21 @@ internal class BuildLoader constructor(
 			return
 		}
 
-		// Run each zero-argument block, one after another.
+		// Run each zero-argument block, one after another, while the pipeline
+		// deserializes the blocks that follow.
+		val pipeline = StatementPipeline(availBuilder.runtime, deserializer)
 		recurse { runNext ->
 			availLoader.phase = Phase.LOADING
-			val function: A_Function?
-			try
-			{
-				function =
-					if (availBuilder.shouldStopBuild) null
-					else deserializer.deserialize()
-			}
-			catch (e: MalformedSerialStreamException)
-			{
-				fail(e)
-				return@recurse
-			}
-			catch (e: RuntimeException)
+			if (availBuilder.shouldStopBuild)
 			{
-				fail(e)
+				module.removeFrom(availLoader) {
+					postLoad(moduleName, 0L)
+					completionAction()
+				}
 				return@recurse
 			}
-
-			when
-			{
-				function !== null ->
+			pipeline.next(fail) { function ->
+				if (function !== null)
 				{
 					val fiber = newLoaderFiber(
 						function.kind().returnType,
@@ -460,12 +511,7 @@ internal class BuildLoader constructor(
 					availBuilder.runtime.runOutermostFunction(
 						fiber, function, emptyList())
 				}
-				availBuilder.shouldStopBuild ->
-					module.removeFrom(availLoader) {
-						postLoad(moduleName, 0L)
-						completionAction()
-					}
-				else ->
+				else
 				{
 					module.serializedObjects(deserializer.serializedObjects())
 					availBuilder.runtime.addModule(module)
@@ -500,14 +546,23 @@ internal class BuildLoader constructor(
 	 *   [imports][ModuleHeader.importedModules].
 	 * @param completionAction
 	 *   What to do after loading the module successfully or unsuccessfully.
+	 * @param allowReuse
+	 *   Whether the unchanged statements at the start of the module may be
+	 *   replayed from the most recent compilation of another version of the
+	 *   module under the same [compilationKey], rather than compiled again.
+	 *   See [ReusablePrefix].
 	 */
 	private fun compileModule(
 		moduleName: ResolvedModuleName,
 		compilationKey: ModuleCompilationKey,
-		completionAction: ()->Unit)
+		completionAction: ()->Unit,
+		allowReuse: Boolean = incrementalRecompilation)
 	{
 		val repository = moduleName.repository
 		val archive = repository.getArchive(moduleName.rootRelativeName)
+		val previousCompilation =
+			if (allowReuse) archive.mostRecentCompilation(compilationKey)
+			else null
 		archive.digestForFile(
 			moduleName,
 			false,
@@ -543,6 +598,9 @@ internal class BuildLoader constructor(
 					},
 					problemHandler,
 					succeed = { compiler: AvailCompiler ->
+						val prefix = previousCompilation?.let {
+							findReusablePrefix(it, compiler.compilationContext)
+						}
 						compiler.parseModule(
 							onSuccess = {
 								val old = ranOnce.getAndSet(true)
@@ -560,6 +618,21 @@ internal class BuildLoader constructor(
 							afterFail = {
 								postLoad(moduleName, lastPosition)
 								completionAction()
+							},
+							reusablePrefix = prefix,
+							afterReplayFailure = { e ->
+								AvailBuilder.log(
+									Level.WARNING,
+									"Recompiling %s from the start, since its "
+										+ "unchanged statements could not be "
+										+ "replayed: %s",
+									moduleName.qualifiedName,
+									e)
+								compileModule(
+									moduleName,
+									compilationKey,
+									completionAction,
+									false)
 							})
 					})
 			}
@@ -571,6 +644,39 @@ internal class BuildLoader constructor(
 		}
 	}
 
+	/**
+	 * Determine which of the statements at the start of the module being
+	 * compiled in the given [CompilationContext] are unchanged since the given
+	 * previous compilation, and can therefore be replayed rather than compiled.
+	 *
+	 * @param previous
+	 *   The most recent [ModuleCompilation] of some version of the module,
+	 *   against the same predecessors.
+	 * @param context
+	 *   The [CompilationContext] of the new compilation.
+	 * @return
+	 *   The [ReusablePrefix], or `null` if nothing can be reused.
+	 */
+	private fun findReusablePrefix(
+		previous: ModuleCompilation,
+		context: CompilationContext
+	): ReusablePrefix? =
+		try
+		{
+			ReusablePrefix.find(
+				previous, context.source, context.surrogateIndexConverter)
+		}
+		catch (e: Exception)
+		{
+			// The previous compilation is unusable, so compile from scratch.
+			AvailBuilder.log(
+				Level.FINE,
+				"Not reusing previous compilation of %s: %s",
+				context.moduleHeader!!.moduleName.qualifiedName,
+				e)
+			null
+		}
+
 	/**
 	 * The given [module] has just been compiled using the given [context],
 	 * which has accumulated additional information to record, such as styling.
@@ -651,7 +757,8 @@ internal class BuildLoader constructor(
 			blockPhrasesOutputStream.toByteArray(),
 			ManifestRecord(manifestEntries),
 			assembleStylingRecord(context),
-			module.phrasePathRecord())
+			module.phrasePathRecord(),
+			CheckpointRecord(context.checkpoints.toList()))
 		archive.putCompilation(versionKey, compilationKey, compilation)
 
 		// Serialize the Stacks comments.
@@ -716,7 +823,22 @@ internal class BuildLoader constructor(
 					(utf16DefStart .. utf16DefEnd))
 			}
 		}
-		return StylingRecord(styleRanges, uses)
+		val reused = context.reusedStyling
+			?: return StylingRecord(styleRanges, uses)
+		// Merge in the styling of any statements that were replayed rather
+		// than compiled, keeping the runs ascending and non-overlapping.
+		val mergedRuns = mutableListOf<StyleRun>()
+		(styleRanges + reused.styleRuns)
+			.sortedBy { (run, _) -> run.first }
+			.forEach { styleRun ->
+				val previous = mergedRuns.lastOrNull()
+				if (previous === null
+					|| styleRun.first.first > previous.first.last)
+				{
+					mergedRuns.add(styleRun)
+				}
+			}
+		return StylingRecord(mergedRuns, reused.variableUses + uses)
 	}
 
 	/**
@@ -0,0 +1,383 @@
+/*
+ * ModuleImage.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of the copyright holder nor the names of the contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.builder
+
+import avail.builder.AvailBuilder.LoadedModule
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption.ATOMIC_MOVE
+import java.nio.file.StandardCopyOption.REPLACE_EXISTING
+import java.nio.file.StandardOpenOption.READ
+
+/**
+ * A `ModuleImage` is a single file holding the serialized header and body of
+ * each module that was loaded by an [AvailBuilder], exactly as they're stored
+ * in the repositories, but uncompressed and contiguous.  When a builder has an
+ * image, [BuildLoader] takes each module's bytes from the (memory-mapped)
+ * image, instead of reading and inflating the repository's records under the
+ * repository's lock.
+ *
+ * An entry is only used if it matches the module's current source digest and
+ * the compilation time of the compilation that the repository selected for the
+ * module's current predecessors, so a stale image can never supply the wrong
+ * module.  The bytes still carry the repository's CRC, which is checked as
+ * they are read.
+ *
+ * Only the serialized form is imaged.  The top-level statements are still
+ * replayed in loader fibers, since their effects (global variables, pojos,
+ * hooks, atom properties, lookup trees, chunk dependencies) have no serial
+ * form.
+ *
+ * @property buffer
+ *   The mapped contents of the image file.
+ * @property entries
+ *   The image's entries, keyed by fully-qualified module name.
+ */
+class ModuleImage private constructor(
+	private val buffer: ByteBuffer,
+	private val entries: Map<String, Entry>)
+{
+	/**
+	 * The location of a module's serialized forms within the image.
+	 *
+	 * @property sourceDigest
+	 *   The digest of the module source that was compiled.
+	 * @property compilationTime
+	 *   The time at which the imaged compilation was produced.
+	 * @property headerStart
+	 *   The position of the module header's bytes.
+	 * @property headerSize
+	 *   The number of bytes in the module header.
+	 * @property bodyStart
+	 *   The position of the module body's bytes.
+	 * @property bodySize
+	 *   The number of bytes in the module body.
+	 */
+	private class Entry constructor(
+		val sourceDigest: ByteArray,
+		val compilationTime: Long,
+		val headerStart: Int,
+		val headerSize: Int,
+		val bodyStart: Int,
+		val bodySize: Int)
+
+	/**
+	 * The serialized forms of a module, as they're written to an image.
+	 *
+	 * @property qualifiedName
+	 *   The module's fully-qualified name.
+	 * @property sourceDigest
+	 *   The digest of the module source that was compiled.
+	 * @property compilationTime
+	 *   The time at which the compilation was produced.
+	 * @property header
+	 *   The serialized module header, including its CRC.
+	 * @property body
+	 *   The serialized module body, including its CRC.
+	 */
+	internal class ImagedModule constructor(
+		val qualifiedName: String,
+		val sourceDigest: ByteArray,
+		val compilationTime: Long,
+		val header: ByteArray,
+		val body: ByteArray)
+
+	/** The number of modules in the image. */
+	val size: Int get() = entries.size
+
+	/**
+	 * Answer the [Entry] for the named module, but only if it was produced
+	 * from the same source and compilation.
+	 *
+	 * @param qualifiedName
+	 *   The module's fully-qualified name.
+	 * @param sourceDigest
+	 *   The digest of the module's current source.
+	 * @param compilationTime
+	 *   The time at which the compilation selected by the repository was
+	 *   produced.
+	 * @return
+	 *   The matching entry, or `null` if there is none.
+	 */
+	private fun entryFor(
+		qualifiedName: String,
+		sourceDigest: ByteArray,
+		compilationTime: Long
+	): Entry? = entries[qualifiedName]?.takeIf {
+		it.compilationTime == compilationTime
+			&& it.sourceDigest.contentEquals(sourceDigest)
+	}
+
+	/**
+	 * Copy the given range of the image into a new [ByteArray].
+	 *
+	 * @param start
+	 *   The position of the first byte.
+	 * @param size
+	 *   The number of bytes.
+	 * @return
+	 *   The bytes.
+	 */
+	private fun bytesAt(start: Int, size: Int): ByteArray
+	{
+		val bytes = ByteArray(size)
+		buffer.duplicate().position(start).get(bytes)
+		return bytes
+	}
+
+	/**
+	 * Answer the serialized module header for the named module, or `null` if
+	 * the image has no matching entry.
+	 *
+	 * @param qualifiedName
+	 *   The module's fully-qualified name.
+	 * @param sourceDigest
+	 *   The digest of the module's current source.
+	 * @param compilationTime
+	 *   The time at which the compilation selected by the repository was
+	 *   produced.
+	 * @return
+	 *   The same bytes as `ModuleVersion.moduleHeader`, or `null`.
+	 */
+	fun headerFor(
+		qualifiedName: String,
+		sourceDigest: ByteArray,
+		compilationTime: Long
+	): ByteArray? =
+		entryFor(qualifiedName, sourceDigest, compilationTime)?.let {
+			bytesAt(it.headerStart, it.headerSize)
+		}
+
+	/**
+	 * Answer the serialized module body for the named module, or `null` if
+	 * the image has no matching entry.
+	 *
+	 * @param qualifiedName
+	 *   The module's fully-qualified name.
+	 * @param sourceDigest
+	 *   The digest of the module's current source.
+	 * @param compilationTime
+	 *   The time at which the compilation selected by the repository was
+	 *   produced.
+	 * @return
+	 *   The same bytes as `ModuleCompilation.bytes`, or `null`.
+	 */
+	fun bodyFor(
+		qualifiedName: String,
+		sourceDigest: ByteArray,
+		compilationTime: Long
+	): ByteArray? =
+		entryFor(qualifiedName, sourceDigest, compilationTime)?.let {
+			bytesAt(it.bodyStart, it.bodySize)
+		}
+
+	override fun toString(): String = "ModuleImage(${entries.size} modules)"
+
+	companion object
+	{
+		/**
+		 * The value written at the start of an image file.  Changing the
+		 * format requires changing this value, so that old images are ignored.
+		 */
+		private const val magicNumber = 0x4176_4901
+
+		/**
+		 * Write an image of the given [LoadedModule]s to the specified file.
+		 * The image is written to a temporary file beside it, then moved into
+		 * place atomically.
+		 *
+		 * @param file
+		 *   The image file.
+		 * @param modules
+		 *   The modules to image, ideally in the order they were loaded.
+		 * @throws IOException
+		 *   If the image can't be written.
+		 */
+		@Throws(IOException::class)
+		fun write(file: File, modules: List<LoadedModule>) =
+			writeImagedModules(
+				file,
+				modules.map { loaded ->
+					ImagedModule(
+						loaded.name.qualifiedName,
+						loaded.sourceDigest,
+						loaded.compilation.compilationTime,
+						loaded.version.moduleHeader,
+						loaded.compilation.bytes)
+				})
+
+		/**
+		 * Write an image of the given [ImagedModule]s to the specified file.
+		 * The image is written to a temporary file beside it, then moved into
+		 * place atomically.
+		 *
+		 * @param file
+		 *   The image file.
+		 * @param modules
+		 *   The serialized modules to image.
+		 * @throws IOException
+		 *   If the image can't be written.
+		 */
+		@Throws(IOException::class)
+		internal fun writeImagedModules(
+			file: File,
+			modules: List<ImagedModule>)
+		{
+			val target = file.toPath().toAbsolutePath()
+			val temp: Path = Files.createTempFile(
+				target.parent, target.fileName.toString(), ".tmp")
+			try
+			{
+				DataOutputStream(
+					Files.newOutputStream(temp).buffered()
+				).use { out ->
+					out.writeInt(magicNumber)
+					out.writeInt(modules.size)
+					modules.forEach { module ->
+						out.writeUTF(module.qualifiedName)
+						out.writeInt(module.sourceDigest.size)
+						out.write(module.sourceDigest)
+						out.writeLong(module.compilationTime)
+						out.writeInt(module.header.size)
+						out.write(module.header)
+						out.writeInt(module.body.size)
+						out.write(module.body)
+					}
+				}
+				Files.move(temp, target, ATOMIC_MOVE, REPLACE_EXISTING)
+			}
+			finally
+			{
+				Files.deleteIfExists(temp)
+			}
+		}
+
+		/**
+		 * Read the image in the specified file.
+		 *
+		 * @param file
+		 *   The image file.
+		 * @return
+		 *   The image, or `null` if the file doesn't exist or isn't a valid
+		 *   image.
+		 */
+		fun read(file: File): ModuleImage?
+		{
+			if (!file.isFile) return null
+			return try
+			{
+				val buffer = FileChannel.open(file.toPath(), READ).use {
+					it.map(FileChannel.MapMode.READ_ONLY, 0, it.size())
+				}
+				val entries = mutableMapOf<String, Entry>()
+				DataInputStream(ByteBufferInputStream(buffer.duplicate())).use {
+					input ->
+					if (input.readInt() != magicNumber) return null
+					repeat(input.readInt()) {
+						val name = input.readUTF()
+						val digest = ByteArray(input.readInt())
+						input.readFully(digest)
+						val compilationTime = input.readLong()
+						val headerSize = input.readInt()
+						val headerStart = buffer.limit() - input.available()
+						if (input.skipBytes(headerSize) != headerSize)
+						{
+							// The image was truncated.
+							return null
+						}
+						val bodySize = input.readInt()
+						val bodyStart = buffer.limit() - input.available()
+						if (input.skipBytes(bodySize) != bodySize)
+						{
+							// The image was truncated.
+							return null
+						}
+						entries[name] = Entry(
+							digest,
+							compilationTime,
+							headerStart,
+							headerSize,
+							bodyStart,
+							bodySize)
+					}
+				}
+				ModuleImage(buffer, entries)
+			}
+			catch (e: IOException)
+			{
+				null
+			}
+		}
+
+		/**
+		 * An [InputStream] over the remaining bytes of a [ByteBuffer],
+		 * whose [available] count is exact.
+		 *
+		 * @property buffer
+		 *   The buffer to read.
+		 */
+		private class ByteBufferInputStream constructor(
+			private val buffer: ByteBuffer
+		) : InputStream()
+		{
+			override fun read(): Int =
+				if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF
+				else -1
+
+			override fun read(b: ByteArray, off: Int, len: Int): Int
+			{
+				if (len == 0) return 0
+				if (!buffer.hasRemaining()) return -1
+				val count = minOf(len, buffer.remaining())
+				buffer.get(b, off, count)
+				return count
+			}
+
+			override fun skip(n: Long): Long
+			{
+				val count = minOf(n, buffer.remaining().toLong()).toInt()
+				buffer.position(buffer.position() + count)
+				return count.toLong()
+			}
+
+			override fun available(): Int = buffer.remaining()
+		}
+	}
+}
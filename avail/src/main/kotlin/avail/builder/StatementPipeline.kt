@@ -0,0 +1,271 @@
+/*
+ * StatementPipeline.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of the copyright holder nor the names of the contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.builder
+
+import avail.AvailRuntime
+import avail.AvailRuntimeConfiguration
+import avail.descriptor.fiber.FiberDescriptor.Companion.loaderPriority
+import avail.descriptor.functions.A_Function
+import avail.serialization.Deserializer
+import avail.serialization.Deserializer.PriorEffectsPendingException
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * A `StatementPipeline` supplies the top-level statements of a module that is
+ * being loaded from a [repository][avail.persistence.cache.Repository],
+ * deserializing up to [lookahead] statements in a separate interpreter task
+ * while the current statement runs in its loader fiber.
+ *
+ * Some statements can't be deserialized until their predecessors have run,
+ * because they refer to atoms, method definitions, or global variables that
+ * those predecessors create.  The [Deserializer] detects this, and the
+ * attempt is [rolled back][Deserializer.deserializeOrRollBack].  Decoding then
+ * resumes once every earlier statement has completed, which is exactly the
+ * situation in which the statement would previously have been deserialized.
+ *
+ * Statements and failures are delivered strictly in order, one at a time:
+ * the [next] statement is only requested after the previous one completes.
+ *
+ * @property runtime
+ *   The [AvailRuntime] in which statements are deserialized.
+ * @property deserializer
+ *   The [Deserializer] positioned at the module's first statement.
+ *
+ * @constructor
+ * Create a `StatementPipeline` reading from the given [Deserializer].
+ *
+ * @param lookahead
+ *   The maximum number of statements to deserialize before they're needed.
+ *   This is ignored (treated as zero) if the deserializer
+ *   [can't&#32;roll&#32;back][Deserializer.canRollBack].
+ */
+class StatementPipeline constructor(
+	private val runtime: AvailRuntime,
+	private val deserializer: Deserializer,
+	lookahead: Int = AvailRuntimeConfiguration.moduleLoadLookahead)
+{
+	/**
+	 * The maximum number of statements to deserialize before they're needed.
+	 */
+	private val lookahead =
+		if (deserializer.canRollBack) lookahead else 0
+
+	/** The lock that protects the pipeline's state. */
+	private val lock = ReentrantLock()
+
+	/**
+	 * The statements that have been deserialized but not yet delivered.
+	 */
+	private val decoded = ArrayDeque<A_Function>()
+
+	/** Whether the deserializer has reached the end of its input. */
+	private var atEnd = false
+
+	/** The first problem encountered while deserializing, if any. */
+	private var failure: Throwable? = null
+
+	/**
+	 * Whether a deserialization task is running or queued.  At most one may
+	 * use the [deserializer] at a time.
+	 */
+	private var decoding = false
+
+	/**
+	 * Whether the most recent deserialization attempt had to be rolled back,
+	 * because it depended on the effects of statements that had not yet run.
+	 */
+	private var blocked = false
+
+	/**
+	 * Whether a delivered statement has not yet completed.
+	 */
+	private var executing = false
+
+	/**
+	 * The pending request for the next statement, if it couldn't be satisfied
+	 * immediately.
+	 */
+	private var waiter: Request? = null
+
+	/**
+	 * A request for the next statement.
+	 *
+	 * @property onFailure
+	 *   What to do if the statement couldn't be deserialized.
+	 * @property onStatement
+	 *   What to do with the statement, or with `null` if there are no more.
+	 */
+	private class Request constructor(
+		val onFailure: (Throwable)->Unit,
+		val onStatement: (A_Function?)->Unit)
+
+	init
+	{
+		deserializer.priorEffectsPending = {
+			lock.withLock { executing || decoded.isNotEmpty() }
+		}
+	}
+
+	/**
+	 * Request the next statement.  This also indicates that the previously
+	 * delivered statement, if any, has completed.  Exactly one of the given
+	 * functions will eventually be invoked, possibly in another [Thread].
+	 *
+	 * @param onFailure
+	 *   What to do if the next statement couldn't be deserialized.
+	 * @param onStatement
+	 *   What to do with the next statement, or with `null` if there are no
+	 *   more statements.
+	 */
+	fun next(
+		onFailure: (Throwable)->Unit,
+		onStatement: (A_Function?)->Unit)
+	{
+		val request = Request(onFailure, onStatement)
+		val ready = lock.withLock {
+			assert(waiter === null)
+			executing = false
+			val ready = takeOrWait(request)
+			startDecodingIfNeeded()
+			ready
+		}
+		ready?.invoke()
+	}
+
+	/**
+	 * Answer how to satisfy the given [Request] now, if possible, marking the
+	 * statement as [executing].  Otherwise record it as the [waiter] and answer
+	 * `null`.  The lock must be held.
+	 *
+	 * @param request
+	 *   The request for the next statement.
+	 * @return
+	 *   The action to perform after releasing the lock, or `null`.
+	 */
+	private fun takeOrWait(request: Request): (()->Unit)?
+	{
+		if (decoded.isNotEmpty())
+		{
+			val statement = decoded.removeFirst()
+			executing = true
+			return { request.onStatement(statement) }
+		}
+		failure?.let { return { request.onFailure(it) } }
+		if (atEnd) return { request.onStatement(null) }
+		waiter = request
+		return null
+	}
+
+	/**
+	 * Start a deserialization task, if one isn't already running and there's
+	 * something useful for it to do.  The lock must be held.
+	 */
+	private fun startDecodingIfNeeded()
+	{
+		if (decoding || atEnd || failure !== null) return
+		val wanted = decoded.size < lookahead
+			|| (waiter !== null && decoded.isEmpty())
+		if (!wanted) return
+		if (blocked && (executing || decoded.isNotEmpty())) return
+		decoding = true
+		blocked = false
+		runtime.whenRunningInterpretersDo(loaderPriority) { decode() }
+	}
+
+	/**
+	 * Deserialize statements until the look-ahead is full, the input is
+	 * exhausted, or a statement depends on statements that have not yet run.
+	 * Deliver each statement to the [waiter], if there is one.
+	 */
+	private fun decode()
+	{
+		while (true)
+		{
+			val statement: A_Function?
+			try
+			{
+				statement = deserializer.deserializeOrRollBackIfAble()
+			}
+			catch (e: PriorEffectsPendingException)
+			{
+				lock.withLock {
+					decoding = false
+					blocked = true
+					// The statements we were waiting for may have completed
+					// in the meantime.
+					startDecodingIfNeeded()
+				}
+				return
+			}
+			catch (e: Throwable)
+			{
+				val ready = lock.withLock {
+					failure = e
+					decoding = false
+					waiter?.let {
+						waiter = null
+						takeOrWait(it)
+					}
+				}
+				ready?.invoke()
+				return
+			}
+			var more = false
+			val ready = lock.withLock {
+				if (statement === null) atEnd = true
+				else decoded.addLast(statement)
+				more = !atEnd && decoded.size < lookahead
+				decoding = more
+				waiter?.let {
+					waiter = null
+					takeOrWait(it)
+				}
+			}
+			ready?.invoke()
+			if (!more) return
+		}
+	}
+
+	/**
+	 * Deserialize the next statement, rolling back if it depends on the
+	 * effects of statements that have not yet run.  Rolling back is only
+	 * possible with look-ahead, which is the only case in which other
+	 * statements may be pending.
+	 *
+	 * @return
+	 *   The next statement, or `null` if there are no more.
+	 */
+	private fun Deserializer.deserializeOrRollBackIfAble(): A_Function? =
+		if (lookahead > 0) deserializeOrRollBack() else deserialize()
+}
@@ -150,6 +150,7 @@ import avail.descriptor.module.A_Module.Companion.hasAncestor
 import avail.descriptor.module.A_Module.Companion.importedNames
 import avail.descriptor.module.A_Module.Companion.moduleName
 import avail.descriptor.module.A_Module.Companion.moduleNameNative
+import avail.descriptor.module.A_Module.Companion.phrasePathRecord
 import avail.descriptor.module.A_Module.Companion.privateNames
 import avail.descriptor.module.A_Module.Companion.removeFrom
 import avail.descriptor.module.A_Module.Companion.shortModuleNameNative
@@ -294,6 +295,8 @@ import avail.interpreter.Primitive.PrimitiveHolder.Companion.primitiveByName
 import avail.interpreter.execution.AvailLoader
 import avail.interpreter.execution.AvailLoader.Phase.COMPILING
 import avail.interpreter.execution.AvailLoader.Phase.EXECUTING_FOR_COMPILE
+import avail.interpreter.execution.AvailLoader.Phase.EXECUTING_FOR_LOAD
+import avail.interpreter.execution.AvailLoader.Phase.LOADING
 import avail.interpreter.execution.AvailLoader.Phase.STYLING_HEADER
 import avail.interpreter.execution.Interpreter
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForConstant
@@ -304,10 +307,12 @@ import avail.performance.Statistic
 import avail.performance.StatisticReport.RUNNING_PARSING_INSTRUCTIONS
 import avail.performance.StatisticReport.TYPE_CHECKING_FOR_PARSER
 import avail.persistence.cache.Repository
+import avail.serialization.Deserializer
 import avail.utility.Mutable
 import avail.utility.PrefixSharingList.Companion.append
 import avail.utility.PrefixSharingList.Companion.withoutLast
 import avail.utility.Strings.increaseIndentation
+import avail.utility.evaluation.Combinator.recurse
 import avail.utility.evaluation.Describer
 import avail.utility.evaluation.FormattingDescriber
 import avail.utility.parallelDoThen
@@ -383,6 +388,19 @@ class AvailCompiler constructor(
 	/** The memoization of results of previous parsing attempts. */
 	private val fragmentCache = AvailCompilerFragmentCache()
 
+	/**
+	 * The unchanged statements at the start of the module that should be
+	 * replayed from a previous compilation instead of being compiled, if any.
+	 * Set by [parseModule].
+	 */
+	private var reusablePrefix: ReusablePrefix? = null
+
+	/**
+	 * What to do if the [reusablePrefix] can't be replayed.  Set by
+	 * [parseModule].
+	 */
+	private var afterReplayFailure: (Throwable)->Unit = {}
+
 	/**
 	 * The Avail [A_String] containing the complete content of the module
 	 * being compiled.
@@ -3385,7 +3403,14 @@ class AvailCompiler constructor(
 							positionsToTrack = 3
 							silentPositionsToTrack = 3
 						}
-						parseAndExecuteOutermostStatements(afterHeader)
+						when (val prefix = reusablePrefix)
+						{
+							null -> parseAndExecuteOutermostStatements(
+								afterHeader)
+							else -> replayPrefixThen(prefix, afterHeader) {
+								parseAndExecuteOutermostStatements(it)
+							}
+						}
 					}
 				}
 			}
@@ -3469,8 +3494,10 @@ class AvailCompiler constructor(
 			// What to do after running all these simple statements.
 			val ran = AtomicBoolean(false)
 			val resumeParsing = {
-				// Report progress.
 				assert(!ran.getAndSet(true))
+				compilationContext.recordCheckpoint(
+					afterStatement.position, afterStatement.lineNumber)
+				// Report progress.
 				compilationContext.progressReporter(
 					moduleName,
 					source.tupleSize.toLong(),
@@ -3532,6 +3559,132 @@ class AvailCompiler constructor(
 		}
 	}
 
+	/**
+	 * Replay the unchanged statements at the start of the module from the
+	 * serialized body of a previous compilation, rather than parsing and
+	 * executing them again.  Each statement runs in its own loader fiber, as
+	 * when loading a module from a repository, and is then reserialized into
+	 * this compilation.  The manifest entries, phrase paths, and styling that
+	 * the previous compilation recorded for those statements are carried
+	 * over.  Finally, rebuild the bundle tree and lexical scanner, since the
+	 * replayed statements didn't update them, and continue at the prefix's
+	 * [resume&#32;point][ReusablePrefix.resumePoint].
+	 *
+	 * If replaying fails, including with a
+	 * [ReusablePrefix.PrefixNotReplayableException], roll back the module and
+	 * invoke the [afterReplayFailure] action, which compiles the module from
+	 * scratch without reusing the prefix.
+	 *
+	 * @param prefix
+	 *   The [ReusablePrefix] to replay.
+	 * @param afterHeader
+	 *   The [ParserState] just after the module header.
+	 * @param then
+	 *   What to do with the [ParserState] at the resume point.
+	 */
+	private fun replayPrefixThen(
+		prefix: ReusablePrefix,
+		afterHeader: ParserState,
+		then: (ParserState)->Unit)
+	{
+		val loader = compilationContext.loader
+		val module = compilationContext.module
+		val failed = AtomicBoolean(false)
+		val fail = { e: Throwable ->
+			if (!failed.getAndSet(true))
+			{
+				compilationContext.whenNotStyling {
+					rollbackModuleTransaction { afterReplayFailure(e) }
+				}
+			}
+		}
+		val input = prefix.newBodyStream()
+		val deserializer: Deserializer
+		try
+		{
+			val manifestEntries = loader.manifestEntries!!
+			manifestEntries.addAll(
+				prefix.manifestEntries(manifestEntries.size))
+			val rootTrees = module.phrasePathRecord().rootTrees
+			rootTrees.addAll(prefix.phrasePaths(rootTrees.size))
+			compilationContext.reusedStyling = prefix.styling(
+				afterHeader.position,
+				compilationContext.surrogateIndexConverter)
+			// A module body never refers to pumped objects, so if this one
+			// does, give up on the prefix rather than guess at them.
+			deserializer = Deserializer(input, compilationContext.runtime) {
+				throw ReusablePrefix.PrefixNotReplayableException(
+					"Unexpected reference to pumped object #$it")
+			}
+			deserializer.currentModule = module
+		}
+		catch (e: Throwable)
+		{
+			fail(e)
+			return
+		}
+		val pendingCheckpoints = ArrayDeque(prefix.checkpoints)
+		recurse { replayNext ->
+			loader.phase = LOADING
+			val function = try
+			{
+				deserializer.deserialize()
+			}
+			catch (e: Throwable)
+			{
+				fail(e)
+				return@recurse
+			}
+			if (function === null)
+			{
+				assert(pendingCheckpoints.isEmpty())
+				loader.prepareForCompilingModuleBody()
+				val resumePoint = prefix.resumePoint
+				compilationContext.progressReporter(
+					moduleName,
+					source.tupleSize.toLong(),
+					resumePoint.sourcePosition.toLong(),
+					resumePoint.lineNumber
+				) { null }
+				then(
+					ParserState(
+						LexingState(
+							compilationContext,
+							resumePoint.sourcePosition,
+							resumePoint.lineNumber,
+							emptyList()),
+						afterHeader.clientDataMap))
+				return@recurse
+			}
+			val code = function.code()
+			ReusablePrefix.forgetBlockPhraseIndices(code)
+			val fiber = newLoaderFiber(function.kind().returnType, loader)
+			{
+				formatString(
+					"Replay unchanged statement %s, in %s:%d",
+					code.methodName,
+					code.module.shortModuleNameNative,
+					code.codeStartingLineNumber)
+			}
+			fiber.setSuccessAndFailure(
+				{
+					compilationContext.serializeWithoutSummary(function)
+					val position = prefix.bodySize - input.available()
+					while (pendingCheckpoints.isNotEmpty()
+						&& pendingCheckpoints.first().bodyPosition <= position)
+					{
+						compilationContext.recordReplayedCheckpoint(
+							pendingCheckpoints.removeFirst())
+					}
+					replayNext()
+				},
+				fail)
+			loader.phase = EXECUTING_FOR_LOAD
+			compilationContext.runtime.runOutermostFunction(
+				fiber, function, emptyList())
+		}
+	}
+
 	/**
 	 * We just reached the end of the module.
 	 *
@@ -3583,12 +3736,23 @@ class AvailCompiler constructor(
 	 *   What to do when the entire module has been parsed successfully.
 	 * @param afterFail
 	 *   What to do after compilation fails.
+	 * @param reusablePrefix
+	 *   The unchanged statements at the start of the module, which should be
+	 *   replayed from a previous compilation rather than compiled, or `null`
+	 *   to compile the whole module.
+	 * @param afterReplayFailure
+	 *   What to do, after rolling back the module, if the [reusablePrefix]
+	 *   couldn't be replayed.
 	 */
 	@Synchronized
 	fun parseModule(
 		onSuccess: (A_Module)->Unit,
-		afterFail: ()->Unit)
+		afterFail: ()->Unit,
+		reusablePrefix: ReusablePrefix? = null,
+		afterReplayFailure: (Throwable)->Unit = { afterFail() })
 	{
+		this.reusablePrefix = reusablePrefix
+		this.afterReplayFailure = afterReplayFailure
 		val ran = AtomicBoolean(false)
 		compilationContext.diagnostics.setSuccessAndFailureReporters(
 			theSuccessReporter = {
@@ -107,6 +107,7 @@ import avail.descriptor.phrases.PhraseDescriptor
 import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.AvailObject
 import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.sets.A_Set.Companion.setSize
 import avail.descriptor.tokens.A_Token
 import avail.descriptor.tokens.A_Token.Companion.pastEnd
 import avail.descriptor.tuples.A_String
@@ -158,8 +159,10 @@ import avail.interpreter.levelOne.L1Decompiler
 import avail.interpreter.levelOne.L1InstructionWriter
 import avail.interpreter.levelOne.L1Operation
 import avail.io.TextInterface
+import avail.persistence.cache.Repository.CheckpointRecord.Checkpoint
 import avail.persistence.cache.Repository.PhraseNode
 import avail.persistence.cache.Repository.PhraseNode.PhraseNodeToken
+import avail.persistence.cache.Repository.StylingRecord
 import avail.serialization.Serializer
 import avail.utility.notNullAnd
 import avail.utility.parallelDoThen
@@ -893,6 +896,92 @@ class CompilationContext constructor(
 		serializer.serialize(function)
 	}
 
+	/**
+	 * The [Checkpoint]s recorded so far, at top-level statement boundaries
+	 * from which a later compilation of an edited version of this module may
+	 * resume.  See [ReusablePrefix].
+	 */
+	internal val checkpoints = mutableListOf<Checkpoint>()
+
+	/**
+	 * The number of top-level statements that have completed since the last
+	 * [Checkpoint] was recorded.
+	 */
+	private var statementsSinceCheckpoint = 0
+
+	/** Computes the source digest recorded in each [Checkpoint]. */
+	private val checkpointDigester by lazy {
+		ReusablePrefix.SourceDigester(source, surrogateIndexConverter)
+	}
+
+	/**
+	 * The styling of the statements that were replayed from a previous
+	 * compilation rather than compiled, or `null` if no statements were
+	 * replayed.
+	 */
+	@Volatile
+	var reusedStyling: StylingRecord? = null
+
+	/**
+	 * A top-level statement has been executed and serialized.  Record a
+	 * [Checkpoint] if the serialized body now captures the effects of every
+	 * statement so far.  That's only true if there are no delayed effects
+	 * waiting to be summarized, so if there have been more than
+	 * [checkpointInterval] statements since the last checkpoint, flush them
+	 * early, giving up a little summarization to bound how much must be
+	 * recompiled after an edit.  No checkpoint is recorded while forward
+	 * declarations are unresolved, since replaying the statements wouldn't
+	 * reconstruct the loader's record of them.
+	 *
+	 * @param sourcePosition
+	 *   The one-based position in the source just after the statement.
+	 * @param lineNumber
+	 *   The line number at that position.
+	 */
+	@Synchronized
+	fun recordCheckpoint(sourcePosition: Int, lineNumber: Int)
+	{
+		statementsSinceCheckpoint++
+		if (loader.pendingForwards.setSize != 0) return
+		if (delayedSerializedEarlyEffects.isNotEmpty()
+			|| delayedSerializedEffects.isNotEmpty())
+		{
+			if (statementsSinceCheckpoint < checkpointInterval) return
+			flushDelayedSerializedEffects()
+		}
+		statementsSinceCheckpoint = 0
+		checkpoints.add(
+			Checkpoint(
+				sourcePosition,
+				lineNumber,
+				checkpointDigester.digestBefore(sourcePosition),
+				serializerOutputStream.size(),
+				loader.manifestEntries!!.size,
+				module.phrasePathRecord().rootTrees.size))
+	}
+
+	/**
+	 * The statements preceding a [Checkpoint] of a previous compilation have
+	 * just been replayed and reserialized.  Record the equivalent checkpoint
+	 * in this compilation.
+	 *
+	 * @param replayed
+	 *   The previous compilation's [Checkpoint].
+	 */
+	@Synchronized
+	fun recordReplayedCheckpoint(replayed: Checkpoint)
+	{
+		statementsSinceCheckpoint = 0
+		checkpoints.add(
+			Checkpoint(
+				replayed.sourcePosition,
+				replayed.lineNumber,
+				replayed.sourceDigest,
+				serializerOutputStream.size(),
+				replayed.manifestEntryCount,
+				replayed.phrasePathCount))
+	}
+
 	/**
 	 * Report an [internal][ProblemType.INTERNAL] [problem][Problem].
 	 *
@@ -1426,5 +1515,11 @@ class CompilationContext constructor(
 		/** The [logger][Logger]. */
 		val logger: Logger = Logger.getLogger(
 			CompilationContext::class.java.name)
+
+		/**
+		 * The maximum number of top-level statements whose effects may be
+		 * summarized together before a [Checkpoint] is forced.
+		 */
+		private const val checkpointInterval = 16
 	}
 }
@@ -0,0 +1,347 @@
+/*
+ * ReusablePrefix.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.compiler
+
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.literalAt
+import avail.descriptor.functions.A_RawFunction.Companion.numLiterals
+import avail.descriptor.functions.A_RawFunction.Companion.originatingPhraseIndex
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.tuples.A_String
+import avail.descriptor.tuples.A_String.Companion.asNativeString
+import avail.descriptor.tuples.A_String.SurrogateIndexConverter
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.types.TypeTag
+import avail.persistence.cache.Repository.CheckpointRecord
+import avail.persistence.cache.Repository.CheckpointRecord.Checkpoint
+import avail.persistence.cache.Repository.ManifestRecord
+import avail.persistence.cache.Repository.ModuleCompilation
+import avail.persistence.cache.Repository.PhraseNode
+import avail.persistence.cache.Repository.PhrasePathRecord
+import avail.persistence.cache.Repository.StylingRecord
+import org.availlang.persistence.IndexedFile.Companion.validatedBytesFrom
+import java.io.ByteArrayInputStream
+import java.security.MessageDigest
+
+/**
+ * A `ReusablePrefix` describes the top-level statements at the start of an
+ * edited module whose source is unchanged since a previous
+ * [compilation][ModuleCompilation] of the module against the same
+ * predecessors.  Rather than parsing and executing those statements again,
+ * the [AvailCompiler] replays their serialized form from the previous
+ * compilation, then resumes compiling at the [resumePoint].
+ *
+ * A prefix always ends at one of the previous compilation's [Checkpoint]s,
+ * where the serialized module body completely captures the effects of the
+ * source that precedes it.
+ *
+ * @property checkpoints
+ *   The previous compilation's [Checkpoint]s that fall within the unchanged
+ *   prefix, in ascending order.  The last one is the [resumePoint].
+ * @property body
+ *   The previous compilation's serialized module body.
+ * @property manifestRecord
+ *   The previous compilation's [ManifestRecord].
+ * @property phrasePathRecord
+ *   The previous compilation's [PhrasePathRecord].
+ * @property stylingRecord
+ *   The previous compilation's [StylingRecord].
+ *
+ * @constructor
+ * Create a `ReusablePrefix`.  Use [find] to locate one in a previous
+ * [ModuleCompilation].
+ */
+class ReusablePrefix internal constructor(
+	val checkpoints: List<Checkpoint>,
+	private val body: ByteArray,
+	private val manifestRecord: ManifestRecord,
+	private val phrasePathRecord: PhrasePathRecord,
+	private val stylingRecord: StylingRecord)
+{
+	/** The [Checkpoint] at which compilation resumes. */
+	val resumePoint: Checkpoint get() = checkpoints.last()
+
+	/** The number of bytes of the serialized body that will be replayed. */
+	val bodySize: Int get() = resumePoint.bodyPosition
+
+	/**
+	 * Answer a stream over the portion of the previous compilation's
+	 * serialized body that captures the prefix.
+	 *
+	 * @return
+	 *   A [ByteArrayInputStream] ending at the [resumePoint].
+	 */
+	fun newBodyStream() = ByteArrayInputStream(body, 0, bodySize)
+
+	/**
+	 * Answer the [ModuleManifestEntry]s recorded for the prefix by the
+	 * previous compilation, skipping those that the current compilation has
+	 * already recorded for the module header.  The entries no longer refer to
+	 * their body phrases, since the replayed functions
+	 * [forget][forgetBlockPhraseIndices] them.
+	 *
+	 * @param from
+	 *   The number of entries already recorded.
+	 * @return
+	 *   The remaining entries of the prefix.
+	 */
+	fun manifestEntries(from: Int): List<ModuleManifestEntry> =
+		manifestRecord.manifestEntries
+			.take(resumePoint.manifestEntryCount)
+			.drop(from)
+			.map {
+				ModuleManifestEntry(
+					it.kind,
+					it.summaryText,
+					it.topLevelStartingLine,
+					it.definitionStartingLine)
+			}
+
+	/**
+	 * Answer the root [PhraseNode]s recorded for the prefix by the previous
+	 * compilation, skipping those that the current compilation has already
+	 * recorded for the module header.
+	 *
+	 * @param from
+	 *   The number of root phrase nodes already recorded.
+	 * @return
+	 *   The remaining root phrase nodes of the prefix.
+	 */
+	fun phrasePaths(from: Int): List<PhraseNode> =
+		phrasePathRecord.rootTrees
+			.take(resumePoint.phrasePathCount)
+			.drop(from)
+
+	/**
+	 * Answer the styling recorded by the previous compilation for the
+	 * statements of the prefix, excluding the module header, which is styled
+	 * again by the current compilation.
+	 *
+	 * @param bodyStart
+	 *   The one-based position of the start of the module body.
+	 * @param converter
+	 *   How to convert positions in the module source to UTF-16 positions.
+	 * @return
+	 *   A [StylingRecord] covering only the body of the prefix.
+	 */
+	fun styling(
+		bodyStart: Int,
+		converter: SurrogateIndexConverter
+	): StylingRecord
+	{
+		val start = converter.availIndexToJavaIndex(bodyStart - 1)
+		val pastEnd =
+			converter.availIndexToJavaIndex(resumePoint.sourcePosition - 1)
+		val old = stylingRecord
+		return StylingRecord(
+			old.styleRuns.filter { (run, _) ->
+				run.first >= start && run.last < pastEnd
+			},
+			old.variableUses.filter { (use, definition) ->
+				use.first >= start && use.last < pastEnd
+					&& definition.first >= start
+			})
+	}
+
+	/**
+	 * Computes the SHA-256 digests of successively longer prefixes of a
+	 * module's source, as recorded in each [Checkpoint].
+	 *
+	 * @property source
+	 *   The module's source, as a Java [String].
+	 * @property converter
+	 *   How to convert positions in the module source to UTF-16 positions.
+	 *
+	 * @constructor
+	 * Create a `SourceDigester` for the given source.
+	 */
+	class SourceDigester constructor(
+		private val source: String,
+		private val converter: SurrogateIndexConverter)
+	{
+		/**
+		 * Create a `SourceDigester` for the given Avail source string.
+		 *
+		 * @param source
+		 *   The module's source.
+		 * @param converter
+		 *   How to convert positions in the module source to UTF-16
+		 *   positions.
+		 */
+		constructor(source: A_String, converter: SurrogateIndexConverter)
+			: this(source.asNativeString(), converter)
+
+		/** The digest of the source up to [digestedPosition]. */
+		private val digest = MessageDigest.getInstance("SHA-256")
+
+		/** How many UTF-16 characters have been added to the [digest]. */
+		private var digestedPosition = 0
+
+		/**
+		 * Answer the digest of the source preceding the given position.
+		 * Successive requests must not decrease the position.
+		 *
+		 * @param sourcePosition
+		 *   The one-based position in the module source.
+		 * @return
+		 *   The SHA-256 digest of the UTF-8 encoding of the source prior to
+		 *   that position.
+		 */
+		fun digestBefore(sourcePosition: Int): ByteArray
+		{
+			val end = converter.availIndexToJavaIndex(sourcePosition - 1)
+			assert(end >= digestedPosition)
+			digest.update(
+				source.substring(digestedPosition, end).toByteArray())
+			digestedPosition = end
+			return (digest.clone() as MessageDigest).digest()
+		}
+	}
+
+	/**
+	 * Thrown while replaying a prefix when its serialized body refers to an
+	 * object that the replay can't supply, such as a pumped object.  Like any
+	 * other failure to replay, it causes the module to be compiled from
+	 * scratch, without reusing its previous compilation.
+	 *
+	 * @constructor
+	 * Create a `PrefixNotReplayableException`.
+	 *
+	 * @param message
+	 *   A description of the problem.
+	 */
+	class PrefixNotReplayableException constructor(message: String)
+		: Exception(message)
+
+	companion object
+	{
+		/**
+		 * Determine how much of the given previous [ModuleCompilation] can be
+		 * reused when compiling the given source.
+		 *
+		 * @param compilation
+		 *   The most recent compilation of some other version of the module,
+		 *   against the same predecessors.
+		 * @param source
+		 *   The module's current source.
+		 * @param converter
+		 *   How to convert positions in the module source to UTF-16
+		 *   positions.
+		 * @return
+		 *   The longest `ReusablePrefix`, or `null` if the source was changed
+		 *   before the first checkpoint.
+		 */
+		fun find(
+			compilation: ModuleCompilation,
+			source: A_String,
+			converter: SurrogateIndexConverter
+		): ReusablePrefix?
+		{
+			val matched = matchingCheckpoints(
+				compilation.checkpointRecord, source, converter)
+			if (matched.isEmpty()) return null
+			val body = compilation.bytes
+			// Validate the whole body, including its trailing CRC, before
+			// trusting any part of it.
+			validatedBytesFrom(body)
+			return ReusablePrefix(
+				matched,
+				body,
+				compilation.manifestRecord,
+				compilation.phrasePathRecord,
+				compilation.stylingRecord)
+		}
+
+		/**
+		 * Answer the leading [Checkpoint]s of the given [CheckpointRecord]
+		 * whose digests agree with the given source.
+		 *
+		 * @param checkpointRecord
+		 *   The [CheckpointRecord] of a previous compilation.
+		 * @param source
+		 *   The module's current source.
+		 * @param converter
+		 *   How to convert positions in the module source to UTF-16
+		 *   positions.
+		 * @return
+		 *   The matching [Checkpoint]s, in ascending order, possibly none.
+		 */
+		internal fun matchingCheckpoints(
+			checkpointRecord: CheckpointRecord,
+			source: A_String,
+			converter: SurrogateIndexConverter
+		): List<Checkpoint>
+		{
+			val digester = SourceDigester(source, converter)
+			return checkpointRecord.checkpoints
+				.asSequence()
+				.takeWhile { it.sourcePosition <= source.tupleSize + 1 }
+				.takeWhile {
+					it.sourceDigest.contentEquals(
+						digester.digestBefore(it.sourcePosition))
+				}
+				.toList()
+		}
+
+		/**
+		 * Forget the indices of the block phrases of the given
+		 * [A_RawFunction] and of the raw functions nested within it.  Those
+		 * indices refer to the previous compilation's tuple of block phrases,
+		 * which isn't carried into the new compilation.
+		 *
+		 * @param code
+		 *   A raw function deserialized from the prefix.
+		 */
+		fun forgetBlockPhraseIndices(code: A_RawFunction)
+		{
+			val visited = mutableSetOf<A_RawFunction>()
+			val work = mutableListOf(code)
+			while (work.isNotEmpty())
+			{
+				val next = work.removeLast()
+				if (!visited.add(next)) continue
+				next.originatingPhraseIndex = -1
+				for (i in 1 .. next.numLiterals)
+				{
+					val literal: AvailObject = next.literalAt(i)
+					when
+					{
+						literal.typeTag == TypeTag.RAW_FUNCTION_TAG ->
+							work.add(literal)
+						literal.isFunction -> work.add(literal.code())
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * AtomPropertyMap.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.descriptor.atoms
+
+import avail.descriptor.representation.AvailObject
+import java.lang.ref.WeakReference
+
+/**
+ * An immutable property map for a
+ * [shared&#32;atom][AtomWithPropertiesSharedDescriptor].  Since it's never
+ * modified, any number of threads may read it without synchronization.  To
+ * change a property, a writer builds a new map [with] the change, and replaces
+ * the old one with a single volatile write.
+ *
+ * Like the [java.util.WeakHashMap] used by unshared atoms, the keys are only
+ * weakly held.  An entry whose key has been collected can't be found or
+ * iterated, and it's discarded by the next change to the map.
+ *
+ * The entries are kept in an open-addressed hash table, always less than half
+ * full, so that a lookup always reaches an empty slot or the key.
+ *
+ * The price of lock-free reads is that every change copies the whole table,
+ * so a change costs time and garbage proportional to the number of live
+ * entries, and a series of n changes to one atom costs O(n²).  That suits the
+ * way atom properties are used: a handful of properties per atom, set once
+ * (often while loading a module) and then read many times.  An atom whose
+ * properties churn, or which accumulates many of them, would be better served
+ * by keeping that state somewhere other than its properties.
+ *
+ * @property hashes
+ *   The hash of each slot's key, to avoid dereferencing most mismatches.
+ * @property keys
+ *   Weak references to the keys, or `null` for empty slots.
+ * @property values
+ *   The value associated with each slot's key.
+ *
+ * @constructor
+ * Construct an `AtomPropertyMap` from its table.
+ */
+internal class AtomPropertyMap private constructor(
+	private val hashes: IntArray,
+	private val keys: Array<WeakReference<AvailObject>?>,
+	private val values: Array<AvailObject?>
+) : AbstractMap<A_Atom, AvailObject>()
+{
+	/**
+	 * Answer the index of the given key's slot, or of the empty slot where it
+	 * would go.
+	 *
+	 * @param key
+	 *   The [traversed][AvailObject.traversed] key.
+	 * @param hash
+	 *   The key's hash.
+	 * @return
+	 *   A slot index.
+	 */
+	private fun indexOf(key: AvailObject, hash: Int): Int
+	{
+		val mask = keys.size - 1
+		var index = hash and mask
+		while (true)
+		{
+			val reference = keys[index] ?: return index
+			if (hashes[index] == hash)
+			{
+				val candidate = reference.get()
+				// The key may have been stored before it was replaced by an
+				// indirection to its shared form.
+				if (candidate !== null
+					&& (candidate === key || candidate.traversed() === key))
+				{
+					return index
+				}
+			}
+			index = (index + 1) and mask
+		}
+	}
+
+	override fun get(key: A_Atom): AvailObject?
+	{
+		val traversed = key.traversed()
+		return values[indexOf(traversed, traversed.hash())]
+	}
+
+	override fun containsKey(key: A_Atom): Boolean = get(key) !== null
+
+	override val entries: Set<Map.Entry<A_Atom, AvailObject>>
+		get()
+		{
+			val live = mutableMapOf<A_Atom, AvailObject>()
+			forEachLive { key, value -> live[key] = value }
+			return live.entries
+		}
+
+	/**
+	 * Iterate over the entries whose keys have not been collected.
+	 *
+	 * @param action
+	 *   What to do with each [traversed][AvailObject.traversed] key and its
+	 *   value.
+	 */
+	private inline fun forEachLive(action: (AvailObject, AvailObject)->Unit)
+	{
+		for (index in keys.indices)
+		{
+			val key = keys[index]?.get() ?: continue
+			action(key.traversed(), values[index]!!)
+		}
+	}
+
+	/**
+	 * Answer a new `AtomPropertyMap` that differs from this one only at the
+	 * given key, and which omits any entries whose keys have been collected.
+	 * This copies every live entry, so it takes time linear in the size of
+	 * the map.
+	 *
+	 * @param key
+	 *   The key to add, replace, or remove.  It should already be shared.
+	 * @param value
+	 *   The new value, or `null` to remove the key.
+	 * @return
+	 *   The new map.
+	 */
+	fun with(key: A_Atom, value: AvailObject?): AtomPropertyMap
+	{
+		val changedKey = key.traversed()
+		val newEntries = mutableListOf<Pair<AvailObject, AvailObject>>()
+		forEachLive { liveKey, liveValue ->
+			if (liveKey !== changedKey) newEntries.add(liveKey to liveValue)
+		}
+		if (value !== null) newEntries.add(changedKey to value)
+		return build(newEntries)
+	}
+
+	companion object
+	{
+		/** The `AtomPropertyMap` with no entries. */
+		val empty = build(emptyList())
+
+		/**
+		 * Create an `AtomPropertyMap` with the same entries as the given map.
+		 * The keys need not be fully shared yet, but they must not change hash.
+		 *
+		 * @param map
+		 *   The map to copy.
+		 * @return
+		 *   The new `AtomPropertyMap`.
+		 */
+		fun from(map: Map<A_Atom, AvailObject>): AtomPropertyMap =
+			build(map.map { (key, value) -> key as AvailObject to value })
+
+		/**
+		 * Build an `AtomPropertyMap` from distinct keys and their values.
+		 *
+		 * @param entries
+		 *   The keys and values.
+		 * @return
+		 *   The new `AtomPropertyMap`.
+		 */
+		private fun build(
+			entries: List<Pair<AvailObject, AvailObject>>
+		): AtomPropertyMap
+		{
+			// Keep the table less than half full.
+			val capacity = Integer.highestOneBit(entries.size * 2 + 1) shl 1
+			val table = AtomPropertyMap(
+				IntArray(capacity),
+				arrayOfNulls(capacity),
+				arrayOfNulls(capacity))
+			entries.forEach { (key, value) ->
+				val hash = key.hash()
+				val index = table.indexOf(key, hash)
+				table.hashes[index] = hash
+				table.keys[index] = WeakReference(key)
+				table.values[index] = value
+			}
+			return table
+		}
+	}
+}
@@ -68,7 +68,6 @@ import avail.exceptions.MalformedMessageException
 import avail.serialization.Serializer
 import avail.serialization.SerializerOperation
 import avail.utility.ifZero
-import java.util.WeakHashMap
 
 /**
  * An `atom` is an object that has identity by fiat, i.e., it is distinguished
@@ -158,7 +157,9 @@ internal class AtomWithPropertiesSharedDescriptor private constructor(
 		ISSUING_MODULE,
 
 		/**
-		 * A weak map from this atom's property keys (atoms) to property values.
+		 * A raw pojo wrapping an immutable [AtomPropertyMap], a weak map from
+		 * this atom's property keys (atoms) to property values, or [nil] if
+		 * no property has been set.  It's replaced, never modified.
 		 */
 		@HideFieldInDebugger
 		PROPERTY_MAP_POJO,
@@ -214,13 +215,19 @@ internal class AtomWithPropertiesSharedDescriptor private constructor(
 		else -> error("Atom is not a boolean")
 	}
 
+	/**
+	 * Extract the property value of this atom at the specified key.  Return
+	 * [nil] if no such property exists.  The [AtomPropertyMap] is immutable,
+	 * so no lock is needed.
+	 */
 	override fun o_GetAtomProperty(
 		self: AvailObject,
 		key: A_Atom
-	): AvailObject = when
+	): AvailObject
 	{
-		self.volatileSlot(PROPERTY_MAP_POJO).isNil -> nil
-		else -> synchronized(self) { super.o_GetAtomProperty(self, key) }
+		val pojo = self.volatileSlot(PROPERTY_MAP_POJO)
+		if (pojo.isNil) return nil
+		return pojo.javaObjectNotNull<AtomPropertyMap>()[key] ?: nil
 	}
 
 	// Always set (to non-zero) during construction of a shared atom.
@@ -265,27 +272,29 @@ internal class AtomWithPropertiesSharedDescriptor private constructor(
 		}
 	}
 
+	/**
+	 * Add or replace a property of this [A_Atom].  If the provided value is
+	 * [nil], remove the property.  Writers are serialized by the atom's
+	 * monitor, and each publishes a new [AtomPropertyMap] with a single
+	 * volatile write, so readers never need the monitor.  The new map is a
+	 * full copy, so this takes time linear in the number of properties.
+	 */
 	override fun o_SetAtomProperty(
 		self: AvailObject,
 		key: A_Atom,
 		value: A_BasicObject)
 	{
-		var map = self.volatileSlot(PROPERTY_MAP_POJO)
-		if (map.isNil)
-		{
-			synchronized(self)
-			{
-				// Re-check the volatile field.
-				map = self.volatileSlot(PROPERTY_MAP_POJO)
-				if (map.isNil)
-				{
-					map = identityPojo(WeakHashMap<A_Atom, A_BasicObject>())
-					self.setVolatileSlot(PROPERTY_MAP_POJO, map)
-				}
-			}
-		}
+		assert(key.isAtom)
+		val sharedKey = key.makeShared()
+		val sharedValue = value.makeShared()
 		synchronized(self) {
-			super.o_SetAtomProperty(self, key.makeShared(), value.makeShared())
+			val pojo = self.volatileSlot(PROPERTY_MAP_POJO)
+			val oldMap: AtomPropertyMap =
+				if (pojo.isNil) AtomPropertyMap.empty
+				else pojo.javaObjectNotNull()
+			val newMap = oldMap.with(
+				sharedKey, if (sharedValue.isNil) null else sharedValue)
+			self.setVolatileSlot(PROPERTY_MAP_POJO, identityPojo(newMap))
 		}
 	}
 
@@ -308,7 +317,8 @@ internal class AtomWithPropertiesSharedDescriptor private constructor(
 	 *   The [A_Module] that issued this atom.
 	 * @param propertyMapPojoOrNil
 	 *   Either a raw [pojo][RawPojoDescriptor] containing the weak property
-	 *   map for the new [A_Atom], or [nil].
+	 *   map for the new [A_Atom], or [nil].  The map is copied into an
+	 *   [AtomPropertyMap].
 	 * @param originalHashOrZero
 	 *   The hash value that must be set for this atom, or zero if a non-zero
 	 *   hash should be generated now for the new atom.
@@ -324,7 +334,15 @@ internal class AtomWithPropertiesSharedDescriptor private constructor(
 	): AvailObject = initialPrivateMutable.create {
 		setSlot(NAME, name.makeShared())
 		setSlot(ISSUING_MODULE, issuingModule.makeShared())
-		setVolatileSlot(PROPERTY_MAP_POJO, propertyMapPojoOrNil)
+		setVolatileSlot(
+			PROPERTY_MAP_POJO,
+			when
+			{
+				propertyMapPojoOrNil.isNil -> nil
+				else -> identityPojo(
+					AtomPropertyMap.from(
+						propertyMapPojoOrNil.javaObjectNotNull()))
+			})
 		val hash = originalHashOrZero.ifZero {
 			AvailRuntimeSupport.nextNonzeroHash()
 		}
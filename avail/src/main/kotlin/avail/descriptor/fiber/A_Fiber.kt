@@ -59,8 +59,8 @@ import avail.descriptor.variables.A_Variable
 import avail.descriptor.variables.VariableDescriptor
 import avail.interpreter.execution.AvailLoader
 import avail.io.TextInterface
+import avail.utility.TimingWheel
 import avail.utility.notNullAnd
-import java.util.TimerTask
 
 /**
  * [A_Fiber] is an interface that specifies the fiber-specific operations that
@@ -281,7 +281,7 @@ interface A_Fiber : A_BasicObject
 		/**
 		 * @return
 		 */
-		var A_Fiber.wakeupTask: TimerTask?
+		var A_Fiber.wakeupTask: TimingWheel.Task?
 			get() = dispatch { o_WakeupTask(it) }
 			set(value) = dispatch { o_SetWakeupTask(it, value) }
 
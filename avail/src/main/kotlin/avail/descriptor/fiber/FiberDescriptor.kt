@@ -98,9 +98,9 @@ import avail.interpreter.execution.AvailLoader
 import avail.interpreter.execution.Interpreter
 import avail.interpreter.levelTwo.L2Chunk
 import avail.io.TextInterface
+import avail.utility.TimingWheel
 import avail.utility.isNullOr
 import org.availlang.json.JSONWriter
-import java.util.TimerTask
 import java.util.WeakHashMap
 import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.atomic.AtomicInteger
@@ -243,11 +243,11 @@ class FiberDescriptor private constructor(
 			{ _: Throwable -> }
 
 		/**
-		 * The [TimerTask] responsible for waking up this sleeping fiber, or
-		 * `null` if the fiber is not sleeping.
+		 * The [TimingWheel.Task] responsible for waking up this sleeping
+		 * fiber, or `null` if the fiber is not sleeping.
 		 */
 		@Volatile
-		internal var wakeupTask: TimerTask? = null
+		internal var wakeupTask: TimingWheel.Task? = null
 
 		/**
 		 * A [WeakHashMap] holding the [variables][A_Variable] that were
@@ -919,11 +919,12 @@ class FiberDescriptor private constructor(
 	override fun o_SetJoiningFibers(self: AvailObject, joiners: A_Set) =
 		self.setMutableSlot(JOINING_FIBERS, joiners)
 
-	override fun o_WakeupTask(self: AvailObject): TimerTask? = helper.wakeupTask
+	override fun o_WakeupTask(self: AvailObject): TimingWheel.Task? =
+		helper.wakeupTask
 
 	override fun o_SetWakeupTask(
 		self: AvailObject,
-		task: TimerTask?)
+		task: TimingWheel.Task?)
 	{
 		helper.wakeupTask = task
 	}
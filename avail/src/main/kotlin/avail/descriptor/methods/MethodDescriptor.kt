@@ -123,6 +123,7 @@ import avail.descriptor.types.TupleTypeDescriptor.Companion.tupleTypeForSizesTyp
 import avail.descriptor.types.TypeDescriptor
 import avail.descriptor.types.TypeTag
 import avail.descriptor.variables.A_Variable
+import avail.dispatch.CompiledLookupTree
 import avail.dispatch.LeafLookupTree
 import avail.dispatch.LookupStatistics
 import avail.dispatch.LookupTree
@@ -134,6 +135,7 @@ import avail.exceptions.MethodDefinitionException
 import avail.exceptions.MethodDefinitionException.Companion.extractUniqueMethod
 import avail.exceptions.SignatureException
 import avail.interpreter.Primitive
+import avail.interpreter.execution.Interpreter
 import avail.interpreter.levelTwo.L2Chunk
 import avail.interpreter.levelTwo.L2Chunk.InvalidationReason.DEPENDENCY_CHANGED
 import avail.interpreter.levelTwo.operand.TypeRestriction
@@ -178,7 +180,11 @@ import avail.interpreter.primitive.style.P_SetStylerFunction
 import avail.interpreter.primitive.variables.P_AtomicAddToMap
 import avail.interpreter.primitive.variables.P_AtomicRemoveFromMap
 import avail.interpreter.primitive.variables.P_GetValue
+import avail.optimizer.BackgroundOptimizer
 import avail.optimizer.L2Generator
+import avail.optimizer.jvm.LookupTreeTranslator
+import avail.optimizer.jvm.LookupTreeTranslator.Companion.compilationThreshold
+import avail.optimizer.jvm.LookupTreeTranslator.Companion.compileLookupTrees
 import avail.performance.Statistic
 import avail.performance.StatisticReport.DYNAMIC_LOOKUP
 import avail.serialization.SerializerOperation
@@ -262,19 +268,43 @@ class MethodDescriptor private constructor(
 		{
 			// Double-check the volatile field.
 			dynamicLookupStats?.let { return it }
-			val bundles = owningBundles.get()
-			val name = when (bundles.setSize)
-			{
-				0 -> "(no name)"
-				1 -> bundles.single().message.toString()
-				else -> bundles.first().toString() + " & aliases"
-			}
-			val stat = LookupStatistics(name, DYNAMIC_LOOKUP)
+			val stat = LookupStatistics(describeByBundles(), DYNAMIC_LOOKUP)
 			dynamicLookupStats = stat
 			stat
 		}
 	}
 
+	/**
+	 * Describe this method by the name of its [owningBundles], for reports.
+	 */
+	private fun describeByBundles(): String
+	{
+		val bundles = owningBundles.get()
+		return when (bundles.setSize)
+		{
+			0 -> "(no name)"
+			1 -> bundles.single().message.toString()
+			else -> bundles.first().toString() + " & aliases"
+		}
+	}
+
+	/**
+	 * The [methodTestingTree] compiled to JVM bytecode by a
+	 * [LookupTreeTranslator], once enough lookups by value have gone through
+	 * the same tree.  It is discarded along with the tree whenever the
+	 * membership of the method changes.
+	 */
+	@Volatile
+	private var compiledTestingTree:
+		CompiledLookupTree<A_Definition, A_Tuple, Unit>? = null
+
+	/**
+	 * The number of lookups by value through the current [methodTestingTree].
+	 * Increments may be lost to races, which only delays compilation.  It is
+	 * set negative once compilation has been queued for the current tree.
+	 */
+	private var lookupsThroughTestingTree = 0
+
 
 	/**
 	 * A weak set (implemented as the [key&#32;set][Map.keys] of a
@@ -624,16 +654,73 @@ class MethodDescriptor private constructor(
 
 	/**
 	 * Look up the definition to invoke, given a [List] of argument values. Use
-	 * the [methodTestingTree] to find the definition to invoke.  Answer
-	 * [nil] if a lookup error occurs.
+	 * the [compiledTestingTree] if available, otherwise the
+	 * [methodTestingTree], to find the definition to invoke.  Answer [nil] if
+	 * a lookup error occurs.
 	 */
 	@Throws(MethodDefinitionException::class)
 	override fun o_LookupByValuesFromList(
 		self: AvailObject,
 		argumentList: List<A_BasicObject>
-	) = extractUniqueMethod(
-		runtimeDispatcher.lookupByValues(
-			methodTestingTree(self), argumentList, Unit, dynamicLookupStats()))
+	): A_Definition
+	{
+		compiledTestingTree?.let {
+			return extractUniqueMethod(it.lookupByValues(argumentList))
+		}
+		val tree = methodTestingTree(self)
+		if (++lookupsThroughTestingTree >= compilationThreshold)
+		{
+			compileTestingTree(self, tree)
+		}
+		return extractUniqueMethod(
+			runtimeDispatcher.lookupByValues(
+				tree, argumentList, Unit, dynamicLookupStats()))
+	}
+
+	/**
+	 * Queue the given [methodTestingTree] to be compiled with a
+	 * [LookupTreeTranslator] by the runtime's [BackgroundOptimizer].  The
+	 * result is installed as the [compiledTestingTree], unless the tree has
+	 * been discarded in the meantime.  Lookups continue through the tree
+	 * until then.
+	 *
+	 * @param self
+	 *   The method.
+	 * @param tree
+	 *   The [methodTestingTree] that has been used frequently.
+	 */
+	private fun compileTestingTree(
+		self: AvailObject,
+		tree: LookupTree<A_Definition, A_Tuple>)
+	{
+		lookupsThroughTestingTree = Int.MIN_VALUE
+		if (!compileLookupTrees) return
+		val runtime = Interpreter.currentOrNull()?.runtime ?: return
+		val name = describeByBundles()
+		val translator = LookupTreeTranslator(
+			tree,
+			runtimeDispatcher,
+			Unit,
+			dynamicLookupStats(),
+			self[NUM_ARGS],
+			name)
+		val queued = runtime.backgroundOptimizer.enqueueTask(
+			"lookup tree of $name")
+		{
+			val compiled = translator.translate() ?: return@enqueueTask
+			synchronized(self) {
+				if (methodTestingTree === tree)
+				{
+					compiledTestingTree = compiled
+				}
+			}
+		}
+		if (!queued)
+		{
+			// Try again after another batch of lookups.
+			lookupsThroughTestingTree = 0
+		}
+	}
 
 	override fun o_MethodAddBundle(
 		self: AvailObject,
@@ -824,6 +911,8 @@ class MethodDescriptor private constructor(
 
 			// Invalidate the roots of the lookup trees.
 			methodTestingTree = null
+			compiledTestingTree = null
+			lookupsThroughTestingTree = 0
 		}
 	}
 
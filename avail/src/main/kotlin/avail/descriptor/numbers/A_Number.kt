@@ -1212,6 +1212,20 @@ interface A_Number : A_BasicObject
 			Integer::class.javaPrimitiveType!!,
 			AvailObject::class.java)
 
+		@ReferencedInGeneratedCode
+		@JvmStatic
+		fun extractLongStatic(self: AvailObject): Long =
+			self.dispatch { o_ExtractLong(it) }
+
+		/**
+		 * The [CheckedMethod] for [extractLong].
+		 */
+		val extractLongStaticMethod = staticMethod(
+			A_Number::class.java,
+			::extractLongStatic.name,
+			Long::class.javaPrimitiveType!!,
+			AvailObject::class.java)
+
 		@ReferencedInGeneratedCode
 		@JvmStatic
 		fun minusStatic(
@@ -1285,6 +1299,18 @@ interface A_Number : A_BasicObject
 			Boolean::class.javaPrimitiveType!!,
 			AvailObject::class.java)
 
+		@ReferencedInGeneratedCode
+		@JvmStatic
+		fun isLongStatic(self: AvailObject): Boolean =
+			self.descriptor().o_IsLong(self)
+
+		/** The [CheckedMethod] for [isLong]. */
+		val isLongMethod = staticMethod(
+			A_Number::class.java,
+			::isLongStatic.name,
+			Boolean::class.javaPrimitiveType!!,
+			AvailObject::class.java)
+
 		@ReferencedInGeneratedCode
 		@JvmStatic
 		fun isDoubleStatic(self: AvailObject): Boolean =
@@ -64,6 +64,7 @@ import avail.descriptor.representation.AvailObject
 import avail.descriptor.representation.AvailObject.Companion.combine3
 import avail.descriptor.representation.IntegerSlotsEnum
 import avail.descriptor.representation.Mutability
+import avail.descriptor.tuples.DoubleTupleDescriptor
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.isSupertypeOfPrimitiveTypeEnum
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.DOUBLE
@@ -240,9 +241,7 @@ class DoubleDescriptor private constructor(
 	override fun o_ExtractFloat(self: AvailObject) = getDouble(self).toFloat()
 
 	override fun o_Hash(self: AvailObject): Int =
-		self[LONG_BITS].let { bits ->
-			combine3((bits shr 32).toInt(), bits.toInt(), 0x47C453FD)
-		}
+		computeHashOfDoubleBits(self[LONG_BITS])
 
 	override fun o_IsDouble(self: AvailObject) = true
 
@@ -402,6 +401,19 @@ class DoubleDescriptor private constructor(
 		private fun getDouble(self: AvailObject): Double =
 			longBitsToDouble(self[LONG_BITS])
 
+		/**
+		 * Compute the hash of an Avail double whose raw bits are given.  This
+		 * allows representations that store doubles without boxing them, such
+		 * as [DoubleTupleDescriptor], to agree with [o_Hash].
+		 *
+		 * @param bits
+		 *   The raw bits of the double, as produced by [doubleToRawLongBits].
+		 * @return
+		 *   The hash of the corresponding Avail double.
+		 */
+		fun computeHashOfDoubleBits(bits: Long): Int =
+			combine3((bits shr 32).toInt(), bits.toInt(), 0x47C453FD)
+
 		/**
 		 * Compare two Java double-precision floating point numbers.
 		 *
@@ -55,6 +55,7 @@ import avail.descriptor.representation.AvailObject.Companion.combine2
 import avail.descriptor.representation.BitField
 import avail.descriptor.representation.IntegerSlotsEnum
 import avail.descriptor.representation.Mutability
+import avail.descriptor.tuples.FloatTupleDescriptor
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.isSupertypeOfPrimitiveTypeEnum
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.FLOAT
@@ -221,7 +222,7 @@ class FloatDescriptor private constructor(
 		floatToRawIntBits(getFloat(self)) == floatToRawIntBits(aFloat)
 
 	override fun o_Hash(self: AvailObject): Int =
-		combine2(self[RAW_INT], 0x16AE2BFD)
+		computeHashOfFloatBits(self[RAW_INT])
 
 	override fun o_IsFloat(self: AvailObject) = true
 
@@ -394,6 +395,19 @@ class FloatDescriptor private constructor(
 		private fun getFloat(self: AvailObject): Float =
 			intBitsToFloat(self[RAW_INT])
 
+		/**
+		 * Compute the hash of an Avail float whose raw bits are given.  This
+		 * allows representations that store floats without boxing them, such
+		 * as [FloatTupleDescriptor], to agree with [o_Hash].
+		 *
+		 * @param bits
+		 *   The raw bits of the float, as produced by [floatToRawIntBits].
+		 * @return
+		 *   The hash of the corresponding Avail float.
+		 */
+		fun computeHashOfFloatBits(bits: Int): Int =
+			combine2(bits, 0x16AE2BFD)
+
 		/**
 		 * Extract a Java [Double] from the argument, an Avail
 		 * [float][FloatDescriptor].
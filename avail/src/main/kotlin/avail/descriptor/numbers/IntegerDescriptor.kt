@@ -1680,6 +1680,8 @@ class IntegerDescriptor private constructor(
 		 * @return
 		 *   An [AvailObject].
 		 */
+		@ReferencedInGeneratedCode
+		@JvmStatic
 		fun fromLong(aLong: Long): AvailObject = when (aLong) {
 			in 0..255 -> smallIntegers[aLong.toInt()]!!
 			in 0 until smallIntegerLimit -> smallIntegers[aLong.toInt()] ?:
@@ -1786,6 +1788,13 @@ class IntegerDescriptor private constructor(
 			AvailObject::class.java,
 			Int::class.javaPrimitiveType!!)
 
+		/** The [CheckedMethod] for [IntegerDescriptor.fromLong]. */
+		val fromLongMethod = staticMethod(
+			IntegerDescriptor::class.java,
+			::fromLong.name,
+			AvailObject::class.java,
+			Long::class.javaPrimitiveType!!)
+
 		/**
 		 * Convert the specified byte-valued Java `short` into an Avail
 		 * integer.
@@ -173,6 +173,7 @@ import avail.persistence.cache.Repository.StylingRecord
 import avail.serialization.SerializerOperation
 import avail.utility.Strings.newlineTab
 import avail.utility.Strings.truncateTo
+import avail.utility.TimingWheel
 import avail.utility.cast
 import org.availlang.json.JSONWriter
 import java.lang.reflect.InvocationTargetException
@@ -181,7 +182,6 @@ import java.nio.ByteBuffer
 import java.util.Deque
 import java.util.IdentityHashMap
 import java.util.Spliterator
-import java.util.TimerTask
 import java.util.concurrent.ConcurrentHashMap
 import java.util.stream.Stream
 import kotlin.math.max
@@ -1941,6 +1941,10 @@ abstract class AbstractDescriptor protected constructor (
 
 	abstract fun o_TupleLongAt (self: AvailObject, index: Int): Long
 
+	abstract fun o_TupleDoubleAt (self: AvailObject, index: Int): Double
+
+	abstract fun o_TupleFloatAt (self: AvailObject, index: Int): Float
+
 	abstract fun o_TupleReverse (self: AvailObject): A_Tuple
 
 	abstract fun o_TypeAtIndex (self: AvailObject, index: Int): A_Type
@@ -3531,9 +3535,9 @@ abstract class AbstractDescriptor protected constructor (
 
 	abstract fun o_JoiningFibers (self: AvailObject): A_Set
 
-	abstract fun o_WakeupTask (self: AvailObject): TimerTask?
+	abstract fun o_WakeupTask (self: AvailObject): TimingWheel.Task?
 
-	abstract fun o_SetWakeupTask (self: AvailObject, task: TimerTask?)
+	abstract fun o_SetWakeupTask (self: AvailObject, task: TimingWheel.Task?)
 
 	abstract fun o_SetJoiningFibers (self: AvailObject, joiners: A_Set)
 
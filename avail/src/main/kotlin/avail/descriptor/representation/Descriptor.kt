@@ -108,12 +108,12 @@ import avail.performance.Statistic
 import avail.persistence.cache.Repository.PhrasePathRecord
 import avail.persistence.cache.Repository.StylingRecord
 import avail.serialization.SerializerOperation
+import avail.utility.TimingWheel
 import org.availlang.json.JSONWriter
 import java.math.BigInteger
 import java.nio.ByteBuffer
 import java.util.Deque
 import java.util.Spliterator
-import java.util.TimerTask
 import java.util.stream.Stream
 
 /**
@@ -766,6 +766,12 @@ protected constructor (
 	override fun o_TupleLongAt (self: AvailObject, index: Int): Long =
 		unsupported
 
+	override fun o_TupleDoubleAt (self: AvailObject, index: Int): Double =
+		unsupported
+
+	override fun o_TupleFloatAt (self: AvailObject, index: Int): Float =
+		unsupported
+
 	override fun o_TypeAtIndex (self: AvailObject, index: Int): A_Type =
 		unsupported
 
@@ -2122,11 +2128,13 @@ protected constructor (
 
 	override fun o_JoiningFibers (self: AvailObject): A_Set = unsupported
 
-	override fun o_WakeupTask (self: AvailObject): TimerTask? = unsupported
-
-	override fun o_SetWakeupTask (self: AvailObject, task: TimerTask?): Unit =
+	override fun o_WakeupTask (self: AvailObject): TimingWheel.Task? =
 		unsupported
 
+	override fun o_SetWakeupTask (
+		self: AvailObject,
+		task: TimingWheel.Task?): Unit = unsupported
+
 	override fun o_SetJoiningFibers (self: AvailObject, joiners: A_Set): Unit =
 		unsupported
 
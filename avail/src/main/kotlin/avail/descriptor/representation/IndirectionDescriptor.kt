@@ -502,7 +502,9 @@ import avail.descriptor.tuples.A_Tuple.Companion.treeTupleLevel
 import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleAtPuttingCanDestroy
 import avail.descriptor.tuples.A_Tuple.Companion.tupleCodePointAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleElementsInRangeAreInstancesOf
+import avail.descriptor.tuples.A_Tuple.Companion.tupleFloatAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleIntAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleLongAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleReverse
@@ -628,13 +630,13 @@ import avail.performance.Statistic
 import avail.persistence.cache.Repository.PhrasePathRecord
 import avail.persistence.cache.Repository.StylingRecord
 import avail.serialization.SerializerOperation
+import avail.utility.TimingWheel
 import org.availlang.json.JSONWriter
 import java.math.BigInteger
 import java.nio.ByteBuffer
 import java.util.Deque
 import java.util.IdentityHashMap
 import java.util.Spliterator
-import java.util.TimerTask
 import java.util.stream.Stream
 
 /**
@@ -1821,6 +1823,12 @@ class IndirectionDescriptor private constructor(
 	override fun o_TupleLongAt(self: AvailObject, index: Int): Long =
 		self .. { tupleLongAt(index) }
 
+	override fun o_TupleDoubleAt(self: AvailObject, index: Int): Double =
+		self .. { tupleDoubleAt(index) }
+
+	override fun o_TupleFloatAt(self: AvailObject, index: Int): Float =
+		self .. { tupleFloatAt(index) }
+
 	override fun o_TypeAtIndex(self: AvailObject, index: Int): A_Type =
 		self .. { typeAtIndex(index) }
 
@@ -3171,10 +3179,10 @@ class IndirectionDescriptor private constructor(
 	override fun o_JoiningFibers(self: AvailObject): A_Set =
 		self .. { joiningFibers }
 
-	override fun o_WakeupTask(self: AvailObject): TimerTask? =
+	override fun o_WakeupTask(self: AvailObject): TimingWheel.Task? =
 		self .. { wakeupTask }
 
-	override fun o_SetWakeupTask(self: AvailObject, task: TimerTask?) =
+	override fun o_SetWakeupTask(self: AvailObject, task: TimingWheel.Task?) =
 		self .. { wakeupTask = task }
 
 	override fun o_SetJoiningFibers(self: AvailObject, joiners: A_Set) =
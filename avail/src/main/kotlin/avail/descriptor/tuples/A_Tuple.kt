@@ -32,6 +32,8 @@
 package avail.descriptor.tuples
 
 import avail.descriptor.character.A_Character
+import avail.descriptor.numbers.DoubleDescriptor
+import avail.descriptor.numbers.FloatDescriptor
 import avail.descriptor.numbers.IntegerDescriptor
 import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.A_BasicObject.Companion.dispatch
@@ -854,6 +856,30 @@ interface A_Tuple : A_BasicObject, Iterable<AvailObject>
 		fun A_Tuple.tupleLongAt(index: Int): Long =
 			dispatch { o_TupleLongAt(it, index) }
 
+		/**
+		 * Answer the specified element of the tuple.  It must be a
+		 * [double][DoubleDescriptor], and is returned as a Kotlin [Double].
+		 *
+		 * @param index
+		 *   Which 1-based index to use to subscript the tuple.
+		 * @return
+		 *   The [Double] form of the specified tuple element.
+		 */
+		fun A_Tuple.tupleDoubleAt(index: Int): Double =
+			dispatch { o_TupleDoubleAt(it, index) }
+
+		/**
+		 * Answer the specified element of the tuple.  It must be a
+		 * [float][FloatDescriptor], and is returned as a Kotlin [Float].
+		 *
+		 * @param index
+		 *   Which 1-based index to use to subscript the tuple.
+		 * @return
+		 *   The [Float] form of the specified tuple element.
+		 */
+		fun A_Tuple.tupleFloatAt(index: Int): Float =
+			dispatch { o_TupleFloatAt(it, index) }
+
 		/**
 		 * Answer a tuple that has the receiver's elements but in reverse order.
 		 *
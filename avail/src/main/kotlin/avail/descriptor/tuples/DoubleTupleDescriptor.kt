@@ -0,0 +1,453 @@
+/*
+ * DoubleTupleDescriptor.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.descriptor.tuples
+
+import avail.annotations.HideFieldInDebugger
+import avail.descriptor.numbers.A_Number.Companion.equalsDouble
+import avail.descriptor.numbers.A_Number.Companion.extractDouble
+import avail.descriptor.numbers.A_Number.Companion.isDouble
+import avail.descriptor.numbers.DoubleDescriptor
+import avail.descriptor.numbers.DoubleDescriptor.Companion.computeHashOfDoubleBits
+import avail.descriptor.numbers.DoubleDescriptor.Companion.fromDouble
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.representation.AvailObject.Companion.multiplier
+import avail.descriptor.representation.AvailObjectRepresentation.Companion.newLike
+import avail.descriptor.representation.BitField
+import avail.descriptor.representation.IntegerSlotsEnum
+import avail.descriptor.representation.Mutability
+import avail.descriptor.tuples.A_Tuple.Companion.bitsPerEntry
+import avail.descriptor.tuples.A_Tuple.Companion.concatenateWith
+import avail.descriptor.tuples.A_Tuple.Companion.copyAsMutableObjectTuple
+import avail.descriptor.tuples.A_Tuple.Companion.isBetterRepresentationThan
+import avail.descriptor.tuples.A_Tuple.Companion.treeTupleLevel
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAtPuttingCanDestroy
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleElementsInRangeAreInstancesOf
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.tuples.DoubleTupleDescriptor.IntegerSlots.Companion.HASH_OR_ZERO
+import avail.descriptor.tuples.DoubleTupleDescriptor.IntegerSlots.RAW_LONG_AT_
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.tuples.TreeTupleDescriptor.Companion.concatenateAtLeastOneTree
+import avail.descriptor.tuples.TreeTupleDescriptor.Companion.createTwoPartTreeTuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.isSubtypeOf
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.DOUBLE
+import avail.serialization.SerializerOperation
+import java.lang.Double.doubleToRawLongBits
+import java.lang.Double.longBitsToDouble
+
+/**
+ * `DoubleTupleDescriptor` efficiently represents a tuple of
+ * [doubles][DoubleDescriptor].  Rather than referring to a separately
+ * allocated double object for each element, it stores the raw IEEE 754 bits of
+ * each element in a 64-bit slot.
+ *
+ * @constructor
+ *   Construct a new `DoubleTupleDescriptor`.
+ *
+ * @param mutability
+ *   The [mutability][Mutability] of the new descriptor.
+ */
+class DoubleTupleDescriptor
+private constructor(
+	mutability: Mutability
+) : TupleDescriptor(mutability, null, IntegerSlots::class.java)
+{
+	/**
+	 * The layout of integer slots for my instances.
+	 */
+	enum class IntegerSlots : IntegerSlotsEnum
+	{
+		/**
+		 * The low 32 bits are used for the [HASH_OR_ZERO], but the upper 32 can
+		 * be used by other [BitField]s in subclasses of [TupleDescriptor].
+		 */
+		@HideFieldInDebugger
+		HASH_AND_MORE,
+
+		/**
+		 * The raw bits of each element, as produced by [doubleToRawLongBits].
+		 */
+		RAW_LONG_AT_;
+
+		companion object
+		{
+			/**
+			 * A slot to hold the cached hash value of a tuple.  If zero, then
+			 * the hash value must be computed upon request.  Note that in the
+			 * very rare case that the hash value actually equals zero, the hash
+			 * value has to be computed every time it is requested.
+			 */
+			val HASH_OR_ZERO = BitField(HASH_AND_MORE, 0, 32) { null }
+
+			init
+			{
+				assert(TupleDescriptor.IntegerSlots.HASH_AND_MORE.ordinal
+							== HASH_AND_MORE.ordinal)
+				assert(TupleDescriptor.IntegerSlots.HASH_OR_ZERO.isSamePlaceAs(
+					HASH_OR_ZERO))
+			}
+		}
+	}
+
+	override fun o_AppendCanDestroy(
+		self: AvailObject,
+		newElement: A_BasicObject,
+		canDestroy: Boolean): A_Tuple
+	{
+		val newElementStrong = newElement as AvailObject
+		val originalSize = self.tupleSize
+		if (!newElementStrong.isDouble)
+		{
+			// Transition to a tree tuple because it's not a double.
+			val singleton = tuple(newElement)
+			return self.concatenateWith(singleton, canDestroy)
+		}
+		val doubleValue = newElementStrong.extractDouble
+		if (originalSize >= maximumCopySize)
+		{
+			// Transition to a tree tuple because it's too big.
+			val singleton: A_Tuple = generateDoubleTupleFrom(1) { doubleValue }
+			return self.concatenateWith(singleton, canDestroy)
+		}
+		val newSize = originalSize + 1
+		// Copy to a larger DoubleTupleDescriptor.
+		val result = newLike(mutable, self, 0, 1)
+		result[RAW_LONG_AT_, newSize] = doubleToRawLongBits(doubleValue)
+		result[HASH_OR_ZERO] = 0
+		return result
+	}
+
+	// Answer approximately how many bits per entry are taken up by this
+	// object.
+	override fun o_BitsPerEntry(self: AvailObject): Int = 64
+
+	override fun o_CompareFromToWithAnyTupleStartingAt(
+		self: AvailObject,
+		startIndex1: Int,
+		endIndex1: Int,
+		aTuple: A_Tuple,
+		startIndex2: Int): Boolean
+	{
+		if (self.sameAddressAs(aTuple) && startIndex1 == startIndex2)
+		{
+			return true
+		}
+		var index2 = startIndex2
+		val strongTuple = aTuple.traversed()
+		if (strongTuple.descriptor() is DoubleTupleDescriptor)
+		{
+			// Compare the raw bits, without boxing either side.
+			return (startIndex1..endIndex1).all {
+				self[RAW_LONG_AT_, it] == strongTuple[RAW_LONG_AT_, index2++]
+			}
+		}
+		return (startIndex1..endIndex1).all {
+			aTuple.tupleAt(index2++).equalsDouble(
+				longBitsToDouble(self[RAW_LONG_AT_, it]))
+		}
+	}
+
+	override fun o_CompareFromToWithStartingAt(
+		self: AvailObject,
+		startIndex1: Int,
+		endIndex1: Int,
+		anotherObject: A_Tuple,
+		startIndex2: Int): Boolean =
+			o_CompareFromToWithAnyTupleStartingAt(
+				self, startIndex1, endIndex1, anotherObject, startIndex2)
+
+	override fun o_ComputeHashFromTo(
+		self: AvailObject,
+		start: Int,
+		end: Int): Int
+	{
+		// See comment in superclass. This method must produce the same value.
+		var hash = 0
+		for (index in end downTo start)
+		{
+			val itemHash =
+				computeHashOfDoubleBits(self[RAW_LONG_AT_, index]) xor preToggle
+			hash = (hash + itemHash) * multiplier
+		}
+		return hash
+	}
+
+	override fun o_ConcatenateWith(
+		self: AvailObject,
+		otherTuple: A_Tuple,
+		canDestroy: Boolean): A_Tuple
+	{
+		val size1 = self.tupleSize
+		if (size1 == 0)
+		{
+			if (!canDestroy)
+			{
+				otherTuple.makeImmutable()
+			}
+			return otherTuple
+		}
+		val size2 = otherTuple.tupleSize
+		if (size2 == 0)
+		{
+			if (!canDestroy)
+			{
+				self.makeImmutable()
+			}
+			return self
+		}
+		val newSize = size1 + size2
+		if (newSize <= maximumCopySize
+			&& otherTuple.tupleElementsInRangeAreInstancesOf(
+				1, size2, DOUBLE.o))
+		{
+			// Copy the doubles, whatever the other tuple's representation.
+			val deltaSlots = newSize - self.variableIntegerSlotsCount()
+			val result: AvailObject = newLike(mutable, self, 0, deltaSlots)
+			var destination = size1 + 1
+			(1..size2).forEach {
+				result[RAW_LONG_AT_, destination++] =
+					doubleToRawLongBits(otherTuple.tupleDoubleAt(it))
+			}
+			result[HASH_OR_ZERO] = 0
+			return result
+		}
+		if (!canDestroy)
+		{
+			self.makeImmutable()
+			otherTuple.makeImmutable()
+		}
+		return if (otherTuple.treeTupleLevel == 0)
+		{
+			createTwoPartTreeTuple(self, otherTuple, 1, 0)
+		}
+		else
+		{
+			concatenateAtLeastOneTree(self, otherTuple, true)
+		}
+	}
+
+	override fun o_CopyTupleFromToCanDestroy(
+		self: AvailObject,
+		start: Int,
+		end: Int,
+		canDestroy: Boolean): A_Tuple
+	{
+		val tupleSize = self.tupleSize
+		assert(start in 1..end + 1 && end <= tupleSize)
+		val size = end - start + 1
+		if (size in 1 until tupleSize && size < maximumCopySize)
+		{
+			// It's not empty, it's not a total copy, and it's reasonably small.
+			// Just copy the applicable doubles out.
+			var source = start
+			val result = generateDoubleTupleFrom(size) {
+				longBitsToDouble(self[RAW_LONG_AT_, source++])
+			}
+			if (canDestroy)
+			{
+				self.assertObjectUnreachableIfMutable()
+			}
+			return result
+		}
+		return super.o_CopyTupleFromToCanDestroy(self, start, end, canDestroy)
+	}
+
+	override fun o_Equals(
+		self: AvailObject,
+		another: A_BasicObject
+	): Boolean = another.isTuple && o_EqualsAnyTuple(self, another as A_Tuple)
+
+	override fun o_EqualsAnyTuple(
+		self: AvailObject,
+		aTuple: A_Tuple): Boolean
+	{
+		when
+		{
+			self.sameAddressAs(aTuple) -> return true
+			self.tupleSize != aTuple.tupleSize -> return false
+			self.hash() != aTuple.hash() -> return false
+			!o_CompareFromToWithAnyTupleStartingAt(
+				self, 1, self.tupleSize, aTuple, 1) -> return false
+			// They're equal (but occupy disjoint storage). If possible, replace
+			// one with an indirection to the other, preferring the more
+			// compact representation.
+			self.isBetterRepresentationThan(aTuple) ->
+			{
+				if (!aTuple.descriptor().isShared)
+				{
+					self.makeImmutable()
+					aTuple.becomeIndirectionTo(self)
+				}
+			}
+			!isShared ->
+			{
+				aTuple.makeImmutable()
+				self.becomeIndirectionTo(aTuple)
+			}
+		}
+		return true
+	}
+
+	/**
+	 * A tuple of boxed doubles also has 64 bits per entry, but each entry
+	 * refers to a separate object, so prefer this representation unless the
+	 * other one is strictly more compact.
+	 */
+	override fun o_IsBetterRepresentationThan(
+		self: AvailObject,
+		anotherObject: A_BasicObject): Boolean =
+			self.bitsPerEntry <= (anotherObject as A_Tuple).bitsPerEntry
+
+	override fun o_SerializerOperation(
+		self: AvailObject): SerializerOperation =
+			SerializerOperation.DOUBLE_TUPLE
+
+	override fun o_TupleAt(
+		self: AvailObject,
+		index: Int): AvailObject
+	{
+		// Answer the element at the given index in the tuple object.
+		return fromDouble(longBitsToDouble(self[RAW_LONG_AT_, index]))
+			as AvailObject
+	}
+
+	override fun o_TupleAtPuttingCanDestroy(
+		self: AvailObject,
+		index: Int,
+		newValueObject: A_BasicObject,
+		canDestroy: Boolean): A_Tuple
+	{
+		// Answer a tuple with all the elements of object except at the given
+		// index we should have newValueObject.  This may destroy the original
+		// tuple if canDestroy is true.
+		assert(index >= 1 && index <= self.tupleSize)
+		val newValueStrong = newValueObject as AvailObject
+		if (!newValueStrong.isDouble)
+		{
+			return self.copyAsMutableObjectTuple().tupleAtPuttingCanDestroy(
+				index, newValueObject, true)
+		}
+		val result =
+			if (canDestroy && isMutable) self
+			else newLike(mutable(), self, 0, 0)
+		result[RAW_LONG_AT_, index] =
+			doubleToRawLongBits(newValueStrong.extractDouble)
+		result[HASH_OR_ZERO] = 0
+		return result
+	}
+
+	override fun o_TupleDoubleAt(self: AvailObject, index: Int): Double =
+		longBitsToDouble(self[RAW_LONG_AT_, index])
+
+	override fun o_TupleElementsInRangeAreInstancesOf(
+		self: AvailObject,
+		startIndex: Int,
+		endIndex: Int,
+		type: A_Type): Boolean =
+			DOUBLE.o.isSubtypeOf(type)
+				|| super.o_TupleElementsInRangeAreInstancesOf(
+					self, startIndex, endIndex, type)
+
+	override fun o_TupleReverse(self: AvailObject): A_Tuple
+	{
+		val tupleSize = self.tupleSize
+		if (tupleSize <= 1)
+		{
+			return self
+		}
+		if (tupleSize < maximumCopySize)
+		{
+			// It's not empty or singular, but it's reasonably small.
+			var i = tupleSize
+			return generateDoubleTupleFrom(tupleSize) {
+				longBitsToDouble(self[RAW_LONG_AT_, i--])
+			}
+		}
+		return super.o_TupleReverse(self)
+	}
+
+	override fun o_TupleSize(self: AvailObject): Int =
+		self.variableIntegerSlotsCount()
+
+	override fun mutable() = mutable
+
+	override fun immutable() = immutable
+
+	override fun shared() = shared
+
+	companion object
+	{
+		/**
+		 * Defined threshold for making copies versus using
+		 * [TreeTupleDescriptor]/using other forms of reference instead of
+		 * creating a new tuple.
+		 */
+		private const val maximumCopySize = 32
+
+		/**
+		 * Create an object of the appropriate size, whose descriptor is an
+		 * instance of [DoubleTupleDescriptor].  Run the generator for each
+		 * position in ascending order to produce the [Double]s with which to
+		 * populate the tuple.
+		 *
+		 * @param size
+		 *   The size of double-tuple to create.
+		 * @param generator
+		 *   A generator to provide [Double]s to store.
+		 * @return
+		 *   The new [A_Tuple].
+		 */
+		fun generateDoubleTupleFrom(
+			size: Int,
+			generator: (Int) -> Double): AvailObject
+		{
+			return mutable.create(size) {
+				for (i in 1..size)
+				{
+					setSlot(RAW_LONG_AT_, i, doubleToRawLongBits(generator(i)))
+				}
+			}
+		}
+
+		/** The mutable [DoubleTupleDescriptor]. */
+		private val mutable = DoubleTupleDescriptor(Mutability.MUTABLE)
+
+		/** The immutable [DoubleTupleDescriptor]. */
+		private val immutable = DoubleTupleDescriptor(Mutability.IMMUTABLE)
+
+		/** The shared [DoubleTupleDescriptor]. */
+		private val shared = DoubleTupleDescriptor(Mutability.SHARED)
+	}
+}
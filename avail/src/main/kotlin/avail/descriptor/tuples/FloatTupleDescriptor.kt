@@ -0,0 +1,517 @@
+/*
+ * FloatTupleDescriptor.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.descriptor.tuples
+
+import avail.annotations.HideFieldInDebugger
+import avail.descriptor.numbers.A_Number.Companion.equalsFloat
+import avail.descriptor.numbers.A_Number.Companion.extractFloat
+import avail.descriptor.numbers.A_Number.Companion.isFloat
+import avail.descriptor.numbers.FloatDescriptor
+import avail.descriptor.numbers.FloatDescriptor.Companion.computeHashOfFloatBits
+import avail.descriptor.numbers.FloatDescriptor.Companion.fromFloat
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.representation.AvailObject.Companion.multiplier
+import avail.descriptor.representation.AvailObjectRepresentation.Companion.newLike
+import avail.descriptor.representation.BitField
+import avail.descriptor.representation.IntegerSlotsEnum
+import avail.descriptor.representation.Mutability
+import avail.descriptor.tuples.A_Tuple.Companion.bitsPerEntry
+import avail.descriptor.tuples.A_Tuple.Companion.concatenateWith
+import avail.descriptor.tuples.A_Tuple.Companion.copyAsMutableObjectTuple
+import avail.descriptor.tuples.A_Tuple.Companion.isBetterRepresentationThan
+import avail.descriptor.tuples.A_Tuple.Companion.treeTupleLevel
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAtPuttingCanDestroy
+import avail.descriptor.tuples.A_Tuple.Companion.tupleElementsInRangeAreInstancesOf
+import avail.descriptor.tuples.A_Tuple.Companion.tupleFloatAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.tuples.FloatTupleDescriptor.IntegerSlots.Companion.HASH_OR_ZERO
+import avail.descriptor.tuples.FloatTupleDescriptor.IntegerSlots.RAW_LONG_AT_
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.tuples.TreeTupleDescriptor.Companion.concatenateAtLeastOneTree
+import avail.descriptor.tuples.TreeTupleDescriptor.Companion.createTwoPartTreeTuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.isSubtypeOf
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.FLOAT
+import avail.serialization.SerializerOperation
+import java.lang.Float.floatToRawIntBits
+import java.lang.Float.intBitsToFloat
+
+/**
+ * `FloatTupleDescriptor` efficiently represents a tuple of
+ * [floats][FloatDescriptor].  Rather than referring to a separately allocated
+ * float object for each element, it packs the raw IEEE 754 bits of two
+ * elements into each 64-bit slot.
+ *
+ * @property unusedFloatsOfLastLong
+ *   The number of floats of the last `long` that do not participate in the
+ *   representation of the [tuple][FloatTupleDescriptor]. Must be 0 or 1.
+ *
+ * @constructor
+ * Construct a new `FloatTupleDescriptor`.
+ *
+ * @param mutability
+ *   The [mutability][Mutability] of the new descriptor.
+ * @param unusedFloatsOfLastLong
+ *   The number of floats of the last `long` that do not participate in the
+ *   representation of the [tuple][FloatTupleDescriptor]. Must be 0 or 1.
+ */
+class FloatTupleDescriptor private constructor(
+	mutability: Mutability,
+	private val unusedFloatsOfLastLong: Int
+) : TupleDescriptor(mutability, null, IntegerSlots::class.java)
+{
+	/**
+	 * The layout of integer slots for my instances.
+	 */
+	enum class IntegerSlots : IntegerSlotsEnum
+	{
+		/**
+		 * The low 32 bits are used for the [HASH_OR_ZERO], but the upper 32 can
+		 * be used by other [BitField]s in subclasses of [TupleDescriptor].
+		 */
+		@HideFieldInDebugger
+		HASH_AND_MORE,
+
+		/**
+		 * The raw 64-bit machine words, each holding the raw bits of two
+		 * elements, as produced by [floatToRawIntBits].
+		 */
+		RAW_LONG_AT_;
+
+		companion object
+		{
+			/**
+			 * A slot to hold the cached hash value of a tuple.  If zero, then
+			 * the hash value must be computed upon request.  Note that in the
+			 * very rare case that the hash value actually equals zero, the hash
+			 * value has to be computed every time it is requested.
+			 */
+			val HASH_OR_ZERO = BitField(HASH_AND_MORE, 0, 32) { null }
+
+			init
+			{
+				assert(TupleDescriptor.IntegerSlots.HASH_AND_MORE.ordinal
+							== HASH_AND_MORE.ordinal)
+				assert(TupleDescriptor.IntegerSlots.HASH_OR_ZERO.isSamePlaceAs(
+					HASH_OR_ZERO))
+			}
+		}
+	}
+
+	override fun o_AppendCanDestroy(
+		self: AvailObject,
+		newElement: A_BasicObject,
+		canDestroy: Boolean): A_Tuple
+	{
+		val originalSize = self.tupleSize
+		val newElementStrong = newElement as AvailObject
+		if (!newElementStrong.isFloat)
+		{
+			// Transition to a tree tuple because it's not a float.
+			val singleton = tuple(newElement)
+			return self.concatenateWith(singleton, canDestroy)
+		}
+		val floatValue = newElementStrong.extractFloat
+		if (originalSize >= maximumCopySize)
+		{
+			// Transition to a tree tuple because it's too big.
+			val singleton: A_Tuple = generateFloatTupleFrom(1) { floatValue }
+			return self.concatenateWith(singleton, canDestroy)
+		}
+		val newSize = originalSize + 1
+		if (isMutable && canDestroy && originalSize and 1 != 0)
+		{
+			// Enlarge it in place, using the unused half of the final slot.
+			self.setDescriptor(descriptorFor(Mutability.MUTABLE, newSize))
+			self.setIntSlot(
+				RAW_LONG_AT_, newSize, floatToRawIntBits(floatValue))
+			self[HASH_OR_ZERO] = 0
+			return self
+		}
+		// Copy to a potentially larger FloatTupleDescriptor.
+		val result = newLike(
+			descriptorFor(Mutability.MUTABLE, newSize),
+			self,
+			0,
+			if (originalSize and 1 == 0) 1 else 0)
+		result.setIntSlot(RAW_LONG_AT_, newSize, floatToRawIntBits(floatValue))
+		result[HASH_OR_ZERO] = 0
+		return result
+	}
+
+	// Answer approximately how many bits per entry are taken up by this
+	// object.
+	override fun o_BitsPerEntry(self: AvailObject): Int = 32
+
+	override fun o_CompareFromToWithAnyTupleStartingAt(
+		self: AvailObject,
+		startIndex1: Int,
+		endIndex1: Int,
+		aTuple: A_Tuple,
+		startIndex2: Int): Boolean
+	{
+		if (self.sameAddressAs(aTuple) && startIndex1 == startIndex2)
+		{
+			return true
+		}
+		var index2 = startIndex2
+		val strongTuple = aTuple.traversed()
+		if (strongTuple.descriptor() is FloatTupleDescriptor)
+		{
+			// Compare the raw bits, without boxing either side.
+			return (startIndex1..endIndex1).all {
+				self.intSlot(RAW_LONG_AT_, it) ==
+					strongTuple.intSlot(RAW_LONG_AT_, index2++)
+			}
+		}
+		return (startIndex1..endIndex1).all {
+			aTuple.tupleAt(index2++).equalsFloat(
+				intBitsToFloat(self.intSlot(RAW_LONG_AT_, it)))
+		}
+	}
+
+	override fun o_CompareFromToWithStartingAt(
+		self: AvailObject,
+		startIndex1: Int,
+		endIndex1: Int,
+		anotherObject: A_Tuple,
+		startIndex2: Int): Boolean =
+			o_CompareFromToWithAnyTupleStartingAt(
+				self, startIndex1, endIndex1, anotherObject, startIndex2)
+
+	override fun o_ComputeHashFromTo(
+		self: AvailObject,
+		start: Int,
+		end: Int): Int
+	{
+		// See comment in superclass. This method must produce the same value.
+		var hash = 0
+		for (index in end downTo start)
+		{
+			val itemHash = computeHashOfFloatBits(
+				self.intSlot(RAW_LONG_AT_, index)) xor preToggle
+			hash = (hash + itemHash) * multiplier
+		}
+		return hash
+	}
+
+	override fun o_ConcatenateWith(
+		self: AvailObject,
+		otherTuple: A_Tuple,
+		canDestroy: Boolean): A_Tuple
+	{
+		val size1 = self.tupleSize
+		if (size1 == 0)
+		{
+			if (!canDestroy)
+			{
+				otherTuple.makeImmutable()
+			}
+			return otherTuple
+		}
+		val size2 = otherTuple.tupleSize
+		if (size2 == 0)
+		{
+			if (!canDestroy)
+			{
+				self.makeImmutable()
+			}
+			return self
+		}
+		val newSize = size1 + size2
+		if (newSize <= maximumCopySize
+			&& otherTuple.tupleElementsInRangeAreInstancesOf(
+				1, size2, FLOAT.o))
+		{
+			// Copy the floats, whatever the other tuple's representation.
+			val newLongCount = newSize + 1 ushr 1
+			val deltaSlots = newLongCount - self.variableIntegerSlotsCount()
+			val result: AvailObject
+			if (canDestroy && isMutable && deltaSlots == 0)
+			{
+				// We can reuse the receiver; it has enough slots.
+				result = self
+				result.setDescriptor(descriptorFor(Mutability.MUTABLE, newSize))
+			}
+			else
+			{
+				result = newLike(
+					descriptorFor(Mutability.MUTABLE, newSize),
+					self,
+					0,
+					deltaSlots)
+			}
+			var destination = size1 + 1
+			(1..size2).forEach {
+				result.setIntSlot(
+					RAW_LONG_AT_,
+					destination++,
+					floatToRawIntBits(otherTuple.tupleFloatAt(it)))
+			}
+			result[HASH_OR_ZERO] = 0
+			return result
+		}
+		if (!canDestroy)
+		{
+			self.makeImmutable()
+			otherTuple.makeImmutable()
+		}
+		return if (otherTuple.treeTupleLevel == 0)
+		{
+			createTwoPartTreeTuple(self, otherTuple, 1, 0)
+		}
+		else
+		{
+			concatenateAtLeastOneTree(self, otherTuple, true)
+		}
+	}
+
+	override fun o_CopyTupleFromToCanDestroy(
+		self: AvailObject,
+		start: Int,
+		end: Int,
+		canDestroy: Boolean): A_Tuple
+	{
+		val tupleSize = self.tupleSize
+		assert(start in 1..end + 1 && end <= tupleSize)
+		val size = end - start + 1
+		if (size in 1 until tupleSize && size < maximumCopySize)
+		{
+			// It's not empty, it's not a total copy, and it's reasonably small.
+			// Just copy the applicable floats out.
+			var source = start
+			val result = generateFloatTupleFrom(size) {
+				intBitsToFloat(self.intSlot(RAW_LONG_AT_, source++))
+			}
+			if (canDestroy)
+			{
+				self.assertObjectUnreachableIfMutable()
+			}
+			return result
+		}
+		return super.o_CopyTupleFromToCanDestroy(self, start, end, canDestroy)
+	}
+
+	override fun o_Equals(
+		self: AvailObject,
+		another: A_BasicObject
+	): Boolean = another.isTuple && o_EqualsAnyTuple(self, another as A_Tuple)
+
+	override fun o_EqualsAnyTuple(
+		self: AvailObject,
+		aTuple: A_Tuple): Boolean
+	{
+		when
+		{
+			self.sameAddressAs(aTuple) -> return true
+			self.tupleSize != aTuple.tupleSize -> return false
+			self.hash() != aTuple.hash() -> return false
+			!o_CompareFromToWithAnyTupleStartingAt(
+				self, 1, self.tupleSize, aTuple, 1) -> return false
+			// They're equal (but occupy disjoint storage). If possible, replace
+			// one with an indirection to the other, preferring the more
+			// compact representation.
+			self.isBetterRepresentationThan(aTuple) ->
+			{
+				if (!aTuple.descriptor().isShared)
+				{
+					self.makeImmutable()
+					aTuple.becomeIndirectionTo(self)
+				}
+			}
+			!isShared ->
+			{
+				aTuple.makeImmutable()
+				self.becomeIndirectionTo(aTuple)
+			}
+		}
+		return true
+	}
+
+	override fun o_IsBetterRepresentationThan(
+		self: AvailObject,
+		anotherObject: A_BasicObject): Boolean =
+			self.bitsPerEntry <= (anotherObject as A_Tuple).bitsPerEntry
+
+	override fun o_SerializerOperation(
+		self: AvailObject): SerializerOperation =
+			SerializerOperation.FLOAT_TUPLE
+
+	override fun o_TupleAt(
+		self: AvailObject,
+		index: Int): AvailObject
+	{
+		// Answer the element at the given index in the tuple object.
+		return fromFloat(intBitsToFloat(self.intSlot(RAW_LONG_AT_, index)))
+			as AvailObject
+	}
+
+	override fun o_TupleAtPuttingCanDestroy(
+		self: AvailObject,
+		index: Int,
+		newValueObject: A_BasicObject,
+		canDestroy: Boolean): A_Tuple
+	{
+		// Answer a tuple with all the elements of object except at the given
+		// index we should have newValueObject.  This may destroy the original
+		// tuple if canDestroy is true.
+		assert(index >= 1 && index <= self.tupleSize)
+		val newValueStrong = newValueObject as AvailObject
+		if (!newValueStrong.isFloat)
+		{
+			return self.copyAsMutableObjectTuple().tupleAtPuttingCanDestroy(
+				index, newValueObject, true)
+		}
+		val result =
+			if (canDestroy && isMutable) self
+			else newLike(mutable(), self, 0, 0)
+		result.setIntSlot(
+			RAW_LONG_AT_, index, floatToRawIntBits(newValueStrong.extractFloat))
+		result[HASH_OR_ZERO] = 0
+		return result
+	}
+
+	override fun o_TupleElementsInRangeAreInstancesOf(
+		self: AvailObject,
+		startIndex: Int,
+		endIndex: Int,
+		type: A_Type): Boolean =
+			FLOAT.o.isSubtypeOf(type)
+				|| super.o_TupleElementsInRangeAreInstancesOf(
+					self, startIndex, endIndex, type)
+
+	override fun o_TupleFloatAt(self: AvailObject, index: Int): Float =
+		intBitsToFloat(self.intSlot(RAW_LONG_AT_, index))
+
+	override fun o_TupleReverse(self: AvailObject): A_Tuple
+	{
+		val tupleSize = self.tupleSize
+		if (tupleSize <= 1)
+		{
+			return self
+		}
+		if (tupleSize < maximumCopySize)
+		{
+			// It's not empty or singular, but it's reasonably small.
+			var i = tupleSize
+			return generateFloatTupleFrom(tupleSize) {
+				intBitsToFloat(self.intSlot(RAW_LONG_AT_, i--))
+			}
+		}
+		return super.o_TupleReverse(self)
+	}
+
+	override fun o_TupleSize(self: AvailObject): Int =
+		(self.variableIntegerSlotsCount() shl 1) - unusedFloatsOfLastLong
+
+	override fun mutable(): FloatTupleDescriptor =
+		descriptors[(unusedFloatsOfLastLong and 1) * 3
+			+ Mutability.MUTABLE.ordinal]!!
+
+	override fun immutable(): FloatTupleDescriptor =
+		descriptors[(unusedFloatsOfLastLong and 1) * 3
+			+ Mutability.IMMUTABLE.ordinal]!!
+
+	override fun shared(): FloatTupleDescriptor =
+		descriptors[(unusedFloatsOfLastLong and 1) * 3
+			+ Mutability.SHARED.ordinal]!!
+
+	companion object
+	{
+		/**
+		 * Defined threshold for making copies versus using
+		 * [TreeTupleDescriptor]/using other forms of reference instead of
+		 * creating a new tuple.
+		 */
+		private const val maximumCopySize = 32
+
+		/** The [FloatTupleDescriptor] instances. */
+		private val descriptors = arrayOfNulls<FloatTupleDescriptor>(2 * 3)
+
+		/**
+		 * Answer the appropriate `FloatTupleDescriptor` to represent an
+		 * [object][AvailObject] of the specified mutability and size.
+		 *
+		 * @param flag
+		 *   The [mutability][Mutability] of the new descriptor.
+		 * @param size
+		 *   The desired number of elements.
+		 * @return
+		 *   A `FloatTupleDescriptor`.
+		 */
+		@Suppress("SameParameterValue")
+		private fun descriptorFor(
+			flag: Mutability,
+			size: Int): FloatTupleDescriptor =
+				descriptors[(size and 1) * 3 + flag.ordinal]!!
+
+		/**
+		 * Create an object of the appropriate size, whose descriptor is an
+		 * instance of `FloatTupleDescriptor`.  Run the generator for each
+		 * position in ascending order to produce the [Float]s with which to
+		 * populate the tuple.
+		 *
+		 * @param size
+		 *   The size of float-tuple to create.
+		 * @param generator
+		 *   A generator to provide [Float]s to store.
+		 * @return
+		 *   The new tuple.
+		 */
+		fun generateFloatTupleFrom(
+			size: Int,
+			generator: (Int) -> Float): AvailObject
+		{
+			val descriptor = descriptorFor(Mutability.MUTABLE, size)
+			return descriptor.create(size + 1 ushr 1) {
+				for (i in 1..size)
+				{
+					setIntSlot(RAW_LONG_AT_, i, floatToRawIntBits(generator(i)))
+				}
+			}
+		}
+
+		init
+		{
+			var i = 0
+			for (excess in intArrayOf(0, 1))
+			{
+				for (mut in Mutability.values())
+				{
+					descriptors[i++] = FloatTupleDescriptor(mut, excess)
+				}
+			}
+		}
+	}
+}
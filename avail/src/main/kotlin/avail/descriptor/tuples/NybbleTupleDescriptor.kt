@@ -35,9 +35,13 @@ import avail.annotations.HideFieldInDebugger
 import avail.descriptor.character.A_Character.Companion.codePoint
 import avail.descriptor.character.A_Character.Companion.isCharacter
 import avail.descriptor.functions.CompiledCodeDescriptor
+import avail.descriptor.numbers.A_Number.Companion.extractDouble
+import avail.descriptor.numbers.A_Number.Companion.extractFloat
 import avail.descriptor.numbers.A_Number.Companion.extractInt
 import avail.descriptor.numbers.A_Number.Companion.extractLong
 import avail.descriptor.numbers.A_Number.Companion.extractNybble
+import avail.descriptor.numbers.A_Number.Companion.isDouble
+import avail.descriptor.numbers.A_Number.Companion.isFloat
 import avail.descriptor.numbers.A_Number.Companion.isInt
 import avail.descriptor.numbers.A_Number.Companion.isLong
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromUnsignedByte
@@ -64,6 +68,8 @@ import avail.descriptor.tuples.A_Tuple.Companion.tupleIntAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
 import avail.descriptor.tuples.ByteStringDescriptor.Companion.generateByteString
 import avail.descriptor.tuples.ByteTupleDescriptor.Companion.generateByteTupleFrom
+import avail.descriptor.tuples.DoubleTupleDescriptor.Companion.generateDoubleTupleFrom
+import avail.descriptor.tuples.FloatTupleDescriptor.Companion.generateFloatTupleFrom
 import avail.descriptor.tuples.IntTupleDescriptor.Companion.generateIntTupleFrom
 import avail.descriptor.tuples.LongTupleDescriptor.Companion.generateLongTupleFrom
 import avail.descriptor.tuples.NybbleTupleDescriptor.IntegerSlots
@@ -228,6 +234,16 @@ class NybbleTupleDescriptor private constructor(
 							generateIntTupleFrom(1) { longValue.toInt() }
 						else -> generateLongTupleFrom(1) { longValue }
 					}
+				strongNewElement.isDouble ->
+				{
+					val doubleValue = strongNewElement.extractDouble
+					return generateDoubleTupleFrom(1) { doubleValue }
+				}
+				strongNewElement.isFloat ->
+				{
+					val floatValue = strongNewElement.extractFloat
+					return generateFloatTupleFrom(1) { floatValue }
+				}
 			}
 		}
 		if (originalSize < maximumCopySize && strongNewElement.isInt)
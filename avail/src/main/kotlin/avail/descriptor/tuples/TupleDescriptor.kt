@@ -35,9 +35,14 @@ import avail.annotations.HideFieldInDebugger
 import avail.annotations.ThreadSafe
 import avail.descriptor.character.A_Character.Companion.codePoint
 import avail.descriptor.character.A_Character.Companion.isCharacter
+import avail.descriptor.numbers.A_Number.Companion.extractDouble
+import avail.descriptor.numbers.A_Number.Companion.extractFloat
 import avail.descriptor.numbers.A_Number.Companion.extractInt
 import avail.descriptor.numbers.A_Number.Companion.extractLong
+import avail.descriptor.numbers.A_Number.Companion.isDouble
+import avail.descriptor.numbers.A_Number.Companion.isFloat
 import avail.descriptor.numbers.A_Number.Companion.isInt
+import avail.descriptor.numbers.DoubleDescriptor
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
 import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.AbstractSlotsEnum
@@ -59,6 +64,7 @@ import avail.descriptor.tuples.A_Tuple.Companion.isBetterRepresentationThan
 import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleAtPuttingCanDestroy
 import avail.descriptor.tuples.A_Tuple.Companion.tupleCodePointAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleElementsInRangeAreInstancesOf
 import avail.descriptor.tuples.A_Tuple.Companion.tupleIntAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleLongAt
@@ -728,6 +734,12 @@ protected constructor(
 	override fun o_TupleLongAt(self: AvailObject, index: Int): Long =
 		self.tupleAt(index).extractLong
 
+	override fun o_TupleDoubleAt(self: AvailObject, index: Int): Double =
+		self.tupleAt(index).extractDouble
+
+	override fun o_TupleFloatAt(self: AvailObject, index: Int): Float =
+		self.tupleAt(index).extractFloat
+
 	override fun o_AsSet(self: AvailObject): A_Set =
 		generateSetFrom(self.tupleSize, self.iterator())
 
@@ -813,6 +825,16 @@ protected constructor(
 				else -> SerializerOperation.INT_TUPLE
 			}
 		}
+		if (firstElement.isDouble
+			&& self.tupleElementsInRangeAreInstancesOf(1, size, Types.DOUBLE.o))
+		{
+			return SerializerOperation.DOUBLE_TUPLE
+		}
+		if (firstElement.isFloat
+			&& self.tupleElementsInRangeAreInstancesOf(1, size, Types.FLOAT.o))
+		{
+			return SerializerOperation.FLOAT_TUPLE
+		}
 		return SerializerOperation.GENERAL_TUPLE
 	}
 
@@ -1456,6 +1478,30 @@ protected constructor(
 			A_Tuple::class.java,
 			Int::class.javaPrimitiveType!!)
 
+		/**
+		 * Answer the specified element of the tuple, which must be a
+		 * [double][DoubleDescriptor], as an unboxed [Double].
+		 *
+		 * @param tuple
+		 *   The tuple from which to extract a value.
+		 * @param index
+		 *   Which element should be extracted.
+		 * @return
+		 *   The [Double] value of the element.
+		 */
+		@ReferencedInGeneratedCode
+		@JvmStatic
+		fun staticTupleDoubleAt(tuple: A_Tuple, index: Int): Double =
+			tuple.tupleDoubleAt(index)
+
+		/** The [CheckedMethod] for [staticTupleDoubleAt]. */
+		val tupleDoubleAtMethod = staticMethod(
+			TupleDescriptor::class.java,
+			::staticTupleDoubleAt.name,
+			Double::class.javaPrimitiveType!!,
+			A_Tuple::class.java,
+			Int::class.javaPrimitiveType!!)
+
 		/**
 		 * Replace the specified element of the tuple, destructively if it's
 		 * mutable and of the right optimized element type.  Answer the modified
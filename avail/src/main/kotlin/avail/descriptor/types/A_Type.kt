@@ -272,8 +272,12 @@ interface A_Type : A_BasicObject
 		 * @param aType
 		 * @return
 		 */
-		fun A_Type.isSubtypeOf(aType: A_Type): Boolean =
-			dispatch { o_IsSubtypeOf(it, aType) }
+		fun A_Type.isSubtypeOf(aType: A_Type): Boolean = when
+		{
+			TypeMemoCache.isMemoizable(this, aType) ->
+				TypeMemoCache.isSubtypeOf(this, aType)
+			else -> dispatch { o_IsSubtypeOf(it, aType) }
+		}
 
 		/**
 		 * Dispatch to the descriptor.
@@ -629,8 +633,12 @@ interface A_Type : A_BasicObject
 		 * @param another
 		 * @return
 		 */
-		fun A_Type.typeIntersection(another: A_Type): A_Type =
-			dispatch { o_TypeIntersection(it, another) }
+		fun A_Type.typeIntersection(another: A_Type): A_Type = when
+		{
+			TypeMemoCache.isMemoizable(this, another) ->
+				TypeMemoCache.typeIntersection(this, another)
+			else -> dispatch { o_TypeIntersection(it, another) }
+		}
 
 		/**
 		 * @param aCompiledCodeType
@@ -780,8 +788,12 @@ interface A_Type : A_BasicObject
 		 * @param another
 		 * @return
 		 */
-		fun A_Type.typeUnion(another: A_Type): A_Type =
-			dispatch { o_TypeUnion(it, another) }
+		fun A_Type.typeUnion(another: A_Type): A_Type = when
+		{
+			TypeMemoCache.isMemoizable(this, another) ->
+				TypeMemoCache.typeUnion(this, another)
+			else -> dispatch { o_TypeUnion(it, another) }
+		}
 
 		/**
 		 * Dispatch to the descriptor.
@@ -0,0 +1,361 @@
+/*
+ * TypeMemoCache.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.descriptor.types
+
+import avail.descriptor.representation.A_BasicObject.Companion.dispatch
+import avail.descriptor.representation.AvailObject
+import avail.performance.Statistic
+import avail.performance.StatisticReport.TYPE_MEMO_CACHE
+import java.lang.ref.WeakReference
+
+/**
+ * `TypeMemoCache` remembers the results of recent [A_Type.typeUnion],
+ * [A_Type.typeIntersection], and [A_Type.isSubtypeOf] operations on pairs of
+ * [shared][avail.descriptor.representation.Mutability.SHARED] structured types,
+ * such as tuple, function, and object types.  The compiler, the L2 optimizer's
+ * type restrictions, and semantic restrictions ask the same questions about
+ * the same types many times, and the structural computation for these kinds of
+ * types can be expensive.
+ *
+ * Shared types can't change, so a result never becomes stale.  The cache is
+ * direct-mapped with [cacheSize] entries, so it's bounded, and an entry is
+ * simply overwritten when another pair of types hashes to the same slot.  Each
+ * entry is immutable, so readers and writers need no synchronization.  An
+ * entry holds its operands and any resulting type weakly, so the cache doesn't
+ * keep types alive; an entry whose resulting type has been collected is
+ * treated as a miss.  Only the identity of the operands is considered, so
+ * equal but distinct types occupy separate entries.
+ *
+ * When [recordStatistics] is set, the number of hits and misses for each
+ * operation is recorded in the [TYPE_MEMO_CACHE] report.  It's off by default,
+ * since recording a [Statistic] costs more than a cache hit saves.
+ */
+object TypeMemoCache
+{
+	/**
+	 * Whether to record each hit and miss in the [TYPE_MEMO_CACHE] report.
+	 */
+	var recordStatistics = false
+
+	/**
+	 * The operations whose results are memoized.
+	 *
+	 * @param operationName
+	 *   The name of the operation, for the statistics.
+	 * @property hits
+	 *   The [Statistic] that counts this operation's cache hits.
+	 * @property misses
+	 *   The [Statistic] that counts this operation's cache misses.
+	 */
+	enum class Operation constructor(operationName: String)
+	{
+		/** [A_Type.typeUnion]. */
+		UNION("typeUnion"),
+
+		/** [A_Type.typeIntersection]. */
+		INTERSECTION("typeIntersection"),
+
+		/** [A_Type.isSubtypeOf]. */
+		SUBTYPE("isSubtypeOf");
+
+		val hits = Statistic(TYPE_MEMO_CACHE, "$operationName hits")
+
+		val misses = Statistic(TYPE_MEMO_CACHE, "$operationName misses")
+	}
+
+	/**
+	 * A memoized result.
+	 *
+	 * @property first
+	 *   The receiver of the operation.
+	 * @property second
+	 *   The argument of the operation.
+	 * @property operation
+	 *   The [Operation] that was performed.
+	 * @property typeResult
+	 *   The [shared][AvailObject.makeShared] [A_Type] that the operation
+	 *   produced, held weakly, or `null` if the operation produces a
+	 *   [Boolean].
+	 * @property booleanResult
+	 *   The [Boolean] that the operation produced, if [typeResult] is `null`.
+	 */
+	private class Entry constructor(
+		val first: WeakReference<AvailObject>,
+		val second: WeakReference<AvailObject>,
+		val operation: Operation,
+		val typeResult: WeakReference<AvailObject>?,
+		val booleanResult: Boolean)
+
+	/** The number of entries.  Must be a power of two. */
+	private const val cacheSize = 1 shl 14
+
+	/**
+	 * The entries, indexed by a hash of the operands' identities and the
+	 * operation.  Since [Entry] has only final fields, entries may be read and
+	 * written here without synchronization.
+	 */
+	private val entries = arrayOfNulls<Entry>(cacheSize)
+
+	/**
+	 * Which [TypeTag]s, by ordinal, denote types that are structured enough to
+	 * be worth memoizing.  Primitive types, integer ranges, and the like are
+	 * compared faster than the cache could be probed.
+	 */
+	private val memoizableTags = BooleanArray(TypeTag.values().size).also {
+		val structured = listOf(
+			TypeTag.TUPLE_TYPE_TAG,
+			TypeTag.FUNCTION_TYPE_TAG,
+			TypeTag.OBJECT_TYPE_TAG,
+			TypeTag.MAP_TYPE_TAG,
+			TypeTag.SET_TYPE_TAG,
+			TypeTag.PHRASE_TYPE_TAG,
+			TypeTag.CONTINUATION_TYPE_TAG,
+			TypeTag.VARIABLE_TYPE_TAG,
+			TypeTag.FIBER_TYPE_TAG,
+			TypeTag.RAW_FUNCTION_TYPE_TAG,
+			TypeTag.POJO_TYPE_TAG,
+			TypeTag.META_TAG)
+		TypeTag.values().forEach { tag ->
+			it[tag.ordinal] = tag != TypeTag.BOTTOM_TYPE_TAG
+				&& structured.any(tag::isSubtagOf)
+		}
+	}
+
+	/**
+	 * Answer whether the given pair of types should be looked up in the cache.
+	 *
+	 * @param first
+	 *   The receiver of the operation.
+	 * @param second
+	 *   The argument of the operation.
+	 * @return
+	 *   `true` if both types are distinct, shared, and structured.
+	 */
+	fun isMemoizable(first: A_Type, second: A_Type): Boolean =
+		first !== second
+			&& first.descriptor().isShared
+			&& second.descriptor().isShared
+			&& memoizableTags[(first as AvailObject).typeTag.ordinal]
+			&& memoizableTags[(second as AvailObject).typeTag.ordinal]
+
+	/**
+	 * Answer the slot for the given operands and operation.
+	 *
+	 * @param first
+	 *   The receiver of the operation.
+	 * @param second
+	 *   The argument of the operation.
+	 * @param operation
+	 *   The [Operation].
+	 * @return
+	 *   The index into [entries].
+	 */
+	private fun indexOf(
+		first: AvailObject,
+		second: AvailObject,
+		operation: Operation
+	): Int
+	{
+		var hash = System.identityHashCode(first)
+		hash = hash * 31 + System.identityHashCode(second)
+		hash = hash * 31 + operation.ordinal
+		// Spread the bits, since identity hashes tend to be poorly mixed in
+		// their high bits.
+		hash *= -0x61c88647
+		return (hash xor (hash ushr 16)) and (cacheSize - 1)
+	}
+
+	/**
+	 * Answer the entry that memoizes the given operation on the given
+	 * operands, if it's present.
+	 *
+	 * @param first
+	 *   The receiver of the operation.
+	 * @param second
+	 *   The argument of the operation.
+	 * @param operation
+	 *   The [Operation].
+	 * @param index
+	 *   The [index][indexOf] of the slot for the operands and operation.
+	 * @return
+	 *   The matching [Entry], or `null` if there isn't one.
+	 */
+	private fun probe(
+		first: AvailObject,
+		second: AvailObject,
+		operation: Operation,
+		index: Int
+	): Entry?
+	{
+		val entry = entries[index] ?: return null
+		return when
+		{
+			entry.operation !== operation -> null
+			entry.first.get() !== first -> null
+			entry.second.get() !== second -> null
+			else -> entry
+		}
+	}
+
+	/**
+	 * Look up or compute the type produced by an operation.
+	 *
+	 * @param first
+	 *   The receiver of the operation, which must be
+	 *   [memoizable][isMemoizable] with the second.
+	 * @param second
+	 *   The argument of the operation.
+	 * @param operation
+	 *   The [Operation].
+	 * @param compute
+	 *   How to perform the operation, without consulting the cache.
+	 * @return
+	 *   The (possibly memoized) shared type.
+	 */
+	private inline fun memoizeType(
+		first: A_Type,
+		second: A_Type,
+		operation: Operation,
+		compute: ()->A_Type
+	): A_Type
+	{
+		val a = first as AvailObject
+		val b = second as AvailObject
+		val index = indexOf(a, b, operation)
+		val cached = probe(a, b, operation, index)?.typeResult?.get()
+		if (cached !== null)
+		{
+			if (recordStatistics) operation.hits.record(1L)
+			return cached
+		}
+		if (recordStatistics) operation.misses.record(1L)
+		val result = compute()
+		entries[index] = Entry(
+			WeakReference(a),
+			WeakReference(b),
+			operation,
+			WeakReference(result as AvailObject),
+			false)
+		return result
+	}
+
+	/**
+	 * Look up or compute the [Boolean] produced by an operation.
+	 *
+	 * @param first
+	 *   The receiver of the operation, which must be
+	 *   [memoizable][isMemoizable] with the second.
+	 * @param second
+	 *   The argument of the operation.
+	 * @param operation
+	 *   The [Operation].
+	 * @param compute
+	 *   How to perform the operation, without consulting the cache.
+	 * @return
+	 *   The (possibly memoized) result.
+	 */
+	private inline fun memoizeBoolean(
+		first: A_Type,
+		second: A_Type,
+		operation: Operation,
+		compute: ()->Boolean
+	): Boolean
+	{
+		val a = first as AvailObject
+		val b = second as AvailObject
+		val index = indexOf(a, b, operation)
+		val entry = probe(a, b, operation, index)
+		if (entry !== null)
+		{
+			if (recordStatistics) operation.hits.record(1L)
+			return entry.booleanResult
+		}
+		if (recordStatistics) operation.misses.record(1L)
+		val result = compute()
+		entries[index] = Entry(
+			WeakReference(a), WeakReference(b), operation, null, result)
+		return result
+	}
+
+	/**
+	 * Discard every entry.  This is only needed to make tests independent of
+	 * each other.
+	 */
+	fun clear() = entries.fill(null)
+
+	/**
+	 * Answer the union of two [memoizable][isMemoizable] types.
+	 *
+	 * @param first
+	 *   A shared type.
+	 * @param second
+	 *   Another shared type.
+	 * @return
+	 *   Their shared union.
+	 */
+	fun typeUnion(first: A_Type, second: A_Type): A_Type =
+		memoizeType(first, second, Operation.UNION) {
+			first.dispatch { o_TypeUnion(it, second) }.makeShared()
+		}
+
+	/**
+	 * Answer the intersection of two [memoizable][isMemoizable] types.
+	 *
+	 * @param first
+	 *   A shared type.
+	 * @param second
+	 *   Another shared type.
+	 * @return
+	 *   Their shared intersection.
+	 */
+	fun typeIntersection(first: A_Type, second: A_Type): A_Type =
+		memoizeType(first, second, Operation.INTERSECTION) {
+			first.dispatch { o_TypeIntersection(it, second) }.makeShared()
+		}
+
+	/**
+	 * Answer whether the first [memoizable][isMemoizable] type is a subtype
+	 * of the second.
+	 *
+	 * @param first
+	 *   A shared type.
+	 * @param second
+	 *   Another shared type.
+	 * @return
+	 *   Whether the first is a subtype of the second.
+	 */
+	fun isSubtypeOf(first: A_Type, second: A_Type): Boolean =
+		memoizeBoolean(first, second, Operation.SUBTYPE) {
+			first.dispatch { o_IsSubtypeOf(it, second) }
+		}
+}
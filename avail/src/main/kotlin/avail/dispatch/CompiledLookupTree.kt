@@ -0,0 +1,245 @@
+/*
+ * CompiledLookupTree.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.dispatch
+
+import avail.AvailRuntimeSupport.captureNanos
+import avail.descriptor.objects.ObjectLayoutVariant
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.A_BasicObject.Companion.objectVariant
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.TypeTag
+import avail.optimizer.jvm.CheckedMethod
+import avail.optimizer.jvm.CheckedMethod.Companion.instanceMethod
+import avail.optimizer.jvm.CheckedMethod.Companion.staticMethod
+import avail.optimizer.jvm.LookupTreeTranslator
+import avail.optimizer.jvm.ReferencedInGeneratedCode
+
+/**
+ * A `CompiledLookupTree` is the superclass of the JVM classes that a
+ * [LookupTreeTranslator] generates from a [LookupTree].  The generated
+ * [lookup] method dispatches on [TypeTag]s and [ObjectLayoutVariant]s with
+ * `tableswitch`/`lookupswitch` instructions, and tests types directly, instead
+ * of walking the tree's [DecisionStep]s through virtual calls.
+ *
+ * Parts of the tree that were still lazy, or that use steps the translator
+ * does not handle, are reached through [fallback], which resumes the ordinary
+ * [LookupTreeAdaptor.lookupByValues] at the corresponding subtree.
+ *
+ * @param Element
+ *   The kind of elements in the lookup tree, such as method definitions.
+ * @param Result
+ *   What we expect to produce from a lookup activity, such as the tuple of
+ *   most-specific matching method definitions for some arguments.
+ * @param Memento
+ *   A value used by the adaptor when expanding the tree.
+ */
+abstract class CompiledLookupTree<
+	Element : A_BasicObject,
+	Result : A_BasicObject,
+	Memento>
+{
+	/** The adaptor used to expand and search the tree on a [fallback]. */
+	private var adaptor: LookupTreeAdaptor<Element, Result, Memento>? = null
+
+	/** The memento to pass to the [adaptor] on a [fallback]. */
+	private var memento: Memento? = null
+
+	/** The [LookupStatistics] in which to record lookups. */
+	private var lookupStats: LookupStatistics? = null
+
+	/**
+	 * Supply the state needed for a [fallback].  This must happen before the
+	 * instance is published to other threads.
+	 *
+	 * @param adaptor
+	 *   The adaptor that built the tree.
+	 * @param memento
+	 *   The memento to pass to the adaptor.
+	 * @param lookupStats
+	 *   The [LookupStatistics] in which to record lookups.
+	 */
+	fun initialize(
+		adaptor: LookupTreeAdaptor<Element, Result, Memento>,
+		memento: Memento,
+		lookupStats: LookupStatistics)
+	{
+		this.adaptor = adaptor
+		this.memento = memento
+		this.lookupStats = lookupStats
+	}
+
+	/**
+	 * Look up the most-specific [Result] for the given argument values.  This
+	 * method is generated.
+	 *
+	 * @param argValues
+	 *   The [List] of arguments being looked up.
+	 * @return
+	 *   The [Result], as an [A_BasicObject].
+	 */
+	abstract fun lookup(argValues: List<A_BasicObject>): A_BasicObject
+
+	/**
+	 * Look up the most-specific [Result] for the given argument values, and
+	 * record the lookup in the [lookupStats].
+	 *
+	 * @param argValues
+	 *   The [List] of arguments being looked up.
+	 * @return
+	 *   The [Result].
+	 */
+	fun lookupByValues(argValues: List<A_BasicObject>): Result
+	{
+		val before = captureNanos()
+		@Suppress("UNCHECKED_CAST")
+		val result = lookup(argValues) as Result
+		lookupStats!!.recordCompiledLookup(
+			(captureNanos() - before).toDouble())
+		return result
+	}
+
+	/**
+	 * Continue the lookup the ordinary way, starting at the given subtree.
+	 * The generated code only stops at subtrees that are reached without
+	 * extracting extra values, so the lookup can resume there as though it
+	 * were a root.
+	 *
+	 * @param subtree
+	 *   The [LookupTree] at which to resume.
+	 * @param argValues
+	 *   The [List] of arguments being looked up.
+	 * @return
+	 *   The [Result], as an [A_BasicObject].
+	 */
+	@ReferencedInGeneratedCode
+	fun fallback(
+		subtree: Any,
+		argValues: List<A_BasicObject>
+	): A_BasicObject
+	{
+		@Suppress("UNCHECKED_CAST")
+		return adaptor!!.lookupByValues(
+			subtree as LookupTree<Element, Result>,
+			argValues,
+			memento as Memento,
+			lookupStats!!)
+	}
+
+	companion object
+	{
+		/**
+		 * Answer the [TypeTag] ordinal of the indicated argument.
+		 *
+		 * @param argValues
+		 *   The [List] of arguments being looked up.
+		 * @param index
+		 *   The zero-based index of the argument.
+		 * @return
+		 *   The argument's [TypeTag.ordinal].
+		 */
+		@JvmStatic
+		@ReferencedInGeneratedCode
+		fun typeTagOrdinal(argValues: List<A_BasicObject>, index: Int): Int =
+			(argValues[index] as AvailObject).typeTag.ordinal
+
+		/**
+		 * Answer the [ObjectLayoutVariant.variantId] of the indicated
+		 * argument, which must be an object.
+		 *
+		 * @param argValues
+		 *   The [List] of arguments being looked up.
+		 * @param index
+		 *   The zero-based index of the argument.
+		 * @return
+		 *   The variant id of the argument's [ObjectLayoutVariant].
+		 */
+		@JvmStatic
+		@ReferencedInGeneratedCode
+		fun variantId(argValues: List<A_BasicObject>, index: Int): Int =
+			argValues[index].objectVariant.variantId
+
+		/**
+		 * Answer whether the indicated argument is an instance of the type.
+		 *
+		 * @param argValues
+		 *   The [List] of arguments being looked up.
+		 * @param index
+		 *   The zero-based index of the argument.
+		 * @param type
+		 *   The [A_Type] to test against.
+		 * @return
+		 *   Whether the argument is an instance of the type.
+		 */
+		@JvmStatic
+		@ReferencedInGeneratedCode
+		fun isInstanceOf(
+			argValues: List<A_BasicObject>,
+			index: Int,
+			type: Any
+		): Boolean = argValues[index].isInstanceOf(type as A_Type)
+
+		/** The [CheckedMethod] for [fallback]. */
+		val fallbackMethod = instanceMethod(
+			CompiledLookupTree::class.java,
+			CompiledLookupTree<*, *, *>::fallback.name,
+			A_BasicObject::class.java,
+			Any::class.java,
+			List::class.java)
+
+		/** The [CheckedMethod] for [typeTagOrdinal]. */
+		val typeTagOrdinalMethod = staticMethod(
+			CompiledLookupTree::class.java,
+			::typeTagOrdinal.name,
+			Int::class.javaPrimitiveType!!,
+			List::class.java,
+			Int::class.javaPrimitiveType!!)
+
+		/** The [CheckedMethod] for [variantId]. */
+		val variantIdMethod = staticMethod(
+			CompiledLookupTree::class.java,
+			::variantId.name,
+			Int::class.javaPrimitiveType!!,
+			List::class.java,
+			Int::class.javaPrimitiveType!!)
+
+		/** The [CheckedMethod] for [isInstanceOf]. */
+		val isInstanceOfMethod = staticMethod(
+			CompiledLookupTree::class.java,
+			::isInstanceOf.name,
+			Boolean::class.javaPrimitiveType!!,
+			List::class.java,
+			Int::class.javaPrimitiveType!!,
+			Any::class.java)
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * InlineCache.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.dispatch
+
+import avail.descriptor.bundles.A_Bundle
+import avail.descriptor.bundles.A_Bundle.Companion.bundleMethod
+import avail.descriptor.bundles.A_Bundle.Companion.message
+import avail.descriptor.methods.A_ChunkDependable
+import avail.descriptor.methods.A_Definition
+import avail.descriptor.methods.A_Method.Companion.definitionsAtOrBelow
+import avail.descriptor.methods.A_Method.Companion.lookupByValuesFromList
+import avail.descriptor.methods.A_Sendable.Companion.bodySignature
+import avail.descriptor.methods.A_Sendable.Companion.isMethodDefinition
+import avail.descriptor.objects.ObjectLayoutVariant
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.A_BasicObject.Companion.objectVariant
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.acceptsListOfArgTypes
+import avail.descriptor.types.TypeTag
+import avail.exceptions.MethodDefinitionException
+import avail.interpreter.levelTwo.L2Chunk
+import avail.interpreter.levelTwo.operand.TypeRestriction
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * An `InlineCache` sits at a single polymorphic call site within an
+ * [L2Chunk], remembering which [A_Definition] was selected for each
+ * combination of argument [TypeTag]s (refined by [ObjectLayoutVariant] for
+ * objects) that it has encountered.  A hit avoids walking the method's
+ * [LookupTree] entirely.
+ *
+ * An entry is only recorded when *every* value having those tags or variants
+ * would select the same definition, which is checked the same way the
+ * translators check for monomorphic call sites.  When more than
+ * [maximumEntries] distinct argument shapes are seen, or too many lookups
+ * produce results that can't be cached, the site is considered megamorphic,
+ * and the cache simply delegates to the lookup tree from then on.
+ *
+ * The cache contents are only valid for as long as the method's definitions
+ * remain unchanged.  Every chunk containing a call site already depends on the
+ * site's method as an [A_ChunkDependable], so adding or removing a definition
+ * invalidates the chunk, and with it, all of its caches.
+ *
+ * @property bundle
+ *   The [A_Bundle] being invoked at this call site.
+ *
+ * @constructor
+ * Create an empty `InlineCache` for the given [A_Bundle].
+ */
+class InlineCache constructor(val bundle: A_Bundle)
+{
+	/**
+	 * A cached association from the keys of some arguments to the
+	 * [A_Definition] that they select.
+	 *
+	 * @property keys
+	 *   The key of each argument, as computed by [keyFor].
+	 * @property definition
+	 *   The definition selected by arguments having those keys.
+	 */
+	private class Entry constructor(
+		val keys: IntArray,
+		val definition: A_Definition)
+	{
+		/**
+		 * Answer whether the given arguments have exactly this entry's keys.
+		 * The keys are compared in place, so that a cache hit allocates
+		 * nothing.
+		 *
+		 * @param arguments
+		 *   The arguments of the call, ordered by position.
+		 * @return
+		 *   Whether this entry applies to the arguments.
+		 */
+		fun matches(arguments: List<A_BasicObject>): Boolean
+		{
+			for (i in keys.indices)
+			{
+				if (keys[i] != keyFor(arguments[i])) return false
+			}
+			return true
+		}
+	}
+
+	/**
+	 * The current entries.  This array is never modified after being stored
+	 * here, so readers need no synchronization.
+	 */
+	@Volatile
+	private var entries = arrayOf<Entry>()
+
+	/**
+	 * Set when this call site has proven to be too polymorphic to be worth
+	 * caching.
+	 */
+	@Volatile
+	internal var isMegamorphic = false
+		private set
+
+	/** The number of argument shapes currently cached. */
+	internal val size: Int get() = entries.size
+
+	/**
+	 * The number of successful lookups whose results could not be cached.
+	 */
+	private val uncacheableCount = AtomicInteger(0)
+
+	/**
+	 * Look up the unique [A_Definition] selected by the given arguments, using
+	 * and updating the cache.
+	 *
+	 * @param arguments
+	 *   The arguments of the call, ordered by position.
+	 * @return
+	 *   The selected definition.
+	 * @throws MethodDefinitionException
+	 *   If the lookup doesn't produce exactly one definition.
+	 */
+	@Throws(MethodDefinitionException::class)
+	fun lookup(arguments: List<A_BasicObject>): A_Definition
+	{
+		val method = bundle.bundleMethod
+		if (isMegamorphic) return method.lookupByValuesFromList(arguments)
+		for (entry in entries)
+		{
+			if (entry.matches(arguments)) return entry.definition
+		}
+		val definition = method.lookupByValuesFromList(arguments)
+		learn(
+			arguments,
+			IntArray(arguments.size) { keyFor(arguments[it]) },
+			definition)
+		return definition
+	}
+
+	/**
+	 * A lookup missed the cache and produced the given [A_Definition].  Add
+	 * an entry if the definition would be selected by any arguments having the
+	 * same keys.
+	 *
+	 * @param arguments
+	 *   The arguments that were looked up.
+	 * @param keys
+	 *   The keys of those arguments.
+	 * @param definition
+	 *   The definition that the lookup produced.
+	 */
+	private fun learn(
+		arguments: List<A_BasicObject>,
+		keys: IntArray,
+		definition: A_Definition)
+	{
+		if (!definition.isMethodDefinition())
+		{
+			noteUncacheable()
+			return
+		}
+		val restrictions = arguments.map {
+			restrictionForType(keyTypeFor(it), BOXED_FLAG)
+		}
+		val possible = bundle.bundleMethod.definitionsAtOrBelow(restrictions)
+		if (possible.size != 1
+			|| !possible[0].equals(definition)
+			|| !definition.bodySignature().acceptsListOfArgTypes(
+				restrictions.map(TypeRestriction::type)))
+		{
+			noteUncacheable()
+			return
+		}
+		synchronized(this) {
+			val old = entries
+			if (old.none { it.keys.contentEquals(keys) })
+			{
+				if (old.size >= maximumEntries) isMegamorphic = true
+				else entries = old + Entry(keys, definition)
+			}
+			Unit
+		}
+	}
+
+	/**
+	 * A lookup produced a result that can't be cached.  If this happens too
+	 * often, stop trying.
+	 */
+	private fun noteUncacheable()
+	{
+		if (uncacheableCount.incrementAndGet() >= maximumUncacheable)
+		{
+			isMegamorphic = true
+		}
+	}
+
+	override fun toString(): String =
+		"InlineCache(${bundle.message}, ${entries.size} entries" +
+			(if (isMegamorphic) ", megamorphic)" else ")")
+
+	companion object
+	{
+		/**
+		 * The maximum number of argument shapes to cache at a single call
+		 * site before considering it megamorphic.
+		 */
+		private const val maximumEntries = 4
+
+		/**
+		 * The maximum number of lookups at a single call site that may produce
+		 * uncacheable results before considering it megamorphic.
+		 */
+		private const val maximumUncacheable = 8
+
+		/**
+		 * Answer the cache key for the given argument.  This is the ordinal of
+		 * its [TypeTag], except for objects, where the [ObjectLayoutVariant]'s
+		 * [variantId][ObjectLayoutVariant.variantId] is used to distinguish
+		 * objects with different fields.
+		 *
+		 * @param argument
+		 *   The argument.
+		 * @return
+		 *   The argument's key.
+		 */
+		private fun keyFor(argument: A_BasicObject): Int
+		{
+			val tag = (argument as AvailObject).typeTag
+			return when (tag)
+			{
+				TypeTag.OBJECT_TAG ->
+					TypeTag.count + argument.objectVariant.variantId
+				else -> tag.ordinal
+			}
+		}
+
+		/**
+		 * Answer the most general [A_Type] of all values that have the same
+		 * [key][keyFor] as the given argument.
+		 *
+		 * @param argument
+		 *   The argument.
+		 * @return
+		 *   The type that bounds all values with the argument's key.
+		 */
+		private fun keyTypeFor(argument: A_BasicObject): A_Type
+		{
+			val tag = (argument as AvailObject).typeTag
+			return when (tag)
+			{
+				TypeTag.OBJECT_TAG ->
+					argument.objectVariant.mostGeneralObjectType
+				else -> tag.supremum
+			}
+		}
+	}
+}
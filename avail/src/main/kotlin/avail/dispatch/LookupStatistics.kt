@@ -32,6 +32,8 @@
 
 package avail.dispatch
 
+import avail.performance.AvailEvents
+import avail.performance.DynamicLookupEvent
 import avail.performance.Statistic
 import avail.performance.StatisticReport
 import java.util.concurrent.atomic.AtomicReference
@@ -82,5 +84,57 @@ class LookupStatistics constructor (
 			}
 		}
 		stats[depth].record(nanos)
+		commitEvent(nanos, depth, false)
+	}
+
+	/**
+	 * The [Statistic] recording the time of each lookup through a
+	 * [CompiledLookupTree].  The depth is not known there, so these lookups
+	 * are kept apart from the ones recorded by depth.  It is only created
+	 * once a tree has actually been compiled.
+	 */
+	internal val compiledStat by lazy {
+		Statistic(report, "$baseName (compiled)")
+	}
+
+	/**
+	 * Record the fact that a lookup through a [CompiledLookupTree] has just
+	 * taken place, and that it took the given time in nanoseconds.  A lookup
+	 * that reached a [fallback][CompiledLookupTree.fallback] has also
+	 * recorded the remainder of its search with [recordDynamicLookup].
+	 *
+	 * @param nanos
+	 *   A `double` indicating how many nanoseconds it took.
+	 */
+	fun recordCompiledLookup(nanos: Double)
+	{
+		compiledStat.record(nanos)
+		commitEvent(nanos, 0, true)
+	}
+
+	/**
+	 * Commit a [DynamicLookupEvent], if it is enabled.
+	 *
+	 * @param nanos
+	 *   A `double` indicating how many nanoseconds the lookup took.
+	 * @param depth
+	 *   How deep the search had to go in the [LookupTree].
+	 * @param compiled
+	 *   Whether the lookup went through a [CompiledLookupTree].
+	 */
+	private fun commitEvent(nanos: Double, depth: Int, compiled: Boolean)
+	{
+		if (AvailEvents.isRecording)
+		{
+			val event = DynamicLookupEvent()
+			if (event.shouldCommit())
+			{
+				event.lookup = baseName
+				event.depth = depth
+				event.compiled = compiled
+				event.lookupNanos = nanos.toLong()
+				event.commit()
+			}
+		}
 	}
 }
@@ -125,6 +125,15 @@ constructor(
 			<ObjectLayoutVariant, LookupTree<Element, Result>> =
 		ConcurrentHashMap()
 
+	/**
+	 * Answer a snapshot of the subtrees for the [ObjectLayoutVariant]s that
+	 * have been encountered so far.  Variants that arrive later will still be
+	 * added dynamically by the lookup steps.
+	 */
+	internal fun knownVariantSubtrees():
+		Map<ObjectLayoutVariant, LookupTree<Element, Result>> =
+			variantToSubtree.toMap()
+
 	/**
 	 * Given the actual [variant] that has been supplied for an actual
 	 * lookup, collect the relevant [Element]s into a suitable [LookupTree].
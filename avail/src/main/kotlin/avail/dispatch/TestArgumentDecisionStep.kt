@@ -76,10 +76,10 @@ class TestArgumentDecisionStep<
 	Element : A_BasicObject,
 	Result : A_BasicObject>
 constructor(
-	private val argumentTypeToTest: A_Type,
+	internal val argumentTypeToTest: A_Type,
 	argumentPositionToTest: Int,
-	private val ifCheckHolds: LookupTree<Element, Result>,
-	private val ifCheckFails: LookupTree<Element, Result>
+	internal val ifCheckHolds: LookupTree<Element, Result>,
+	internal val ifCheckFails: LookupTree<Element, Result>
 ) : DecisionStep<Element, Result>(argumentPositionToTest)
 {
 	override fun <AdaptorMemento> lookupStepByValues(
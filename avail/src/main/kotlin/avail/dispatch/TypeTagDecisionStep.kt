@@ -100,6 +100,25 @@ constructor(
 	private val tagToSubtree: Map<TypeTag, LookupTree<Element, Result>>
 ) : DecisionStep<Element, Result>(argumentPositionToTest)
 {
+	/**
+	 * Answer the subtree that a value with the given [TypeTag] leads to, or
+	 * `null` if neither the tag nor any of its ancestors has a subtree.
+	 *
+	 * @param tag
+	 *   The [TypeTag] to look up.
+	 * @return
+	 *   The [LookupTree] to continue with, or `null` for no solution.
+	 */
+	internal fun subtreeForTag(tag: TypeTag): LookupTree<Element, Result>?
+	{
+		var t = tag
+		while (true)
+		{
+			tagToSubtree[t]?.let { return it }
+			t = t.parent ?: return null
+		}
+	}
+
 	//////////////////////////////
 	//       Lookup steps.      //
 	//////////////////////////////
@@ -33,6 +33,7 @@ package avail.files
 
 import avail.builder.ModuleRoot
 import avail.io.AvailClient
+import java.nio.ByteBuffer
 import java.nio.file.Path
 import java.util.UUID
 
@@ -72,6 +73,14 @@ abstract class AvailFile constructor(
 	 */
 	open fun getSavableContent (): ByteArray = rawContent
 
+	/**
+	 * @return
+	 *   An [Iterator] over [ByteBuffer]s that, in order, hold the most recent
+	 *   file content eligible to be saved.
+	 */
+	open fun savableChunks (): Iterator<ByteBuffer> =
+		listOf(ByteBuffer.wrap(getSavableContent())).iterator()
+
 	/**
 	 * Time in milliseconds since the unix epoch UTC when this file was lasted
 	 * edited.
@@ -32,7 +32,7 @@
 
 package avail.files
 
-import avail.descriptor.tuples.A_Tuple
+import avail.io.AvailClient
 import java.nio.ByteBuffer
 import java.nio.charset.CharacterCodingException
 import java.nio.charset.Charset
@@ -47,13 +47,17 @@ import java.util.UUID
  */
 internal class AvailTextFile : AbstractAvailTextFile
 {
-	/** The String content of the file. */
-	private lateinit var content: String
+	/** The [PieceTable] that holds the content of the file. */
+	private lateinit var content: PieceTable
 
-	override val rawContent: ByteArray get() = content.toByteArray(charset)
+	override val rawContent: ByteArray get() =
+		content.toString().toByteArray(charset)
 
 	override fun getSavableContent(): ByteArray = rawContent
 
+	override fun savableChunks(): Iterator<ByteBuffer> =
+		content.encodedChunks(charset)
+
 	/**
 	 * Construct an [AvailTextFile].
 	 *
@@ -73,7 +77,8 @@ internal class AvailTextFile : AbstractAvailTextFile
 			decoder.onUnmappableCharacter(CodingErrorAction.REPLACE)
 			try
 			{
-				content = decoder.decode(ByteBuffer.wrap(bytes)).toString()
+				content = PieceTable(
+					decoder.decode(ByteBuffer.wrap(bytes)).toString())
 			}
 			catch (e: CharacterCodingException)
 			{
@@ -123,7 +128,8 @@ internal class AvailTextFile : AbstractAvailTextFile
 		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE)
 		try
 		{
-			content = decoder.decode(ByteBuffer.wrap(raw)).toString()
+			content =
+				PieceTable(decoder.decode(ByteBuffer.wrap(raw)).toString())
 		}
 
 		catch (e: CharacterCodingException)
@@ -157,14 +163,12 @@ internal class AvailTextFile : AbstractAvailTextFile
 	 * with the provided data. This should preserve all data outside of this
 	 * range.
 	 *
-	 * The client will use 0-based indexing in its request, so we must adjust by
-	 * one. The file, in zero-based indexing must be prefixed before the
-	 * requested `start`. Shifting to Avail's one-based indexing and utilizing
-	 * the [A_Tuple.copyTupleFromToCanDestroy]'s inclusive range requires the
-	 * remove being after the requested `start`. Because the `start` is shifted
-	 * and correctly inclusive in the first half of the file, the 2nd half of
-	 * the file, the `end` must begin at the index one place beyond `end`
-	 * (`end + 1`). Thus the inserted text happens after the `start` position.
+	 * The client uses 0-based indexing, so the characters in the half-open
+	 * range [`start`, `end`) are replaced. The [content] is a [PieceTable], so
+	 * the edit costs time proportional to the logarithm of the number of
+	 * edits, not to the size of the file, and the reverse of the edit simply
+	 * [restores][RestoreSnapshot] the [snapshot][PieceTable.Snapshot] taken
+	 * before it.
 	 *
 	 * @param data
 	 *   The `ByteArray` data to add to this [AvailFile].
@@ -185,32 +189,41 @@ internal class AvailTextFile : AbstractAvailTextFile
 		timestamp: Long,
 		originator: UUID): TracedAction
 	{
-		// The text to insert in the file
-		val text = String(data, charset)
-
-		// The text to remove from the file. The offset for one-based indexing
-		// requires we begin removing from 1 beyond start.
-		val removed = content.slice(IntRange(start + 1, end))
-
-		// The client will use 0-based indexing in its request, so we must
-		// adjust by 1. Here using the start as inclusive is good enough to
-		// offset by 1.
-		val first = content.slice(IntRange(1, start))
-
-		// As stated above, must add 1 to end to keep from preserving the last
-		// character marked for removal.
-		val third = content.slice(IntRange(end + 1, content.length))
-
-		content = first + text + third
-
+		val before = content.snapshot
+		content.replace(start, end, String(data, charset))
 		markDirty()
 		return TracedAction(
 			timestamp,
 			originator,
 			EditRange(data, start, end),
-			EditRange(
-				removed.toByteArray(charset),
-				start,
-				start + text.length))
+			RestoreSnapshot(before))
+	}
+
+	/**
+	 * Make the text captured by the given [snapshot][PieceTable.Snapshot] the
+	 * content of this file.
+	 *
+	 * @param snapshot
+	 *   A `Snapshot` previously taken of this file's [content].
+	 * @param timestamp
+	 *   The time in milliseconds since the Unix Epoch UTC the update occurred.
+	 * @param originator
+	 *   The [AvailClient.id] of the session that originated the change.
+	 * @return
+	 *   The [TracedAction] that preserves this change and how to reverse it.
+	 */
+	fun restore(
+		snapshot: PieceTable.Snapshot,
+		timestamp: Long,
+		originator: UUID): TracedAction
+	{
+		val before = content.snapshot
+		content.restore(snapshot)
+		markDirty()
+		return TracedAction(
+			timestamp,
+			originator,
+			RestoreSnapshot(snapshot),
+			RestoreSnapshot(before))
 	}
 }
@@ -64,6 +64,12 @@ enum class FileActionType
 	 */
 	REPLACE_CONTENTS,
 
+	/**
+	 * Return the contents of a text file to a previously captured
+	 * [snapshot][PieceTable.Snapshot]; used to reverse edits.
+	 */
+	RESTORE_SNAPSHOT,
+
 	/**
 	 * Undo the most recently performed [EDIT_RANGE].
 	 */
@@ -182,6 +188,35 @@ class ReplaceContents constructor(val data: ByteArray): FileAction
 	override val isTraced: Boolean = true
 }
 
+/**
+ * `RestoreSnapshot` is a [FileAction] that returns the contents of an
+ * [AvailTextFile] to a previously captured [snapshot][PieceTable.Snapshot]. It
+ * serves as the reverse of an edit, so that undoing or redoing never has to
+ * copy the affected text.
+ *
+ * @property snapshot
+ *   The `Snapshot` to restore.
+ *
+ * @constructor
+ * Construct a [RestoreSnapshot].
+ *
+ * @param snapshot
+ *   The `Snapshot` to restore.
+ */
+class RestoreSnapshot internal constructor(
+	private val snapshot: PieceTable.Snapshot): FileAction
+{
+	override fun execute(
+		file: AvailFile,
+		timestamp: Long,
+		originator: UUID): TracedAction =
+		(file as AvailTextFile).restore(snapshot, timestamp, originator)
+
+	override val type: FileActionType = FileActionType.RESTORE_SNAPSHOT
+
+	override val isTraced: Boolean = true
+}
+
 /**
  * `NoAction` is a [FileAction] indicates no action should/could be taken.
  *
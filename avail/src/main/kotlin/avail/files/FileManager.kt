@@ -388,7 +388,7 @@ open class FileManager
 		val reference = availFile.fileWrapper.reference
 		reference.resolver.saveFile(
 			reference,
-			availFile.getSavableContent(),
+			availFile.savableChunks(),
 			{
 				val saveTime = System.currentTimeMillis()
 				availFile.conditionallyClearDirty(saveTime)
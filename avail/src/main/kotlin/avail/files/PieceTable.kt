@@ -0,0 +1,513 @@
+/*
+ * PieceTable.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.files
+
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.Charset
+import java.nio.charset.CodingErrorAction
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * A `PieceTable` holds the text of an edited file as a sequence of pieces,
+ * each of which refers to a range of either the immutable original text or an
+ * append-only buffer of inserted text. The pieces are kept in a persistent
+ * treap ordered by position and annotated with subtree lengths, so that an
+ * [edit][replace] only splits and rejoins O(log n) nodes instead of copying
+ * the whole text, and so that a [Snapshot] of the text is simply the current
+ * root.
+ *
+ * All operations are [Synchronized], since the inserted text buffer is
+ * shared by every snapshot.
+ *
+ * @constructor
+ * Construct a [PieceTable].
+ *
+ * @param original
+ *   The initial text.
+ */
+class PieceTable constructor(private val original: String)
+{
+	/**
+	 * The append-only buffer of all text that has ever been inserted. Ranges
+	 * that are no longer referenced by any piece are simply abandoned.
+	 */
+	private val added = StringBuilder()
+
+	/**
+	 * A node of the treap, representing one piece of text along with its
+	 * subtrees. Nodes are immutable, so any subtree may be shared between
+	 * [snapshots][Snapshot].
+	 *
+	 * @property inOriginal
+	 *   Whether the piece refers to the [original] text rather than the
+	 *   [added] text.
+	 * @property start
+	 *   The start of the piece within its buffer.
+	 * @property size
+	 *   The number of characters in the piece.
+	 * @property priority
+	 *   The treap priority; a node's priority is never less than those of its
+	 *   children.
+	 * @property left
+	 *   The pieces that precede this one, or `null` if none.
+	 * @property right
+	 *   The pieces that follow this one, or `null` if none.
+	 */
+	internal class Node constructor(
+		val inOriginal: Boolean,
+		val start: Int,
+		val size: Int,
+		val priority: Int,
+		val left: Node?,
+		val right: Node?)
+	{
+		/** The number of characters in this subtree. */
+		val length: Int = size + left.length + right.length
+
+		/**
+		 * Answer a copy of this node with different children.
+		 *
+		 * @param newLeft
+		 *   The new left subtree.
+		 * @param newRight
+		 *   The new right subtree.
+		 * @return
+		 *   The new node.
+		 */
+		fun with(newLeft: Node?, newRight: Node?) =
+			Node(inOriginal, start, size, priority, newLeft, newRight)
+	}
+
+	/**
+	 * An immutable capture of the text of a [PieceTable] at some moment. It
+	 * costs nothing to take, and it can later be [restored][restore] into the
+	 * same table.
+	 *
+	 * @property root
+	 *   The root of the captured treap.
+	 */
+	class Snapshot internal constructor(internal val root: Node?)
+	{
+		/** The number of characters in the captured text. */
+		val length get() = root.length
+	}
+
+	/** The state of the generator of treap priorities. */
+	private var priorityState = 0x2545F491
+
+	/** The root of the current treap, or `null` if the text is empty. */
+	private var root: Node? =
+		if (original.isEmpty()) null
+		else Node(true, 0, original.length, nextPriority(), null, null)
+
+	/**
+	 * Answer a pseudorandom priority for a new treap node.
+	 *
+	 * @return
+	 *   A non-negative [Int].
+	 */
+	private fun nextPriority(): Int
+	{
+		// Xorshift; only the distribution matters, not the quality.
+		var x = priorityState
+		x = x xor (x shl 13)
+		x = x xor (x ushr 17)
+		x = x xor (x shl 5)
+		priorityState = x
+		return x and Int.MAX_VALUE
+	}
+
+	/** The number of characters in the text. */
+	val length: Int
+		@Synchronized get() = root.length
+
+	/** A [Snapshot] of the current text. */
+	val snapshot: Snapshot
+		@Synchronized get() = Snapshot(root)
+
+	/**
+	 * Make the text captured by the given [Snapshot] the current text.
+	 *
+	 * @param snapshot
+	 *   A `Snapshot` previously taken from this `PieceTable`.
+	 */
+	@Synchronized
+	fun restore(snapshot: Snapshot)
+	{
+		root = snapshot.root
+	}
+
+	/**
+	 * Replace the characters in the given range with the given text.
+	 *
+	 * @param start
+	 *   The zero-based index of the first character to replace.
+	 * @param end
+	 *   The zero-based index just past the last character to replace.
+	 * @param text
+	 *   The text to insert at `start`.
+	 * @return
+	 *   The text that was removed.
+	 */
+	@Synchronized
+	fun replace(start: Int, end: Int, text: String): String
+	{
+		require(start in 0 .. end && end <= root.length) {
+			"Range [$start, $end) is not within 0..${root.length}"
+		}
+		val (before, rest) = split(root, start)
+		val (removed, tail) = split(rest, end - start)
+		var head = before
+		var middle: Node? = null
+		if (text.isNotEmpty())
+		{
+			val addedStart = added.length
+			added.append(text)
+			val last = head?.let(::rightmost)
+			if (last !== null
+				&& !last.inOriginal
+				&& last.start + last.size == addedStart)
+			{
+				// Typing extends the piece produced by the previous keystroke.
+				head = extendRightmost(head!!, text.length)
+			}
+			else
+			{
+				middle = Node(
+					false, addedStart, text.length, nextPriority(), null, null)
+			}
+		}
+		root = merge(merge(head, middle), tail)
+		return String(chars(removed, 0, removed.length))
+	}
+
+	/**
+	 * Answer the characters in the given range of the current text.
+	 *
+	 * @param start
+	 *   The zero-based index of the first character.
+	 * @param end
+	 *   The zero-based index just past the last character.
+	 * @return
+	 *   The requested text.
+	 */
+	@Synchronized
+	fun substring(start: Int, end: Int): String
+	{
+		require(start in 0 .. end && end <= root.length) {
+			"Range [$start, $end) is not within 0..${root.length}"
+		}
+		return String(chars(root, start, end))
+	}
+
+	@Synchronized
+	override fun toString(): String = String(chars(root, 0, root.length))
+
+	/**
+	 * Answer an [Iterator] that encodes the text of the current [Snapshot]
+	 * into successive [ByteBuffer]s, so that the text never has to be
+	 * materialized as a whole. Edits made while iterating do not affect the
+	 * result.
+	 *
+	 * @param charset
+	 *   The [Charset] with which to encode the text.
+	 * @param chunkLength
+	 *   The maximum number of characters to encode into each buffer.
+	 * @return
+	 *   An `Iterator` that produces at least one buffer.
+	 */
+	fun encodedChunks(
+		charset: Charset,
+		chunkLength: Int = defaultChunkLength
+	): Iterator<ByteBuffer>
+	{
+		require(chunkLength >= 2) { "Chunks must hold a surrogate pair" }
+		val captured = snapshot
+		val total = captured.length
+		val encoder = charset.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE)
+		return object : Iterator<ByteBuffer>
+		{
+			/** The index of the next character to encode. */
+			var position = 0
+
+			/** Whether the final buffer has been produced. */
+			var finished = false
+
+			override fun hasNext() = !finished
+
+			override fun next(): ByteBuffer
+			{
+				if (finished) throw NoSuchElementException()
+				var end = min(position + chunkLength, total)
+				var chars = synchronized(this@PieceTable) {
+					chars(captured.root, position, end)
+				}
+				if (end < total && Character.isHighSurrogate(chars.last()))
+				{
+					// Don't separate a surrogate pair.
+					end--
+					chars = chars.copyOf(chars.size - 1)
+				}
+				position = end
+				finished = end == total
+				val output = ByteBuffer.allocate(
+					(chars.size * encoder.maxBytesPerChar()).toInt() + 16)
+				encoder.encode(CharBuffer.wrap(chars), output, finished)
+				if (finished)
+				{
+					encoder.flush(output)
+				}
+				return output.flip()
+			}
+		}
+	}
+
+	/**
+	 * Split a subtree into the pieces before and after a position,
+	 * dividing a piece if necessary.
+	 *
+	 * @param node
+	 *   The subtree, or `null` for empty.
+	 * @param offset
+	 *   The number of characters that go into the first subtree.
+	 * @return
+	 *   The subtrees before and after `offset`.
+	 */
+	private fun split(node: Node?, offset: Int): Pair<Node?, Node?>
+	{
+		if (node === null) return null to null
+		val pieceStart = node.left.length
+		val pieceEnd = pieceStart + node.size
+		return when
+		{
+			offset <= pieceStart ->
+			{
+				val (before, after) = split(node.left, offset)
+				before to join(after, node, node.right)
+			}
+			offset >= pieceEnd ->
+			{
+				val (before, after) = split(node.right, offset - pieceEnd)
+				join(node.left, node, before) to after
+			}
+			else ->
+			{
+				// Divide the piece, giving each half a fresh priority so
+				// that the treap stays balanced as pieces accumulate. The
+				// callers repair the heap order on the way back up.
+				val cut = offset - pieceStart
+				val first = Node(
+					node.inOriginal,
+					node.start,
+					cut,
+					nextPriority(),
+					null,
+					null)
+				val second = Node(
+					node.inOriginal,
+					node.start + cut,
+					node.size - cut,
+					nextPriority(),
+					null,
+					null)
+				merge(node.left, first) to merge(second, node.right)
+			}
+		}
+	}
+
+	/**
+	 * Answer a subtree holding the given node's piece between two subtrees,
+	 * reusing the node's position if its priority still dominates them, and
+	 * otherwise merging it in as a single piece.
+	 *
+	 * @param left
+	 *   The subtree of pieces that precede the node's piece.
+	 * @param node
+	 *   The node whose piece goes in the middle.
+	 * @param right
+	 *   The subtree of pieces that follow the node's piece.
+	 * @return
+	 *   The joined subtree.
+	 */
+	private fun join(left: Node?, node: Node, right: Node?): Node? = when
+	{
+		(left === null || left.priority <= node.priority)
+				&& (right === null || right.priority <= node.priority) ->
+			node.with(left, right)
+		else -> merge(merge(left, node.with(null, null)), right)
+	}
+
+	/**
+	 * Copy the characters in the given range of a subtree.
+	 *
+	 * @param node
+	 *   The subtree, or `null` for empty.
+	 * @param start
+	 *   The index within the subtree of the first character.
+	 * @param end
+	 *   The index within the subtree just past the last character.
+	 * @return
+	 *   The characters.
+	 */
+	private fun chars(node: Node?, start: Int, end: Int): CharArray
+	{
+		val result = CharArray(end - start)
+		copyChars(node, start, end, result, 0)
+		return result
+	}
+
+	/**
+	 * Copy the characters in the given range of a subtree into an array.
+	 *
+	 * @param node
+	 *   The subtree, or `null` for empty.
+	 * @param start
+	 *   The index within the subtree of the first character.
+	 * @param end
+	 *   The index within the subtree just past the last character.
+	 * @param destination
+	 *   The array into which to copy.
+	 * @param offset
+	 *   Where in `destination` to copy the character at `start`.
+	 */
+	private fun copyChars(
+		node: Node?,
+		start: Int,
+		end: Int,
+		destination: CharArray,
+		offset: Int)
+	{
+		if (node === null || start >= end) return
+		val pieceStart = node.left.length
+		val pieceEnd = pieceStart + node.size
+		if (start < pieceStart)
+		{
+			copyChars(
+				node.left, start, min(end, pieceStart), destination, offset)
+		}
+		val from = max(start, pieceStart)
+		val to = min(end, pieceEnd)
+		if (from < to)
+		{
+			val sourceStart = node.start + from - pieceStart
+			val sourceEnd = node.start + to - pieceStart
+			val destinationStart = offset + from - start
+			when
+			{
+				node.inOriginal -> original.toCharArray(
+					destination, destinationStart, sourceStart, sourceEnd)
+				else -> added.getChars(
+					sourceStart, sourceEnd, destination, destinationStart)
+			}
+		}
+		if (end > pieceEnd)
+		{
+			copyChars(
+				node.right,
+				max(start - pieceEnd, 0),
+				end - pieceEnd,
+				destination,
+				offset + max(pieceEnd - start, 0))
+		}
+	}
+
+	companion object
+	{
+		/** The default number of characters per [encodedChunks] buffer. */
+		const val defaultChunkLength = 1 shl 16
+
+		/** The number of characters in a possibly empty subtree. */
+		private val Node?.length get() = this?.length ?: 0
+
+		/**
+		 * Join two subtrees, all of whose pieces precede those of the second.
+		 *
+		 * @param first
+		 *   The leading subtree, or `null` for empty.
+		 * @param second
+		 *   The trailing subtree, or `null` for empty.
+		 * @return
+		 *   The joined subtree.
+		 */
+		private fun merge(first: Node?, second: Node?): Node? = when
+		{
+			first === null -> second
+			second === null -> first
+			first.priority >= second.priority ->
+				first.with(first.left, merge(first.right, second))
+			else -> second.with(merge(first, second.left), second.right)
+		}
+
+		/**
+		 * Answer the last piece of a non-empty subtree.
+		 *
+		 * @param node
+		 *   The subtree.
+		 * @return
+		 *   The rightmost node.
+		 */
+		private tailrec fun rightmost(node: Node): Node =
+			when (val right = node.right)
+			{
+				null -> node
+				else -> rightmost(right)
+			}
+
+		/**
+		 * Answer a copy of the subtree whose last piece has been lengthened.
+		 *
+		 * @param node
+		 *   The subtree.
+		 * @param extra
+		 *   The number of characters to add to the last piece.
+		 * @return
+		 *   The new subtree.
+		 */
+		private fun extendRightmost(node: Node, extra: Int): Node =
+			when (val right = node.right)
+			{
+				null -> Node(
+					node.inOriginal,
+					node.start,
+					node.size + extra,
+					node.priority,
+					node.left,
+					null)
+				else -> node.with(node.left, extendRightmost(right, extra))
+			}
+	}
+}
@@ -98,6 +98,33 @@ object JavaLibrary
 			long,
 			double)
 
+	/** The [CheckedMethod] for [Math.addExact] on `long`s. */
+	val mathAddExactLongMethod =
+		javaLibraryStaticMethod(
+			Math::class.java,
+			"addExact",
+			long,
+			long,
+			long)
+
+	/** The [CheckedMethod] for [Math.subtractExact] on `long`s. */
+	val mathSubtractExactLongMethod =
+		javaLibraryStaticMethod(
+			Math::class.java,
+			"subtractExact",
+			long,
+			long,
+			long)
+
+	/** The [CheckedMethod] for [Math.multiplyExact] on `long`s. */
+	val mathMultiplyExactLongMethod =
+		javaLibraryStaticMethod(
+			Math::class.java,
+			"multiplyExact",
+			long,
+			long,
+			long)
+
 	/** The [CheckedMethod] for [Class.getClassLoader]. */
 	val getClassLoader =
 		javaLibraryInstanceMethod(
@@ -143,6 +143,7 @@ import avail.interpreter.primitive.controlflow.P_CatchException
 import avail.interpreter.primitive.fibers.P_AttemptJoinFiber
 import avail.interpreter.primitive.fibers.P_ParkCurrentFiber
 import avail.interpreter.primitive.variables.P_SetValue
+import avail.optimizer.BackgroundOptimizer
 import avail.optimizer.ExecutableChunk
 import avail.optimizer.L1Translator
 import avail.optimizer.L2Generator
@@ -155,6 +156,8 @@ import avail.optimizer.jvm.CheckedMethod.Companion.staticMethod
 import avail.optimizer.jvm.JVMChunk
 import avail.optimizer.jvm.JVMTranslator
 import avail.optimizer.jvm.ReferencedInGeneratedCode
+import avail.performance.AvailEvents
+import avail.performance.PrimitiveEvent
 import avail.performance.Statistic
 import avail.performance.StatisticReport.TOP_LEVEL_STATEMENTS
 import avail.utility.Strings.tab
@@ -279,11 +282,9 @@ class Interpreter(
 	 * be relatively minor, but it ensures coherent access to the
 	 * [A_Function.code] within it, and that [A_RawFunction]'s fields as well.
 	 *
-	 * TODO Eventually we may rework this, to allow dedicated threads to perform
-	 *  the optimization while the execution threads continue to make progress.
-	 *  In that case we would allow a zero crossing from either the periodic
-	 *  polling or the invocation logic, and it would simply queue a task for
-	 *  that raw function in the optimization thread pool.
+	 * When the invocation logic eventually crosses zero, expensive
+	 * translations are queued for the runtime's [BackgroundOptimizer], so the
+	 * execution threads continue to make progress in the meantime.
 	 */
 	fun pollActiveRawFunction(): A_RawFunction?
 	{
@@ -1483,9 +1484,14 @@ class Interpreter(
 		success: Result
 	): Result
 	{
-		primitive.addNanosecondsRunning(
-			AvailRuntimeSupport.captureNanos() - timeBefore, interpreterIndex)
+		val nanos = AvailRuntimeSupport.captureNanos() - timeBefore
+		primitive.addNanosecondsRunning(nanos, interpreterIndex)
 		assert(success !== FAILURE || !primitive.hasFlag(CannotFail))
+		if (AvailEvents.isRecording)
+		{
+			// Lifted to another function, like the debug logging below.
+			recordPrimitiveEvent(primitive, nanos, success)
+		}
 		if (debugPrimitives)
 		{
 			// Lifted to another function, to make the live path shorter (when
@@ -1495,6 +1501,32 @@ class Interpreter(
 		return success
 	}
 
+	/**
+	 * Emit a [PrimitiveEvent] for the primitive that just executed, if that
+	 * event is enabled in a running flight recording.
+	 *
+	 * @param primitive
+	 *   The [Primitive] that just ran.
+	 * @param nanos
+	 *   How many nanoseconds the primitive ran.
+	 * @param success
+	 *   The [Result] that the primitive produced.
+	 */
+	private fun recordPrimitiveEvent(
+		primitive: Primitive,
+		nanos: Long,
+		success: Result)
+	{
+		val event = PrimitiveEvent()
+		if (event.shouldCommit())
+		{
+			event.primitive = primitive.name
+			event.result = success.name
+			event.runningNanos = nanos
+			event.commit()
+		}
+	}
+
 	/**
 	 * Log debug information about the primitive that just executed.
 	 *
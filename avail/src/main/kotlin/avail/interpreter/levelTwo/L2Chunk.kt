@@ -56,6 +56,9 @@ import avail.optimizer.ExecutableChunk
 import avail.optimizer.jvm.JVMChunk
 import avail.optimizer.jvm.JVMTranslator
 import avail.optimizer.jvm.ReferencedInGeneratedCode
+import avail.performance.AvailEvents
+import avail.performance.ChunkEvictionEvent
+import avail.performance.ChunkInvalidationEvent
 import avail.performance.Statistic
 import avail.performance.StatisticReport.L2_OPTIMIZATION_TIME
 import avail.utility.safeWrite
@@ -226,11 +229,22 @@ abstract class L2Chunk protected constructor(
 							AvailRuntime.currentRuntime().whenSafePointDo(
 								FiberDescriptor.bulkL2InvalidationPriority)
 							{
+								val event =
+									if (AvailEvents.isRecording)
+										ChunkEvictionEvent()
+									else null
+								event?.begin()
 								invalidationLock.withLock {
 									chunksToInvalidate.forEach {
 										it.get()?.invalidate(EVICTION)
 									}
 								}
+								if (event !== null && event.shouldCommit())
+								{
+									event.end()
+									event.evictedCount = chunksToInvalidate.size
+									event.commit()
+								}
 							}
 						}
 					}
@@ -428,6 +442,9 @@ abstract class L2Chunk protected constructor(
 		assert(invalidationLock.isHeldByCurrentThread)
 		AvailRuntime.currentRuntime().assertInSafePoint()
 		assert(this !== unoptimizedChunk)
+		val event =
+			if (AvailEvents.isRecording) ChunkInvalidationEvent() else null
+		event?.begin()
 		isValid = false
 		val contingents: A_Set = contingentValues.makeImmutable()
 		contingentValues = emptySet
@@ -438,6 +455,13 @@ abstract class L2Chunk protected constructor(
 		code?.setStartingChunkAndReoptimizationCountdown(
 			unoptimizedChunk, reason.countdownToNextOptimization)
 		Generation.removeInvalidatedChunk(this)
+		if (event !== null && event.shouldCommit())
+		{
+			event.end()
+			event.chunkName = name()
+			event.reason = reason.name
+			event.commit()
+		}
 		val after = AvailRuntimeSupport.captureNanos()
 		// Use interpreter #0, since the invalidationLock prevents concurrent
 		// updates.
@@ -39,6 +39,7 @@ import avail.interpreter.levelTwo.operand.L2CommentOperand
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2PcVectorOperand
 import avail.interpreter.levelTwo.operand.L2PrimitiveOperand
@@ -48,13 +49,17 @@ import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 
 /**
  * An `L2OperandDispatcher` acts as a visitor for the actual operands of
@@ -105,6 +110,14 @@ interface L2OperandDispatcher
 	 */
 	fun doOperand(operand: L2FloatImmediateOperand)
 
+	/**
+	 * Process an operand which is a [Long] immediate value.
+	 *
+	 * @param operand
+	 *   An [L2LongImmediateOperand].
+	 */
+	fun doOperand(operand: L2LongImmediateOperand)
+
 	/**
 	 * Process an operand which is a constant level two offset into a
 	 * [level&#32;two&#32;chunk][L2Chunk]'s [L2Instruction] sequence.
@@ -138,6 +151,14 @@ interface L2OperandDispatcher
 	 */
 	fun doOperand(operand: L2ReadFloatOperand)
 
+	/**
+	 * Process an operand which is a read of a [Long] register.
+	 *
+	 * @param operand
+	 *   An [L2ReadLongOperand].
+	 */
+	fun doOperand(operand: L2ReadLongOperand)
+
 	/**
 	 * Process an operand which is a read of an [AvailObject] register.
 	 *
@@ -170,6 +191,14 @@ interface L2OperandDispatcher
 	 */
 	fun doOperand(operand: L2ReadFloatVectorOperand)
 
+	/**
+	 * Process an operand which is a read of a vector of [L2LongRegister]s.
+	 *
+	 * @param operand
+	 *   An [L2ReadLongVectorOperand].
+	 */
+	fun doOperand(operand: L2ReadLongVectorOperand)
+
 	/**
 	 * Process an operand which is a literal [A_Bundle] which the resulting
 	 * [L2Chunk] should be dependent upon for invalidation.
@@ -195,6 +224,14 @@ interface L2OperandDispatcher
 	 */
 	fun doOperand(operand: L2WriteFloatOperand)
 
+	/**
+	 * Process an operand which is a write of a [Long] register.
+	 *
+	 * @param operand
+	 *  An [L2WriteLongOperand].
+	 */
+	fun doOperand(operand: L2WriteLongOperand)
+
 	/**
 	 * Process an operand which is a write of an [AvailObject] register.
 	 *
@@ -40,19 +40,24 @@ import avail.interpreter.levelTwo.operand.L2CommentOperand
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2PcVectorOperand
 import avail.interpreter.levelTwo.operand.L2PrimitiveOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadVectorOperand
 import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 
 
 /**
@@ -95,6 +100,11 @@ constructor(
 	 */
 	FLOAT_IMMEDIATE,
 
+	/**
+	 * An [L2LongImmediateOperand] holds a [Long] value.
+	 */
+	LONG_IMMEDIATE,
+
 	/**
 	 * An [L2PcOperand] holds an offset into the chunk's instructions,
 	 * presumably for the purpose of branching there at some time and under some
@@ -151,6 +161,18 @@ constructor(
 	 */
 	WRITE_FLOAT(true),
 
+	/**
+	 * The [L2ReadLongOperand] holds the [L2LongRegister] that
+	 * will be read.
+	 */
+	READ_LONG,
+
+	/**
+	 * The [L2WriteLongOperand] holds the [L2LongRegister] that
+	 * will be written.
+	 */
+	WRITE_LONG(true),
+
 	/**
 	 * The [L2ReadVectorOperand] holds a [List] of [L2ReadBoxedOperand]s which
 	 * will be read.
@@ -169,6 +191,12 @@ constructor(
 	 */
 	READ_FLOAT_VECTOR,
 
+	/**
+	 * The [L2ReadLongVectorOperand] holds a [List] of [L2ReadLongOperand]s
+	 * which will be read.
+	 */
+	READ_LONG_VECTOR,
+
 	/**
 	 * The [L2PcVectorOperand] holds a [List] of [L2PcOperand]s which can be
 	 * the targets of a multi-way jump.
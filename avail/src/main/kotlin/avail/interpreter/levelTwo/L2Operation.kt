@@ -352,6 +352,22 @@ protected constructor(
 	 */
 	open val isUnconditionalJump: Boolean get() = false
 
+	/**
+	 * Answer whether an [L2Instruction] using this operation may be executed
+	 * earlier and fewer times than written without any observable difference,
+	 * provided its inputs are available and have the same values.  Such an
+	 * instruction must have no side effect, must not be able to fail, and must
+	 * not produce a fresh mutable object.  It also must not depend on anything
+	 * established by an earlier dynamic check, other than what's captured by
+	 * its operands' [TypeRestriction]s, since hoisting may move it above that
+	 * check.  The optimizer uses this to hoist loop-invariant computations out
+	 * of loops.
+	 *
+	 * @return
+	 *   `true` iff the instruction may be hoisted.
+	 */
+	open val isHoistable: Boolean get() = false
+
 	/**
 	 * This is the operation for the given instruction, which was just added to
 	 * its basic block.  Do any post-processing appropriate for having added
@@ -845,4 +861,30 @@ protected constructor(
 			elementWriter)
 		return generator.readBoxed(elementWriter)
 	}
+
+	/**
+	 * If the given instruction merely extracts a component (a tuple element,
+	 * an object field, or a captured outer value) from a value whose
+	 * construction is visible in the same control flow graph, answer the
+	 * [L2ReadBoxedOperand] that supplied that component to the construction.
+	 * Otherwise answer `null`.
+	 *
+	 * This is the basis for scalar replacement of aggregates: reads of
+	 * components are redirected to the original registers, so that the
+	 * constructing instruction only has to be executed along paths where the
+	 * aggregate itself is still needed, such as when it escapes or when the
+	 * frame is reified.
+	 *
+	 * The control flow graph must be in SSA form.
+	 *
+	 * @param instruction
+	 *   The [L2Instruction] to examine.  Its [L2Instruction.operation] must be
+	 *   the receiver.
+	 * @return
+	 *   The [L2ReadBoxedOperand] that supplied the component to the
+	 *   aggregate's construction, or `null` if it can't be determined.
+	 */
+	open fun scalarReplacementSource(
+		instruction: L2Instruction
+	): L2ReadBoxedOperand? = null
 }
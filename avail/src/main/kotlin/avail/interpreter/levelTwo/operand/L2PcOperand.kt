@@ -45,6 +45,7 @@ import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.BOXED_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.FLOAT_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.INTEGER_KIND
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
 import avail.optimizer.L2BasicBlock
 import avail.optimizer.L2ControlFlowGraph
 import avail.optimizer.L2Entity
@@ -398,10 +399,12 @@ class L2PcOperand constructor (
 				method.visitInsn(Opcodes.AASTORE)
 			}
 		}
-		// Now create the array of longs, including both ints and doubles.
+		// Now create the array of longs, including ints, doubles, and longs.
 		val intLocalNumbers = liveMap[INTEGER_KIND]!!
 		val floatLocalNumbers = liveMap[FLOAT_KIND]!!
-		val count = intLocalNumbers.size + floatLocalNumbers.size
+		val longLocalNumbers = liveMap[LONG_KIND]!!
+		val count = intLocalNumbers.size + floatLocalNumbers.size +
+			longLocalNumbers.size
 		if (count == 0)
 		{
 			JVMChunk.noLongsField.generateRead(method)
@@ -426,11 +429,20 @@ class L2PcOperand constructor (
 				method.visitInsn(Opcodes.DUP)
 				translator.intConstant(method, i)
 				method.visitVarInsn(
-					FLOAT_KIND.loadInstruction, floatLocalNumbers[i])
+					FLOAT_KIND.loadInstruction, floatLocalNumbers[j])
 				bitCastDoubleToLongMethod.generateCall(method)
 				method.visitInsn(Opcodes.LASTORE)
 				i++
 			}
+			for (k in 0 until longLocalNumbers.size)
+			{
+				method.visitInsn(Opcodes.DUP)
+				translator.intConstant(method, i)
+				method.visitVarInsn(
+					LONG_KIND.loadInstruction, longLocalNumbers[k])
+				method.visitInsn(Opcodes.LASTORE)
+				i++
+			}
 		}
 		// The stack is now AvailObject[], long[].
 		return true
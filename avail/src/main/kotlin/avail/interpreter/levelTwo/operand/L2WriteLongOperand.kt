@@ -0,0 +1,80 @@
+/*
+ * L2WriteLongOperand.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.interpreter.levelTwo.operand
+
+import avail.interpreter.levelTwo.L2OperandDispatcher
+import avail.interpreter.levelTwo.L2OperandType
+import avail.interpreter.levelTwo.register.L2LongRegister
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
+import avail.optimizer.values.L2SemanticUnboxedLong
+import avail.optimizer.values.L2SemanticValue
+import avail.utility.cast
+
+/**
+ * An `L2WriteLongOperand` is an operand of type [L2OperandType.WRITE_LONG].  It
+ * holds the actual [L2LongRegister] that is to be accessed.
+ *
+ * @constructor
+ * Construct a new `L2WriteLongOperand` for the specified [L2SemanticValue].
+ *
+ * @param semanticValues
+ *   The [Set] of [L2SemanticValue] that this operand is effectively producing.
+ * @param restriction
+ *   The [TypeRestriction] that indicates what values are allowed to be written
+ *   into the register.
+ * @param register
+ *   The initial [L2LongRegister] that backs this operand.
+ */
+class L2WriteLongOperand
+constructor(
+	semanticValues: Set<L2SemanticUnboxedLong>,
+	restriction: TypeRestriction,
+	register: L2LongRegister
+) : L2WriteOperand<L2LongRegister>(semanticValues, restriction, register)
+{
+	override val operandType: L2OperandType get() = L2OperandType.WRITE_LONG
+
+	override val registerKind get() = LONG_KIND
+
+	override fun onlySemanticValue(): L2SemanticUnboxedLong =
+		super.onlySemanticValue().cast()
+
+	override fun dispatchOperand(dispatcher: L2OperandDispatcher)
+	{
+		dispatcher.doOperand(this)
+	}
+
+	init
+	{
+		assert(restriction.isUnboxedLong)
+	}
+}
@@ -64,6 +64,7 @@ import avail.descriptor.types.AbstractEnumerationTypeDescriptor.Companion.instan
 import avail.descriptor.types.BottomTypeDescriptor
 import avail.descriptor.types.InstanceMetaDescriptor.Companion.instanceMeta
 import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int32
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int64
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.TOP
@@ -76,11 +77,13 @@ import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncodin
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.IMMUTABLE_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_EQUALS_CONSTANT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_KIND_OF_CONSTANT
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.optimizer.L2Synonym
 import avail.utility.cast
@@ -127,7 +130,8 @@ class TypeRestriction private constructor(
 		assert(flags == BOXED_FLAG.mask
 			|| flags == (BOXED_FLAG.mask + IMMUTABLE_FLAG.mask)
 			|| flags == UNBOXED_INT_FLAG.mask
-			|| flags == UNBOXED_FLOAT_FLAG.mask)
+			|| flags == UNBOXED_FLOAT_FLAG.mask
+			|| flags == UNBOXED_LONG_FLAG.mask)
 		positiveGroup.constants?.run { assert(size == 1) }
 		assert(positiveGroup.types.size == 1)
 		// Ensure all referenced objects are immutable.  When a CFG is used for
@@ -236,7 +240,13 @@ class TypeRestriction private constructor(
 		 * Whether the value is available in an unboxed form in some
 		 * [L2FloatRegister].
 		 */
-		UNBOXED_FLOAT_FLAG;
+		UNBOXED_FLOAT_FLAG,
+
+		/**
+		 * Whether the value is available in an unboxed form in some
+		 * [L2LongRegister].
+		 */
+		UNBOXED_LONG_FLAG;
 
 		/** A pre-computed bit mask for this flag. */
 		val mask = 1 shl ordinal
@@ -250,7 +260,8 @@ class TypeRestriction private constructor(
 			val allKindsMask = (
 				BOXED_FLAG.mask
 					or UNBOXED_INT_FLAG.mask
-					or UNBOXED_FLOAT_FLAG.mask)
+					or UNBOXED_FLOAT_FLAG.mask
+					or UNBOXED_LONG_FLAG.mask)
 		}
 	}
 
@@ -279,6 +290,13 @@ class TypeRestriction private constructor(
 	val isUnboxedFloat: Boolean
 		get() = flags and UNBOXED_FLOAT_FLAG.mask != 0
 
+	/**
+	 * Answer whether the restricted value is known to be unboxed in an
+	 * [L2LongRegister].
+	 */
+	val isUnboxedLong: Boolean
+		get() = flags and UNBOXED_LONG_FLAG.mask != 0
+
 	/**
 	 * Answer whether the specified flag is set.
 	 *
@@ -308,6 +326,8 @@ class TypeRestriction private constructor(
 	 *   Whether this value is known to already reside in an [L2IntRegister].
 	 * @param isUnboxedFloat
 	 *   Whether this value is known to already reside in an [L2FloatRegister].
+	 * @param isUnboxedLong
+	 *   Whether this value is known to already reside in an [L2LongRegister].
 	 */
 	private constructor(
 		positiveGroup: RestrictionGroup,
@@ -315,14 +335,16 @@ class TypeRestriction private constructor(
 		isImmutable: Boolean,
 		isBoxed: Boolean,
 		isUnboxedInt: Boolean,
-		isUnboxedFloat: Boolean
+		isUnboxedFloat: Boolean,
+		isUnboxedLong: Boolean = false
 	) : this(
 		positiveGroup,
 		negativeGroup,
 		(if (isImmutable) IMMUTABLE_FLAG.mask else 0)
 			or (if (isBoxed) BOXED_FLAG.mask else 0)
 			or (if (isUnboxedInt) UNBOXED_INT_FLAG.mask else 0)
-			or if (isUnboxedFloat) UNBOXED_FLOAT_FLAG.mask else 0)
+			or (if (isUnboxedFloat) UNBOXED_FLOAT_FLAG.mask else 0)
+			or if (isUnboxedLong) UNBOXED_LONG_FLAG.mask else 0)
 
 	/**
 	 * Answer either the exact value, if known, or null.
@@ -905,6 +927,28 @@ class TypeRestriction private constructor(
 			UNBOXED_FLOAT_FLAG.mask)
 	}
 
+	/**
+	 * Answer a restriction like the receiver, but for unboxed longs.  If the
+	 * restriction is already for unboxed longs, return the receiver.
+	 *
+	 * @return
+	 *   The new `TypeRestriction`, or the receiver.
+	 */
+	fun forUnboxedLong(): TypeRestriction = when
+	{
+		hasFlag(UNBOXED_LONG_FLAG) -> this
+		else -> restriction(
+			type.typeIntersection(int64),
+			constantOrNull,
+			excludedTypes,
+			excludedValues,
+			null,
+			null,
+			null,
+			null,
+			UNBOXED_LONG_FLAG.mask)
+	}
+
 	/**
 	 * Answer a restriction like the receiver, but with a flag cleared.
 	 * If the flag is already clear, answer the receiver.
@@ -1043,7 +1087,6 @@ class TypeRestriction private constructor(
 	 * @return
 	 *   Whether the receiver is a specialization of the argument.
 	 */
-	@Suppress("unused")
 	fun isStrongerThan(other: TypeRestriction): Boolean
 	{
 		if (flags.inv() and other.flags != 0)
@@ -1137,6 +1180,7 @@ class TypeRestriction private constructor(
 		if (isBoxed) append(", box")
 		if (isUnboxedInt) append(", int")
 		if (isUnboxedFloat) append(", float")
+		if (isUnboxedLong) append(", long")
 		append(")")
 	}
 
@@ -1569,6 +1613,9 @@ class TypeRestriction private constructor(
 		 * @param isUnboxedFloat
 		 *   Whether this value is known to already reside in an
 		 *   [L2FloatRegister].
+		 * @param isUnboxedLong
+		 *   Whether this value is known to already reside in an
+		 *   [L2LongRegister].
 		 * @return
 		 *   The new or existing canonical TypeRestriction.
 		 */
@@ -1584,13 +1631,15 @@ class TypeRestriction private constructor(
 			isImmutable: Boolean = false,
 			isBoxed: Boolean = true,
 			isUnboxedInt: Boolean = false,
-			isUnboxedFloat: Boolean = false
+			isUnboxedFloat: Boolean = false,
+			isUnboxedLong: Boolean = false
 		): TypeRestriction
 		{
 			val flags = ((if (isImmutable) IMMUTABLE_FLAG.mask else 0)
 				or (if (isBoxed) BOXED_FLAG.mask else 0)
 				or (if (isUnboxedInt) UNBOXED_INT_FLAG.mask else 0)
-				or if (isUnboxedFloat) UNBOXED_FLOAT_FLAG.mask else 0)
+				or (if (isUnboxedFloat) UNBOXED_FLOAT_FLAG.mask else 0)
+				or if (isUnboxedLong) UNBOXED_LONG_FLAG.mask else 0)
 			return restriction(
 				type,
 				constantOrNull,
@@ -1812,8 +1861,8 @@ class TypeRestriction private constructor(
 		 *   The Avail type that constrains some value somewhere.
 		 * @param encoding
 		 *   A [RestrictionFlagEncoding] indicating the type of register that
-		 *   will hold this value ([BOXED_FLAG], [UNBOXED_INT_FLAG], or
-		 *   [UNBOXED_FLOAT_FLAG]).
+		 *   will hold this value ([BOXED_FLAG], [UNBOXED_INT_FLAG],
+		 *   [UNBOXED_FLOAT_FLAG], or [UNBOXED_LONG_FLAG]).
 		 * @return
 		 *   The new or existing canonical TypeRestriction.
 		 */
@@ -1842,8 +1891,8 @@ class TypeRestriction private constructor(
 		 *   The sole Avail value that this restriction permits.
 		 * @param encoding
 		 *   A [RestrictionFlagEncoding] indicating the type of register that
-		 *   will hold this value ([BOXED_FLAG], [UNBOXED_INT_FLAG], or
-		 *   [UNBOXED_FLOAT_FLAG]).
+		 *   will hold this value ([BOXED_FLAG], [UNBOXED_INT_FLAG],
+		 *   [UNBOXED_FLOAT_FLAG], or [UNBOXED_LONG_FLAG]).
 		 * @return
 		 *   The new or existing canonical TypeRestriction.
 		 */
@@ -1853,7 +1902,8 @@ class TypeRestriction private constructor(
 		{
 			assert(encoding == BOXED_FLAG
 					|| encoding == UNBOXED_INT_FLAG
-					|| encoding == UNBOXED_FLOAT_FLAG)
+					|| encoding == UNBOXED_FLOAT_FLAG
+					|| encoding == UNBOXED_LONG_FLAG)
 			val strongConstant = constant.makeImmutable()
 			return restriction(
 				when
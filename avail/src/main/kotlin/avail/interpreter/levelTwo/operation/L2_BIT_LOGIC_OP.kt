@@ -65,6 +65,8 @@ class L2_BIT_LOGIC_OP(
 	READ_INT.named("input2"),
 	WRITE_INT.named("output"))
 {
+	override val isHoistable: Boolean get() = true
+
 	override fun appendToWithWarnings(
 		instruction: L2Instruction,
 		desiredTypes: Set<L2OperandType>,
@@ -0,0 +1,82 @@
+/*
+ * L2_BOX_LONG.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.interpreter.levelTwo.operation
+
+import avail.descriptor.numbers.IntegerDescriptor
+import avail.descriptor.representation.AvailObject
+import avail.interpreter.levelTwo.L2Instruction
+import avail.interpreter.levelTwo.L2OperandType
+import avail.interpreter.levelTwo.L2OperandType.READ_LONG
+import avail.interpreter.levelTwo.L2OperandType.WRITE_BOXED
+import avail.interpreter.levelTwo.L2Operation
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
+import avail.optimizer.jvm.JVMTranslator
+import org.objectweb.asm.MethodVisitor
+
+/**
+ * Box a [Long] into an [AvailObject].
+ */
+object L2_BOX_LONG : L2Operation(
+	READ_LONG.named("source"),
+	WRITE_BOXED.named("destination"))
+{
+	override fun appendToWithWarnings(
+		instruction: L2Instruction,
+		desiredTypes: Set<L2OperandType>,
+		builder: StringBuilder,
+		warningStyleChange: (Boolean) -> Unit)
+	{
+		assert(this == instruction.operation)
+		val source = instruction.operand<L2ReadLongOperand>(0)
+		val destination = instruction.operand<L2WriteBoxedOperand>(1)
+		renderPreamble(instruction, builder)
+		builder.append(' ')
+		builder.append(destination.registerString())
+		builder.append(" ← ")
+		builder.append(source.registerString())
+	}
+
+	override fun translateToJVM(
+		translator: JVMTranslator,
+		method: MethodVisitor,
+		instruction: L2Instruction)
+	{
+		val source = instruction.operand<L2ReadLongOperand>(0)
+		val destination = instruction.operand<L2WriteBoxedOperand>(1)
+
+		// :: destination = IntegerDescriptor.fromLong(source);
+		translator.load(method, source.register())
+		IntegerDescriptor.fromLongMethod.generateCall(method)
+		translator.store(method, destination.register())
+	}
+}
@@ -31,6 +31,7 @@
  */
 package avail.interpreter.levelTwo.operation
 
+import avail.descriptor.atoms.A_Atom
 import avail.descriptor.objects.ObjectDescriptor
 import avail.descriptor.objects.ObjectLayoutVariant
 import avail.interpreter.levelTwo.L2Instruction
@@ -40,6 +41,7 @@ import avail.interpreter.levelTwo.L2OperandType.READ_BOXED_VECTOR
 import avail.interpreter.levelTwo.L2OperandType.WRITE_BOXED
 import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2ArbitraryConstantOperand
+import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedVectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.optimizer.jvm.JVMTranslator
@@ -103,4 +105,30 @@ object L2_CREATE_OBJECT : L2Operation(
 		}
 		translator.store(method, newObject.register())
 	}
+
+	/**
+	 * Given an [L2Instruction] using this operation, extract the register
+	 * read that supplies the value of the given field of the new object.
+	 *
+	 * @param instruction
+	 *   The object creation instruction to examine.
+	 * @param field
+	 *   The [A_Atom] that is the field's key.
+	 * @return
+	 *   The [L2ReadBoxedOperand] that supplies the field's value, or `null` if
+	 *   the field does not occupy a real slot in the object's
+	 *   [ObjectLayoutVariant].
+	 */
+	fun fieldSourceOf(
+		instruction: L2Instruction,
+		field: A_Atom): L2ReadBoxedOperand?
+	{
+		assert(instruction.operation === this)
+		val variantOperand = instruction.operand<L2ArbitraryConstantOperand>(0)
+		val fieldsVector = instruction.operand<L2ReadBoxedVectorOperand>(1)
+		val variant: ObjectLayoutVariant = variantOperand.constant.cast()
+		val slotIndex = variant.fieldToSlotIndex[field] ?: return null
+		if (slotIndex == 0) return null
+		return fieldsVector.elements[slotIndex - 1]
+	}
 }
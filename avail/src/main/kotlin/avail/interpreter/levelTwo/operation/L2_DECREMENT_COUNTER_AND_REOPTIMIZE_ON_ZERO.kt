@@ -41,6 +41,7 @@ import avail.interpreter.levelTwo.L2Instruction
 import avail.interpreter.levelTwo.L2OperandType.INT_IMMEDIATE
 import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.optimizer.BackgroundOptimizer
 import avail.optimizer.OptimizationLevel
 import avail.optimizer.jvm.CheckedMethod
 import avail.optimizer.jvm.CheckedMethod.Companion.staticMethod
@@ -94,7 +95,8 @@ object L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO : L2Operation(
 	/**
 	 * Decrement the counter associated with the code.  If this thread was
 	 * responsible for decrementing it to zero, (re)optimize the code by
-	 * producing a new chunk.  Return whether the chunk was replaced.
+	 * producing a new chunk, or queue it for the [BackgroundOptimizer].
+	 * Return whether the chunk was replaced.
 	 *
 	 * @param interpreter
 	 *   The interpreter for the current thread.
@@ -102,7 +104,8 @@ object L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO : L2Operation(
 	 *   What level of optimization to apply if reoptimization occurs.
 	 * @return
 	 *   Whether a new chunk was activated, whether or not the optimization was
-	 *   due to this fiber.
+	 *   due to this fiber.  If the optimization was queued instead, answer
+	 *   `false`, so that the current chunk continues to run.
 	 */
 	@ReferencedInGeneratedCode
 	@JvmStatic
@@ -112,16 +115,23 @@ object L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO : L2Operation(
 	): Boolean
 	{
 		val code = interpreter.function!!.code()
-		return code.decrementCountdownToReoptimize { optimize: Boolean ->
+		var queued = false
+		val reachedZero = code.decrementCountdownToReoptimize {
+				optimize: Boolean ->
 			if (optimize)
 			{
-				OptimizationLevel.optimizationLevel(targetOptimizationLevel)
-					.optimize(code, interpreter)
+				queued = !OptimizationLevel
+					.optimizationLevel(targetOptimizationLevel)
+					.optimizeOrQueue(code, interpreter)
+			}
+			if (!queued)
+			{
+				val chunk = code.startingChunk
+				interpreter.chunk = chunk
+				interpreter.setOffset(chunk.offsetAfterInitialTryPrimitive)
 			}
-			val chunk = code.startingChunk
-			interpreter.chunk = chunk
-			interpreter.setOffset(chunk.offsetAfterInitialTryPrimitive)
 		}
+		return reachedZero && !queued
 	}
 
 	/**
@@ -49,6 +49,7 @@ import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.BOXED_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.FLOAT_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.INTEGER_KIND
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
 import avail.optimizer.jvm.JVMTranslator
 import org.objectweb.asm.Label
 import org.objectweb.asm.MethodVisitor
@@ -124,10 +125,12 @@ object L2_ENTER_L2_CHUNK : L2Operation(
 			val boxedList = localNumberLists[BOXED_KIND]!!
 			val intsList = localNumberLists[INTEGER_KIND]!!
 			val floatsList = localNumberLists[FLOAT_KIND]!!
+			val longsList = localNumberLists[LONG_KIND]!!
 			val boxedCount = boxedList.size
 			val intsCount = intsList.size
 			val floatsCount = floatsList.size
-			var countdown = boxedCount + intsCount + floatsCount
+			val longsCount = longsList.size
+			var countdown = boxedCount + intsCount + floatsCount + longsCount
 			if (countdown > 0)
 			{
 				// Extract the register dump from the current continuation.
@@ -174,6 +177,18 @@ object L2_ENTER_L2_CHUNK : L2Operation(
 					method.visitVarInsn(
 						FLOAT_KIND.storeInstruction, floatRegisterIndex)
 				}
+				for (longRegisterIndex in longsList)
+				{
+					if (--countdown > 0)
+					{
+						method.visitInsn(Opcodes.DUP)
+						// Stack has two registerDumps if needed.
+					}
+					translator.intConstant(method, i++) //one-based
+					extractDumpedLongAtMethod.generateCall(method)
+					method.visitVarInsn(
+						LONG_KIND.storeInstruction, longRegisterIndex)
+				}
 				assert(countdown == 0)
 				// The last copy of registerDumps was popped.
 			}
@@ -59,6 +59,8 @@ object L2_GET_OBJECT_FIELD : L2Operation(
 	CONSTANT.named("field atom"),
 	WRITE_BOXED.named("field value"))
 {
+	override val isHoistable: Boolean get() = true
+
 	override fun appendToWithWarnings(
 		instruction: L2Instruction,
 		desiredTypes: Set<L2OperandType>,
@@ -79,6 +81,20 @@ object L2_GET_OBJECT_FIELD : L2Operation(
 		builder.append("]")
 	}
 
+	override fun scalarReplacementSource(
+		instruction: L2Instruction
+	): L2ReadBoxedOperand?
+	{
+		assert(this == instruction.operation)
+		val objectRead = instruction.operand<L2ReadBoxedOperand>(0)
+		val fieldAtom = instruction.operand<L2ConstantOperand>(1)
+		// val fieldValue = instruction.operand<L2WriteBoxedOperand>(2)
+
+		val definition = objectRead.definitionSkippingMoves(false)
+		if (definition.operation !== L2_CREATE_OBJECT) return null
+		return L2_CREATE_OBJECT.fieldSourceOf(definition, fieldAtom.constant)
+	}
+
 	override fun translateToJVM(
 		translator: JVMTranslator,
 		method: MethodVisitor,
@@ -47,6 +47,7 @@ import avail.interpreter.levelTwo.L2OperandType.PC
 import avail.interpreter.levelTwo.L2OperandType.READ_INT
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2ReadOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restriction
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
@@ -215,6 +216,70 @@ class L2_JUMP_IF_COMPARE_INT private constructor(
 		return super.toString() + "(" + opcodeName + ")"
 	}
 
+	/**
+	 * The orderings of the first operand relative to the second (`-1` for
+	 * less, `0` for equal, `1` for greater) under which this comparison holds.
+	 */
+	private val trueOrderings: Set<Int> = when (opcode)
+	{
+		Opcodes.IF_ICMPLT -> setOf(-1)
+		Opcodes.IF_ICMPLE -> setOf(-1, 0)
+		Opcodes.IF_ICMPEQ -> setOf(0)
+		Opcodes.IF_ICMPNE -> setOf(-1, 1)
+		Opcodes.IF_ICMPGE -> setOf(0, 1)
+		Opcodes.IF_ICMPGT -> setOf(1)
+		else -> throw AssertionError("Unexpected comparison opcode")
+	}
+
+	/**
+	 * Given an [instruction] using this operation, and an [earlier] comparison
+	 * instruction that is known to have most recently taken the branch
+	 * indicated by [earlierOutcome], determine whether the instruction's
+	 * outcome is already decided.  The caller must ensure that the earlier
+	 * branch's target dominates the instruction, and that the graph is in SSA
+	 * form.
+	 *
+	 * @param instruction
+	 *   The [L2Instruction] using this operation.
+	 * @param earlier
+	 *   An [L2Instruction] using some `L2_JUMP_IF_COMPARE_INT`.
+	 * @param earlierOutcome
+	 *   Whether the earlier comparison took its "if true" branch.
+	 * @return
+	 *   `true` or `false` if the outcome is decided, otherwise `null`.
+	 */
+	fun impliedOutcome(
+		instruction: L2Instruction,
+		earlier: L2Instruction,
+		earlierOutcome: Boolean): Boolean?
+	{
+		assert(this == instruction.operation)
+		val earlierOperation = earlier.operation as L2_JUMP_IF_COMPARE_INT
+		val int1Reg = instruction.operand<L2ReadIntOperand>(0)
+		val int2Reg = instruction.operand<L2ReadIntOperand>(1)
+		val earlier1 = earlier.operand<L2ReadIntOperand>(0)
+		val earlier2 = earlier.operand<L2ReadIntOperand>(1)
+		val earlierOrderings = when (earlierOutcome)
+		{
+			true -> earlierOperation.trueOrderings
+			false -> allOrderings - earlierOperation.trueOrderings
+		}
+		val known = when
+		{
+			sameValue(int1Reg, earlier1) && sameValue(int2Reg, earlier2) ->
+				earlierOrderings
+			sameValue(int1Reg, earlier2) && sameValue(int2Reg, earlier1) ->
+				earlierOrderings.mapTo(mutableSetOf()) { -it }
+			else -> return null
+		}
+		return when
+		{
+			trueOrderings.containsAll(known) -> true
+			trueOrderings.none(known::contains) -> false
+			else -> null
+		}
+	}
+
 	override fun translateToJVM(
 		translator: JVMTranslator,
 		method: MethodVisitor,
@@ -234,6 +299,40 @@ class L2_JUMP_IF_COMPARE_INT private constructor(
 
 	companion object
 	{
+		/** All three possible orderings of two ints. */
+		private val allOrderings = setOf(-1, 0, 1)
+
+		/**
+		 * Answer whether the two reads are guaranteed to produce the same
+		 * value.  Registers, constants, and common definitions are compared,
+		 * as are tuple sizes and unboxings of equivalent boxed values.
+		 * Semantic values are deliberately not compared, since a semantic
+		 * value in a loop may denote different values on different iterations.
+		 */
+		private fun sameValue(
+			read1: L2ReadOperand<*>,
+			read2: L2ReadOperand<*>): Boolean
+		{
+			if (read1.register() == read2.register()) return true
+			val constant1 = read1.restriction().constantOrNull
+			val constant2 = read2.restriction().constantOrNull
+			if (constant1 !== null && constant2 !== null)
+			{
+				return constant1.equals(constant2)
+			}
+			val definition1 = read1.definitionSkippingMoves(true)
+			val definition2 = read2.definitionSkippingMoves(true)
+			if (definition1 == definition2) return true
+			val operation = definition1.operation
+			if (operation != definition2.operation) return false
+			return when (operation)
+			{
+				L2_TUPLE_SIZE, L2_UNBOX_INT, L2_JUMP_IF_UNBOX_INT -> sameValue(
+					definition1.operand(0), definition2.operand(0))
+				else -> false
+			}
+		}
+
 		private fun A_Type.narrow(): A_Type = when
 		{
 			lowerBound.equals(upperBound) -> instanceType(lowerBound)
@@ -0,0 +1,290 @@
+/*
+ * L2_LONG_ARITHMETIC_OP.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.interpreter.levelTwo.operation
+
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.typeIntersection
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int64
+import avail.interpreter.JavaLibrary
+import avail.interpreter.Primitive
+import avail.interpreter.levelTwo.L2Instruction
+import avail.interpreter.levelTwo.L2NamedOperandType.Purpose.FAILURE
+import avail.interpreter.levelTwo.L2NamedOperandType.Purpose.SUCCESS
+import avail.interpreter.levelTwo.L2OperandType
+import avail.interpreter.levelTwo.L2OperandType.PC
+import avail.interpreter.levelTwo.L2OperandType.READ_LONG
+import avail.interpreter.levelTwo.L2OperandType.WRITE_LONG
+import avail.interpreter.levelTwo.operand.L2PcOperand
+import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
+import avail.optimizer.L1Translator
+import avail.optimizer.L1Translator.CallSiteHelper
+import avail.optimizer.L2Generator.Companion.edgeTo
+import avail.optimizer.L2ValueManifest
+import avail.optimizer.jvm.CheckedMethod
+import avail.optimizer.jvm.JVMTranslator
+import avail.optimizer.values.L2SemanticUnboxedLong
+import avail.optimizer.values.L2SemanticValue.Companion.primitiveInvocation
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+
+/**
+ * My instances are arithmetic operations that take two [Long]s and produce a
+ * [Long], jumping to the "out of range" target if the result does not fit in
+ * a `long`.  The JVM code delegates to the corresponding `Math.*Exact` method,
+ * which HotSpot compiles to the native arithmetic instruction followed by an
+ * overflow check.
+ *
+ * @property operationName
+ *   The name of the arithmetic operation, for printing.
+ * @property symbol
+ *   The infix symbol for the operation, for printing.
+ * @property exactMethod
+ *   The [CheckedMethod] for the `Math.*Exact` method that performs the
+ *   operation, throwing an [ArithmeticException] on overflow.
+ *
+ * @constructor
+ * Construct an `L2_LONG_ARITHMETIC_OP`.
+ *
+ * @param operationName
+ *   The name of the arithmetic operation, for printing.
+ * @param symbol
+ *   The infix symbol for the operation, for printing.
+ * @param exactMethod
+ *   The [CheckedMethod] for the `Math.*Exact` method that performs the
+ *   operation.
+ */
+class L2_LONG_ARITHMETIC_OP private constructor(
+	private val operationName: String,
+	private val symbol: String,
+	private val exactMethod: CheckedMethod
+) : L2ControlFlowOperation(
+	READ_LONG.named("input1"),
+	READ_LONG.named("input2"),
+	WRITE_LONG.named("output", SUCCESS),
+	PC.named("out of range", FAILURE),
+	PC.named("in range", SUCCESS))
+{
+	override fun instructionWasAdded(
+		instruction: L2Instruction,
+		manifest: L2ValueManifest)
+	{
+		assert(this == instruction.operation)
+		val output = instruction.operand<L2WriteLongOperand>(2)
+		val inRange = instruction.operand<L2PcOperand>(4)
+		super.instructionWasAdded(instruction, manifest)
+		inRange.manifest().intersectType(output.pickSemanticValue(), int64)
+	}
+
+	// It jumps if the result doesn't fit in a long.
+	override val hasSideEffect get() = true
+
+	override fun appendToWithWarnings(
+		instruction: L2Instruction,
+		desiredTypes: Set<L2OperandType>,
+		builder: StringBuilder,
+		warningStyleChange: (Boolean) -> Unit)
+	{
+		assert(this == instruction.operation)
+		val input1 = instruction.operand<L2ReadLongOperand>(0)
+		val input2 = instruction.operand<L2ReadLongOperand>(1)
+		val output = instruction.operand<L2WriteLongOperand>(2)
+		renderPreamble(instruction, builder)
+		builder.append(' ')
+		builder.append(output.registerString())
+		builder.append(" ← ")
+		builder.append(input1.registerString())
+		builder.append(" $symbol ")
+		builder.append(input2.registerString())
+		renderOperandsStartingAt(instruction, 3, desiredTypes, builder)
+	}
+
+	override fun toString(): String = "${super.toString()}($operationName)"
+
+	/**
+	 * Generate unboxed `long` arithmetic for a binary [Primitive] whose
+	 * arguments might fit in [int64], falling back to a general invocation of
+	 * the primitive's function if either argument can't be unboxed, or if the
+	 * result overflows.
+	 *
+	 * @param primitive
+	 *   The [Primitive] being invoked.
+	 * @param functionToCallReg
+	 *   The register holding the function that invokes the primitive.
+	 * @param rawFunction
+	 *   The primitive [A_RawFunction].
+	 * @param arguments
+	 *   The [L2ReadBoxedOperand]s supplying the two arguments.
+	 * @param argumentTypes
+	 *   The [A_Type]s of the two arguments.
+	 * @param translator
+	 *   The [L1Translator] on which to generate code.
+	 * @param callSiteHelper
+	 *   Information about the call site.
+	 * @return
+	 *   Whether any code was generated.  If `false`, the caller must generate
+	 *   the invocation itself.
+	 */
+	fun generateBinaryLongOperation(
+		primitive: Primitive,
+		functionToCallReg: L2ReadBoxedOperand,
+		rawFunction: A_RawFunction,
+		arguments: List<L2ReadBoxedOperand>,
+		argumentTypes: List<A_Type>,
+		translator: L1Translator,
+		callSiteHelper: CallSiteHelper
+	): Boolean
+	{
+		val (a, b) = arguments
+		val (aType, bType) = argumentTypes
+		// If either of the argument types does not intersect with int64, then
+		// fall back to the primitive invocation.
+		val aIntersectInt64 = aType.typeIntersection(int64)
+		val bIntersectInt64 = bType.typeIntersection(int64)
+		if (aIntersectInt64.isBottom || bIntersectInt64.isBottom)
+		{
+			return false
+		}
+
+		// Attempt to unbox the arguments.
+		val generator = translator.generator
+		val fallback = generator.createBasicBlock(
+			"fall back to boxed $operationName")
+		val longA = generator.readLong(
+			L2SemanticUnboxedLong(a.semanticValue()), fallback)
+		val longB = generator.readLong(
+			L2SemanticUnboxedLong(b.semanticValue()), fallback)
+		if (generator.currentlyReachable())
+		{
+			// The happy path is reachable.
+			val returnTypeIfLongs = primitive.returnTypeGuaranteedByVM(
+				rawFunction, listOf(aIntersectInt64, bIntersectInt64))
+			val semanticTemp = primitiveInvocation(
+				primitive, listOf(a.semanticValue(), b.semanticValue()))
+			val tempWriter = generator.longWrite(
+				setOf(L2SemanticUnboxedLong(semanticTemp)),
+				restrictionForType(returnTypeIfLongs, UNBOXED_LONG_FLAG))
+			val success = generator.createBasicBlock(
+				"$operationName is in range")
+			translator.addInstruction(
+				this,
+				longA,
+				longB,
+				tempWriter,
+				edgeTo(fallback),
+				edgeTo(success))
+			generator.startBlock(success)
+			// As with the int case, the unboxed form remains available to
+			// subsequent primitives, which may allow the boxing to evaporate.
+			callSiteHelper.useAnswer(generator.readBoxed(semanticTemp))
+		}
+		if (fallback.predecessorEdges().isNotEmpty())
+		{
+			// The fallback block is reachable, so generate the slow case within
+			// it.  Fallback may happen from conversion of non-int64 arguments,
+			// or from int64 overflow calculating the result.
+			generator.startBlock(fallback)
+			translator.generateGeneralFunctionInvocation(
+				functionToCallReg, arguments, false, callSiteHelper)
+		}
+		return true
+	}
+
+	override fun translateToJVM(
+		translator: JVMTranslator,
+		method: MethodVisitor,
+		instruction: L2Instruction)
+	{
+		val input1 = instruction.operand<L2ReadLongOperand>(0)
+		val input2 = instruction.operand<L2ReadLongOperand>(1)
+		val output = instruction.operand<L2WriteLongOperand>(2)
+		val outOfRange = instruction.operand<L2PcOperand>(3)
+		val inRange = instruction.operand<L2PcOperand>(4)
+
+		// :: try {
+		val tryStart = Label()
+		val tryEnd = Label()
+		val catchStart = Label()
+		method.visitTryCatchBlock(
+			tryStart,
+			tryEnd,
+			catchStart,
+			Type.getInternalName(java.lang.ArithmeticException::class.java))
+		method.visitLabel(tryStart)
+		// ::    output = Math.«op»Exact(input1, input2);
+		translator.load(method, input1.register())
+		translator.load(method, input2.register())
+		exactMethod.generateCall(method)
+		method.visitLabel(tryEnd)
+		translator.store(method, output.register())
+		// ::    goto inRange;
+		// Always jump, since the next instruction is the exception handler.
+		translator.jump(method, inRange)
+		// :: } catch (ArithmeticException e) {
+		method.visitLabel(catchStart)
+		method.visitInsn(Opcodes.POP)
+		// ::    goto outOfRange;
+		translator.jump(method, instruction, outOfRange)
+		// :: }
+	}
+
+	companion object
+	{
+		/**
+		 * The [L2Operation] for computing the sum of two [Long]s, branching if
+		 * the result overflows.
+		 */
+		val add = L2_LONG_ARITHMETIC_OP(
+			"add", "+", JavaLibrary.mathAddExactLongMethod)
+
+		/**
+		 * The [L2Operation] for computing the difference of two [Long]s (the
+		 * first minus the second), branching if the result overflows.
+		 */
+		val subtract = L2_LONG_ARITHMETIC_OP(
+			"subtract", "-", JavaLibrary.mathSubtractExactLongMethod)
+
+		/**
+		 * The [L2Operation] for computing the product of two [Long]s,
+		 * branching if the result overflows.
+		 */
+		val multiply = L2_LONG_ARITHMETIC_OP(
+			"multiply", "×", JavaLibrary.mathMultiplyExactLongMethod)
+	}
+}
@@ -33,10 +33,8 @@ package avail.interpreter.levelTwo.operation
 
 import avail.descriptor.atoms.A_Atom.Companion.atomName
 import avail.descriptor.bundles.A_Bundle
-import avail.descriptor.bundles.A_Bundle.Companion.bundleMethod
 import avail.descriptor.bundles.A_Bundle.Companion.message
 import avail.descriptor.functions.A_Function
-import avail.descriptor.methods.A_Method.Companion.lookupByValuesFromList
 import avail.descriptor.methods.A_Sendable.Companion.bodyBlock
 import avail.descriptor.methods.A_Sendable.Companion.isAbstractDefinition
 import avail.descriptor.methods.A_Sendable.Companion.isForwardDefinition
@@ -50,6 +48,7 @@ import avail.descriptor.types.A_Type.Companion.typeAtIndex
 import avail.descriptor.types.A_Type.Companion.typeUnion
 import avail.descriptor.types.AbstractEnumerationTypeDescriptor.Companion.enumerationWith
 import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.dispatch.InlineCache
 import avail.exceptions.AvailErrorCode.E_ABSTRACT_METHOD_DEFINITION
 import avail.exceptions.AvailErrorCode.E_AMBIGUOUS_METHOD_DEFINITION
 import avail.exceptions.AvailErrorCode.E_FORWARD_METHOD_DEFINITION
@@ -64,13 +63,14 @@ import avail.interpreter.execution.Interpreter.Companion.log
 import avail.interpreter.levelTwo.L2Instruction
 import avail.interpreter.levelTwo.L2NamedOperandType.Purpose.FAILURE
 import avail.interpreter.levelTwo.L2NamedOperandType.Purpose.SUCCESS
+import avail.interpreter.levelTwo.L2OperandType.ARBITRARY_CONSTANT
 import avail.interpreter.levelTwo.L2OperandType.PC
 import avail.interpreter.levelTwo.L2OperandType.READ_BOXED_VECTOR
 import avail.interpreter.levelTwo.L2OperandType.SELECTOR
 import avail.interpreter.levelTwo.L2OperandType.WRITE_BOXED
+import avail.interpreter.levelTwo.operand.L2ArbitraryConstantOperand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedVectorOperand
-import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.bottomRestriction
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.*
@@ -87,15 +87,17 @@ import java.util.logging.Level
 
 /**
  * Look up the method to invoke. Use the provided vector of arguments to
- * perform a polymorphic lookup. Write the resulting function into the
- * specified destination register. If the lookup fails, then branch to the
- * specified [offset][Interpreter.setOffset].
+ * perform a polymorphic lookup, consulting the call site's [InlineCache]
+ * first. Write the resulting function into the specified destination register.
+ * If the lookup fails, then branch to the specified
+ * [offset][Interpreter.setOffset].
  *
  * @author Mark van Gulik &lt;mark@availlang.org&gt;
  * @author Todd L Smith &lt;todd@availlang.org&gt;
  */
 object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 	SELECTOR.named("message bundle"),
+	ARBITRARY_CONSTANT.named("inline cache"),
 	READ_BOXED_VECTOR.named("arguments"),
 	WRITE_BOXED.named("looked up function", SUCCESS),
 	WRITE_BOXED.named("error code", FAILURE),
@@ -108,11 +110,11 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 	{
 		assert(this == instruction.operation)
 		//		final L2SelectorOperand bundle = instruction.operand(0);
-		val argRegs = instruction.operand<L2ReadBoxedVectorOperand>(1)
-		val functionReg = instruction.operand<L2WriteBoxedOperand>(2)
-		val errorCodeReg = instruction.operand<L2WriteBoxedOperand>(3)
-		val lookupSucceeded = instruction.operand<L2PcOperand>(4)
-		val lookupFailed = instruction.operand<L2PcOperand>(5)
+		val argRegs = instruction.operand<L2ReadBoxedVectorOperand>(2)
+		val functionReg = instruction.operand<L2WriteBoxedOperand>(3)
+		val errorCodeReg = instruction.operand<L2WriteBoxedOperand>(4)
+		val lookupSucceeded = instruction.operand<L2PcOperand>(5)
+		val lookupFailed = instruction.operand<L2PcOperand>(6)
 		super.instructionWasAdded(instruction, manifest)
 
 		// If the lookup failed, it supplies the reason to the errorCodeReg.
@@ -173,12 +175,12 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 		method: MethodVisitor,
 		instruction: L2Instruction)
 	{
-		val bundleOperand = instruction.operand<L2SelectorOperand>(0)
-		val argRegs = instruction.operand<L2ReadBoxedVectorOperand>(1)
-		val functionReg = instruction.operand<L2WriteBoxedOperand>(2)
-		val errorCodeReg = instruction.operand<L2WriteBoxedOperand>(3)
-		val lookupSucceeded = instruction.operand<L2PcOperand>(4)
-		val lookupFailed = instruction.operand<L2PcOperand>(5)
+		val cacheOperand = instruction.operand<L2ArbitraryConstantOperand>(1)
+		val argRegs = instruction.operand<L2ReadBoxedVectorOperand>(2)
+		val functionReg = instruction.operand<L2WriteBoxedOperand>(3)
+		val errorCodeReg = instruction.operand<L2WriteBoxedOperand>(4)
+		val lookupSucceeded = instruction.operand<L2PcOperand>(5)
+		val lookupFailed = instruction.operand<L2PcOperand>(6)
 
 		// :: try {
 		val tryStart = Label()
@@ -189,9 +191,9 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 			catchStart,
 			Type.getInternalName(MethodDefinitionException::class.java))
 		method.visitLabel(tryStart)
-		// ::    function = lookup(interpreter, bundle, types);
+		// ::    function = lookup(interpreter, inlineCache, types);
 		translator.loadInterpreter(method)
-		translator.literal(method, bundleOperand.bundle)
+		translator.literal(method, cacheOperand.constant)
 		translator.objectArray(
 			method, argRegs.elements, AvailObject::class.java)
 		lookupMethod.generateCall(method)
@@ -232,8 +234,8 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 	 *
 	 * @param interpreter
 	 *   The [Interpreter].
-	 * @param bundle
-	 *   The [A_Bundle].
+	 * @param inlineCache
+	 *   The call site's [InlineCache], which knows the [A_Bundle].
 	 * @param values
 	 *   The [values][AvailObject] for the lookup.
 	 * @return
@@ -246,7 +248,7 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 	@Throws(MethodDefinitionException::class)
 	fun lookup(
 		interpreter: Interpreter,
-		bundle: A_Bundle,
+		inlineCache: InlineCache,
 		values: Array<AvailObject>): A_Function
 	{
 		if (Interpreter.debugL2)
@@ -256,10 +258,9 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 				Level.FINER,
 				"{0}Lookup {1}",
 				interpreter.debugModeString,
-				bundle.message.atomName)
+				inlineCache.bundle.message.atomName)
 		}
-		val definitionToCall =
-			bundle.bundleMethod.lookupByValuesFromList(listOf(*values))
+		val definitionToCall = inlineCache.lookup(values.asList())
 		when
 		{
 			definitionToCall.isAbstractDefinition() -> throw abstractMethod()
@@ -276,6 +277,6 @@ object L2_LOOKUP_BY_VALUES : L2ControlFlowOperation(
 		::lookup.name,
 		A_Function::class.java,
 		Interpreter::class.java,
-		A_Bundle::class.java,
+		InlineCache::class.java,
 		Array<AvailObject>::class.java)
 }
@@ -39,9 +39,11 @@ import avail.interpreter.levelTwo.L2OperandType
 import avail.interpreter.levelTwo.L2OperandType.READ_BOXED
 import avail.interpreter.levelTwo.L2OperandType.READ_FLOAT
 import avail.interpreter.levelTwo.L2OperandType.READ_INT
+import avail.interpreter.levelTwo.L2OperandType.READ_LONG
 import avail.interpreter.levelTwo.L2OperandType.WRITE_BOXED
 import avail.interpreter.levelTwo.L2OperandType.WRITE_FLOAT
 import avail.interpreter.levelTwo.L2OperandType.WRITE_INT
+import avail.interpreter.levelTwo.L2OperandType.WRITE_LONG
 import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedVectorOperand
@@ -49,21 +51,26 @@ import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadOperand
 import avail.interpreter.levelTwo.operand.L2ReadVectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 import avail.interpreter.levelTwo.register.L2Register
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.BOXED_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.FLOAT_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.INTEGER_KIND
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
 import avail.optimizer.L2Generator
 import avail.optimizer.L2ValueManifest
 import avail.optimizer.jvm.JVMTranslator
@@ -353,6 +360,33 @@ private constructor(
 				L2ReadFloatVectorOperand(elements)
 		}
 
+		/**
+		 * Initialize the move operation for long values.
+		 */
+		val unboxedLong = object : L2_MOVE<
+				L2LongRegister,
+				L2ReadLongOperand,
+				L2WriteLongOperand,
+				L2ReadLongVectorOperand>(
+			LONG_KIND,
+			READ_LONG.named("source long"),
+			WRITE_LONG.named("destination long"))
+		{
+			override fun createRead(
+				semanticValue: L2SemanticValue,
+				manifest: L2ValueManifest
+			) = manifest.readLong(semanticValue)
+
+			override fun createWrite(
+				generator: L2Generator,
+				semanticValues: Set<L2SemanticValue>,
+				restriction: TypeRestriction
+			) = generator.longWrite(semanticValues.cast(), restriction)
+
+			override fun createVector(elements: List<L2ReadLongOperand>) =
+				L2ReadLongVectorOperand(elements)
+		}
+
 		/**
 		 * Answer an `L2_MOVE` suitable for transferring data of the given
 		 * [RegisterKind].
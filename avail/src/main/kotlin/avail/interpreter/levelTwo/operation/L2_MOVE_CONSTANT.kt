@@ -42,15 +42,18 @@ import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2Operand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 import avail.interpreter.levelTwo.register.L2Register
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.optimizer.L2Generator
@@ -229,6 +232,23 @@ private constructor(
 			L2OperandType.FLOAT_IMMEDIATE.named("constant float"),
 			L2OperandType.WRITE_FLOAT.named("destination float"))
 
+		/**
+		 * Initialize the move-constant operation for long values.
+		 */
+		val unboxedLong = L2_MOVE_CONSTANT<
+				L2LongImmediateOperand,
+				L2LongRegister,
+				L2WriteLongOperand>(
+			"long",
+			{
+				translator: JVMTranslator,
+				method: MethodVisitor,
+				operand: L2LongImmediateOperand ->
+				translator.longConstant(method, operand.value)
+			},
+			L2OperandType.LONG_IMMEDIATE.named("constant long"),
+			L2OperandType.WRITE_LONG.named("destination long"))
+
 		/**
 		 * Given an [L2Instruction] using the boxed form of this operation,
 		 * extract the boxed constant that is moved by the instruction.
@@ -43,6 +43,7 @@ import avail.interpreter.levelTwo.L2Operation.HiddenVariable.CURRENT_FUNCTION
 import avail.interpreter.levelTwo.ReadsHiddenVariable
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
+import avail.interpreter.levelTwo.operand.L2ReadBoxedVectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.optimizer.jvm.JVMTranslator
 import org.objectweb.asm.MethodVisitor
@@ -84,6 +85,21 @@ object L2_MOVE_OUTER_VARIABLE : L2Operation(
 		builder.append(']')
 	}
 
+	override fun scalarReplacementSource(
+		instruction: L2Instruction
+	): L2ReadBoxedOperand?
+	{
+		assert(this == instruction.operation)
+		val outerIndex = instruction.operand<L2IntImmediateOperand>(0)
+		val function = instruction.operand<L2ReadBoxedOperand>(1)
+		// val destination = instruction.operand<L2WriteBoxedOperand>(2)
+
+		val definition = function.definitionSkippingMoves(false)
+		if (definition.operation !== L2_CREATE_FUNCTION) return null
+		val outers = definition.operand<L2ReadBoxedVectorOperand>(1)
+		return outers.elements.getOrNull(outerIndex.value - 1)
+	}
+
 	override fun translateToJVM(
 		translator: JVMTranslator,
 		method: MethodVisitor,
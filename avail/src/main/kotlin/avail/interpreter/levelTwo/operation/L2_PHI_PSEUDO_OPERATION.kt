@@ -487,9 +487,19 @@ private constructor(
 			L2OperandType.READ_FLOAT_VECTOR.named("potential float sources"),
 			L2OperandType.WRITE_FLOAT.named("float destination"))
 
+		/**
+		 * Initialize the instance used for merging unboxed long values.
+		 */
+		@JvmField
+		val unboxedLong = L2_PHI_PSEUDO_OPERATION(
+			L2_MOVE.unboxedLong,
+			L2OperandType.READ_LONG_VECTOR.named("potential long sources"),
+			L2OperandType.WRITE_LONG.named("long destination"))
+
 		/**
 		 * The collection of phi operations, one per [RegisterKind].
 		 */
-		val allPhiOperations = listOf(boxed, unboxedInt, unboxedFloat)
+		val allPhiOperations =
+			listOf(boxed, unboxedInt, unboxedFloat, unboxedLong)
 	}
 }
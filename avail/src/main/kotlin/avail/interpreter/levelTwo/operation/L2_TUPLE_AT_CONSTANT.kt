@@ -57,6 +57,8 @@ object L2_TUPLE_AT_CONSTANT : L2Operation(
 	INT_IMMEDIATE.named("immediate subscript"),
 	WRITE_BOXED.named("destination"))
 {
+	override val isHoistable: Boolean get() = true
+
 	override fun appendToWithWarnings(
 		instruction: L2Instruction,
 		desiredTypes: Set<L2OperandType>,
@@ -77,6 +79,21 @@ object L2_TUPLE_AT_CONSTANT : L2Operation(
 		builder.append(']')
 	}
 
+	override fun scalarReplacementSource(
+		instruction: L2Instruction
+	): L2ReadBoxedOperand?
+	{
+		assert(this == instruction.operation)
+		val tuple = instruction.operand<L2ReadBoxedOperand>(0)
+		val subscript = instruction.operand<L2IntImmediateOperand>(1)
+		// val destination = instruction.operand<L2WriteBoxedOperand>(2)
+
+		val definition = tuple.definitionSkippingMoves(false)
+		if (definition.operation !== L2_CREATE_TUPLE) return null
+		return L2_CREATE_TUPLE.tupleSourceRegistersOf(definition)
+			.getOrNull(subscript.value - 1)
+	}
+
 	override fun translateToJVM(
 		translator: JVMTranslator,
 		method: MethodVisitor,
@@ -49,6 +49,10 @@ import org.objectweb.asm.MethodVisitor
  * Extract an element at a subscript from a [tuple][TupleDescriptor] that
  * is known to be within bounds, writing the element into a register.
  *
+ * The bounds are usually established by a dynamic comparison just before this
+ * instruction, which the operands' type restrictions don't capture, so this
+ * operation is not [hoistable][L2Operation.isHoistable].
+ *
  * @author Mark van Gulik &lt;mark@availlang.org&gt;
  */
 object L2_TUPLE_AT_NO_FAIL : L2Operation(
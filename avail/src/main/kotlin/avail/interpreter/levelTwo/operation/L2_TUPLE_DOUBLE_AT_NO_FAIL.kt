@@ -0,0 +1,102 @@
+/*
+ * L2_TUPLE_DOUBLE_AT_NO_FAIL.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.interpreter.levelTwo.operation
+
+import avail.descriptor.numbers.DoubleDescriptor
+import avail.descriptor.tuples.DoubleTupleDescriptor
+import avail.descriptor.tuples.TupleDescriptor
+import avail.descriptor.tuples.TupleDescriptor.Companion.tupleDoubleAtMethod
+import avail.interpreter.levelTwo.L2Instruction
+import avail.interpreter.levelTwo.L2OperandType
+import avail.interpreter.levelTwo.L2OperandType.READ_BOXED
+import avail.interpreter.levelTwo.L2OperandType.READ_INT
+import avail.interpreter.levelTwo.L2OperandType.WRITE_FLOAT
+import avail.interpreter.levelTwo.L2Operation
+import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
+import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
+import avail.optimizer.jvm.JVMTranslator
+import org.objectweb.asm.MethodVisitor
+
+/**
+ * Extract a [double][DoubleDescriptor] element at a subscript from a
+ * [tuple][TupleDescriptor], writing it unboxed into a float register.  The
+ * subscript must be known to be within bounds, and the element must be known
+ * to be a double.  A [DoubleTupleDescriptor] answers the element without ever
+ * allocating a boxed double.
+ *
+ * Both the bounds and the element's type are usually established by dynamic
+ * checks that the operands' type restrictions don't capture, so this operation
+ * is not [hoistable][L2Operation.isHoistable].
+ */
+object L2_TUPLE_DOUBLE_AT_NO_FAIL : L2Operation(
+	READ_BOXED.named("tuple"),
+	READ_INT.named("int subscript"),
+	WRITE_FLOAT.named("destination"))
+{
+	override fun appendToWithWarnings(
+		instruction: L2Instruction,
+		desiredTypes: Set<L2OperandType>,
+		builder: StringBuilder,
+		warningStyleChange: (Boolean) -> Unit)
+	{
+		assert(this == instruction.operation)
+		val tuple = instruction.operand<L2ReadBoxedOperand>(0)
+		val subscript = instruction.operand<L2ReadIntOperand>(1)
+		val destination = instruction.operand<L2WriteFloatOperand>(2)
+		renderPreamble(instruction, builder)
+		builder.append(' ')
+		builder.append(destination.registerString())
+		builder.append(" ← ")
+		builder.append(tuple.registerString())
+		builder.append("(no fail)[")
+		builder.append(subscript)
+		builder.append(']')
+	}
+
+	override fun translateToJVM(
+		translator: JVMTranslator,
+		method: MethodVisitor,
+		instruction: L2Instruction)
+	{
+		val tuple = instruction.operand<L2ReadBoxedOperand>(0)
+		val subscript = instruction.operand<L2ReadIntOperand>(1)
+		val destination = instruction.operand<L2WriteFloatOperand>(2)
+
+		// :: destination = tuple.tupleDoubleAt(subscript);
+		translator.load(method, tuple.register())
+		translator.load(method, subscript.register())
+		tupleDoubleAtMethod.generateCall(method)
+		translator.store(method, destination.register())
+	}
+}
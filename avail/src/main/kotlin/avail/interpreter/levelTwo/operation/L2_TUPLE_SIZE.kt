@@ -53,6 +53,8 @@ object L2_TUPLE_SIZE : L2Operation(
 	READ_BOXED.named("tuple"),
 	WRITE_INT.named("size of tuple"))
 {
+	override val isHoistable: Boolean get() = true
+
 	override fun appendToWithWarnings(
 		instruction: L2Instruction,
 		desiredTypes: Set<L2OperandType>,
@@ -52,6 +52,8 @@ object L2_UNBOX_INT : L2Operation(
 	READ_BOXED.named("source"),
 	WRITE_INT.named("destination"))
 {
+	override val isHoistable: Boolean get() = true
+
 	override fun appendToWithWarnings(
 		instruction: L2Instruction,
 		desiredTypes: Set<L2OperandType>,
@@ -38,6 +38,7 @@ import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
 import avail.interpreter.levelTwo.operand.L2ReadOperand
 import avail.interpreter.levelTwo.operand.L2ReadVectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
@@ -46,6 +47,7 @@ import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncodin
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
 import avail.interpreter.levelTwo.operation.L2_MOVE
 import avail.optimizer.L2ControlFlowGraph
 import avail.optimizer.L2Entity
@@ -183,6 +185,29 @@ abstract class L2Register constructor (val uniqueValue: Int) : L2Entity
 					restriction,
 					register as L2FloatRegister).cast<L2ReadOperand<*>?, RR>()
 			}
+		},
+
+		/**
+		 * The kind of register that holds a [Long].
+		 */
+		LONG_KIND(
+			"long",
+			"l",
+			Type.LONG_TYPE.descriptor,
+			Opcodes.LLOAD,
+			Opcodes.LSTORE,
+			UNBOXED_LONG_FLAG)
+		{
+			override fun <R : L2Register, RR : L2ReadOperand<R>> readOperand(
+				semanticValue: L2SemanticValue,
+				restriction: TypeRestriction,
+				register: R): RR
+			{
+				return L2ReadLongOperand(
+					semanticValue,
+					restriction,
+					register as L2LongRegister).cast<L2ReadOperand<*>?, RR>()
+			}
 		};
 
 		//		/**
@@ -133,7 +133,9 @@ constructor(
 
 		if (offset <= 0)
 		{
-			// Decrement the countdown to reoptimization, possibly reoptimizing.
+			// Decrement the countdown to reoptimization, possibly reoptimizing
+			// or queueing the code for the background optimizer.
+			var queued = false
 			val chunkChanged = code.decrementCountdownToReoptimize {
 					optimize: Boolean ->
 				savedArguments ?: run {
@@ -141,17 +143,20 @@ constructor(
 				}
 				if (optimize)
 				{
-					OptimizationLevel.optimizationLevel(
+					queued = !OptimizationLevel.optimizationLevel(
 						nextOptimizationLevel.ordinal
-					).optimize(code, interpreter)
+					).optimizeOrQueue(code, interpreter)
+				}
+				if (!queued)
+				{
+					// Enter the newly constructed chunk, after ensuring the
+					// arguments have been handed back to the interpreter.
+					val chunk = code.startingChunk
+					interpreter.chunk = chunk
+					interpreter.setOffset(chunk.offsetAfterInitialTryPrimitive)
 				}
-				// Enter the newly constructed chunk, after ensuring the
-				// arguments have been handed back to the interpreter.
-				val chunk = code.startingChunk
-				interpreter.chunk = chunk
-				interpreter.setOffset(chunk.offsetAfterInitialTryPrimitive)
 			}
-			if (chunkChanged)
+			if (chunkChanged && !queued)
 			{
 				interpreter.argsBuffer.run {
 					clear()
@@ -59,7 +59,6 @@ import avail.descriptor.functions.FunctionDescriptor.Companion.createWithOuters3
 import avail.descriptor.functions.FunctionDescriptor.Companion.createWithOuters4
 import avail.descriptor.methods.A_Definition
 import avail.descriptor.methods.A_Method.Companion.lookupByTypesFromTuple
-import avail.descriptor.methods.A_Method.Companion.lookupByValuesFromList
 import avail.descriptor.methods.A_Sendable.Companion.bodyBlock
 import avail.descriptor.methods.A_Sendable.Companion.isAbstractDefinition
 import avail.descriptor.methods.A_Sendable.Companion.isForwardDefinition
@@ -80,6 +79,7 @@ import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.TOP
 import avail.descriptor.variables.A_Variable
 import avail.descriptor.variables.VariableDescriptor.Companion.newVariableWithContentType
+import avail.dispatch.InlineCache
 import avail.exceptions.AvailErrorCode.E_CANNOT_READ_UNASSIGNED_VARIABLE
 import avail.exceptions.AvailErrorCode.E_OBSERVED_VARIABLE_WRITTEN_WHILE_UNTRACED
 import avail.exceptions.MethodDefinitionException
@@ -1309,6 +1309,8 @@ constructor(
  * polymorphic method.  If the lookup is successful, invoke that function,
  * otherwise invoke the [AvailRuntime.invalidMessageSendFunction] with suitably
  * packaged arguments and the lookup failure code.
+ *
+ * The lookup goes through an [InlineCache] private to this call site.
  */
 class L2Simple_GeneralCall(
 	stackp: Int,
@@ -1326,6 +1328,9 @@ class L2Simple_GeneralCall(
 	expectedType,
 	mustCheck)
 {
+	/** The [InlineCache] for this call site. */
+	private val inlineCache = InlineCache(bundle)
+
 	override fun step(
 		registers: Array<AvailObject>,
 		interpreter: Interpreter
@@ -1339,8 +1344,8 @@ class L2Simple_GeneralCall(
 		}
 		val matching: A_Definition = try
 		{
-			bundle.bundleMethod
-				.lookupByValuesFromList(interpreter.argsBuffer)
+			inlineCache
+				.lookup(interpreter.argsBuffer)
 				.also {
 					when
 					{
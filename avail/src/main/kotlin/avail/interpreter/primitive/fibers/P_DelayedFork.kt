@@ -74,7 +74,6 @@ import avail.interpreter.Primitive.Flag.CanInline
 import avail.interpreter.Primitive.Flag.HasSideEffect
 import avail.interpreter.Primitive.Flag.WritesToHiddenGlobalState
 import avail.interpreter.execution.Interpreter
-import java.util.TimerTask
 
 /**
  * **Primitive:** Schedule a new [fiber][FiberDescriptor] to execute the
@@ -143,16 +142,9 @@ object P_DelayedFork : Primitive(
 				runtime.runOutermostFunction(newFiber, function, callArgs)
 			sleepMillis.isLong ->
 			{
-				runtime.timer.schedule(
-					object : TimerTask()
-					{
-						override fun run()
-						{
-							runtime.runOutermostFunction(
-								newFiber, function, callArgs)
-						}
-					},
-					sleepMillis.extractLong)
+				runtime.timingWheel.schedule(sleepMillis.extractLong) {
+					runtime.runOutermostFunction(newFiber, function, callArgs)
+				}
 			}
 		}
 		// Otherwise, if the delay time isn't colossal, then schedule the fiber
@@ -75,7 +75,6 @@ import avail.interpreter.Primitive.Flag.CanInline
 import avail.interpreter.Primitive.Flag.HasSideEffect
 import avail.interpreter.Primitive.Flag.WritesToHiddenGlobalState
 import avail.interpreter.execution.Interpreter
-import java.util.TimerTask
 
 /**
  * **Primitive:** Schedule a new [fiber][FiberDescriptor] to execute the
@@ -149,17 +148,11 @@ object P_DelayedForkOrphan : Primitive(
 		}
 		else
 		{
-			runtime.timer.schedule(
-				object : TimerTask()
-				{
-					override fun run()
-					{
-						// Don't check for the termination requested interrupt
-						// here, since no fiber could have signaled it.
-						runtime.runOutermostFunction(orphan, function, callArgs)
-					}
-				},
-				sleepMillis.extractLong)
+			runtime.timingWheel.schedule(sleepMillis.extractLong) {
+				// Don't check for the termination requested interrupt here,
+				// since no fiber could have signaled it.
+				runtime.runOutermostFunction(orphan, function, callArgs)
+			}
 		} // Otherwise, schedule the fiber to start later.
 		return interpreter.primitiveSuccess(nil)
 	}
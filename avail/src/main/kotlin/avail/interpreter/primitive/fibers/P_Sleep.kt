@@ -56,7 +56,6 @@ import avail.interpreter.Primitive.Flag.CanSuspend
 import avail.interpreter.Primitive.Flag.CannotFail
 import avail.interpreter.Primitive.Flag.Unknown
 import avail.interpreter.execution.Interpreter
-import java.util.TimerTask
 
 /**
  * **Primitive:** Put the [current][FiberDescriptor.currentFiber]
@@ -89,28 +88,9 @@ object P_Sleep : Primitive(1, CannotFail, CanSuspend, Unknown)
 		val primitiveFunction = interpreter.function!!
 		if (sleepMillis.isLong)
 		{
-			// Otherwise, delay the resumption of this task.
-			val task = object : TimerTask()
-			{
-				override fun run()
-				{
-					fiber.lock {
-						// Only resume the fiber if it's still asleep. A
-						// termination request may have already woken the
-						// fiber up, but so recently that it didn't manage
-						// to cancel this timer task.
-						if (fiber.executionState === ASLEEP)
-						{
-							fiber.wakeupTask = null
-							fiber.executionState = SUSPENDED
-							runtime.resumeFromSuccessfulPrimitive(
-								fiber, this@P_Sleep, nil)
-						}
-					}
-				}
-			}
-			// Once the fiber has been unbound, transition it to sleeping and
-			// start the timer task.
+			// Otherwise, delay the resumption of this task.  Once the fiber
+			// has been unbound, transition it to sleeping and schedule its
+			// wakeup.
 			interpreter.postExitContinuation {
 				fiber.lock {
 					// If termination has been requested, then schedule
@@ -122,10 +102,25 @@ object P_Sleep : Primitive(1, CannotFail, CanSuspend, Unknown)
 								fiber, this, nil)
 						}
 						else -> {
-							fiber.wakeupTask = task
 							fiber.executionState = ASLEEP
-							runtime.timer.schedule(
-								task, sleepMillis.extractLong)
+							fiber.wakeupTask = runtime.timingWheel.schedule(
+								sleepMillis.extractLong
+							) {
+								fiber.lock {
+									// Only resume the fiber if it's still
+									// asleep. A termination request may have
+									// already woken the fiber up, but so
+									// recently that it didn't manage to cancel
+									// this task.
+									if (fiber.executionState === ASLEEP)
+									{
+										fiber.wakeupTask = null
+										fiber.executionState = SUSPENDED
+										runtime.resumeFromSuccessfulPrimitive(
+											fiber, this@P_Sleep, nil)
+									}
+								}
+							}
 						}
 					}
 				}
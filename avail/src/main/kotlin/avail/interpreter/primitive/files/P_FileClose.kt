@@ -73,7 +73,7 @@ object P_FileClose : Primitive(1, CanInline, HasSideEffect)
 		val handle = pojo.javaObjectNotNull<FileHandle>()
 		try
 		{
-			handle.channel.close()
+			handle.close()
 		}
 		catch (e: IOException)
 		{
@@ -0,0 +1,170 @@
+/*
+ * P_FileMap.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.interpreter.primitive.files
+
+import avail.descriptor.atoms.A_Atom.Companion.getAtomProperty
+import avail.descriptor.atoms.A_Atom.Companion.isAtomSpecial
+import avail.descriptor.atoms.AtomDescriptor
+import avail.descriptor.atoms.AtomDescriptor.SpecialAtom.FILE_KEY
+import avail.descriptor.numbers.A_Number.Companion.extractInt
+import avail.descriptor.numbers.A_Number.Companion.extractLong
+import avail.descriptor.numbers.A_Number.Companion.isInt
+import avail.descriptor.numbers.A_Number.Companion.isLong
+import avail.descriptor.numbers.InfinityDescriptor.Companion.positiveInfinity
+import avail.descriptor.numbers.IntegerDescriptor.Companion.one
+import avail.descriptor.sets.SetDescriptor.Companion.set
+import avail.descriptor.tuples.ByteBufferTupleDescriptor
+import avail.descriptor.tuples.ByteBufferTupleDescriptor.Companion.tupleForByteBuffer
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.tuples.SubrangeTupleDescriptor
+import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.AbstractEnumerationTypeDescriptor.Companion.enumerationWith
+import avail.descriptor.types.FunctionTypeDescriptor.Companion.functionType
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.bytes
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.inclusive
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.naturalNumbers
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ATOM
+import avail.descriptor.types.TupleTypeDescriptor.Companion.zeroOrMoreOf
+import avail.exceptions.AvailErrorCode.E_EXCEEDS_VM_LIMIT
+import avail.exceptions.AvailErrorCode.E_INVALID_HANDLE
+import avail.exceptions.AvailErrorCode.E_IO_ERROR
+import avail.exceptions.AvailErrorCode.E_NOT_OPEN_FOR_READ
+import avail.exceptions.AvailErrorCode.E_OPERATION_NOT_SUPPORTED
+import avail.exceptions.AvailErrorCode.E_SPECIAL_ATOM
+import avail.interpreter.Primitive
+import avail.interpreter.Primitive.Flag.CanInline
+import avail.interpreter.Primitive.Flag.HasSideEffect
+import avail.interpreter.execution.Interpreter
+import avail.io.IOSystem.FileHandle
+import java.io.IOException
+import java.nio.MappedByteBuffer
+import kotlin.math.min
+
+/**
+ * **Primitive:** Map the requested number of bytes of the file associated with
+ * the specified [handle][AtomDescriptor] into memory, starting at the requested
+ * one-based position, and answer them as a [tuple][ByteBufferTupleDescriptor]
+ * backed directly by the [MappedByteBuffer].  No bytes are copied, and large
+ * subranges of the result are [subranges][SubrangeTupleDescriptor] of the same
+ * buffer.  The operating system reads the file lazily as the tuple is accessed,
+ * so this primitive answers immediately, without forking a fiber.
+ *
+ * If fewer bytes are available, then simply produce a shorter tuple; an empty
+ * tuple unambiguously indicates that the end of the file has been reached.  At
+ * most [MAX_MAP_SIZE] bytes are mapped at once, so larger files must be mapped
+ * one region at a time.
+ *
+ * Since tuples are immutable, the file must not change while the tuple is in
+ * use.  The primitive fails if the file is open for writing through this
+ * handle, but it can't prevent other processes from modifying the file.
+ */
+@Suppress("unused")
+object P_FileMap : Primitive(3, CanInline, HasSideEffect)
+{
+	/**
+	 * The maximum number of bytes to map at once.  Attempts to map more than
+	 * this will simply be limited to this value.
+	 */
+	private const val MAX_MAP_SIZE = 1 shl 30
+
+	override fun attempt(interpreter: Interpreter): Result
+	{
+		interpreter.checkArgumentCount(3)
+		val positionObject = interpreter.argument(0)
+		val sizeObject = interpreter.argument(1)
+		val atom = interpreter.argument(2)
+
+		val pojo = atom.getAtomProperty(FILE_KEY.atom)
+		if (pojo.isNil)
+		{
+			return interpreter.primitiveFailure(
+				if (atom.isAtomSpecial) E_SPECIAL_ATOM else E_INVALID_HANDLE)
+		}
+		val handle = pojo.javaObjectNotNull<FileHandle>()
+		if (!handle.canRead)
+		{
+			return interpreter.primitiveFailure(E_NOT_OPEN_FOR_READ)
+		}
+		if (handle.canWrite)
+		{
+			return interpreter.primitiveFailure(E_OPERATION_NOT_SUPPORTED)
+		}
+		if (!positionObject.isLong)
+		{
+			return interpreter.primitiveFailure(E_EXCEEDS_VM_LIMIT)
+		}
+		val oneBasedPositionLong = positionObject.extractLong
+		// Guaranteed positive by argument constraint.
+		assert(oneBasedPositionLong > 0L)
+		val size = min(
+			if (sizeObject.isInt) sizeObject.extractInt else MAX_MAP_SIZE,
+			MAX_MAP_SIZE)
+		val buffer = try
+		{
+			handle.mapForReading(oneBasedPositionLong - 1, size)
+		}
+		catch (e: UnsupportedOperationException)
+		{
+			return interpreter.primitiveFailure(E_OPERATION_NOT_SUPPORTED)
+		}
+		catch (e: IOException)
+		{
+			return interpreter.primitiveFailure(E_IO_ERROR)
+		}
+		if (buffer.limit() == 0)
+		{
+			return interpreter.primitiveSuccess(emptyTuple)
+		}
+		return interpreter.primitiveSuccess(
+			tupleForByteBuffer(buffer).makeShared())
+	}
+
+	override fun privateBlockTypeRestriction(): A_Type =
+		functionType(
+			tuple(
+				naturalNumbers,
+				inclusive(one, positiveInfinity),
+				ATOM.o),
+			zeroOrMoreOf(bytes))
+
+	override fun privateFailureVariableType(): A_Type =
+		enumerationWith(
+			set(
+				E_INVALID_HANDLE,
+				E_SPECIAL_ATOM,
+				E_NOT_OPEN_FOR_READ,
+				E_OPERATION_NOT_SUPPORTED,
+				E_EXCEEDS_VM_LIMIT,
+				E_IO_ERROR))
+}
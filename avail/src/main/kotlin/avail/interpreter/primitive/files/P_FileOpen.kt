@@ -159,7 +159,10 @@ object P_FileOpen : Primitive(4, CanInline, HasSideEffect)
 			alignmentInt,
 			fileOptions.contains(READ),
 			fileOptions.contains(WRITE),
-			channel)
+			channel,
+			// Only a read-only file may be mapped.  The synchronous channel
+			// that mapping requires is opened on first use.
+			if (fileOptions.contains(WRITE)) null else path)
 		val pojo = identityPojo(fileHandle)
 		atom.setAtomProperty(FILE_KEY.atom, pojo)
 		return interpreter.primitiveSuccess(atom)
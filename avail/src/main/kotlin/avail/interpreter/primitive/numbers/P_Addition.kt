@@ -69,6 +69,7 @@ import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionF
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
 import avail.interpreter.levelTwo.operation.L2_ADD_INT_TO_INT
 import avail.interpreter.levelTwo.operation.L2_BIT_LOGIC_OP
+import avail.interpreter.levelTwo.operation.L2_LONG_ARITHMETIC_OP
 import avail.optimizer.L1Translator
 import avail.optimizer.L1Translator.CallSiteHelper
 import avail.optimizer.L2Generator.Companion.edgeTo
@@ -176,6 +177,29 @@ object P_Addition : Primitive(2, CanFold, CanInline)
 		}
 	}
 
+	/**
+	 * Answer whether the sum of any values drawn from the two given [int32]
+	 * ranges is certainly outside the [int32] range, so that there's no point
+	 * trying int arithmetic.
+	 *
+	 * @param aRange
+	 *   The range of the first addend, a subrange of [int32].
+	 * @param bRange
+	 *   The range of the second addend, a subrange of [int32].
+	 * @return
+	 *   Whether every possible sum is outside the [int32] range.
+	 */
+	internal fun sumIsOutsideInt32(aRange: A_Type, bRange: A_Type): Boolean
+	{
+		// lowest and highest can be at most ±2^32, so there's lots of room in
+		// a long.
+		val lowest =
+			aRange.lowerBound.extractLong + bRange.lowerBound.extractLong
+		val highest =
+			aRange.upperBound.extractLong + bRange.upperBound.extractLong
+		return lowest > Int.MAX_VALUE || highest < Int.MIN_VALUE
+	}
+
 	override fun tryToGenerateSpecialPrimitiveInvocation(
 		functionToCallReg: L2ReadBoxedOperand,
 		rawFunction: A_RawFunction,
@@ -189,25 +213,33 @@ object P_Addition : Primitive(2, CanFold, CanInline)
 		val (aType, bType) = argumentTypes
 
 		// If either of the argument types does not intersect with int32, then
-		// fall back to the primitive invocation.
+		// try unboxed long arithmetic, which falls back to the primitive
+		// invocation if that's not possible either.
 		val aIntersectInt32 = aType.typeIntersection(int32)
 		val bIntersectInt32 = bType.typeIntersection(int32)
-		if (aType.typeIntersection(int32).isBottom
-			|| bType.typeIntersection(int32).isBottom)
+		if (aIntersectInt32.isBottom || bIntersectInt32.isBottom)
 		{
-			return false
+			return L2_LONG_ARITHMETIC_OP.add.generateBinaryLongOperation(
+				this,
+				functionToCallReg,
+				rawFunction,
+				arguments,
+				argumentTypes,
+				translator,
+				callSiteHelper)
 		}
-		// lowest and highest can be at most ±2^32, so there's lots of room in
-		// a long.
-		val lowest = aIntersectInt32.lowerBound.extractLong +
-			bIntersectInt32.lowerBound.extractLong
-		val highest = aIntersectInt32.lowerBound.extractLong +
-			bIntersectInt32.lowerBound.extractLong
-		if (lowest > Int.MAX_VALUE || highest < Int.MIN_VALUE)
+		if (sumIsOutsideInt32(aIntersectInt32, bIntersectInt32))
 		{
-			// The sum is definitely out of range, so don't bother switching to
-			// int math.
-			return false
+			// The sum is definitely out of int range, so don't bother switching
+			// to int math.  Try long math instead.
+			return L2_LONG_ARITHMETIC_OP.add.generateBinaryLongOperation(
+				this,
+				functionToCallReg,
+				rawFunction,
+				arguments,
+				argumentTypes,
+				translator,
+				callSiteHelper)
 		}
 
 		// Attempt to unbox the arguments.
@@ -261,10 +293,22 @@ object P_Addition : Primitive(2, CanFold, CanInline)
 		{
 			// The fallback block is reachable, so generate the slow case within
 			// it.  Fallback may happen from conversion of non-int32 arguments,
-			// or from int32 overflow calculating the sum.
+			// or from int32 overflow calculating the sum.  Either way, try
+			// unboxed long arithmetic before resorting to the primitive
+			// invocation.
 			generator.startBlock(fallback)
-			translator.generateGeneralFunctionInvocation(
-				functionToCallReg, arguments, false, callSiteHelper)
+			if (!L2_LONG_ARITHMETIC_OP.add.generateBinaryLongOperation(
+					this,
+					functionToCallReg,
+					rawFunction,
+					arguments,
+					argumentTypes,
+					translator,
+					callSiteHelper))
+			{
+				translator.generateGeneralFunctionInvocation(
+					functionToCallReg, arguments, false, callSiteHelper)
+			}
 		}
 		return true
 	}
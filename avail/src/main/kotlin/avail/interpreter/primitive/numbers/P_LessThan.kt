@@ -43,11 +43,13 @@ import avail.descriptor.numbers.AbstractNumberDescriptor.Order.LESS
 import avail.descriptor.numbers.AbstractNumberDescriptor.Order.MORE
 import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
 import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.isSubtypeOf
 import avail.descriptor.types.EnumerationTypeDescriptor
 import avail.descriptor.types.EnumerationTypeDescriptor.Companion.booleanType
 import avail.descriptor.types.EnumerationTypeDescriptor.Companion.falseType
 import avail.descriptor.types.EnumerationTypeDescriptor.Companion.trueType
 import avail.descriptor.types.FunctionTypeDescriptor.Companion.functionType
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int64
 import avail.descriptor.types.PrimitiveTypeDescriptor.Types.NUMBER
 import avail.interpreter.Primitive
 import avail.interpreter.Primitive.Flag.CanFold
@@ -56,12 +58,14 @@ import avail.interpreter.Primitive.Flag.CannotFail
 import avail.interpreter.execution.Interpreter
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_COMPARE_LONG
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_GREATER_THAN_CONSTANT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_LESS_THAN_CONSTANT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_LESS_THAN_OBJECT
 import avail.optimizer.L1Translator
 import avail.optimizer.L1Translator.CallSiteHelper
 import avail.optimizer.L2Generator.Companion.edgeTo
+import avail.optimizer.values.L2SemanticUnboxedLong
 
 /**
  * **Primitive:** Compare two extended integers and answer a
@@ -149,6 +153,27 @@ object P_LessThan : Primitive(2, CannotFail, CanFold, CanInline)
 					L2ConstantOperand(firstConstant),
 					edgeTo(truePath),
 					edgeTo(falsePath))
+			firstType.isSubtypeOf(int64) && secondType.isSubtypeOf(int64) ->
+			{
+				// Both values fit in a long, so compare them unboxed.  They
+				// may already be available that way, say from long
+				// arithmetic, and otherwise they can be unboxed infallibly.
+				val unboxingFailure =
+					generator.createBasicBlock("Should be unreachable")
+				val firstLong = generator.readLong(
+					L2SemanticUnboxedLong(firstReg.semanticValue()),
+					unboxingFailure)
+				val secondLong = generator.readLong(
+					L2SemanticUnboxedLong(secondReg.semanticValue()),
+					unboxingFailure)
+				assert(unboxingFailure.predecessorEdges().isEmpty())
+				L2_JUMP_IF_COMPARE_LONG.less.compareAndBranch(
+					generator,
+					firstLong,
+					secondLong,
+					edgeTo(truePath),
+					edgeTo(falsePath))
+			}
 			else ->
 				generator.addInstruction(
 					L2_JUMP_IF_LESS_THAN_OBJECT,
@@ -72,6 +72,7 @@ import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
 import avail.interpreter.levelTwo.operation.L2_BIT_LOGIC_OP
+import avail.interpreter.levelTwo.operation.L2_LONG_ARITHMETIC_OP
 import avail.interpreter.levelTwo.operation.L2_MULTIPLY_INT_BY_INT
 import avail.optimizer.L1Translator
 import avail.optimizer.L1Translator.CallSiteHelper
@@ -296,11 +297,19 @@ object P_Multiplication : Primitive(2, CanFold, CanInline)
 		val (aType, bType) = argumentTypes
 
 		// If either of the argument types does not intersect with int32, then
-		// fall back to the primitive invocation.
+		// try unboxed long arithmetic, which falls back to the primitive
+		// invocation if that's not possible either.
 		if (aType.typeIntersection(int32).isBottom
 			|| bType.typeIntersection(int32).isBottom)
 		{
-			return false
+			return L2_LONG_ARITHMETIC_OP.multiply.generateBinaryLongOperation(
+				this,
+				functionToCallReg,
+				rawFunction,
+				arguments,
+				argumentTypes,
+				translator,
+				callSiteHelper)
 		}
 
 		// Attempt to unbox the arguments.
@@ -356,10 +365,22 @@ object P_Multiplication : Primitive(2, CanFold, CanInline)
 		{
 			// The fallback block is reachable, so generate the slow case within
 			// it.  Fallback may happen from conversion of non-int32 arguments,
-			// or from int32 overflow calculating the product.
+			// or from int32 overflow calculating the product.  Either way, try
+			// unboxed long arithmetic before resorting to the primitive
+			// invocation.
 			generator.startBlock(fallback)
-			translator.generateGeneralFunctionInvocation(
-				functionToCallReg, arguments, false, callSiteHelper)
+			if (!L2_LONG_ARITHMETIC_OP.multiply.generateBinaryLongOperation(
+					this,
+					functionToCallReg,
+					rawFunction,
+					arguments,
+					argumentTypes,
+					translator,
+					callSiteHelper))
+			{
+				translator.generateGeneralFunctionInvocation(
+					functionToCallReg, arguments, false, callSiteHelper)
+			}
 		}
 		return true
 	}
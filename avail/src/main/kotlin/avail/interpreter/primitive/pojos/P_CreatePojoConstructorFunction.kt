@@ -130,6 +130,8 @@ object P_CreatePojoConstructorFunction : Primitive(2, CanInline, CanFold)
 					zeroOrMoreOf(RAW_POJO.o))
 			}
 		}
+		// Adapt the constructor's invoker now, rather than on its first call.
+		PojoInvoker.forConstructor(constructor)
 		val function = createWithOuters2(
 			rawFunction,
 			// Outer#1 = Constructor to invoke.
@@ -150,6 +150,8 @@ object P_CreatePojoInstanceMethodFunction : Primitive(3, CanInline, CanFold)
 					oneOrMoreOf(RAW_POJO.o))
 			}
 		}
+		// Adapt the method's invoker now, rather than on its first call.
+		PojoInvoker.forMethod(method)
 		val function = createWithOuters2(
 			rawFunction,
 			// Outer#1 = Instance method to invoke.
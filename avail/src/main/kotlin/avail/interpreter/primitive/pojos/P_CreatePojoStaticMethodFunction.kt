@@ -137,6 +137,8 @@ object P_CreatePojoStaticMethodFunction : Primitive(3, CanInline, CanFold)
 					zeroOrMoreOf(RAW_POJO.o))
 			}
 		}
+		// Adapt the method's invoker now, rather than on its first call.
+		PojoInvoker.forMethod(method)
 		val function = createWithOuters2(
 			rawFunction,
 			// Outer#1 = Static method to invoke.
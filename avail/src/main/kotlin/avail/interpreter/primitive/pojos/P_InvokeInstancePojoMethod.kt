@@ -37,24 +37,18 @@ import avail.descriptor.pojos.PojoDescriptor.Companion.newPojo
 import avail.descriptor.pojos.PojoDescriptor.Companion.nullPojo
 import avail.descriptor.pojos.RawPojoDescriptor.Companion.identityPojo
 import avail.descriptor.tuples.A_Tuple
-import avail.descriptor.tuples.A_Tuple.Companion.copyTupleFromToCanDestroy
 import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
-import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
-import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.returnType
 import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
 import avail.descriptor.types.PojoTypeDescriptor.Companion.pojoTypeForClass
 import avail.descriptor.types.PojoTypeDescriptor.Companion.unmarshal
-import avail.exceptions.AvailErrorCode
+import avail.exceptions.AvailErrorCode.E_JAVA_MARSHALING_FAILED
 import avail.exceptions.MarshalingException
 import avail.interpreter.Primitive
 import avail.interpreter.Primitive.Flag.HasSideEffect
 import avail.interpreter.Primitive.Flag.Private
 import avail.interpreter.execution.Interpreter
-import avail.interpreter.primitive.pojos.PrimitiveHelper.marshalValues
-import avail.utility.Mutable
-import java.lang.reflect.InvocationTargetException
 import java.lang.reflect.Method
 
 /**
@@ -70,14 +64,15 @@ import java.lang.reflect.Method
  *
  * The current function was constructed via
  * [P_CreatePojoInstanceMethodFunction], and has two outer values: the Java
- * [Method] and the [tuple][A_Tuple] of marshaled types.
+ * [Method] and the [tuple][A_Tuple] of marshaled types.  The call goes through
+ * the method's [PojoInvoker].
  */
 @Suppress("unused")
 object P_InvokeInstancePojoMethod : Primitive(-1, Private, HasSideEffect)
 {
 	override fun attempt(interpreter: Interpreter): Result
 	{
-		val methodArgs = tupleFromList(interpreter.argsBuffer)
+		val methodArgs = interpreter.argsBuffer
 
 		val primitiveFunction = interpreter.function!!
 		val primitiveRawFunction = primitiveFunction.code()
@@ -91,39 +86,27 @@ object P_InvokeInstancePojoMethod : Primitive(-1, Private, HasSideEffect)
 		interpreter.availLoaderOrNull()?.statementCanBeSummarized(false)
 
 		// Marshal the arguments.
-		val method = methodPojo.javaObjectNotNull<Method>()
-		val errorOut = Mutable<AvailErrorCode?>(null)
-		val receiver = methodArgs.tupleAt(1).marshalToJava(
-			marshaledTypes.tupleAt(1).javaObject())
-		val marshaledArgs = marshalValues(
-			marshaledTypes.copyTupleFromToCanDestroy(
-				2, marshaledTypes.tupleSize, false),
-			methodArgs.copyTupleFromToCanDestroy(
-				2, methodArgs.tupleSize, false),
-			errorOut)
-		if (errorOut.value !== null)
+		val invoker =
+			PojoInvoker.forMethod(methodPojo.javaObjectNotNull<Method>())
+		val marshaledArgs = try
 		{
-			val e = errorOut.value!!
+			invoker.marshal(
+				methodArgs, marshaledTypes.tupleAt(1).javaObject())
+		}
+		catch (e: MarshalingException)
+		{
+			val code = E_JAVA_MARSHALING_FAILED
 			return interpreter.primitiveFailure(
-				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
+				newPojo(identityPojo(code), pojoTypeForClass(code.javaClass)))
 		}
 
 		// Invoke the instance method.
 		val result: Any? = try
 		{
-			method(receiver, *marshaledArgs!!)
-		}
-		catch (e: InvocationTargetException)
-		{
-			val cause = e.cause!!
-			return interpreter.primitiveFailure(
-				newPojo(
-					identityPojo(cause), pojoTypeForClass(cause.javaClass)))
+			invoker.invoke(marshaledArgs)
 		}
 		catch (e: Throwable)
 		{
-			// This is an unexpected failure in the invocation mechanism.  For
-			// now, report it like an expected InvocationTargetException.
 			return interpreter.primitiveFailure(
 				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
 		}
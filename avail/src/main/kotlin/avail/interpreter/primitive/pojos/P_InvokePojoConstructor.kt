@@ -36,22 +36,18 @@ import avail.descriptor.functions.A_RawFunction
 import avail.descriptor.pojos.PojoDescriptor.Companion.newPojo
 import avail.descriptor.pojos.RawPojoDescriptor.Companion.identityPojo
 import avail.descriptor.tuples.A_Tuple
-import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.returnType
 import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
 import avail.descriptor.types.PojoTypeDescriptor.Companion.pojoTypeForClass
 import avail.descriptor.types.PojoTypeDescriptor.Companion.unmarshal
-import avail.exceptions.AvailErrorCode
+import avail.exceptions.AvailErrorCode.E_JAVA_MARSHALING_FAILED
 import avail.exceptions.MarshalingException
 import avail.interpreter.Primitive
 import avail.interpreter.Primitive.Flag.HasSideEffect
 import avail.interpreter.Primitive.Flag.Private
 import avail.interpreter.execution.Interpreter
-import avail.interpreter.primitive.pojos.PrimitiveHelper.marshalValues
-import avail.utility.Mutable
 import java.lang.reflect.Constructor
-import java.lang.reflect.InvocationTargetException
 
 /**
  * **Primitive:** Invoke a Java [Constructor], passing marshaled forms of this
@@ -62,7 +58,8 @@ import java.lang.reflect.InvocationTargetException
  *
  * The current function was constructed via [P_CreatePojoConstructorFunction],
  * and has two outer values: the Java [Constructor] and the [tuple][A_Tuple] of
- * marshaled [types][A_Type].
+ * marshaled [types][A_Type].  The call goes through the constructor's
+ * [PojoInvoker], which already knows the marshaled types.
  *
  * @author Todd L Smith &lt;todd@availlang.org&gt;
  * @author Mark van Gulik &lt;mark@availlang.org&gt;
@@ -72,49 +69,39 @@ object P_InvokePojoConstructor : Primitive(-1, Private, HasSideEffect)
 {
 	override fun attempt(interpreter: Interpreter): Result
 	{
-		val constructorArgs = tupleFromList(interpreter.argsBuffer)
+		val constructorArgs = interpreter.argsBuffer
 
 		val primitiveFunction = interpreter.function!!
 		val primitiveRawFunction = primitiveFunction.code()
 		assert(primitiveRawFunction.codePrimitive() === this)
 
 		val constructorPojo = primitiveFunction.outerVarAt(1)
-		val marshaledTypes = primitiveFunction.outerVarAt(2)
 		// The exact return kind was captured in the function type.
 		val expectedType = primitiveRawFunction.functionType().returnType
 
 		interpreter.availLoaderOrNull()?.statementCanBeSummarized(false)
 
 		// Marshal the arguments.
-		val constructor = constructorPojo.javaObjectNotNull<Constructor<*>>()
-		val errorOut = Mutable<AvailErrorCode?>(null)
-		val marshaledArgs = marshalValues(
-			marshaledTypes, constructorArgs, errorOut)
-		if (errorOut.value !== null)
+		val invoker = PojoInvoker.forConstructor(
+			constructorPojo.javaObjectNotNull<Constructor<*>>())
+		val marshaledArgs = try
 		{
-			val e = errorOut.value!!
+			invoker.marshal(constructorArgs)
+		}
+		catch (e: MarshalingException)
+		{
+			val code = E_JAVA_MARSHALING_FAILED
 			return interpreter.primitiveFailure(
-				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
+				newPojo(identityPojo(code), pojoTypeForClass(code.javaClass)))
 		}
 
 		// Invoke the constructor.
-		val result: Any
-		try
+		val result: Any = try
 		{
-			result = marshaledArgs
-				?.let { constructor.newInstance(*it) }
-				?: constructor.newInstance(null)
-		}
-		catch (e: InvocationTargetException)
-		{
-			val cause = e.cause!!
-			return interpreter.primitiveFailure(
-				newPojo(identityPojo(cause), pojoTypeForClass(cause.javaClass)))
+			invoker.invoke(marshaledArgs)!!
 		}
 		catch (e: Throwable)
 		{
-			// This is an unexpected failure in the invocation mechanism.  For
-			// now, report it like an expected InvocationTargetException.
 			return interpreter.primitiveFailure(
 				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
 		}
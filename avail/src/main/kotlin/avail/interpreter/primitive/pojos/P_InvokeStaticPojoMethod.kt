@@ -37,21 +37,17 @@ import avail.descriptor.pojos.PojoDescriptor.Companion.newPojo
 import avail.descriptor.pojos.PojoDescriptor.Companion.nullPojo
 import avail.descriptor.pojos.RawPojoDescriptor.Companion.identityPojo
 import avail.descriptor.tuples.A_Tuple
-import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.returnType
 import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
 import avail.descriptor.types.PojoTypeDescriptor.Companion.pojoTypeForClass
 import avail.descriptor.types.PojoTypeDescriptor.Companion.unmarshal
-import avail.exceptions.AvailErrorCode
+import avail.exceptions.AvailErrorCode.E_JAVA_MARSHALING_FAILED
 import avail.exceptions.MarshalingException
 import avail.interpreter.Primitive
 import avail.interpreter.Primitive.Flag.HasSideEffect
 import avail.interpreter.Primitive.Flag.Private
 import avail.interpreter.execution.Interpreter
-import avail.interpreter.primitive.pojos.PrimitiveHelper.marshalValues
-import avail.utility.Mutable
-import java.lang.reflect.InvocationTargetException
 import java.lang.reflect.Method
 
 /**
@@ -63,7 +59,8 @@ import java.lang.reflect.Method
  *
  * The current function was constructed via [P_CreatePojoStaticMethodFunction],
  * and has two outer values: the Java [Method] and the [tuple][A_Tuple] of
- * marshaled [types][A_Type].
+ * marshaled [types][A_Type].  The call goes through the method's
+ * [PojoInvoker], which already knows the marshaled types.
  *
  * @author Todd L Smith &lt;todd@availlang.org&gt;
  */
@@ -72,47 +69,38 @@ object P_InvokeStaticPojoMethod : Primitive(-1, Private, HasSideEffect)
 {
 	override fun attempt(interpreter: Interpreter): Result
 	{
-		val methodArgs = tupleFromList(interpreter.argsBuffer)
+		val methodArgs = interpreter.argsBuffer
 		val primitiveFunction = interpreter.function!!
 		val primitiveRawFunction = primitiveFunction.code()
 		assert(primitiveRawFunction.codePrimitive() === this)
 
 		val methodPojo = primitiveFunction.outerVarAt(1)
-		val marshaledTypes = primitiveFunction.outerVarAt(2)
 		// The exact return kind was captured in the function type.
 		val expectedType = primitiveRawFunction.functionType().returnType
 
 		interpreter.availLoaderOrNull()?.statementCanBeSummarized(false)
 
 		// Marshal the arguments.
-		val method = methodPojo.javaObjectNotNull<Method>()
-		val errorOut = Mutable<AvailErrorCode?>(null)
-		val marshaledArgs = marshalValues(marshaledTypes, methodArgs, errorOut)
-		if (errorOut.value !== null)
+		val invoker =
+			PojoInvoker.forMethod(methodPojo.javaObjectNotNull<Method>())
+		val marshaledArgs = try
 		{
-			val e = errorOut.value!!
+			invoker.marshal(methodArgs)
+		}
+		catch (e: MarshalingException)
+		{
+			val code = E_JAVA_MARSHALING_FAILED
 			return interpreter.primitiveFailure(
-				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
+				newPojo(identityPojo(code), pojoTypeForClass(code.javaClass)))
 		}
 
 		// Invoke the static method.
-		val result: Any?
-		try
+		val result: Any? = try
 		{
-			result = marshaledArgs
-				?.let { method(null, *it) }
-				?: method(null, null)
-		}
-		catch (e: InvocationTargetException)
-		{
-			val cause = e.cause!!
-			return interpreter.primitiveFailure(
-				newPojo(identityPojo(cause), pojoTypeForClass(cause.javaClass)))
+			invoker.invoke(marshaledArgs)
 		}
 		catch (e: Throwable)
 		{
-			// This is an unexpected failure in the invocation mechanism.  For
-			// now, report it like an expected InvocationTargetException.
 			return interpreter.primitiveFailure(
 				newPojo(identityPojo(e), pojoTypeForClass(e.javaClass)))
 		}
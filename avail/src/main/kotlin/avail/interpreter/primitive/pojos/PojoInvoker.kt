@@ -0,0 +1,219 @@
+/*
+ * PojoInvoker.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.interpreter.primitive.pojos
+
+import avail.descriptor.representation.AvailObject
+import avail.exceptions.MarshalingException
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType.genericMethodType
+import java.lang.reflect.Constructor
+import java.lang.reflect.Executable
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A `PojoInvoker` calls a Java [Method] or [Constructor] on behalf of the pojo
+ * invocation [primitives][P_InvokeInstancePojoMethod].  It is built once per
+ * member, and holds a [MethodHandle] that has already been adapted to accept a
+ * single array of marshaled arguments (starting with the receiver, if any) and
+ * to answer an [Any]?, so that each call is a single
+ * [invokeExact][MethodHandle.invokeExact] rather than a reflective
+ * [Method.invoke] with its access checks and
+ * [InvocationTargetException][java.lang.reflect.InvocationTargetException]
+ * wrapping.  Exceptions raised by the Java code propagate unwrapped.
+ *
+ * @property hasReceiver
+ *   Whether the first argument is the receiver of an instance method.
+ * @property parameterTypes
+ *   The [Class]es that guide marshaling of the (non-receiver) arguments.
+ * @property handle
+ *   The [MethodHandle], of type `(Object[])Object`, that invokes the member.
+ *
+ * @constructor
+ * Construct a new `PojoInvoker`.
+ *
+ * @param hasReceiver
+ *   Whether the first argument is the receiver of an instance method.
+ * @param parameterTypes
+ *   The [Class]es that guide marshaling of the (non-receiver) arguments.
+ * @param handle
+ *   The [MethodHandle], of type `(Object[])Object`, that invokes the member.
+ */
+class PojoInvoker private constructor(
+	private val hasReceiver: Boolean,
+	private val parameterTypes: Array<Class<*>>,
+	private val handle: MethodHandle)
+{
+	/**
+	 * Marshal the given Avail values for a call through this invoker.
+	 *
+	 * @param args
+	 *   The Avail arguments, starting with the receiver if [hasReceiver].
+	 * @param receiverHint
+	 *   The [Class] that guides marshaling of the receiver, if any.
+	 * @return
+	 *   The marshaled arguments, suitable for [invoke].
+	 * @throws MarshalingException
+	 *   If some argument could not be marshaled.
+	 */
+	@Throws(MarshalingException::class)
+	fun marshal(
+		args: List<AvailObject>,
+		receiverHint: Class<*>? = null
+	): Array<Any?>
+	{
+		val offset = if (hasReceiver) 1 else 0
+		assert(args.size == parameterTypes.size + offset)
+		return Array(args.size) {
+			when
+			{
+				it < offset -> args[it].marshalToJava(receiverHint)
+				else -> args[it].marshalToJava(parameterTypes[it - offset])
+			}
+		}
+	}
+
+	/**
+	 * Invoke the Java member with the already [marshaled][marshal] arguments.
+	 * Any [Throwable] raised by the member is propagated as is.
+	 *
+	 * @param arguments
+	 *   The marshaled arguments.
+	 * @return
+	 *   The value answered by the member, or `null` for a `void` method.
+	 */
+	fun invoke(arguments: Array<Any?>): Any? = handle.invokeExact(arguments)
+
+	companion object
+	{
+		/**
+		 * The `PojoInvoker`s that have been built, held per declaring class so
+		 * that they do not prevent the class from being unloaded.
+		 */
+		private val invokers =
+			object : ClassValue<ConcurrentHashMap<Executable, PojoInvoker>>()
+			{
+				override fun computeValue(type: Class<*>) =
+					ConcurrentHashMap<Executable, PojoInvoker>()
+			}
+
+		/**
+		 * Answer the `PojoInvoker` for the given [Method], building it if
+		 * necessary.
+		 *
+		 * @param method
+		 *   The (instance or static) [Method].
+		 * @return
+		 *   The requested `PojoInvoker`.
+		 */
+		fun forMethod(method: Method): PojoInvoker =
+			invokers.get(method.declaringClass).computeIfAbsent(method) {
+				val isStatic = Modifier.isStatic(method.modifiers)
+				newInvoker(
+					!isStatic,
+					method.parameterTypes,
+					method.parameterCount + if (isStatic) 0 else 1)
+				{
+					MethodHandles.publicLookup().unreflect(method)
+				}
+			}
+
+		/**
+		 * Answer the `PojoInvoker` for the given [Constructor], building it if
+		 * necessary.
+		 *
+		 * @param constructor
+		 *   The [Constructor].
+		 * @return
+		 *   The requested `PojoInvoker`.
+		 */
+		fun forConstructor(constructor: Constructor<*>): PojoInvoker =
+			invokers.get(constructor.declaringClass)
+				.computeIfAbsent(constructor) {
+					newInvoker(
+						false,
+						constructor.parameterTypes,
+						constructor.parameterCount)
+					{
+						MethodHandles.publicLookup()
+							.unreflectConstructor(constructor)
+					}
+				}
+
+		/**
+		 * Build a `PojoInvoker`, adapting the [MethodHandle] produced by
+		 * [unreflect] to the `(Object[])Object` shape.  If the member is not
+		 * accessible, the resulting invoker throws the
+		 * [IllegalAccessException] on each call, just as reflective invocation
+		 * would.
+		 *
+		 * @param hasReceiver
+		 *   Whether the first argument is the receiver.
+		 * @param parameterTypes
+		 *   The member's parameter [Class]es.
+		 * @param arity
+		 *   The total number of arguments, including any receiver.
+		 * @param unreflect
+		 *   How to obtain a direct [MethodHandle] on the member.
+		 * @return
+		 *   The new `PojoInvoker`.
+		 */
+		private fun newInvoker(
+			hasReceiver: Boolean,
+			parameterTypes: Array<Class<*>>,
+			arity: Int,
+			unreflect: () -> MethodHandle
+		): PojoInvoker
+		{
+			val handle = try
+			{
+				unreflect()
+					.asFixedArity()
+					.asType(genericMethodType(arity))
+					.asSpreader(Array<Any?>::class.java, arity)
+			}
+			catch (e: IllegalAccessException)
+			{
+				MethodHandles.dropArguments(
+					MethodHandles.throwException(
+						Any::class.java, IllegalAccessException::class.java
+					).bindTo(e),
+					0,
+					Array<Any?>::class.java)
+			}
+			return PojoInvoker(hasReceiver, parameterTypes, handle)
+		}
+	}
+}
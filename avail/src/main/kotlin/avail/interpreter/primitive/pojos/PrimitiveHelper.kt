@@ -43,9 +43,6 @@ import avail.descriptor.numbers.A_Number.Companion.extractInt
 import avail.descriptor.representation.NilDescriptor.Companion.nil
 import avail.descriptor.tuples.A_String
 import avail.descriptor.tuples.A_String.Companion.asNativeString
-import avail.descriptor.tuples.A_Tuple
-import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
-import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
 import avail.descriptor.types.A_Type
 import avail.descriptor.types.A_Type.Companion.argsTupleType
 import avail.descriptor.types.A_Type.Companion.lowerBound
@@ -60,10 +57,8 @@ import avail.descriptor.types.VariableTypeDescriptor.Companion.variableTypeFor
 import avail.exceptions.AvailErrorCode
 import avail.exceptions.AvailErrorCode.E_JAVA_FIELD_NOT_AVAILABLE
 import avail.exceptions.AvailErrorCode.E_JAVA_FIELD_REFERENCE_IS_AMBIGUOUS
-import avail.exceptions.AvailErrorCode.E_JAVA_MARSHALING_FAILED
 import avail.exceptions.AvailErrorCode.E_JAVA_METHOD_NOT_AVAILABLE
 import avail.exceptions.AvailErrorCode.E_JAVA_METHOD_REFERENCE_IS_AMBIGUOUS
-import avail.exceptions.MarshalingException
 import avail.interpreter.Primitive
 import avail.interpreter.levelOne.L1InstructionWriter
 import avail.interpreter.levelOne.L1Operation.L1_doCall
@@ -270,39 +265,4 @@ object PrimitiveHelper
 		// this raw function non-reflective for safety.
 		return writer.compiledCode()
 	}
-
-	/**
-	 * Marshal the specified values using the provided
-	 * [marshaling&#32;types][A_Type].
-	 *
-	 * @param marshaledTypes
-	 *   The marshaled types.
-	 * @param args
-	 *   The values to marshal using the corresponding types.
-	 * @param errorOut
-	 *   A [Mutable] into which an [AvailErrorCode] can be written in the event
-	 *   that marshaling fails for some value.
-	 * @return
-	 *   The marshaled values.
-	 */
-	internal fun marshalValues(
-		marshaledTypes: A_Tuple,
-		args: A_Tuple,
-		errorOut: Mutable<AvailErrorCode?>
-	): Array<Any?>?
-	{
-		assert(marshaledTypes.tupleSize == args.tupleSize)
-		return try
-		{
-			Array(args.tupleSize) {
-				args.tupleAt(it + 1).marshalToJava(
-					marshaledTypes.tupleAt(it + 1).javaObjectNotNull())
-			}
-		}
-		catch (e: MarshalingException)
-		{
-			errorOut.value = E_JAVA_MARSHALING_FAILED
-			return null
-		}
-	}
 }
@@ -40,20 +40,28 @@ import avail.descriptor.atoms.AtomDescriptor.SpecialAtom
 import avail.descriptor.pojos.PojoDescriptor
 import avail.descriptor.representation.AvailObject.Companion.multiplier
 import avail.descriptor.tuples.A_String
+import avail.descriptor.tuples.A_String.Companion.asNativeString
 import avail.descriptor.tuples.A_Tuple
 import org.availlang.cache.LRUCache
 import avail.utility.Mutable
 import avail.utility.SimpleThreadFactory
 import java.io.IOException
+import java.nio.ByteBuffer
 import java.nio.channels.AsynchronousChannelGroup
 import java.nio.channels.AsynchronousFileChannel
 import java.nio.channels.AsynchronousServerSocketChannel
 import java.nio.channels.AsynchronousSocketChannel
+import java.nio.channels.ClosedChannelException
+import java.nio.channels.FileChannel
+import java.nio.channels.FileChannel.MapMode.READ_ONLY
 import java.nio.file.FileSystem
 import java.nio.file.FileSystems
+import java.nio.file.Files
 import java.nio.file.LinkOption
 import java.nio.file.OpenOption
 import java.nio.file.Path
+import java.nio.file.StandardOpenOption.READ
+import java.nio.file.attribute.BasicFileAttributes
 import java.nio.file.attribute.FileAttribute
 import java.nio.file.attribute.PosixFilePermission
 import java.nio.file.attribute.PosixFilePermission.GROUP_EXECUTE
@@ -70,6 +78,7 @@ import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy
 import java.util.concurrent.TimeUnit
+import kotlin.math.min
 
 /**
  * This aggregates socket and file I/O information and behavior specific to an
@@ -324,6 +333,11 @@ class IOSystem
 	 * @property channel
 	 *  The underlying [AsynchronousFileChannel] through which input and/or
 	 *  output takes place.
+	 * @property mappablePath
+	 *   The path of the file, if it may be [mapped][mapForReading].  Mapping
+	 *   needs a synchronous [FileChannel], since an [AsynchronousFileChannel]
+	 *   can't be mapped, so one is opened on this path the first time the file
+	 *   is mapped, and closed along with the [channel].
 	 *
 	 * @constructor
 	 * Construct a new file handle.
@@ -338,14 +352,81 @@ class IOSystem
 	 *   Whether the file can be written.
 	 * @param channel
 	 *   The [AsynchronousFileChannel] with which to do reading and writing.
+	 * @param mappablePath
+	 *   The path through which to map the file, if it may be mapped.
 	 */
 	class FileHandle constructor(
 		val filename: A_String,
 		val alignment: Int,
 		val canRead: Boolean,
 		val canWrite: Boolean,
-		val channel: AsynchronousFileChannel)
+		val channel: AsynchronousFileChannel,
+		private val mappablePath: Path? = null)
 	{
+		/**
+		 * The [file&#32;key][BasicFileAttributes.fileKey] of the file at the
+		 * [mappablePath] when this handle was created, or `null` if it isn't
+		 * available.  The [mappableChannel] is only used if it opens the same
+		 * file, so a file that has since been renamed or replaced is never
+		 * mapped in place of the one that the [channel] refers to.
+		 */
+		private val fileKey: Any? = mappablePath?.let { fileKeyAt(it) }
+
+		/**
+		 * The read-only [FileChannel] through which the file is mapped, or
+		 * `null` if it hasn't been needed yet.  Access is synchronized on the
+		 * `FileHandle`.
+		 */
+		private var mappableChannel: FileChannel? = null
+
+		/** Whether the handle has been [closed][close]. */
+		private var isClosed = false
+
+		/**
+		 * Whether the [mappableChannel] has been opened, and not yet closed.
+		 */
+		internal val hasOpenMappableChannel: Boolean
+			@Synchronized get() = mappableChannel?.isOpen == true
+
+		/**
+		 * Answer the [mappableChannel], opening it if necessary.
+		 *
+		 * @return
+		 *   The open [FileChannel].
+		 * @throws UnsupportedOperationException
+		 *   If the file can't be mapped.
+		 * @throws IOException
+		 *   If the handle is closed, the channel can't be opened, or the file
+		 *   at the [mappablePath] is no longer the one that was opened.
+		 */
+		@Synchronized
+		@Throws(UnsupportedOperationException::class, IOException::class)
+		private fun openMappableChannel(): FileChannel
+		{
+			if (isClosed) throw ClosedChannelException()
+			mappableChannel?.let { return it }
+			val path = mappablePath
+				?: throw UnsupportedOperationException(
+					"${filename.asNativeString()} can't be mapped")
+			val fileChannel = try
+			{
+				FileChannel.open(path, READ)
+			}
+			catch (e: SecurityException)
+			{
+				throw UnsupportedOperationException(
+					"${filename.asNativeString()} can't be mapped", e)
+			}
+			if (fileKey !== null && fileKey != fileKeyAt(path))
+			{
+				fileChannel.close()
+				throw IOException(
+					"${filename.asNativeString()} was replaced after opening")
+			}
+			mappableChannel = fileChannel
+			return fileChannel
+		}
+
 		/**
 		 * A weak set of [BufferKey]s pertaining to this file, for which there
 		 * may be entries in the [global][getBuffer].  Since the buffer keys are
@@ -354,6 +435,82 @@ class IOSystem
 		 * removals to happen efficiently.
 		 */
 		val bufferKeys = WeakHashMap<BufferKey, Void>()
+
+		/**
+		 * Map a region of the file into memory, read-only.  This happens
+		 * synchronously, without involving the [IOSystem.fileExecutor]; the
+		 * operating system reads the pages lazily as the buffer is accessed.
+		 * The mapping remains valid after the file has been closed, and is
+		 * released when the buffer is garbage collected.
+		 *
+		 * @param position
+		 *   The zero-based position in the file of the first byte to map.
+		 * @param size
+		 *   The maximum number of bytes to map.  Fewer bytes are mapped if the
+		 *   file ends first.
+		 * @return
+		 *   The [ByteBuffer], possibly empty, whose position is zero.
+		 * @throws UnsupportedOperationException
+		 *   If the file has no [mappablePath].
+		 * @throws IOException
+		 *   If the file can't be mapped.
+		 */
+		@Throws(UnsupportedOperationException::class, IOException::class)
+		fun mapForReading(position: Long, size: Int): ByteBuffer
+		{
+			val fileChannel = openMappableChannel()
+			val available = fileChannel.size() - position
+			if (available <= 0) return ByteBuffer.allocate(0)
+			return fileChannel.map(
+				READ_ONLY, position, min(size.toLong(), available))
+		}
+
+		/**
+		 * Close the [channel] and the [mappableChannel], if it was opened.
+		 * Regions that were already [mapped][mapForReading] remain valid.
+		 *
+		 * @throws IOException
+		 *   If either channel fails to close.
+		 */
+		@Throws(IOException::class)
+		fun close()
+		{
+			val fileChannel = synchronized(this) {
+				isClosed = true
+				mappableChannel.also { mappableChannel = null }
+			}
+			try
+			{
+				channel.close()
+			}
+			finally
+			{
+				fileChannel?.close()
+			}
+		}
+
+		companion object
+		{
+			/**
+			 * Answer the [file&#32;key][BasicFileAttributes.fileKey] of the
+			 * file at the given path, or `null` if it isn't available.
+			 *
+			 * @param path
+			 *   The path of the file.
+			 * @return
+			 *   The file key, or `null`.
+			 */
+			private fun fileKeyAt(path: Path): Any? =
+				try
+				{
+					Files.readAttributes(path, BasicFileAttributes::class.java)
+						.fileKey()
+				}
+				catch (e: IOException)
+				{
+					null
+				}
+		}
 	}
 
 	/**
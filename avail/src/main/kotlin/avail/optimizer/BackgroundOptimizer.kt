@@ -0,0 +1,293 @@
+/*
+ * BackgroundOptimizer.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of the copyright holder nor the names of the contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.optimizer
+
+import avail.AvailRuntime
+import avail.AvailRuntimeConfiguration.maxOptimizerInterpreters
+import avail.AvailRuntimeSupport
+import avail.AvailThread
+import avail.descriptor.fiber.FiberDescriptor
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.countdownToReoptimize
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.levelTwo.L2Chunk
+import avail.performance.Statistic
+import avail.performance.StatisticReport.L2_OPTIMIZATION_TIME
+import avail.performance.StatisticReport.L2_TRANSLATION_VALUES
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.logging.Level
+import java.util.logging.Logger
+import kotlin.math.max
+
+/**
+ * A `BackgroundOptimizer` owns a small, bounded pool of [AvailThread]s that
+ * translate hot [A_RawFunction]s into optimized [L2Chunk]s.  When a raw
+ * function's countdown reaches zero, the fiber that noticed it [enqueue]s a
+ * request here and continues running the code's current chunk.  When the
+ * translation completes, the new chunk is installed as the code's starting
+ * chunk, which subsequent calls pick up.
+ *
+ * Translation reads method definitions and registers chunk dependencies, so
+ * it must never overlap a safe point.  Each request therefore runs as an
+ * interpreter task, as accounted for by
+ * [AvailRuntime.tryBeginInterpreterTask].  If a safe point is pending, the
+ * request is postponed until interpreters may run again.
+ *
+ * @property runtime
+ *   The [AvailRuntime] whose code is being optimized.
+ * @property translate
+ *   How to translate an [A_RawFunction] at an [OptimizationLevel], which is
+ *   normally just [OptimizationLevel.optimize].
+ *
+ * @constructor
+ * Create a `BackgroundOptimizer` for the given [AvailRuntime].  No threads
+ * are started until the first request is enqueued.
+ */
+class BackgroundOptimizer constructor(
+	private val runtime: AvailRuntime,
+	private val translate: (
+		OptimizationLevel, A_RawFunction, Interpreter) -> Unit =
+			{ level, code, interpreter -> level.optimize(code, interpreter) })
+{
+	/**
+	 * The [ThreadPoolExecutor] that runs translation requests.  Its queue is
+	 * bounded, so that a burst of newly hot code can't accumulate an unbounded
+	 * backlog; requests that don't fit are optimized synchronously by the
+	 * caller instead.
+	 */
+	private val executor = ThreadPoolExecutor(
+		maxOptimizerInterpreters,
+		maxOptimizerInterpreters,
+		0L,
+		TimeUnit.MILLISECONDS,
+		LinkedBlockingQueue(maximumQueueDepth),
+		{ AvailThread(it, Interpreter(runtime)) },
+		ThreadPoolExecutor.AbortPolicy())
+
+	/**
+	 * Attempt to queue the given [A_RawFunction] for translation at the given
+	 * [OptimizationLevel].  This must be called while holding the raw
+	 * function's monitor, as `decrementCountdownToReoptimize` does, so that
+	 * only one request is queued for each zero crossing.
+	 *
+	 * If the request was accepted, the code's countdown is parked at
+	 * [Long.MAX_VALUE], so that callers stop attempting to reoptimize it until
+	 * the new chunk has been installed (which sets a fresh countdown), or
+	 * until the translation has failed (which restores the countdown that led
+	 * to it).
+	 *
+	 * @param code
+	 *   The [A_RawFunction] to optimize.
+	 * @param level
+	 *   The [OptimizationLevel] to apply.
+	 * @return
+	 *   `true` if the request was queued, or `false` if the caller must
+	 *   perform the optimization itself.
+	 */
+	fun enqueue(code: A_RawFunction, level: OptimizationLevel): Boolean
+	{
+		if (executor.isShutdown) return false
+		val queuedTime = AvailRuntimeSupport.captureNanos()
+		code.countdownToReoptimize(Long.MAX_VALUE)
+		try
+		{
+			executor.execute { optimize(code, level, queuedTime) }
+		}
+		catch (e: RejectedExecutionException)
+		{
+			rejectedStat.record(1)
+			return false
+		}
+		return true
+	}
+
+	/**
+	 * Attempt to queue some other translation work, such as compiling a hot
+	 * lookup tree, that doesn't read method definitions or register chunk
+	 * dependencies, and therefore need not run as an interpreter task.  The
+	 * task must tolerate whatever it translates having been replaced in the
+	 * meantime.
+	 *
+	 * @param description
+	 *   A description of the task, for logging if it fails.
+	 * @param task
+	 *   The task to run in an optimizer thread.
+	 * @return
+	 *   `true` if the task was queued, or `false` if it was rejected, in
+	 *   which case the caller may try again later.
+	 */
+	fun enqueueTask(description: String, task: () -> Unit): Boolean
+	{
+		if (executor.isShutdown) return false
+		try
+		{
+			executor.execute {
+				try
+				{
+					task()
+				}
+				catch (e: Throwable)
+				{
+					logger.log(
+						Level.SEVERE,
+						"Background translation of $description failed",
+						e)
+				}
+			}
+		}
+		catch (e: RejectedExecutionException)
+		{
+			rejectedStat.record(1)
+			return false
+		}
+		return true
+	}
+
+	/**
+	 * Perform the requested translation in an optimizer thread, as an
+	 * interpreter task.  If a safe point is running or has been requested,
+	 * postpone the request until interpreters may run again.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] to optimize.
+	 * @param level
+	 *   The [OptimizationLevel] to apply.
+	 * @param queuedTime
+	 *   When the request was first queued, in nanoseconds.
+	 */
+	private fun optimize(
+		code: A_RawFunction,
+		level: OptimizationLevel,
+		queuedTime: Long)
+	{
+		if (!runtime.tryBeginInterpreterTask())
+		{
+			runtime.whenRunningInterpretersDo(FiberDescriptor.compilerPriority)
+			{
+				// Try to hand it back to the optimizer threads, but if there's
+				// no room, we're already in an interpreter task, so just do it.
+				try
+				{
+					executor.execute { optimize(code, level, queuedTime) }
+				}
+				catch (e: RejectedExecutionException)
+				{
+					rejectedStat.record(1)
+					translate(level, code, Interpreter.current())
+					runtime.optimizationProfile?.record(code, level)
+				}
+			}
+			return
+		}
+		val interpreter = Interpreter.current()
+		try
+		{
+			translate(level, code, interpreter)
+			runtime.optimizationProfile?.record(code, level)
+			latencyStat.record(
+				AvailRuntimeSupport.captureNanos() - queuedTime,
+				interpreter.interpreterIndex)
+		}
+		catch (e: Throwable)
+		{
+			// Leave the code running its current chunk, rather than losing
+			// the optimizer thread.  Unpark the countdown, so that the
+			// translation is attempted again once the code has run as many
+			// more times as it took to get here.
+			synchronized(code) {
+				code.countdownToReoptimize(retryCountdown(level))
+			}
+			logger.log(
+				Level.SEVERE,
+				"Background optimization of ${L2Chunk.name(code)} failed",
+				e)
+		}
+		finally
+		{
+			runtime.interpreterTaskFinished()
+		}
+	}
+
+	/**
+	 * Stop accepting requests, and abandon any that are queued.
+	 */
+	fun destroy()
+	{
+		executor.shutdownNow()
+	}
+
+	companion object
+	{
+		/**
+		 * The maximum number of translation requests that may be waiting for
+		 * an optimizer thread.
+		 */
+		private const val maximumQueueDepth = 1000
+
+		/**
+		 * Answer the countdown to give code whose translation at the given
+		 * [OptimizationLevel] failed: the countdown of the level below it,
+		 * which is the one that led to the failed attempt.
+		 *
+		 * @param level
+		 *   The level at which translation failed.
+		 * @return
+		 *   The countdown until the next attempt.
+		 */
+		private fun retryCountdown(level: OptimizationLevel): Long =
+			OptimizationLevel.optimizationLevel(max(level.ordinal - 1, 0))
+				.countdown
+
+		/** The [Logger] for translations that failed unexpectedly. */
+		private val logger = Logger.getLogger(
+			BackgroundOptimizer::class.java.name)
+
+		/**
+		 * [Statistic] for the time between queueing a request and installing
+		 * the resulting chunk.
+		 */
+		private val latencyStat = Statistic(
+			L2_OPTIMIZATION_TIME, "(background optimization latency)")
+
+		/**
+		 * [Statistic] for requests that the optimizer threads could not
+		 * accept.  Rejected chunk translations are performed synchronously,
+		 * and rejected tasks are retried later by their callers.
+		 */
+		private val rejectedStat = Statistic(
+			L2_TRANSLATION_VALUES, "(background optimization rejected)")
+	}
+}
@@ -51,6 +51,7 @@ import avail.descriptor.functions.A_RawFunction.Companion.module
 import avail.descriptor.functions.A_RawFunction.Companion.numArgs
 import avail.descriptor.functions.A_RawFunction.Companion.numConstants
 import avail.descriptor.functions.A_RawFunction.Companion.numLocals
+import avail.descriptor.functions.A_RawFunction.Companion.numNybbles
 import avail.descriptor.functions.A_RawFunction.Companion.numOuters
 import avail.descriptor.functions.A_RawFunction.Companion.numSlots
 import avail.descriptor.functions.A_RawFunction.Companion.outerTypeAt
@@ -112,6 +113,7 @@ import avail.descriptor.types.TupleTypeDescriptor.Companion.tupleTypeForTypesLis
 import avail.descriptor.types.TypeDescriptor
 import avail.descriptor.variables.A_Variable
 import avail.descriptor.variables.VariableDescriptor.VariableAccessReactor
+import avail.dispatch.InlineCache
 import avail.dispatch.InternalLookupTree
 import avail.dispatch.LeafLookupTree
 import avail.exceptions.AvailErrorCode
@@ -148,6 +150,7 @@ import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncodin
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.IMMUTABLE_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
 import avail.interpreter.levelTwo.operation.L2_CREATE_CONTINUATION
 import avail.interpreter.levelTwo.operation.L2_CREATE_FUNCTION
 import avail.interpreter.levelTwo.operation.L2_CREATE_TUPLE
@@ -200,9 +203,12 @@ import avail.optimizer.L2Generator.SpecialBlock.AFTER_OPTIONAL_PRIMITIVE
 import avail.optimizer.L2Generator.SpecialBlock.RESTART_LOOP_HEAD
 import avail.optimizer.L2Generator.SpecialBlock.START
 import avail.optimizer.L2Generator.SpecialBlock.UNREACHABLE
+import avail.optimizer.OptimizationLevel.CHASED_BLOCKS
 import avail.optimizer.OptimizationLevel.UNOPTIMIZED
 import avail.optimizer.values.Frame
 import avail.optimizer.values.L2SemanticValue
+import avail.performance.AvailEvents
+import avail.performance.L2TranslationEvent
 import avail.performance.Statistic
 import avail.performance.StatisticReport.L1_NAIVE_TRANSLATION_TIME
 import avail.performance.StatisticReport.L2_OPTIMIZATION_TIME
@@ -640,6 +646,7 @@ class L1Translator private constructor(
 					// guarantee of immutability.
 					writeRestrictions[i] = restriction
 						.withoutFlag(UNBOXED_INT_FLAG)
+						.withoutFlag(UNBOXED_LONG_FLAG)
 						.withoutFlag(UNBOXED_FLOAT_FLAG)
 				}
 			}
@@ -924,11 +931,7 @@ class L1Translator private constructor(
 		expectedType: A_Type,
 		superUnionType: A_Type)
 	{
-		val callSiteHelper = CallSiteHelper(
-			bundle, superUnionType, expectedType)
-		val method: A_Method = bundle.bundleMethod
-		generator.addContingentValue(method)
-		val nArgs = method.numArgs
+		val nArgs = bundle.bundleMethod.numArgs
 		val semanticArguments = mutableListOf<L2SemanticValue>()
 		for (i in nArgs - 1 downTo 0)
 		{
@@ -946,6 +949,38 @@ class L1Translator private constructor(
 		// nilled their new SSA versions for reification.  The reification
 		// clauses will explicitly ensure the expected type appears in the top
 		// of stack position.
+		generateCallWithArguments(
+			bundle, expectedType, superUnionType, semanticArguments)
+	}
+
+	/**
+	 * Generate code to perform a method invocation with the given arguments,
+	 * which have already been popped from the stack.  The result is left in
+	 * the top-of-stack slot, as of the current pc.  If a superUnionType other
+	 * than [bottom] is supplied, produce a super-directed multimethod
+	 * invocation.
+	 *
+	 * @param bundle
+	 *   The [message bundle][MessageBundleDescriptor] to invoke.
+	 * @param expectedType
+	 *   The expected return [type][TypeDescriptor].
+	 * @param superUnionType
+	 *   A tuple type to combine through a type union with the arguments'
+	 *   dynamic types, to use during method lookup.  This is [bottom] for
+	 *   non-super calls.
+	 * @param semanticArguments
+	 *   The [L2SemanticValue]s holding the arguments.
+	 */
+	private fun generateCallWithArguments(
+		bundle: A_Bundle,
+		expectedType: A_Type,
+		superUnionType: A_Type,
+		semanticArguments: List<L2SemanticValue>)
+	{
+		val callSiteHelper = CallSiteHelper(
+			bundle, superUnionType, expectedType)
+		val method: A_Method = bundle.bundleMethod
+		generator.addContingentValue(method)
 
 		// Determine which applicable definitions have already been expanded in
 		// the lookup tree.
@@ -1346,17 +1381,8 @@ class L1Translator private constructor(
 				// monomorphic *in the event of success*, so we can safely
 				// tighten the argument types here to conform to the only
 				// possible found function.
-				val manifest = currentManifest
-				val strongArguments = (0 until argumentCount).map {
-					val arg = arguments[it]
-					val argSemanticValue = arg.semanticValue()
-					val strongRestriction = arg.restriction()
-						.intersection(manifest.restrictionFor(argSemanticValue))
-						.intersectionWithType(argsTupleType.typeAtIndex(it + 1))
-					manifest.setRestriction(argSemanticValue, strongRestriction)
-					L2ReadBoxedOperand(
-						argSemanticValue, strongRestriction, manifest)
-				}
+				val strongArguments =
+					strengthenArguments(arguments, argsTupleType)
 				argumentTypes = strongArguments.map { it.type() }
 				generated = tryToGenerateSpecialInvocation(
 					functionToCallReg,
@@ -1435,6 +1461,14 @@ class L1Translator private constructor(
 			guaranteedResultType = functionToCallReg.type().returnType
 		}
 
+		if (primitive === null
+			&& tryToGenerateSpecialPrimitiveInvocation
+			&& tryToInlineBody(functionToCallReg, arguments, callSiteHelper))
+		{
+			assert(!generator.currentlyReachable())
+			return
+		}
+
 		// The function isn't known to be a particular primitive function, or
 		// the primitive wasn't able to generate special code for it, so just
 		// invoke it like a non-primitive.
@@ -1500,6 +1534,215 @@ class L1Translator private constructor(
 		}
 	}
 
+	/**
+	 * Strengthen the restrictions on the given arguments to the types that a
+	 * function with the given arguments tuple type is known to accept, both in
+	 * the [currentManifest] and in the answered operands.
+	 *
+	 * @param arguments
+	 *   The [L2ReadBoxedOperand]s supplying the arguments.
+	 * @param argsTupleType
+	 *   The tuple type of the arguments that the function accepts.
+	 * @return
+	 *   The strengthened [L2ReadBoxedOperand]s.
+	 */
+	private fun strengthenArguments(
+		arguments: List<L2ReadBoxedOperand>,
+		argsTupleType: A_Type
+	): List<L2ReadBoxedOperand>
+	{
+		val manifest = currentManifest
+		return arguments.mapIndexed { zeroIndex, arg ->
+			val argSemanticValue = arg.semanticValue()
+			val strongRestriction = arg.restriction()
+				.intersection(manifest.restrictionFor(argSemanticValue))
+				.intersectionWithType(argsTupleType.typeAtIndex(zeroIndex + 1))
+			manifest.setRestriction(argSemanticValue, strongRestriction)
+			L2ReadBoxedOperand(argSemanticValue, strongRestriction, manifest)
+		}
+	}
+
+	/**
+	 * How many callee bodies are currently being [inlined][tryToInlineBody]
+	 * around the code generation position.
+	 */
+	private var inliningDepth = 0
+
+	/**
+	 * At the [CHASED_BLOCKS] optimization level, try to splice the body of a
+	 * small, statically known, non-primitive function into the caller in place
+	 * of an invocation of it.
+	 *
+	 * Only bodies whose nybblecodes push arguments, literals, and outers,
+	 * build tuples, duplicate, or permute are accepted, optionally ending with
+	 * a call whose result is the function's result.  Such a body has no state
+	 * of its own that would have to be captured if the call were reified, so
+	 * the callee's frame disappears entirely: a value-producing body simply
+	 * becomes the answer to the call, and a trailing call becomes a call made
+	 * directly on behalf of the caller, as though it were a tail call.  The
+	 * trailing call's expected type must be at least as strong as the caller's
+	 * expected type, so the single check of the trailing call's result stands
+	 * in for both checks.
+	 *
+	 * The code generation position is never [L2Generator.currentlyReachable]
+	 * after this (Kotlin) method answers `true`.  If it answers `false`, no
+	 * code has been generated.
+	 *
+	 * @param functionToCallReg
+	 *   The [L2ReadBoxedOperand] containing the function to invoke.
+	 * @param arguments
+	 *   The [List] of [L2ReadBoxedOperand]s that supply arguments to the
+	 *   function.
+	 * @param callSiteHelper
+	 *   Information about the call being generated.
+	 * @return
+	 *   Whether the body was inlined.
+	 */
+	private fun tryToInlineBody(
+		functionToCallReg: L2ReadBoxedOperand,
+		arguments: List<L2ReadBoxedOperand>,
+		callSiteHelper: CallSiteHelper): Boolean
+	{
+		if (generator.optimizationLevel != CHASED_BLOCKS
+			|| inliningDepth >= L2Generator.maxInliningDepth)
+		{
+			return false
+		}
+		val function: A_Function =
+			functionToCallReg.constantOrNull() ?: return false
+		val callee = function.code()
+		if (callee.codePrimitive() !== null
+			|| callee.numArgs() != arguments.size
+			|| callee.numNybbles > L2Generator.maxNybblesToInline)
+		{
+			return false
+		}
+		// Decode the whole body before generating anything, giving up on any
+		// nybblecode that would need the callee's own frame.
+		val decoder = L1InstructionDecoder()
+		callee.setUpInstructionDecoder(decoder)
+		decoder.pc(1)
+		val instructions = mutableListOf<Pair<L1Operation, IntArray>>()
+		var depth = 0
+		var endsWithCall = false
+		while (!decoder.atEnd())
+		{
+			// A call is only acceptable as the final nybblecode.
+			if (endsWithCall) return false
+			val operation = decoder.getOperation()
+			val operands =
+				IntArray(operation.operandTypes.size) { decoder.getOperand() }
+			depth += when (operation)
+			{
+				L1Operation.L1_doPushLiteral,
+				L1Operation.L1_doPushOuter,
+				L1Operation.L1_doPushLastOuter,
+				L1Operation.L1Ext_doDuplicate -> 1
+				L1Operation.L1_doPushLocal,
+				L1Operation.L1_doPushLastLocal ->
+				{
+					// Only the arguments are available without a frame.
+					if (operands[0] > arguments.size) return false
+					1
+				}
+				L1Operation.L1_doMakeTuple -> 1 - operands[0]
+				L1Operation.L1Ext_doPermute -> 0
+				L1Operation.L1_doCall,
+				L1Operation.L1Ext_doSuperCall ->
+				{
+					val expectedType: A_Type = callee.literalAt(operands[1])
+					if (!expectedType.isSubtypeOf(callSiteHelper.expectedType))
+					{
+						return false
+					}
+					endsWithCall = true
+					val bundle: A_Bundle = callee.literalAt(operands[0])
+					1 - bundle.bundleMethod.numArgs
+				}
+				else -> return false
+			}
+			instructions.add(operation to operands)
+		}
+		if (depth != 1) return false
+
+		// Now generate the body, tracking the callee's stack as operands.
+		val stack = mutableListOf<L2ReadBoxedOperand>()
+		val strongArguments = strengthenArguments(
+			arguments, callee.functionType().argsTupleType)
+		inliningDepth++
+		try
+		{
+			for ((operation, operands) in instructions)
+			{
+				when (operation)
+				{
+					L1Operation.L1_doPushLiteral -> stack.add(
+						generator.boxedConstant(callee.literalAt(operands[0])))
+					L1Operation.L1_doPushOuter,
+					L1Operation.L1_doPushLastOuter -> stack.add(
+						generator.boxedConstant(
+							function.outerVarAt(operands[0])))
+					L1Operation.L1_doPushLocal,
+					L1Operation.L1_doPushLastLocal -> stack.add(
+						generator.makeImmutable(
+							strongArguments[operands[0] - 1]))
+					L1Operation.L1Ext_doDuplicate ->
+					{
+						val top = generator.makeImmutable(stack.removeLast())
+						stack.add(top)
+						stack.add(top)
+					}
+					L1Operation.L1_doMakeTuple ->
+					{
+						val elements =
+							stack.subList(stack.size - operands[0], stack.size)
+						val tuple = generator.createTuple(elements.toList())
+						elements.clear()
+						stack.add(tuple)
+					}
+					L1Operation.L1Ext_doPermute ->
+					{
+						val permutation: A_Tuple =
+							callee.literalAt(operands[0])
+						val size = permutation.tupleSize
+						val top = stack.subList(stack.size - size, stack.size)
+						val permuted = arrayOfNulls<L2ReadBoxedOperand>(size)
+						top.forEachIndexed { zeroIndex, read ->
+							val target = permutation.tupleIntAt(zeroIndex + 1)
+							permuted[target - 1] = read
+						}
+						top.clear()
+						permuted.mapTo(stack) { it!! }
+					}
+					else ->
+					{
+						assert(endsWithCall)
+						generateCallWithArguments(
+							callee.literalAt(operands[0]),
+							callee.literalAt(operands[1]),
+							if (operation == L1Operation.L1_doCall) bottom
+							else callee.literalAt(operands[2]),
+							stack.map(L2ReadBoxedOperand::semanticValue))
+						// The result has been checked against the trailing
+						// call's expected type, which is at least as strong as
+						// the caller's.
+						if (generator.currentlyReachable())
+						{
+							generator.jumpTo(callSiteHelper.afterCallNoCheck)
+						}
+						return true
+					}
+				}
+			}
+			callSiteHelper.useAnswer(stack.single())
+			return true
+		}
+		finally
+		{
+			inliningDepth--
+		}
+	}
+
 	/**
 	 * Generate code to perform a type check of the top-of-stack register
 	 * against the given expectedType (an [A_Type] that has been strengthened by
@@ -1778,6 +2021,7 @@ class L1Translator private constructor(
 			addInstruction(
 				L2_LOOKUP_BY_VALUES,
 				L2SelectorOperand(bundle),
+				L2ArbitraryConstantOperand(InlineCache(bundle)),
 				L2ReadBoxedVectorOperand(argumentReads),
 				functionWrite,
 				errorCodeWrite,
@@ -2888,6 +3132,9 @@ class L1Translator private constructor(
 			optimizationLevel: OptimizationLevel,
 			interpreter: Interpreter)
 		{
+			val event =
+				if (AvailEvents.isRecording) L2TranslationEvent() else null
+			event?.begin()
 			val savedFunction = interpreter.function
 			val savedArguments = interpreter.argsBuffer.toList()
 			val savedFailureValue = interpreter.latestResultOrNull()
@@ -2920,6 +3167,15 @@ class L1Translator private constructor(
 				chunk.instructions.size.toLong(),
 				interpreter.interpreterIndex)
 			val dependencyCount = generator.contingentValues.setSize
+			if (event !== null && event.shouldCommit())
+			{
+				event.end()
+				event.codeName = codeName.replace('\n', ' ')
+				event.optimizationLevel = optimizationLevel.name
+				event.instructionCount = chunk.instructions.size
+				event.dependencyCount = dependencyCount
+				event.commit()
+			}
 			var array = translationDependenciesStat.get()
 			if (dependencyCount >= array.size)
 			{
@@ -46,6 +46,7 @@ import avail.descriptor.numbers.A_Number.Companion.extractLong
 import avail.descriptor.numbers.A_Number.Companion.isInt
 import avail.descriptor.numbers.DoubleDescriptor.Companion.fromDouble
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromLong
 import avail.descriptor.numbers.IntegerDescriptor.Companion.zero
 import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.AvailObject
@@ -86,6 +87,7 @@ import avail.interpreter.levelTwo.operand.L2CommentOperand
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2Operand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2PcVectorOperand
@@ -96,12 +98,15 @@ import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadOperand
 import avail.interpreter.levelTwo.operand.L2ReadVectorOperand
 import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForConstant
@@ -110,8 +115,10 @@ import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncodin
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.IMMUTABLE_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
 import avail.interpreter.levelTwo.operation.L2_BOX_FLOAT
 import avail.interpreter.levelTwo.operation.L2_BOX_INT
+import avail.interpreter.levelTwo.operation.L2_BOX_LONG
 import avail.interpreter.levelTwo.operation.L2_CREATE_TUPLE
 import avail.interpreter.levelTwo.operation.L2_FUNCTION_PARAMETER_TYPE
 import avail.interpreter.levelTwo.operation.L2_GET_TYPE
@@ -126,6 +133,7 @@ import avail.interpreter.levelTwo.operation.L2_JUMP_IF_SUBTYPE_OF_CONSTANT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_SUBTYPE_OF_OBJECT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_UNBOX_FLOAT
 import avail.interpreter.levelTwo.operation.L2_JUMP_IF_UNBOX_INT
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_UNBOX_LONG
 import avail.interpreter.levelTwo.operation.L2_MAKE_IMMUTABLE
 import avail.interpreter.levelTwo.operation.L2_MOVE
 import avail.interpreter.levelTwo.operation.L2_MOVE_CONSTANT
@@ -134,22 +142,28 @@ import avail.interpreter.levelTwo.operation.L2_RUN_INFALLIBLE_PRIMITIVE
 import avail.interpreter.levelTwo.operation.L2_RUN_INFALLIBLE_PRIMITIVE.Companion.argsOf
 import avail.interpreter.levelTwo.operation.L2_RUN_INFALLIBLE_PRIMITIVE.Companion.primitiveOf
 import avail.interpreter.levelTwo.operation.L2_TUPLE_AT_UPDATE
+import avail.interpreter.levelTwo.operation.L2_TUPLE_DOUBLE_AT_NO_FAIL
 import avail.interpreter.levelTwo.operation.L2_UNBOX_FLOAT
 import avail.interpreter.levelTwo.operation.L2_UNBOX_INT
+import avail.interpreter.levelTwo.operation.L2_UNBOX_LONG
 import avail.interpreter.levelTwo.operation.L2_UNREACHABLE_CODE
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 import avail.interpreter.levelTwo.register.L2Register
 import avail.interpreter.primitive.controlflow.P_RestartContinuation
 import avail.interpreter.primitive.general.P_Equality
+import avail.interpreter.primitive.tuples.P_TupleAt
 import avail.optimizer.L2Generator.SpecialBlock.AFTER_OPTIONAL_PRIMITIVE
 import avail.optimizer.L2Generator.SpecialBlock.UNREACHABLE
 import avail.optimizer.reoptimizer.L2Regenerator
 import avail.optimizer.values.Frame
 import avail.optimizer.values.L2SemanticConstant
+import avail.optimizer.values.L2SemanticPrimitiveInvocation
 import avail.optimizer.values.L2SemanticUnboxedFloat
 import avail.optimizer.values.L2SemanticUnboxedInt
+import avail.optimizer.values.L2SemanticUnboxedLong
 import avail.optimizer.values.L2SemanticValue
 import avail.optimizer.values.L2SemanticValue.Companion.constant
 import avail.performance.Statistic
@@ -429,6 +443,29 @@ class L2Generator internal constructor(
 			L2FloatRegister(nextUnique()))
 	}
 
+	/**
+	 * Allocate a new [L2LongRegister].  Answer an [L2WriteLongOperand] that
+	 * writes to it as the given [L2SemanticValue]s, restricted with the given
+	 * [TypeRestriction].
+	 *
+	 * @param semanticValues
+	 *   The [L2SemanticUnboxedLong]s to write.
+	 * @param restriction
+	 *   The initial [TypeRestriction] for the new write.
+	 * @return
+	 *   The new unboxed long write operand.
+	 */
+	fun longWrite(
+		semanticValues: Set<L2SemanticUnboxedLong>,
+		restriction: TypeRestriction): L2WriteLongOperand
+	{
+		assert(restriction.isUnboxedLong)
+		return L2WriteLongOperand(
+			semanticValues,
+			restriction,
+			L2LongRegister(nextUnique()))
+	}
+
 	/**
 	 * Generate code to move the given constant into a boxed register, if it's
 	 * not already known to be in a boxed register.  Answer an
@@ -523,6 +560,37 @@ class L2Generator internal constructor(
 			semanticUnboxedValue, restriction, currentManifest)
 	}
 
+	/**
+	 * Generate code to move the given `long` constant into an unboxed long
+	 * register, if it's not already known to be in such a register.  Answer an
+	 * [L2ReadLongOperand] to retrieve this value.
+	 *
+	 * @param value
+	 *   The constant `long` to write to a long register.
+	 * @return
+	 *   The [L2ReadLongOperand] that retrieves the value.
+	 */
+	private fun unboxedLongConstant(value: Long): L2ReadLongOperand
+	{
+		val boxedValue: A_Number = fromLong(value)
+		val semanticConstant = constant(boxedValue)
+		val semanticUnboxedValue = L2SemanticUnboxedLong(semanticConstant)
+		if (currentManifest.hasSemanticValue(semanticUnboxedValue))
+		{
+			return currentManifest.readLong(semanticUnboxedValue)
+		}
+		val unboxedSet = setOf(semanticUnboxedValue)
+		val synonym = L2Synonym(unboxedSet)
+		val restriction = restrictionForConstant(boxedValue, UNBOXED_LONG_FLAG)
+		currentManifest.introduceSynonym(synonym, restriction)
+		addInstruction(
+			L2_MOVE_CONSTANT.unboxedLong,
+			L2LongImmediateOperand(value),
+			longWrite(unboxedSet, restriction))
+		return L2ReadLongOperand(
+			semanticUnboxedValue, restriction, currentManifest)
+	}
+
 	/**
 	 * Given an [L2WriteBoxedOperand], produce an [L2ReadBoxedOperand] of the
 	 * same value, but with the current manifest's [TypeRestriction] applied.
@@ -549,6 +617,7 @@ class L2Generator internal constructor(
 	{
 		assert(semanticValue !is L2SemanticUnboxedInt)
 		assert(semanticValue !is L2SemanticUnboxedFloat)
+		assert(semanticValue !is L2SemanticUnboxedLong)
 		if (currentManifest.hasSemanticValue(semanticValue))
 		{
 			return currentManifest.readBoxed(semanticValue)
@@ -585,6 +654,22 @@ class L2Generator internal constructor(
 				writer)
 			return currentManifest.readBoxed(semanticValue)
 		}
+		val unboxedLong = L2SemanticUnboxedLong(semanticValue)
+		if (currentManifest.hasSemanticValue(unboxedLong))
+		{
+			val restriction = currentManifest.restrictionFor(unboxedLong)
+			val writer = L2WriteBoxedOperand(
+				currentManifest.semanticValueToSynonym(unboxedLong)
+					.semanticValues()
+					.mapToSet { (it as L2SemanticUnboxedLong).base },
+				restriction.forBoxed(),
+				L2BoxedRegister(nextUnique()))
+			addInstruction(
+				L2_BOX_LONG,
+				currentManifest.readLong(unboxedLong),
+				writer)
+			return currentManifest.readBoxed(semanticValue)
+		}
 		error("Boxed value not available, even from unboxed versions")
 	}
 
@@ -738,6 +823,35 @@ class L2Generator internal constructor(
 				.intersectionWithType(Types.DOUBLE.o)
 				.withFlag(UNBOXED_FLOAT_FLAG),
 			L2FloatRegister(nextUnique()))
+		if (restriction.containedByType(Types.DOUBLE.o))
+		{
+			// If the boxed double was itself extracted from a tuple, and the
+			// tuple and subscript are still at hand, read the element unboxed
+			// directly from the tuple.  A DoubleTupleDescriptor then never
+			// has to allocate the boxed double.
+			val tupleAt = currentManifest.semanticValueToSynonym(semanticBoxed)
+				.semanticValues()
+				.filterIsInstance<L2SemanticPrimitiveInvocation>()
+				.firstOrNull { invocation ->
+					invocation.primitive === P_TupleAt
+						&& invocation.argumentSemanticValues.let {
+							(tuple, subscript) ->
+							currentManifest.hasSemanticValue(tuple)
+								&& currentManifest.hasSemanticValue(
+									L2SemanticUnboxedInt(subscript))
+						}
+				}
+			if (tupleAt !== null)
+			{
+				val (tuple, subscript) = tupleAt.argumentSemanticValues
+				addInstruction(
+					L2_TUPLE_DOUBLE_AT_NO_FAIL,
+					currentManifest.readBoxed(tuple),
+					currentManifest.readInt(L2SemanticUnboxedInt(subscript)),
+					floatWrite)
+				return currentManifest.readFloat(semanticUnboxed)
+			}
+		}
 		val boxedRead = currentManifest.readBoxed(semanticBoxed)
 		if (restriction.containedByType(Types.DOUBLE.o))
 		{
@@ -758,6 +872,87 @@ class L2Generator internal constructor(
 		return currentManifest.readFloat(semanticUnboxed)
 	}
 
+	/**
+	 * Return an [L2ReadLongOperand] for the given [L2SemanticUnboxedLong].  The
+	 * [TypeRestriction] must have been proven by the VM.  If the semantic value
+	 * only has a boxed form, generate code to unbox it.
+	 *
+	 * As with [readInt], a branch to the supplied onFailure [L2BasicBlock] is
+	 * generated only if the unboxing may fail, and the generation position
+	 * after this call is along the success path.
+	 *
+	 * @param semanticUnboxed
+	 *   The [L2SemanticUnboxedLong] to read as an unboxed long.
+	 * @param onFailure
+	 *   Where to jump in the event that an [L2_JUMP_IF_UNBOX_LONG] fails. The
+	 *   manifest at this location will not contain bindings for the unboxed
+	 *   `long` (since unboxing was not possible).
+	 * @return
+	 *   The unboxed [L2ReadLongOperand].
+	 */
+	fun readLong(
+		semanticUnboxed: L2SemanticUnboxedLong,
+		onFailure: L2BasicBlock): L2ReadLongOperand
+	{
+		if (currentManifest.hasSemanticValue(semanticUnboxed))
+		{
+			// It already exists in an unboxed long register.
+			return currentManifest.readLong(semanticUnboxed)
+		}
+		val semanticBoxed = semanticUnboxed.base
+		currentManifest.semanticValueToSynonym(semanticBoxed).semanticValues()
+			.forEach { equivalentBoxedSemanticValue ->
+				val equivalentUnboxed =
+					L2SemanticUnboxedLong(equivalentBoxedSemanticValue)
+				if (currentManifest.hasSemanticValue(equivalentUnboxed))
+				{
+					moveRegister(
+						L2_MOVE.unboxedLong,
+						equivalentUnboxed,
+						semanticUnboxed)
+					return currentManifest.readLong(semanticUnboxed)
+				}
+			}
+
+		// It's not available as an unboxed long, so generate code to unbox it.
+		val restriction = currentManifest.restrictionFor(semanticBoxed)
+		if (!restriction.intersectsType(int64))
+		{
+			// The boxed form can never be an int64, so it must always fail.
+			jumpTo(onFailure)
+			// Return a dummy, which should get suppressed or optimized away.
+			return unboxedLongConstant(-999L)
+		}
+		// Check for constant.  It can be infallibly converted.
+		restriction.constantOrNull?.let { constant ->
+			// Make it available as a constant in a long register.
+			return unboxedLongConstant(constant.extractLong)
+		}
+		// Extract it to a new long register.
+		val longWrite = L2WriteLongOperand(
+			setOf(semanticUnboxed),
+			restriction.forUnboxedLong(),
+			L2LongRegister(nextUnique()))
+		val boxedRead = currentManifest.readBoxed(semanticBoxed)
+		if (restriction.containedByType(int64))
+		{
+			addInstruction(L2_UNBOX_LONG, boxedRead, longWrite)
+		}
+		else
+		{
+			// Conversion may succeed or fail at runtime.
+			val onSuccess = createBasicBlock("successfully unboxed")
+			addInstruction(
+				L2_JUMP_IF_UNBOX_LONG,
+				boxedRead,
+				longWrite,
+				edgeTo(onFailure),
+				edgeTo(onSuccess))
+			startBlock(onSuccess)
+		}
+		return currentManifest.readLong(semanticUnboxed)
+	}
+
 	/**
 	 * Generate instructions to arrange for the value in the given
 	 * [L2ReadOperand] to end up in an [L2Register] associated in the
@@ -1690,6 +1885,9 @@ class L2Generator internal constructor(
 		/** The highest numbered float register encountered so far. */
 		private var floatMax = -1
 
+		/** The highest numbered long register encountered so far. */
+		private var longMax = -1
+
 		override fun doOperand(operand: L2ArbitraryConstantOperand) = Unit
 
 		override fun doOperand(operand: L2CommentOperand) = Unit
@@ -1700,6 +1898,8 @@ class L2Generator internal constructor(
 
 		override fun doOperand(operand: L2FloatImmediateOperand) = Unit
 
+		override fun doOperand(operand: L2LongImmediateOperand) = Unit
+
 		override fun doOperand(operand: L2PcOperand) = Unit
 
 		override fun doOperand(operand: L2PrimitiveOperand) = Unit
@@ -1714,6 +1914,11 @@ class L2Generator internal constructor(
 			floatMax = floatMax.coerceAtLeast(operand.finalIndex())
 		}
 
+		override fun doOperand(operand: L2ReadLongOperand)
+		{
+			longMax = longMax.coerceAtLeast(operand.finalIndex())
+		}
+
 		override fun doOperand(operand: L2ReadBoxedOperand)
 		{
 			objectMax = objectMax.coerceAtLeast(operand.finalIndex())
@@ -1743,6 +1948,14 @@ class L2Generator internal constructor(
 			}
 		}
 
+		override fun doOperand(operand: L2ReadLongVectorOperand)
+		{
+			for (register in operand.elements)
+			{
+				longMax = longMax.coerceAtLeast(register.finalIndex())
+			}
+		}
+
 		override fun doOperand(operand: L2SelectorOperand) = Unit
 
 		override fun doOperand(operand: L2WriteIntOperand)
@@ -1755,6 +1968,11 @@ class L2Generator internal constructor(
 			floatMax = floatMax.coerceAtLeast(operand.finalIndex())
 		}
 
+		override fun doOperand(operand: L2WriteLongOperand)
+		{
+			longMax = longMax.coerceAtLeast(operand.finalIndex())
+		}
+
 		override fun doOperand(operand: L2WriteBoxedOperand)
 		{
 			objectMax = objectMax.coerceAtLeast(operand.finalIndex())
@@ -1773,6 +1991,20 @@ class L2Generator internal constructor(
 		 */
 		const val maxPolymorphismToInlineDispatch = 8
 
+		/**
+		 * Don't splice a non-primitive callee's body into its caller if its
+		 * nybblecodes occupy more than this many nybbles.  The bodies that
+		 * qualify are tiny anyhow, so this mostly avoids decoding large bodies
+		 * only to reject them.
+		 */
+		const val maxNybblesToInline = 64
+
+		/**
+		 * Don't splice non-primitive callee bodies into a caller through more
+		 * than this many levels of nested calls.
+		 */
+		const val maxInliningDepth = 3
+
 		/**
 		 * Use a series of instance equality checks if we're doing type testing
 		 * for method dispatch code and the type is a non-meta enumeration with
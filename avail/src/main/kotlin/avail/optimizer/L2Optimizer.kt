@@ -39,9 +39,12 @@ import avail.interpreter.levelTwo.operand.L2Operand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2ReadOperand
 import avail.interpreter.levelTwo.operand.L2ReadVectorOperand
+import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
+import avail.interpreter.levelTwo.operand.TypeRestriction
 import avail.interpreter.levelTwo.operation.L2_JUMP
 import avail.interpreter.levelTwo.operation.L2_JUMP_BACK
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_COMPARE_INT
 import avail.interpreter.levelTwo.operation.L2_MOVE
 import avail.interpreter.levelTwo.operation.L2_PHI_PSEUDO_OPERATION
 import avail.interpreter.levelTwo.operation.L2_VIRTUAL_CREATE_LABEL
@@ -353,6 +356,239 @@ class L2Optimizer internal constructor(
 		}
 	}
 
+	/**
+	 * Scalar replacement of aggregates.  Regenerate the graph, replacing each
+	 * instruction that extracts a component of a tuple, object, or function
+	 * that was constructed within this chunk (as determined by
+	 * [L2Operation.scalarReplacementSource]) with a move from the register
+	 * that supplied that component to the construction.
+	 *
+	 * The constructing instruction is left in place, but if nothing else uses
+	 * the aggregate, it becomes dead code.  Otherwise the subsequent
+	 * [postponement][postponeConditionallyUsedValues] only materializes the
+	 * aggregate along the paths where it escapes, such as when it's passed to
+	 * a non-inlined call, returned, or captured by reification, similar to the
+	 * way an [L2_VIRTUAL_CREATE_LABEL] defers construction of a continuation.
+	 *
+	 * This requires the graph to be in SSA form.
+	 */
+	fun replaceAggregateComponentReads()
+	{
+		if (blocks.all { block ->
+				block.instructions().all {
+					it.operation.scalarReplacementSource(it) === null
+				}
+			})
+		{
+			// There were no reads of components of local aggregates.
+			return
+		}
+		regenerateGraph(true) { sourceInstruction ->
+			val source = sourceInstruction.operation
+				.scalarReplacementSource(sourceInstruction)
+			if (source === null)
+			{
+				basicProcessInstruction(sourceInstruction)
+				return@regenerateGraph
+			}
+			val manifest = targetGenerator.currentManifest
+			val semanticValue = source.semanticValue()
+			val destination: L2WriteBoxedOperand =
+				sourceInstruction.writeOperands.single().cast()
+			when
+			{
+				!manifest.hasSemanticValue(semanticValue)
+					|| !manifest.restrictionFor(semanticValue).isBoxed ->
+					// The component's original register is no longer live
+					// here, so extract it from the aggregate.
+					basicProcessInstruction(sourceInstruction)
+				destination.restriction().isImmutable
+					&& !manifest.restrictionFor(semanticValue).isImmutable ->
+					// The extraction guarantees immutability, but the original
+					// register doesn't.
+					basicProcessInstruction(sourceInstruction)
+				else -> emitInstruction(
+					L2_MOVE.boxed,
+					transformOperand(source),
+					transformOperand(destination))
+			}
+		}
+	}
+
+	/**
+	 * Find each [L2_JUMP_IF_COMPARE_INT] whose outcome is already known,
+	 * because a dominating block is only reachable from one particular branch
+	 * of an earlier comparison of the same values.  Regenerate the graph,
+	 * replacing each such comparison with an [L2_JUMP] to the appropriate
+	 * target.
+	 *
+	 * Values are considered the same only if they're provably computed from
+	 * the same registers (see [L2_JUMP_IF_COMPARE_INT.impliedOutcome]), never
+	 * merely by having the same [L2SemanticValue], since within a loop that
+	 * may denote a different value on each iteration.
+	 *
+	 * This requires the graph to be in SSA form.
+	 */
+	fun eliminateRedundantComparisons()
+	{
+		val analyzer = LoopAnalyzer(controlFlowGraph)
+		val decisions = mutableMapOf<L2Instruction, L2PcOperand>()
+		for (block in blocks)
+		{
+			val instruction = block.finalInstruction()
+			val operation = instruction.operation
+			if (operation !is L2_JUMP_IF_COMPARE_INT) continue
+			var dominator: L2BasicBlock? = block
+			while (dominator !== null)
+			{
+				// Since the dominator has only this predecessor, the branch
+				// leading to it is the last one taken by that comparison.
+				val edge = dominator.predecessorEdges().singleOrNull()
+				val earlier = edge?.sourceBlock()?.finalInstruction()
+				if (earlier !== null
+					&& earlier.operation is L2_JUMP_IF_COMPARE_INT)
+				{
+					val outcome = operation.impliedOutcome(
+						instruction,
+						earlier,
+						edge === earlier.operand<L2PcOperand>(2))
+					if (outcome !== null)
+					{
+						decisions[instruction] =
+							instruction.operand(if (outcome) 2 else 3)
+						break
+					}
+				}
+				dominator = analyzer.immediateDominator(dominator)
+			}
+		}
+		if (decisions.isEmpty())
+		{
+			// No comparisons were redundant.
+			return
+		}
+		regenerateGraph(true) { sourceInstruction ->
+			when (val target = decisions[sourceInstruction])
+			{
+				null -> basicProcessInstruction(sourceInstruction)
+				else -> emitInstruction(L2_JUMP, transformOperand(target))
+			}
+		}
+	}
+
+	/**
+	 * Loop-invariant code motion.  For each natural loop, innermost first,
+	 * repeatedly move each [hoistable][L2Operation.isHoistable] instruction
+	 * whose inputs are all defined outside the loop into the loop's preheader,
+	 * the block whose unconditional jump is the only forward edge into the
+	 * loop head.  The instructions are moved in place, without regenerating
+	 * the graph.
+	 *
+	 * Since a hoisted instruction runs even if the loop body would have taken
+	 * a different path, each input must be known to satisfy the instruction's
+	 * [TypeRestriction]s at the preheader, not just inside the loop.
+	 */
+	fun hoistLoopInvariants()
+	{
+		val analyzer = LoopAnalyzer(controlFlowGraph)
+		val loops = blocks
+			.filter { it.isLoopHead }
+			.mapNotNull { head ->
+				analyzer.naturalLoop(head)?.let { body -> head to body }
+			}
+			.sortedBy { (_, body) -> body.size }
+		for ((head, body) in loops)
+		{
+			val entryEdge = head.predecessorEdges()
+				.singleOrNull { !it.isBackward } ?: continue
+			val preheader = entryEdge.sourceBlock()
+			if (preheader in body
+				|| preheader.successorEdges().size != 1
+				|| !preheader.finalInstruction().operation.isUnconditionalJump)
+			{
+				// There's no suitable place to put hoisted instructions.
+				continue
+			}
+			do
+			{
+				var changed = false
+				for (block in body)
+				{
+					val iterator = block.instructions().iterator()
+					while (iterator.hasNext())
+					{
+						val instruction = iterator.next()
+						if (!isLoopInvariant(instruction, body, entryEdge))
+						{
+							continue
+						}
+						iterator.remove()
+						instruction.justRemoved()
+						preheader.insertInstruction(
+							preheader.instructions().size - 1,
+							L2Instruction(
+								preheader,
+								instruction.operation,
+								*instruction.operands))
+						changed = true
+					}
+				}
+			}
+			while (changed)
+		}
+	}
+
+	/**
+	 * Answer whether the given [L2Instruction] may be moved out of the loop
+	 * consisting of the given blocks, to the source of the given edge.
+	 *
+	 * @param instruction
+	 *   The [L2Instruction] to examine.
+	 * @param body
+	 *   The [L2BasicBlock]s of the loop.
+	 * @param entryEdge
+	 *   The [L2PcOperand] leading from the preheader into the loop head.
+	 * @return
+	 *   Whether the instruction is loop-invariant and can be hoisted.
+	 */
+	private fun isLoopInvariant(
+		instruction: L2Instruction,
+		body: Set<L2BasicBlock>,
+		entryEdge: L2PcOperand): Boolean
+	{
+		val operation = instruction.operation
+		if (!operation.isHoistable
+			|| instruction.hasSideEffect
+			|| instruction.altersControlFlow
+			|| instruction.isEntryPoint
+			|| operation.readsHiddenVariablesMask != 0
+			|| instruction.writeOperands.any {
+				it.register().definitions().size != 1
+			})
+		{
+			return false
+		}
+		val entryManifest = entryEdge.manifest()
+		return instruction.readOperands.all { read ->
+			val definitions = read.register().definitions()
+			val restriction = read.restriction()
+			val semanticValue = read.semanticValue()
+			when
+			{
+				definitions.any { it.instruction.basicBlock() in body } ->
+					false
+				definitions.all {
+					it.restriction().isStrongerThan(restriction)
+				} -> true
+				// The loop may have narrowed the restriction, so check that it
+				// already held on entry.
+				else -> entryManifest.hasSemanticValue(semanticValue)
+					&& entryManifest.restrictionFor(semanticValue)
+						.isStrongerThan(restriction)
+			}
+		}
+	}
+
 	/**
 	 * Replace constant-valued registers with fresh registers that have no
 	 * definitions.  The JVM code generator will recognize that these are
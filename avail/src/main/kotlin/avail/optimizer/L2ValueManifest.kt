@@ -37,6 +37,7 @@ import avail.interpreter.levelTwo.L2Operation
 import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
 import avail.interpreter.levelTwo.operand.L2WriteOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction
 import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.bottomRestriction
@@ -48,10 +49,12 @@ import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.BOXED_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.FLOAT_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.INTEGER_KIND
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
 import avail.optimizer.reoptimizer.L2Regenerator
 import avail.optimizer.values.L2SemanticPrimitiveInvocation
 import avail.optimizer.values.L2SemanticUnboxedFloat
 import avail.optimizer.values.L2SemanticUnboxedInt
+import avail.optimizer.values.L2SemanticUnboxedLong
 import avail.optimizer.values.L2SemanticValue
 import avail.utility.Mutable
 import avail.utility.PrefixSharingList.Companion.append
@@ -982,6 +985,7 @@ class L2ValueManifest
 	{
 		assert(semanticValue !is L2SemanticUnboxedInt)
 		assert(semanticValue !is L2SemanticUnboxedFloat)
+		assert(semanticValue !is L2SemanticUnboxedLong)
 		val restriction = restrictionFor(semanticValue)
 		assert(restriction.isBoxed)
 		val register = getDefinition<L2Register>(semanticValue, BOXED_KIND)
@@ -1057,6 +1061,35 @@ class L2ValueManifest
 		return L2ReadFloatOperand(suitableSemanticValue, restriction, this)
 	}
 
+	/**
+	 * Create an [L2ReadLongOperand] for the [L2SemanticValue] of the earliest
+	 * known unboxed long write for any semantic values in the same [L2Synonym]
+	 * as the given semantic value.
+	 *
+	 * @param semanticValue
+	 *   The [L2SemanticValue] to read as an unboxed long value.
+	 * @return
+	 *   An [L2ReadLongOperand] that reads the value.
+	 */
+	fun readLong(semanticValue: L2SemanticValue): L2ReadLongOperand
+	{
+		val restriction = restrictionFor(semanticValue)
+		assert(restriction.isUnboxedLong)
+		val register = getDefinition<L2Register>(semanticValue, LONG_KIND)
+		val allVisible = semanticValueToSynonym(semanticValue).semanticValues()
+		val suitableSemanticValues = register.definitions()
+			.map { def -> def.semanticValues().intersect(allVisible) }
+			.reduce { a, b -> a.intersect(b) }
+		assert(suitableSemanticValues.isNotEmpty())
+		val suitableSemanticValue = when (semanticValue)
+		{
+			in suitableSemanticValues -> semanticValue
+			else -> suitableSemanticValues.first()
+		}
+		assert(register.definitions().all { it.instructionHasBeenEmitted })
+		return L2ReadLongOperand(suitableSemanticValue, restriction, this)
+	}
+
 	/**
 	 * Populate the empty receiver with bindings from the incoming manifests.
 	 * Only keep the bindings for [L2SemanticValue]s that occur in all incoming
@@ -0,0 +1,238 @@
+/*
+ * LoopAnalyzer.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.optimizer
+
+import avail.interpreter.levelTwo.operand.L2PcOperand
+import java.util.ArrayDeque
+
+/**
+ * A mechanism for computing the dominator tree of an [L2ControlFlowGraph], and
+ * the natural loop headed by each [loop&#32;head][L2BasicBlock.isLoopHead].
+ *
+ * The dominators are computed with the iterative algorithm of Cooper, Harvey,
+ * and Kennedy, over the blocks reachable from the
+ * [irremovable][L2BasicBlock.isIrremovable] blocks.  Since there may be more
+ * than one such block, a virtual root dominates all of them.
+ *
+ * @property controlFlowGraph
+ *   The [L2ControlFlowGraph] to analyze.
+ *
+ * @constructor
+ * Construct a `LoopAnalyzer`, computing the dominator tree immediately.
+ *
+ * @param controlFlowGraph
+ *   The [L2ControlFlowGraph] being analyzed.
+ */
+internal class LoopAnalyzer constructor(
+	private val controlFlowGraph: L2ControlFlowGraph)
+{
+	/** The reachable [L2BasicBlock]s, in depth-first postorder. */
+	private val postorder = mutableListOf<L2BasicBlock>()
+
+	/** The index of each reachable [L2BasicBlock] in the [postorder]. */
+	private val postorderIndex = mutableMapOf<L2BasicBlock, Int>()
+
+	/**
+	 * The postorder index of each block's immediate dominator, indexed by the
+	 * block's own postorder index.  The virtual root has the index just past
+	 * the last real block, and is its own immediate dominator.
+	 */
+	private val immediateDominators: IntArray
+
+	init
+	{
+		computePostorder()
+		val virtualRoot = postorder.size
+		immediateDominators = IntArray(virtualRoot + 1) { -1 }
+		immediateDominators[virtualRoot] = virtualRoot
+		controlFlowGraph.basicBlockOrder
+			.filter { it.isIrremovable }
+			.forEach { immediateDominators[postorderIndex[it]!!] = virtualRoot }
+		var changed = true
+		while (changed)
+		{
+			changed = false
+			for (index in postorder.indices.reversed())
+			{
+				val block = postorder[index]
+				if (block.isIrremovable) continue
+				var newDominator = -1
+				for (edge in block.predecessorEdges())
+				{
+					val predecessor =
+						postorderIndex[edge.sourceBlock()] ?: continue
+					if (immediateDominators[predecessor] == -1) continue
+					newDominator = when (newDominator)
+					{
+						-1 -> predecessor
+						else -> intersect(predecessor, newDominator)
+					}
+				}
+				if (newDominator != immediateDominators[index])
+				{
+					immediateDominators[index] = newDominator
+					changed = true
+				}
+			}
+		}
+	}
+
+	/**
+	 * Populate the [postorder] and [postorderIndex] with the blocks reachable
+	 * from the irremovable blocks.
+	 */
+	private fun computePostorder()
+	{
+		val visited = mutableSetOf<L2BasicBlock>()
+		val stack = ArrayDeque<Pair<L2BasicBlock, Iterator<L2PcOperand>>>()
+		for (root in controlFlowGraph.basicBlockOrder)
+		{
+			if (!root.isIrremovable || !visited.add(root)) continue
+			stack.push(root to root.successorEdges().iterator())
+			while (stack.isNotEmpty())
+			{
+				val (block, successors) = stack.peek()
+				if (successors.hasNext())
+				{
+					val next = successors.next().targetBlock()
+					if (visited.add(next))
+					{
+						stack.push(next to next.successorEdges().iterator())
+					}
+				}
+				else
+				{
+					stack.pop()
+					postorderIndex[block] = postorder.size
+					postorder.add(block)
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the nearest common dominator of the two blocks, given by their
+	 * postorder indices.
+	 */
+	private fun intersect(index1: Int, index2: Int): Int
+	{
+		var finger1 = index1
+		var finger2 = index2
+		while (finger1 != finger2)
+		{
+			while (finger1 < finger2) finger1 = immediateDominators[finger1]
+			while (finger2 < finger1) finger2 = immediateDominators[finger2]
+		}
+		return finger1
+	}
+
+	/**
+	 * Answer the immediate dominator of the given [L2BasicBlock], or `null` if
+	 * it's unreachable or is only dominated by the virtual root.
+	 *
+	 * @param block
+	 *   The [L2BasicBlock] whose immediate dominator is requested.
+	 * @return
+	 *   The immediate dominator, or `null`.
+	 */
+	fun immediateDominator(block: L2BasicBlock): L2BasicBlock?
+	{
+		val index = postorderIndex[block] ?: return null
+		return postorder.getOrNull(immediateDominators[index])
+	}
+
+	/**
+	 * Answer whether every path from an entry point to the second
+	 * [L2BasicBlock] must pass through the first.  A block dominates itself.
+	 *
+	 * @param dominator
+	 *   The potentially dominating [L2BasicBlock].
+	 * @param block
+	 *   The potentially dominated [L2BasicBlock].
+	 * @return
+	 *   Whether the first block dominates the second.
+	 */
+	fun dominates(dominator: L2BasicBlock, block: L2BasicBlock): Boolean
+	{
+		val target = postorderIndex[dominator] ?: return false
+		var index = postorderIndex[block] ?: return false
+		while (true)
+		{
+			if (index == target) return true
+			if (index == postorder.size) return false
+			index = immediateDominators[index]
+		}
+	}
+
+	/**
+	 * Answer the natural loop headed by the given
+	 * [loop&#32;head][L2BasicBlock.isLoopHead], namely the head and every block
+	 * that can reach one of its back-edges without passing through the head.
+	 * Answer `null` if the head does not dominate every block of the loop,
+	 * since then the loop is irreducible, and has no single point of entry into
+	 * which to hoist code.
+	 *
+	 * @param head
+	 *   The [L2BasicBlock] at the start of the loop.
+	 * @return
+	 *   The [Set] of [L2BasicBlock]s in the loop, or `null`.
+	 */
+	fun naturalLoop(head: L2BasicBlock): Set<L2BasicBlock>?
+	{
+		assert(head.isLoopHead)
+		val body = mutableSetOf(head)
+		val toVisit = ArrayDeque<L2BasicBlock>()
+		for (edge in head.predecessorEdges())
+		{
+			if (!edge.isBackward) continue
+			val source = edge.sourceBlock()
+			if (!dominates(head, source)) return null
+			if (body.add(source)) toVisit.add(source)
+		}
+		while (toVisit.isNotEmpty())
+		{
+			val block = toVisit.removeLast()
+			for (edge in block.predecessorEdges())
+			{
+				val predecessor = edge.sourceBlock()
+				if (predecessor in postorderIndex && body.add(predecessor))
+				{
+					toVisit.add(predecessor)
+				}
+			}
+		}
+		// Another entry point into the middle of the loop would bypass code
+		// hoisted in front of the head.
+		return body.takeIf { it.all { block -> dominates(head, block) } }
+	}
+}
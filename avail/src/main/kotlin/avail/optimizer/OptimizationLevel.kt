@@ -32,6 +32,7 @@
 
 package avail.optimizer
 
+import avail.AvailRuntimeConfiguration
 import avail.descriptor.functions.A_RawFunction
 import avail.descriptor.functions.A_RawFunction.Companion.countdownToReoptimize
 import avail.descriptor.functions.A_RawFunction.Companion.setStartingChunkAndReoptimizationCountdown
@@ -49,12 +50,18 @@ import avail.interpreter.levelTwoSimple.L2SimpleTranslator
  *   The value to use for the countdown after the translation at this level has
  *   taken place (i.e., how many calls to endure before the next level of
  *   optimization is attempted).
+ * @property runsInBackground
+ *   Whether translation at this level is expensive enough to be worth handing
+ *   to the [BackgroundOptimizer], rather than performing it synchronously in
+ *   the fiber that exhausted the countdown.
  *
  * @constructor
  * Construct the enum value.
  */
 enum class OptimizationLevel
-constructor(val countdown: Long)
+constructor(
+	open val countdown: Long,
+	val runsInBackground: Boolean = true)
 {
 	/**
 	 * Unoptimized code, interpreted via Level One machinery.  Technically
@@ -65,7 +72,7 @@ constructor(val countdown: Long)
 	 * The [countdown] is very small to encourage early translation of any
 	 * function that is executed even a small number of times.
 	 */
-	UNOPTIMIZED(10)
+	UNOPTIMIZED(10, false)
 	{
 		override fun optimize(code: A_RawFunction, interpreter: Interpreter)
 		{
@@ -76,7 +83,7 @@ constructor(val countdown: Long)
 	/**
 	 * Translate the nybblecodes quickly into an [L2SimpleChunk].
 	 */
-	SIMPLE_TRANSLATION(10_000)
+	SIMPLE_TRANSLATION(10_000, false)
 	{
 		override fun optimize(code: A_RawFunction, interpreter: Interpreter)
 		{
@@ -119,11 +126,21 @@ constructor(val countdown: Long)
 	 * calling continuation in the case that they're successful, but have to
 	 * reify if the primitive fails.
 	 *
-	 * Note that the [countdown] of [Long.MAX_VALUE] indicates not to create a
-	 * decrement instruction that lead to another reoptimization.
+	 * Code that keeps running hot after this translation is eventually
+	 * retranslated at the [CHASED_BLOCKS] level, but only if
+	 * [AvailRuntimeConfiguration.chaseBlocks] is set.  Otherwise the
+	 * [countdown] is [Long.MAX_VALUE], which indicates not to create a
+	 * decrement instruction that would lead to another reoptimization.
 	 */
-	SECOND_JVM_TRANSLATION(Long.MAX_VALUE)
+	SECOND_JVM_TRANSLATION(1_000_000)
 	{
+		override val countdown: Long
+			get() = when
+			{
+				AvailRuntimeConfiguration.chaseBlocks -> super.countdown
+				else -> Long.MAX_VALUE
+			}
+
 		override fun optimize(code: A_RawFunction, interpreter: Interpreter)
 		{
 			code.countdownToReoptimize(countdown)
@@ -132,14 +149,23 @@ constructor(val countdown: Long)
 	},
 
 	/**
-	 * Unimplemented.  The idea is that at this level some inlining of
-	 * non-primitives will take place, emphasizing inlining of function
-	 * application.  Invocations of methods that take a literal function
-	 * should tend very strongly to get inlined, as the potential to turn
-	 * things like continuation-based conditionals and loops into mere jumps
-	 * is expected to be highly profitable.
+	 * At this level some inlining of non-primitives takes place.  The bodies
+	 * of small, statically known, non-primitive functions, such as tiny
+	 * accessor-like method definitions and constant functions passed to
+	 * control primitives, are spliced into the caller when they don't need a
+	 * frame of their own (see [L1Translator]).  The idea is to eventually
+	 * emphasize inlining of function application, since invocations of
+	 * methods that take a literal function should tend very strongly to get
+	 * inlined, as the potential to turn things like continuation-based
+	 * conditionals and loops into mere jumps is expected to be highly
+	 * profitable.
+	 *
+	 * This level is still opt-in, since [SECOND_JVM_TRANSLATION] only counts
+	 * down to it when [AvailRuntimeConfiguration.chaseBlocks] is set.
+	 *
+	 * Note that the [countdown] of [Long.MAX_VALUE] indicates not to create a
+	 * decrement instruction that lead to another reoptimization.
 	 */
-	@Suppress("unused")
 	CHASED_BLOCKS(Long.MAX_VALUE)
 	{
 		override fun optimize(code: A_RawFunction, interpreter: Interpreter)
@@ -154,6 +180,41 @@ constructor(val countdown: Long)
 	 */
 	abstract fun optimize(code: A_RawFunction, interpreter: Interpreter)
 
+	/**
+	 * Perform this level of optimization on the given [A_RawFunction], or
+	 * queue it for the runtime's [BackgroundOptimizer] if this level
+	 * [runsInBackground] and background optimization is enabled.  This must be
+	 * called while holding the raw function's monitor, as within the action
+	 * passed to `decrementCountdownToReoptimize`.
+	 *
+	 * If the runtime keeps an [OptimizationProfile], and it shows that the code
+	 * reached a higher level in a previous run, optimize it directly to that
+	 * level.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] to optimize.
+	 * @param interpreter
+	 *   The current [Interpreter].
+	 * @return
+	 *   `true` if the optimization took place synchronously, so the code's
+	 *   starting chunk has been replaced, or `false` if it was queued and the
+	 *   caller should keep running its current chunk.
+	 */
+	fun optimizeOrQueue(code: A_RawFunction, interpreter: Interpreter): Boolean
+	{
+		val runtime = interpreter.runtime
+		val level = runtime.optimizationProfile?.promote(code, this) ?: this
+		if (level.runsInBackground
+			&& AvailRuntimeConfiguration.optimizeInBackground
+			&& runtime.backgroundOptimizer.enqueue(code, level))
+		{
+			return false
+		}
+		level.optimize(code, interpreter)
+		runtime.optimizationProfile?.record(code, level)
+		return true
+	}
+
 	companion object
 	{
 		/** An array of all [OptimizationLevel] enumeration values. */
@@ -75,6 +75,23 @@ internal enum class OptimizationPhase constructor(
 	 */
 	BECOME_EDGE_SPLIT_SSA({ transformToEdgeSplitSSA() }),
 
+	/**
+	 * Replace reads of tuple elements, object fields, and captured outer
+	 * values of aggregates constructed within this chunk with moves from the
+	 * registers that supplied them.  The postponement that follows ensures the
+	 * aggregates themselves are only constructed along paths where they escape,
+	 * and dead code removal eliminates them entirely where they don't.
+	 */
+	REPLACE_AGGREGATE_COMPONENT_READS({ replaceAggregateComponentReads() }),
+
+	/**
+	 * Replace each int comparison whose outcome is already decided by a
+	 * dominating comparison of the same values with an unconditional jump.
+	 * This removes redundant range checks, such as a tuple subscript check
+	 * inside a loop whose guard already bounds the subscript.
+	 */
+	ELIMINATE_REDUNDANT_COMPARISONS({ eliminateRedundantComparisons() }),
+
 	/**
 	 * Try to move any side-effect-less instructions to later points in the
 	 * control flow graph.  If such an instruction defines a register that's
@@ -122,6 +139,13 @@ internal enum class OptimizationPhase constructor(
 	 */
 	POSTPONE_CONDITIONALLY_USED_VALUES_2({ postponeConditionallyUsedValues() }),
 
+	/**
+	 * Move side-effect-free computations whose inputs don't change within a
+	 * loop to the block that enters the loop.  This happens after the last
+	 * postponement, which would otherwise sink them back into the loop.
+	 */
+	HOIST_LOOP_INVARIANTS({ hoistLoopInvariants() }),
+
 	/**
 	 * Replace every use of a constant register with a fresh register with no
 	 * defining write.  The code generator will notice these are constants, and
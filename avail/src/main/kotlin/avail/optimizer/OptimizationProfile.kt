@@ -0,0 +1,415 @@
+/*
+ * OptimizationProfile.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of the copyright holder nor the names of the contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.optimizer
+
+import avail.AvailRuntime
+import avail.AvailRuntimeConfiguration
+import avail.builder.ModuleName
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.codeStartingLineNumber
+import avail.descriptor.functions.A_RawFunction.Companion.methodName
+import avail.descriptor.functions.A_RawFunction.Companion.module
+import avail.descriptor.functions.A_RawFunction.Companion.nybbles
+import avail.descriptor.module.A_Module.Companion.moduleNameNative
+import avail.descriptor.tuples.A_String.Companion.asNativeString
+import avail.interpreter.levelTwo.L2JVMChunk
+import avail.persistence.cache.Repositories
+import avail.persistence.cache.Repository
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption.ATOMIC_MOVE
+import java.nio.file.StandardCopyOption.REPLACE_EXISTING
+import java.util.Timer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Level
+import java.util.logging.Logger
+import kotlin.concurrent.fixedRateTimer
+import kotlin.concurrent.thread
+import kotlin.math.max
+
+/**
+ * An `OptimizationProfile` remembers, across runs, the highest
+ * [OptimizationLevel] that each [A_RawFunction] reached.  When a raw function
+ * that was hot in a previous run first exhausts its countdown, it is promoted
+ * directly to that level, rather than climbing through each intermediate tier
+ * again.
+ *
+ * The generated [L2JVMChunk] classes themselves can't be kept, since they
+ * refer to the current run's objects (method definitions, types, constants)
+ * through their class loader's parameters.  The profile only records *which*
+ * code deserves optimization, so a stale entry merely wastes a translation.
+ *
+ * Each raw function is identified by its module name, method name, starting
+ * line number, and the hash of its nybblecodes, so editing a function's body
+ * causes its previous entry to be ignored.  Profiles are kept per module root,
+ * by default in a file alongside the root's [Repository], loaded on first use
+ * and written by [save].
+ *
+ * An [AvailRuntime] only has an `OptimizationProfile` if
+ * [AvailRuntimeConfiguration.optimizationProfiles] was set when it was
+ * created.  Once [started][startPeriodicSaves], changed profiles are saved
+ * periodically and when the JVM shuts down, so that a process that is killed
+ * still leaves a recent profile behind.  They're saved one final time when the
+ * runtime is [destroyed][destroy].
+ *
+ * @property fileForRoot
+ *   How to find the file in which to keep the profile of the named module
+ *   root, answering `null` if the root's profile shouldn't be kept.
+ */
+class OptimizationProfile constructor(
+	private val fileForRoot: (String) -> File? = { rootName ->
+		Repositories[rootName]?.let {
+			File(it.fileName.path + profileExtension)
+		}
+	})
+{
+	/**
+	 * The profile of each module root that has been consulted, keyed by root
+	 * name.  Each maps a raw function's [key][keyFor] to the ordinal of the
+	 * highest [OptimizationLevel] it reached.
+	 */
+	private val roots = ConcurrentHashMap<String, RootProfile>()
+
+	/**
+	 * The profile of a single module root.
+	 *
+	 * @property file
+	 *   The file in which the profile is stored, or `null` if it isn't kept.
+	 * @property levels
+	 *   The ordinal of the highest [OptimizationLevel] reached by each raw
+	 *   function, keyed by [keyFor].
+	 */
+	private class RootProfile constructor(
+		val file: File?,
+		val levels: ConcurrentHashMap<String, Int>)
+	{
+		/** Whether [levels] has changed since it was loaded. */
+		@Volatile
+		var isDirty = false
+	}
+
+	/**
+	 * Answer the [OptimizationLevel] to which the given [A_RawFunction] should
+	 * be optimized, given that it has just exhausted its countdown and would
+	 * otherwise be optimized to the [requested] level.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] to optimize.
+	 * @param requested
+	 *   The level that the code's current chunk asked for.
+	 * @return
+	 *   The [requested] level, or a higher level reached by the same code in a
+	 *   previous run.  [OptimizationLevel.CHASED_BLOCKS] is only answered if
+	 *   [AvailRuntimeConfiguration.chaseBlocks] is set, since a profile
+	 *   written by a run that enabled it may be read by one that doesn't.
+	 */
+	fun promote(
+		code: A_RawFunction,
+		requested: OptimizationLevel
+	): OptimizationLevel
+	{
+		val (root, key) = rootAndKeyFor(code) ?: return requested
+		val recorded = profileFor(root).levels[key] ?: return requested
+		val ceiling = when
+		{
+			AvailRuntimeConfiguration.chaseBlocks ->
+				OptimizationLevel.CHASED_BLOCKS
+			else -> OptimizationLevel.SECOND_JVM_TRANSLATION
+		}
+		return when
+		{
+			recorded <= requested.ordinal -> requested
+			recorded >= ceiling.ordinal -> maxOf(requested, ceiling)
+			else -> OptimizationLevel.optimizationLevel(recorded)
+		}
+	}
+
+	/**
+	 * Record that the given [A_RawFunction] has been optimized to the given
+	 * [OptimizationLevel].  Only levels that produce an [L2JVMChunk] are worth
+	 * remembering.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] that was optimized.
+	 * @param level
+	 *   The level at which it was optimized.
+	 */
+	fun record(code: A_RawFunction, level: OptimizationLevel)
+	{
+		if (level < OptimizationLevel.FIRST_JVM_TRANSLATION) return
+		val (root, key) = rootAndKeyFor(code) ?: return
+		val profile = profileFor(root)
+		val previous = profile.levels[key]
+		if (previous === null || previous < level.ordinal)
+		{
+			profile.levels.merge(key, level.ordinal) { a, b -> max(a, b) }
+			profile.isDirty = true
+		}
+	}
+
+	/**
+	 * Answer the module root name and key of the given [A_RawFunction], or
+	 * `null` if it doesn't belong to a module.
+	 *
+	 * @param code
+	 *   The [A_RawFunction].
+	 * @return
+	 *   The root name and key, or `null`.
+	 */
+	private fun rootAndKeyFor(code: A_RawFunction): Pair<String, String>?
+	{
+		val module = code.module
+		if (module.isNil) return null
+		val moduleName = module.moduleNameNative
+		val root = try
+		{
+			ModuleName(moduleName).rootName
+		}
+		catch (e: IllegalArgumentException)
+		{
+			return null
+		}
+		return root to keyFor(moduleName, code)
+	}
+
+	/**
+	 * Answer the [RootProfile] for the named module root, loading it if
+	 * necessary.
+	 *
+	 * @param rootName
+	 *   The name of the module root.
+	 * @return
+	 *   The root's profile.
+	 */
+	private fun profileFor(rootName: String): RootProfile =
+		roots.computeIfAbsent(rootName) {
+			val file = fileForRoot(rootName)
+			RootProfile(file, load(file))
+		}
+
+	/**
+	 * The [Timer] that periodically [saves][save] the profile, or `null` if
+	 * periodic saving hasn't been [started][startPeriodicSaves].
+	 */
+	private var saveTimer: Timer? = null
+
+	/**
+	 * The [Thread] registered as a JVM shutdown hook to [save] the profile, or
+	 * `null` if none is registered.
+	 */
+	private var shutdownHook: Thread? = null
+
+	/** A lock that prevents concurrent [save]s from racing on a file. */
+	private val saveLock = Any()
+
+	/**
+	 * Start saving changed profiles every [periodMillis] milliseconds, and
+	 * when the JVM shuts down.  Has no effect if already started.
+	 *
+	 * @param periodMillis
+	 *   The number of milliseconds between saves.
+	 */
+	@Synchronized
+	fun startPeriodicSaves(periodMillis: Long = defaultSavePeriodMillis)
+	{
+		if (saveTimer !== null) return
+		saveTimer = fixedRateTimer(
+			"optimization profile saves",
+			true,
+			periodMillis,
+			periodMillis
+		) {
+			save()
+		}
+		val hook = thread(start = false, name = "optimization profile save") {
+			save()
+		}
+		Runtime.getRuntime().addShutdownHook(hook)
+		shutdownHook = hook
+	}
+
+	/**
+	 * Stop any periodic saving, then [save] the profile one final time.
+	 */
+	fun destroy()
+	{
+		synchronized(this) {
+			saveTimer?.cancel()
+			saveTimer = null
+			shutdownHook?.let { hook ->
+				try
+				{
+					Runtime.getRuntime().removeShutdownHook(hook)
+				}
+				catch (e: IllegalStateException)
+				{
+					// The JVM is already shutting down, and the hook will save.
+				}
+			}
+			shutdownHook = null
+		}
+		save()
+	}
+
+	/**
+	 * Write every changed profile to its file.  Each file is written to a
+	 * temporary file in the same directory, then moved into place atomically,
+	 * so that a crash during the write can't leave a truncated profile.
+	 * Failures are logged but otherwise ignored, since the profile is only
+	 * advisory.
+	 */
+	fun save()
+	{
+		synchronized(saveLock) {
+			roots.values.forEach { profile ->
+				val file = profile.file ?: return@forEach
+				if (!profile.isDirty) return@forEach
+				// Clear the flag first, so that a level recorded during the
+				// write causes the next save to write the file again.
+				profile.isDirty = false
+				var temp: Path? = null
+				try
+				{
+					val target = file.toPath().toAbsolutePath()
+					temp = Files.createTempFile(
+						target.parent, target.fileName.toString(), ".tmp")
+					DataOutputStream(
+						Files.newOutputStream(temp).buffered()
+					).use { out ->
+						out.writeInt(magicNumber)
+						val entries = profile.levels.entries.toList()
+						out.writeInt(entries.size)
+						entries.forEach { (key, ordinal) ->
+							out.writeUTF(key)
+							out.writeByte(ordinal)
+						}
+					}
+					Files.move(temp, target, ATOMIC_MOVE, REPLACE_EXISTING)
+				}
+				catch (e: IOException)
+				{
+					profile.isDirty = true
+					logger.log(
+						Level.WARNING,
+						"unable to write optimization profile $file",
+						e)
+					temp?.toFile()?.delete()
+				}
+			}
+		}
+	}
+
+	override fun toString(): String =
+		"OptimizationProfile(${roots.keys.joinToString()})"
+
+	companion object
+	{
+		/**
+		 * The suffix appended to a [Repository]'s file name to produce the
+		 * name of the root's profile file.
+		 */
+		private const val profileExtension = ".profile"
+
+		/**
+		 * The value written at the start of a profile file.  Changing the
+		 * format or the [OptimizationLevel]s requires changing this value, so
+		 * that old profiles are ignored.
+		 */
+		private const val magicNumber = 0x4176_5001
+
+		/**
+		 * The default number of milliseconds between periodic saves of the
+		 * profile.
+		 */
+		private const val defaultSavePeriodMillis = 60_000L
+
+		/** The [Logger] for failures to write profiles. */
+		private val logger = Logger.getLogger(
+			OptimizationProfile::class.java.name)
+
+		/**
+		 * Answer the key under which to profile the given [A_RawFunction].
+		 *
+		 * @param moduleName
+		 *   The fully-qualified name of the code's module.
+		 * @param code
+		 *   The [A_RawFunction].
+		 * @return
+		 *   The key.
+		 */
+		private fun keyFor(moduleName: String, code: A_RawFunction): String =
+			"$moduleName\t${code.methodName.asNativeString()}\t" +
+				"${code.codeStartingLineNumber}\t${code.nybbles.hash()}"
+
+		/**
+		 * Read the profile from the given file, answering an empty profile if
+		 * it doesn't exist or can't be read.
+		 *
+		 * @param file
+		 *   The profile file, or `null`.
+		 * @return
+		 *   The loaded levels, keyed by [keyFor].
+		 */
+		private fun load(file: File?): ConcurrentHashMap<String, Int>
+		{
+			val levels = ConcurrentHashMap<String, Int>()
+			if (file === null || !file.isFile) return levels
+			try
+			{
+				DataInputStream(file.inputStream().buffered()).use { input ->
+					if (input.readInt() != magicNumber) return levels
+					val limit = OptimizationLevel.values().size
+					repeat(input.readInt()) {
+						val key = input.readUTF()
+						val ordinal = input.readUnsignedByte()
+						if (ordinal < limit) levels[key] = ordinal
+					}
+				}
+			}
+			catch (e: EOFException)
+			{
+				// Truncated; keep whatever was read.
+			}
+			catch (e: IOException)
+			{
+				levels.clear()
+			}
+			return levels
+		}
+	}
+}
@@ -31,6 +31,7 @@
  */
 package avail.optimizer.jvm
 
+import avail.dispatch.CompiledLookupTree
 import avail.interpreter.execution.Interpreter
 import avail.interpreter.execution.Interpreter.Companion.log
 import avail.interpreter.levelTwo.L2Chunk
@@ -44,7 +45,9 @@ import java.util.logging.Level
  * dynamic loading and unloading of each `JVMChunk` independently. The class
  * loader holds onto zero or many [objects][Object] for usage during static
  * initialization of the generated `JVMChunk`; these values are accessed from an
- * [array][parameters].
+ * [array][parameters].  Other generated classes, such as the
+ * [CompiledLookupTree]s produced by a [LookupTreeTranslator], are loaded the
+ * same way.
  *
  * @author Todd L Smith &lt;todd@availlang.org&gt;
  *
@@ -84,7 +87,37 @@ class JVMChunkClassLoader : ClassLoader(JVMChunk::class.java.classLoader)
 		chunkName: String,
 		className: String,
 		classBytes: ByteArray,
-		params: Array<Any>): JVMChunk?
+		params: Array<Any>): JVMChunk? =
+			newInstanceFrom(
+				JVMChunk::class.java, chunkName, className, classBytes, params)
+
+	/**
+	 * Answer an instance of a generated [implementation][Class] of [kind] that
+	 * is defined by the given bytes.  The generated class must have a public
+	 * no-argument constructor.
+	 *
+	 * @param kind
+	 *   The [Class] that the generated class extends.
+	 * @param sourceName
+	 *   A description of what the class was generated from, for logging.
+	 * @param className
+	 *   The class name.
+	 * @param classBytes
+	 *   The foundational class bytes.
+	 * @param params
+	 *   The values that should be bundled into this class
+	 *   [loader][JVMChunkClassLoader] for static initialization of the
+	 *   generated class. These are accessible via the [parameters] field.
+	 * @return
+	 *   The newly constructed instance, or `null` if no such instance could be
+	 *   constructed.
+	 */
+	fun <T> newInstanceFrom(
+		kind: Class<T>,
+		sourceName: String,
+		className: String,
+		classBytes: ByteArray,
+		params: Array<Any>): T?
 	{
 		// These need to become available now so that they are available during
 		// loading of the generated class.
@@ -97,63 +130,61 @@ class JVMChunkClassLoader : ClassLoader(JVMChunk::class.java.classLoader)
 			// Reflectively accessing the constructor forces the class to
 			// actually load. The static initializer should have discarded the
 			// parameters after assignment to static final fields of the
-			// generated JVMChunk.
+			// generated class.
 			val o = constructor.newInstance()
-			return o as JVMChunk
+			return kind.cast(o)
 		}
 		catch (e: NoSuchMethodException)
 		{
-			log(
-				Interpreter.loggerDebugJVM,
-				Level.SEVERE,
-				"Failed to load JVMChunk ({0}) from L2Chunk ({1}): {2}",
-				className,
-				chunkName,
-				traceFor(e))
+			logFailure(kind, className, sourceName, e)
 		}
 		catch (e: InstantiationException)
 		{
-			log(
-				Interpreter.loggerDebugJVM,
-				Level.SEVERE,
-				"Failed to load JVMChunk ({0}) from L2Chunk ({1}): {2}",
-				className,
-				chunkName,
-				traceFor(e))
+			logFailure(kind, className, sourceName, e)
 		}
 		catch (e: IllegalAccessException)
 		{
-			log(
-				Interpreter.loggerDebugJVM,
-				Level.SEVERE,
-				"Failed to load JVMChunk ({0}) from L2Chunk ({1}): {2}",
-				className,
-				chunkName,
-				traceFor(e))
+			logFailure(kind, className, sourceName, e)
 		}
 		catch (e: InvocationTargetException)
 		{
-			log(
-				Interpreter.loggerDebugJVM,
-				Level.SEVERE,
-				"Failed to load JVMChunk ({0}) from L2Chunk ({1}): {2}",
-				className,
-				chunkName,
-				traceFor(e))
+			logFailure(kind, className, sourceName, e)
 		}
 		catch (e: ClassCastException)
 		{
-			log(
-				Interpreter.loggerDebugJVM,
-				Level.SEVERE,
-				"Failed to load JVMChunk ({0}) from L2Chunk ({1}): {2}",
-				className,
-				chunkName,
-				traceFor(e))
+			logFailure(kind, className, sourceName, e)
 		}
 		return null
 	}
 
+	/**
+	 * Log that a generated class could not be instantiated.
+	 *
+	 * @param kind
+	 *   The [Class] that the generated class extends.
+	 * @param className
+	 *   The class name.
+	 * @param sourceName
+	 *   A description of what the class was generated from.
+	 * @param e
+	 *   The reason for the failure.
+	 */
+	private fun logFailure(
+		kind: Class<*>,
+		className: String,
+		sourceName: String,
+		e: Exception)
+	{
+		log(
+			Interpreter.loggerDebugJVM,
+			Level.SEVERE,
+			"Failed to load {0} ({1}) from ({2}): {3}",
+			kind.simpleName,
+			className,
+			sourceName,
+			traceFor(e))
+	}
+
 	companion object
 	{
 		/** The [CheckedField] for [parameters]. */
@@ -66,6 +66,7 @@ import avail.interpreter.levelTwo.operand.L2CommentOperand
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2Operand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2PcVectorOperand
@@ -76,10 +77,13 @@ import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.operation.L2_ENTER_L2_CHUNK
 import avail.interpreter.levelTwo.operation.L2_SAVE_ALL_AND_PC_TO_INT
 import avail.interpreter.levelTwo.register.L2BoxedRegister
@@ -88,10 +92,13 @@ import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.BOXED_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.FLOAT_KIND
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind.INTEGER_KIND
+import avail.interpreter.levelTwo.register.L2Register.RegisterKind.LONG_KIND
 import avail.optimizer.L2ControlFlowGraph
 import avail.optimizer.L2ControlFlowGraphVisualizer
 import avail.optimizer.StackReifier
 import avail.optimizer.jvm.JVMTranslator.LiteralAccessor.Companion.invalidIndex
+import avail.performance.AvailEvents
+import avail.performance.JVMTranslationEvent
 import avail.performance.Statistic
 import avail.performance.StatisticReport.FINAL_JVM_TRANSLATION_TIME
 import avail.utility.Strings.traceFor
@@ -155,6 +162,7 @@ import org.objectweb.asm.Opcodes.ILOAD
 import org.objectweb.asm.Opcodes.ISTORE
 import org.objectweb.asm.Opcodes.LCONST_0
 import org.objectweb.asm.Opcodes.LCONST_1
+import org.objectweb.asm.Opcodes.LSTORE
 import org.objectweb.asm.Opcodes.PUTSTATIC
 import org.objectweb.asm.Opcodes.RETURN
 import org.objectweb.asm.Opcodes.SIPUSH
@@ -615,6 +623,12 @@ class JVMTranslator constructor(
 			}
 		}
 
+		override fun doOperand(operand: L2LongImmediateOperand)
+		{
+			// Long immediates are always pushed inline by longConstant(), so
+			// there's no need to record a literal for them.
+		}
+
 		override fun doOperand(operand: L2PcOperand)
 		{
 			operand.counter?.let(this::recordLiteralObject)
@@ -638,6 +652,12 @@ class JVMTranslator constructor(
 				operand.register().finalIndex()) { nextLocal(Type.DOUBLE_TYPE) }
 		}
 
+		override fun doOperand(operand: L2ReadLongOperand)
+		{
+			locals[LONG_KIND]!!.computeIfAbsent(
+				operand.register().finalIndex()) { nextLocal(Type.LONG_TYPE) }
+		}
+
 		override fun doOperand(operand: L2ReadBoxedOperand)
 		{
 			locals[BOXED_KIND]!!.computeIfAbsent(
@@ -660,6 +680,11 @@ class JVMTranslator constructor(
 			vector.elements.forEach(this::doOperand)
 		}
 
+		override fun doOperand(vector: L2ReadLongVectorOperand)
+		{
+			vector.elements.forEach(this::doOperand)
+		}
+
 		override fun doOperand(operand: L2SelectorOperand)
 		{
 			recordLiteralObject(operand.bundle)
@@ -679,6 +704,13 @@ class JVMTranslator constructor(
 				{ nextLocal(Type.DOUBLE_TYPE) }
 		}
 
+		override fun doOperand(operand: L2WriteLongOperand)
+		{
+			locals[LONG_KIND]!!.computeIfAbsent(
+				operand.register().finalIndex())
+				{ nextLocal(Type.LONG_TYPE) }
+		}
+
 		override fun doOperand(operand: L2WriteBoxedOperand)
 		{
 			locals[BOXED_KIND]!!.computeIfAbsent(
@@ -1628,6 +1660,10 @@ class JVMTranslator constructor(
 							doubleConstant(method, 0.0)
 							method.visitVarInsn(DSTORE, localIndex)
 						}
+						LONG_KIND -> {
+							longConstant(method, 0L)
+							method.visitVarInsn(LSTORE, localIndex)
+						}
 					}
 					method.visitLocalVariable(
 						kind.prefix + finalIndex,
@@ -1887,6 +1923,9 @@ class JVMTranslator constructor(
 	 */
 	fun translate()
 	{
+		val event =
+			if (AvailEvents.isRecording) JVMTranslationEvent() else null
+		event?.begin()
 		classNode.visit(
 			V11,
 			ACC_PUBLIC or ACC_FINAL,
@@ -1896,6 +1935,13 @@ class JVMTranslator constructor(
 			null)
 		classNode.visitSource(sourceFileName, null)
 		GenerationPhase.executeAll(this)
+		if (event !== null && event.shouldCommit())
+		{
+			event.end()
+			event.chunkName = chunkName
+			event.className = className
+			event.commit()
+		}
 	}
 
 	companion object
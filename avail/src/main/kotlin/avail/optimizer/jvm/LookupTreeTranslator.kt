@@ -0,0 +1,630 @@
+/*
+ * LookupTreeTranslator.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived set this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.optimizer.jvm
+
+import avail.descriptor.objects.ObjectLayoutVariant
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.types.TypeTag
+import avail.dispatch.CompiledLookupTree
+import avail.dispatch.CompiledLookupTree.Companion.fallbackMethod
+import avail.dispatch.CompiledLookupTree.Companion.isInstanceOfMethod
+import avail.dispatch.CompiledLookupTree.Companion.typeTagOrdinalMethod
+import avail.dispatch.CompiledLookupTree.Companion.variantIdMethod
+import avail.dispatch.DecisionStep
+import avail.dispatch.InternalLookupTree
+import avail.dispatch.LookupStatistics
+import avail.dispatch.LookupTree
+import avail.dispatch.LookupTreeAdaptor
+import avail.dispatch.ObjectLayoutVariantDecisionStep
+import avail.dispatch.TestArgumentDecisionStep
+import avail.dispatch.TypeTagDecisionStep
+import avail.interpreter.JavaLibrary.getClassLoader
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.execution.Interpreter.Companion.log
+import avail.utility.Strings.traceFor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.ClassWriter.COMPUTE_FRAMES
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes.AALOAD
+import org.objectweb.asm.Opcodes.ACC_FINAL
+import org.objectweb.asm.Opcodes.ACC_PRIVATE
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import org.objectweb.asm.Opcodes.ACC_STATIC
+import org.objectweb.asm.Opcodes.ACONST_NULL
+import org.objectweb.asm.Opcodes.ALOAD
+import org.objectweb.asm.Opcodes.ARETURN
+import org.objectweb.asm.Opcodes.BIPUSH
+import org.objectweb.asm.Opcodes.CHECKCAST
+import org.objectweb.asm.Opcodes.DUP
+import org.objectweb.asm.Opcodes.GETSTATIC
+import org.objectweb.asm.Opcodes.GOTO
+import org.objectweb.asm.Opcodes.ICONST_0
+import org.objectweb.asm.Opcodes.IFEQ
+import org.objectweb.asm.Opcodes.INVOKESPECIAL
+import org.objectweb.asm.Opcodes.PUTSTATIC
+import org.objectweb.asm.Opcodes.RETURN
+import org.objectweb.asm.Opcodes.SIPUSH
+import org.objectweb.asm.Opcodes.V11
+import org.objectweb.asm.Type
+import java.util.IdentityHashMap
+import java.util.UUID
+import java.util.logging.Level
+import java.util.regex.Pattern
+
+/**
+ * A `LookupTreeTranslator` compiles the expanded part of a [LookupTree] into a
+ * subclass of [CompiledLookupTree], loaded through a [JVMChunkClassLoader].
+ *
+ * Every reachable node becomes a straight-line piece of the generated
+ * [CompiledLookupTree.lookup] method:
+ *
+ * * a leaf answers its solution, which is held in a static constant,
+ * * a [TypeTagDecisionStep] becomes a `tableswitch` over all [TypeTag]
+ *   ordinals, with the tag ancestry already resolved for each ordinal,
+ * * an [ObjectLayoutVariantDecisionStep] becomes a `lookupswitch` over the
+ *   [ObjectLayoutVariant]s seen so far, and
+ * * a [TestArgumentDecisionStep] becomes a type test and a conditional
+ *   branch.
+ *
+ * Shared subtrees are generated once.  Lazy nodes, steps that extract extra
+ * values, variants that have not been seen yet, and anything beyond the size
+ * budget become calls to [CompiledLookupTree.fallback], which continues the
+ * ordinary lookup from that node.
+ *
+ * @param Element
+ *   The kind of elements in the lookup tree, such as method definitions.
+ * @param Result
+ *   What we expect to produce from a lookup activity, such as the tuple of
+ *   most-specific matching method definitions for some arguments.
+ * @param Memento
+ *   A value used by the adaptor when expanding the tree.
+ *
+ * @property root
+ *   The [LookupTree] to compile.
+ * @property adaptor
+ *   The [LookupTreeAdaptor] that built the tree.
+ * @property memento
+ *   The memento to pass to the [adaptor] when falling back.
+ * @property lookupStats
+ *   The [LookupStatistics] in which to record lookups.
+ * @property numArgs
+ *   The number of arguments that each lookup provides.
+ * @property treeName
+ *   A description of the tree, used to name the generated class.
+ *
+ * @constructor
+ * Construct a new `LookupTreeTranslator`.
+ *
+ * @param root
+ *   The [LookupTree] to compile.
+ * @param adaptor
+ *   The [LookupTreeAdaptor] that built the tree.
+ * @param memento
+ *   The memento to pass to the [adaptor] when falling back.
+ * @param lookupStats
+ *   The [LookupStatistics] in which to record lookups.
+ * @param numArgs
+ *   The number of arguments that each lookup provides.
+ * @param treeName
+ *   A description of the tree, used to name the generated class.
+ */
+class LookupTreeTranslator<
+	Element : A_BasicObject,
+	Result : A_BasicObject,
+	Memento>
+constructor(
+	private val root: LookupTree<Element, Result>,
+	private val adaptor: LookupTreeAdaptor<Element, Result, Memento>,
+	private val memento: Memento,
+	private val lookupStats: LookupStatistics,
+	private val numArgs: Int,
+	private val treeName: String)
+{
+	/** The name of the generated class. */
+	private val className: String
+
+	/** The internal name of the generated class. */
+	private val classInternalName: String
+
+	init
+	{
+		var cleanName =
+			classNameForbiddenCharacters.matcher(treeName).replaceAll("%")
+		if (cleanName.length > 100)
+		{
+			cleanName = cleanName.substring(0, 100) + "%%%"
+		}
+		val safeUID = UUID.randomUUID().toString().replace('-', '_')
+		className = "avail.optimizer.jvm.generated.lookup.$cleanName - $safeUID"
+		classInternalName = className.replace('.', '/')
+	}
+
+	/**
+	 * The constants referenced by the generated code, in the order of their
+	 * indices into the generated class's static constants array.
+	 */
+	private val constants = mutableListOf<Any>()
+
+	/** The index of each constant in [constants], by identity. */
+	private val constantIndices = IdentityHashMap<Any, Int>()
+
+	/** The [Label] at which each reachable subtree's code starts. */
+	private val labels = IdentityHashMap<LookupTree<Element, Result>, Label>()
+
+	/** The subtrees whose [labels] have been created but not yet placed. */
+	private val pending = ArrayDeque<LookupTree<Element, Result>>()
+
+	/** A conservative estimate of the bytecode emitted so far. */
+	private var estimatedCodeSize = 0
+
+	/**
+	 * Generate, load, and instantiate the [CompiledLookupTree].
+	 *
+	 * @return
+	 *   The new [CompiledLookupTree], or `null` if the class could not be
+	 *   generated or loaded.
+	 */
+	fun translate(): CompiledLookupTree<Element, Result, Memento>?
+	{
+		val classBytes = try
+		{
+			generateClass()
+		}
+		catch (e: RuntimeException)
+		{
+			log(
+				Interpreter.loggerDebugJVM,
+				Level.WARNING,
+				"Failed to compile lookup tree ({0}): {1}",
+				treeName,
+				traceFor(e))
+			return null
+		}
+		@Suppress("UNCHECKED_CAST")
+		val compiled = JVMChunkClassLoader().newInstanceFrom(
+			CompiledLookupTree::class.java,
+			treeName,
+			className,
+			classBytes,
+			constants.toTypedArray()
+		) as CompiledLookupTree<Element, Result, Memento>? ?: return null
+		compiled.initialize(adaptor, memento, lookupStats)
+		return compiled
+	}
+
+	/**
+	 * Generate the bytes of the [CompiledLookupTree] subclass.
+	 *
+	 * @return
+	 *   The class file bytes.
+	 */
+	private fun generateClass(): ByteArray
+	{
+		val writer = ClassWriter(COMPUTE_FRAMES)
+		writer.visit(
+			V11,
+			ACC_PUBLIC or ACC_FINAL,
+			classInternalName,
+			null,
+			superInternalName,
+			null)
+		writer.visitField(
+			ACC_PRIVATE or ACC_STATIC or ACC_FINAL,
+			constantsFieldName,
+			constantsDescriptor,
+			null,
+			null
+		).visitEnd()
+		generateConstructor(writer)
+		generateLookup(writer)
+		// The static initializer is generated last, so that it is never
+		// visited before all constants have been collected.
+		generateStaticInitializer(writer)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	/**
+	 * Generate the public no-argument constructor.
+	 *
+	 * @param writer
+	 *   The [ClassWriter] for the generated class.
+	 */
+	private fun generateConstructor(writer: ClassWriter)
+	{
+		val method = writer.visitMethod(
+			ACC_PUBLIC,
+			"<init>",
+			Type.getMethodDescriptor(Type.VOID_TYPE),
+			null,
+			null)
+		method.visitCode()
+		method.visitVarInsn(ALOAD, 0)
+		method.visitMethodInsn(
+			INVOKESPECIAL,
+			superInternalName,
+			"<init>",
+			Type.getMethodDescriptor(Type.VOID_TYPE),
+			false)
+		method.visitInsn(RETURN)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+	}
+
+	/**
+	 * Generate the static initializer, which moves the
+	 * [parameters][JVMChunkClassLoader.parameters] of the class loader into
+	 * the static constants array.
+	 *
+	 * @param writer
+	 *   The [ClassWriter] for the generated class.
+	 */
+	private fun generateStaticInitializer(writer: ClassWriter)
+	{
+		val method = writer.visitMethod(
+			ACC_STATIC or ACC_PUBLIC,
+			"<clinit>",
+			Type.getMethodDescriptor(Type.VOID_TYPE),
+			null,
+			null)
+		method.visitCode()
+		// :: «generated class».class.getClassLoader()
+		method.visitLdcInsn(Type.getType("L$classInternalName;"))
+		getClassLoader.generateCall(method)
+		method.visitTypeInsn(
+			CHECKCAST,
+			Type.getInternalName(JVMChunkClassLoader::class.java))
+		// :: constants = «loader».parameters;
+		method.visitInsn(DUP)
+		JVMChunkClassLoader.parametersField.generateRead(method)
+		method.visitFieldInsn(
+			PUTSTATIC,
+			classInternalName,
+			constantsFieldName,
+			constantsDescriptor)
+		// :: «loader».parameters = null;
+		method.visitInsn(ACONST_NULL)
+		JVMChunkClassLoader.parametersField.generateWrite(method)
+		method.visitInsn(RETURN)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+	}
+
+	/**
+	 * Generate the [CompiledLookupTree.lookup] method, placing the code for
+	 * each reachable subtree in turn.
+	 *
+	 * @param writer
+	 *   The [ClassWriter] for the generated class.
+	 */
+	private fun generateLookup(writer: ClassWriter)
+	{
+		val method = writer.visitMethod(
+			ACC_PUBLIC or ACC_FINAL,
+			CompiledLookupTree<*, *, *>::lookup.name,
+			Type.getMethodDescriptor(
+				Type.getType(A_BasicObject::class.java),
+				Type.getType(List::class.java)),
+			null,
+			null)
+		method.visitParameter("argValues", ACC_FINAL)
+		method.visitCode()
+		labelFor(root)
+		while (pending.isNotEmpty())
+		{
+			generateSubtree(method, pending.removeFirst())
+		}
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+	}
+
+	/**
+	 * Answer the [Label] for the given subtree, scheduling the subtree for
+	 * generation if this is the first reference to it.
+	 *
+	 * @param subtree
+	 *   The [LookupTree] to branch to.
+	 * @return
+	 *   The [Label] at which the subtree's code starts.
+	 */
+	private fun labelFor(subtree: LookupTree<Element, Result>): Label =
+		labels.getOrPut(subtree) {
+			pending.add(subtree)
+			Label()
+		}
+
+	/**
+	 * Generate the code for one subtree.  Every path through the code either
+	 * returns or branches to the code of another subtree.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param subtree
+	 *   The [LookupTree] to generate.
+	 */
+	private fun generateSubtree(
+		method: MethodVisitor,
+		subtree: LookupTree<Element, Result>)
+	{
+		method.visitLabel(labels[subtree]!!)
+		subtree.solutionOrNull?.let { solution ->
+			// :: return «solution»;
+			pushConstant(method, solution)
+			method.visitInsn(ARETURN)
+			estimatedCodeSize += 8
+			return
+		}
+		val step = (subtree as? InternalLookupTree<Element, Result>)
+			?.decisionStepOrNull
+		when
+		{
+			step === null -> generateFallback(method, subtree)
+			estimatedCodeSize > maximumCodeSize ->
+				generateFallback(method, subtree)
+			step.argumentPositionToTest > numArgs ->
+				generateFallback(method, subtree)
+			step is TypeTagDecisionStep ->
+				generateTypeTagSwitch(method, subtree, step)
+			step is ObjectLayoutVariantDecisionStep ->
+				generateVariantSwitch(method, subtree, step)
+			step is TestArgumentDecisionStep ->
+				generateTypeTest(method, step)
+			else -> generateFallback(method, subtree)
+		}
+	}
+
+	/**
+	 * Generate a `tableswitch` over all [TypeTag] ordinals of the tested
+	 * argument.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param subtree
+	 *   The [LookupTree] whose step this is.
+	 * @param step
+	 *   The [TypeTagDecisionStep] to generate.
+	 */
+	private fun generateTypeTagSwitch(
+		method: MethodVisitor,
+		subtree: LookupTree<Element, Result>,
+		step: TypeTagDecisionStep<Element, Result>)
+	{
+		val targets = Array(TypeTag.count) { ordinal ->
+			labelFor(
+				step.subtreeForTag(TypeTag.tagFromOrdinal(ordinal))
+					?: adaptor.emptyLeaf)
+		}
+		// :: switch (typeTagOrdinal(argValues, «index»)) …
+		pushArgument(method, step)
+		typeTagOrdinalMethod.generateCall(method)
+		val impossible = Label()
+		method.visitTableSwitchInsn(
+			0, TypeTag.count - 1, impossible, *targets)
+		method.visitLabel(impossible)
+		estimatedCodeSize += 16 + 4 * TypeTag.count
+		generateFallback(method, subtree)
+	}
+
+	/**
+	 * Generate a `lookupswitch` over the [ObjectLayoutVariant]s that the step
+	 * has already encountered.  Any other variant falls back to the step
+	 * itself, which adds a subtree for it.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param subtree
+	 *   The [LookupTree] whose step this is.
+	 * @param step
+	 *   The [ObjectLayoutVariantDecisionStep] to generate.
+	 */
+	private fun generateVariantSwitch(
+		method: MethodVisitor,
+		subtree: LookupTree<Element, Result>,
+		step: ObjectLayoutVariantDecisionStep<Element, Result>)
+	{
+		val known = step.knownVariantSubtrees().entries
+			.sortedBy { it.key.variantId }
+		if (known.isEmpty() || known.size > maximumSwitchedVariants)
+		{
+			generateFallback(method, subtree)
+			return
+		}
+		val keys = known.map { it.key.variantId }.toIntArray()
+		val targets = known.map { labelFor(it.value) }.toTypedArray()
+		// :: switch (variantId(argValues, «index»)) …
+		pushArgument(method, step)
+		variantIdMethod.generateCall(method)
+		val unknownVariant = Label()
+		method.visitLookupSwitchInsn(unknownVariant, keys, targets)
+		method.visitLabel(unknownVariant)
+		estimatedCodeSize += 16 + 8 * keys.size
+		generateFallback(method, subtree)
+	}
+
+	/**
+	 * Generate a type test of the argument, and a branch to the appropriate
+	 * subtree.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param step
+	 *   The [TestArgumentDecisionStep] to generate.
+	 */
+	private fun generateTypeTest(
+		method: MethodVisitor,
+		step: TestArgumentDecisionStep<Element, Result>)
+	{
+		// :: if (isInstanceOf(argValues, «index», «type»)) goto holds;
+		// :: else goto fails;
+		pushArgument(method, step)
+		pushConstant(method, step.argumentTypeToTest)
+		isInstanceOfMethod.generateCall(method)
+		method.visitJumpInsn(IFEQ, labelFor(step.ifCheckFails))
+		method.visitJumpInsn(GOTO, labelFor(step.ifCheckHolds))
+		estimatedCodeSize += 24
+	}
+
+	/**
+	 * Generate a call to [CompiledLookupTree.fallback], continuing the
+	 * ordinary lookup at the given subtree, and return its result.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param subtree
+	 *   The [LookupTree] at which to continue.
+	 */
+	private fun generateFallback(
+		method: MethodVisitor,
+		subtree: LookupTree<Element, Result>)
+	{
+		// :: return this.fallback(«subtree», argValues);
+		method.visitVarInsn(ALOAD, 0)
+		pushConstant(method, subtree)
+		method.visitVarInsn(ALOAD, 1)
+		fallbackMethod.generateCall(method)
+		method.visitInsn(ARETURN)
+		estimatedCodeSize += 16
+	}
+
+	/**
+	 * Push the argument list and the zero-based index of the argument that
+	 * the step tests.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param step
+	 *   The [DecisionStep] being generated.
+	 */
+	private fun pushArgument(
+		method: MethodVisitor,
+		step: DecisionStep<Element, Result>)
+	{
+		method.visitVarInsn(ALOAD, 1)
+		pushInt(method, step.argumentPositionToTest - 1)
+	}
+
+	/**
+	 * Push the given constant, recording it for the static initializer if
+	 * this is its first use.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param value
+	 *   The constant to push.
+	 */
+	private fun pushConstant(method: MethodVisitor, value: Any)
+	{
+		val index = constantIndices.getOrPut(value) {
+			constants.add(value)
+			constants.size - 1
+		}
+		// :: constants[«index»]
+		method.visitFieldInsn(
+			GETSTATIC,
+			classInternalName,
+			constantsFieldName,
+			constantsDescriptor)
+		pushInt(method, index)
+		method.visitInsn(AALOAD)
+	}
+
+	/**
+	 * Push the given non-negative `int`, using the shortest instruction.
+	 *
+	 * @param method
+	 *   The generated [CompiledLookupTree.lookup] method.
+	 * @param value
+	 *   The `int` to push.
+	 */
+	private fun pushInt(method: MethodVisitor, value: Int)
+	{
+		when (value)
+		{
+			in 0..5 -> method.visitInsn(ICONST_0 + value)
+			in 0..Byte.MAX_VALUE -> method.visitIntInsn(BIPUSH, value)
+			in 0..Short.MAX_VALUE -> method.visitIntInsn(SIPUSH, value)
+			else -> method.visitLdcInsn(value)
+		}
+	}
+
+	companion object
+	{
+		/**
+		 * Whether to compile the [LookupTree]s of frequently looked-up methods
+		 * into [CompiledLookupTree]s.
+		 */
+		@Volatile
+		var compileLookupTrees = true
+
+		/**
+		 * The number of dynamic lookups through the same [LookupTree] after
+		 * which it is compiled.  By then the paths that are actually taken have
+		 * been expanded.
+		 */
+		const val compilationThreshold = 1000
+
+		/**
+		 * The approximate number of bytes of bytecode after which the
+		 * remaining subtrees are reached through fallbacks.  This stays well
+		 * under the JVM's limit on the size of a method.
+		 */
+		private const val maximumCodeSize = 32_000
+
+		/**
+		 * The largest number of [ObjectLayoutVariant]s to dispatch on with a
+		 * `lookupswitch`.  Steps with more variants are reached through a
+		 * fallback instead.
+		 */
+		private const val maximumSwitchedVariants = 256
+
+		/** The internal name of [CompiledLookupTree]. */
+		private val superInternalName =
+			Type.getInternalName(CompiledLookupTree::class.java)
+
+		/** The name of the static constants array of the generated class. */
+		private const val constantsFieldName = "constants"
+
+		/** The descriptor of the static constants array. */
+		private val constantsDescriptor =
+			Type.getDescriptor(Array<Any>::class.java)
+
+		/**
+		 * A regex [Pattern] to find runs of characters that are forbidden in a
+		 * class name, and will be replaced with a single `'%'`.
+		 */
+		@Suppress("SpellCheckingInspection")
+		private val classNameForbiddenCharacters =
+			Pattern.compile("[\\[\\]\\\\/.:;\"'\\p{Cntrl}]+")
+	}
+}
@@ -39,6 +39,7 @@ import avail.interpreter.levelTwo.operand.L2CommentOperand
 import avail.interpreter.levelTwo.operand.L2ConstantOperand
 import avail.interpreter.levelTwo.operand.L2FloatImmediateOperand
 import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2LongImmediateOperand
 import avail.interpreter.levelTwo.operand.L2Operand
 import avail.interpreter.levelTwo.operand.L2PcOperand
 import avail.interpreter.levelTwo.operand.L2PcVectorOperand
@@ -49,18 +50,23 @@ import avail.interpreter.levelTwo.operand.L2ReadFloatOperand
 import avail.interpreter.levelTwo.operand.L2ReadFloatVectorOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntOperand
 import avail.interpreter.levelTwo.operand.L2ReadIntVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongOperand
+import avail.interpreter.levelTwo.operand.L2ReadLongVectorOperand
 import avail.interpreter.levelTwo.operand.L2SelectorOperand
 import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
 import avail.interpreter.levelTwo.operand.L2WriteFloatOperand
 import avail.interpreter.levelTwo.operand.L2WriteIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteLongOperand
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
 import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
 import avail.interpreter.levelTwo.operation.L2_MOVE_CONSTANT
 import avail.interpreter.levelTwo.operation.L2_VIRTUAL_CREATE_LABEL
 import avail.interpreter.levelTwo.register.L2BoxedRegister
 import avail.interpreter.levelTwo.register.L2FloatRegister
 import avail.interpreter.levelTwo.register.L2IntRegister
+import avail.interpreter.levelTwo.register.L2LongRegister
 import avail.interpreter.levelTwo.register.L2Register
 import avail.interpreter.levelTwo.register.L2Register.RegisterKind
 import avail.optimizer.L1Translator
@@ -71,6 +77,7 @@ import avail.optimizer.L2Generator
 import avail.optimizer.L2Generator.SpecialBlock
 import avail.optimizer.values.L2SemanticUnboxedFloat
 import avail.optimizer.values.L2SemanticUnboxedInt
+import avail.optimizer.values.L2SemanticUnboxedLong
 import avail.optimizer.values.L2SemanticValue
 import avail.utility.cast
 import avail.utility.mapToSet
@@ -181,6 +188,8 @@ abstract class L2Regenerator internal constructor(
 
 		override fun doOperand(operand: L2FloatImmediateOperand) = Unit
 
+		override fun doOperand(operand: L2LongImmediateOperand) = Unit
+
 		override fun doOperand(operand: L2PcOperand)
 		{
 			// Add the source edge to the appropriate queue.
@@ -243,6 +252,13 @@ abstract class L2Regenerator internal constructor(
 				operand.elements.map(this@L2Regenerator::transformOperand))
 		}
 
+		override fun doOperand(operand: L2ReadLongVectorOperand)
+		{
+			// Note: this clobbers currentOperand, but we'll set it later.
+			currentOperand = L2ReadLongVectorOperand(
+				operand.elements.map(this@L2Regenerator::transformOperand))
+		}
+
 		override fun doOperand(operand: L2SelectorOperand) = Unit
 
 		override fun doOperand(operand: L2PcVectorOperand)
@@ -278,6 +294,15 @@ abstract class L2Regenerator internal constructor(
 				targetGenerator.currentManifest)
 		}
 
+		override fun doOperand(operand: L2ReadLongOperand)
+		{
+			currentOperand = L2ReadLongOperand(
+				mapSemanticValue(operand.semanticValue()),
+				targetGenerator.currentManifest.restrictionFor(
+					operand.semanticValue()),
+				targetGenerator.currentManifest)
+		}
+
 		override fun doOperand(operand: L2ReadBoxedOperand)
 		{
 			currentOperand = L2ReadBoxedOperand(
@@ -308,6 +333,17 @@ abstract class L2Regenerator internal constructor(
 				L2FloatRegister(targetGenerator.nextUnique()))
 		}
 
+		override fun doOperand(operand: L2WriteLongOperand)
+		{
+			currentOperand = L2WriteLongOperand(
+				operand.semanticValues().mapToSet {
+					mapSemanticValue(it) as L2SemanticUnboxedLong
+				},
+				operand.restriction().restrictingKindsTo(
+					UNBOXED_LONG_FLAG.mask),
+				L2LongRegister(targetGenerator.nextUnique()))
+		}
+
 		override fun doOperand(operand: L2WriteBoxedOperand)
 		{
 			currentOperand = L2WriteBoxedOperand(
@@ -349,6 +385,15 @@ abstract class L2Regenerator internal constructor(
 				registerMap[operand.register()] as L2FloatRegister)
 		}
 
+		override fun doOperand(operand: L2ReadLongOperand)
+		{
+			currentOperand = L2ReadLongOperand(
+				operand.semanticValue(),
+				targetGenerator.currentManifest.restrictionFor(
+					operand.semanticValue()),
+				registerMap[operand.register()] as L2LongRegister)
+		}
+
 		override fun doOperand(operand: L2ReadBoxedOperand)
 		{
 			currentOperand = L2ReadBoxedOperand(
@@ -385,6 +430,20 @@ abstract class L2Regenerator internal constructor(
 				newRegister as L2FloatRegister)
 		}
 
+		override fun doOperand(operand: L2WriteLongOperand)
+		{
+			val newRegister =
+				registerMap.computeIfAbsent(operand.register()) {
+					val unique = targetGenerator.nextUnique()
+					L2LongRegister(unique)
+				}
+			currentOperand = L2WriteLongOperand(
+				operand.semanticValues().cast(),
+				operand.restriction().restrictingKindsTo(
+					UNBOXED_LONG_FLAG.mask),
+				newRegister as L2LongRegister)
+		}
+
 		override fun doOperand(operand: L2WriteBoxedOperand)
 		{
 			val newRegister =
@@ -0,0 +1,308 @@
+/*
+ * AvailEvents.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.performance
+
+import jdk.jfr.Category
+import jdk.jfr.Description
+import jdk.jfr.Enabled
+import jdk.jfr.Event
+import jdk.jfr.FlightRecorder
+import jdk.jfr.FlightRecorderListener
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.Recording
+import jdk.jfr.RecordingState
+import jdk.jfr.Timespan
+
+/**
+ * `AvailEvents` tracks whether any JDK Flight Recorder [Recording] is running,
+ * so that the instrumented parts of the runtime can skip even the allocation
+ * of an [Event] when nobody is listening.  The events themselves are declared
+ * alongside, in the "Avail" category, so that they can be correlated with the
+ * garbage collection, lock, and I/O events recorded by the JVM.
+ *
+ * Emitters should test [isRecording] first, and then only populate and commit
+ * the event if [Event.shouldCommit] says the event type is enabled and its
+ * threshold was reached.
+ */
+object AvailEvents : FlightRecorderListener
+{
+	/**
+	 * Whether any [Recording] is currently running.  This is only a cheap
+	 * first gate; the settings of each recording still determine which
+	 * events are actually committed.
+	 */
+	@Volatile
+	var isRecording = false
+		private set
+
+	init
+	{
+		// This does not initialize the flight recorder itself.  If it has
+		// already been initialized, recorderInitialized() runs right away.
+		FlightRecorder.addListener(this)
+	}
+
+	override fun recorderInitialized(recorder: FlightRecorder) =
+		update(recorder)
+
+	override fun recordingStateChanged(recording: Recording)
+	{
+		if (FlightRecorder.isInitialized())
+		{
+			update(FlightRecorder.getFlightRecorder())
+		}
+	}
+
+	/**
+	 * Recompute [isRecording] from the recordings of the given recorder.
+	 *
+	 * @param recorder
+	 *   The [FlightRecorder] to examine.
+	 */
+	private fun update(recorder: FlightRecorder)
+	{
+		isRecording = recorder.recordings.any {
+			it.state == RecordingState.RUNNING
+		}
+	}
+}
+
+/**
+ * A fiber ran for a while in an interpreter, from being scheduled until it
+ * terminated, suspended, parked, or was otherwise descheduled.
+ */
+@Name("avail.FiberRun")
+@Label("Fiber Run")
+@Category("Avail", "Fibers")
+@Description("A fiber running in an interpreter until it is descheduled")
+class FiberRunEvent : Event()
+{
+	/** The fiber's unique identifier. */
+	@field:Label("Fiber Id")
+	var fiberId = 0L
+
+	/** The fiber's name. */
+	@field:Label("Fiber Name")
+	var fiberName: String? = null
+
+	/** The fiber's scheduling priority, in [0..255]. */
+	@field:Label("Priority")
+	var priority = 0
+
+	/** The fiber's execution state after it stopped running. */
+	@field:Label("Outcome")
+	var outcome: String? = null
+
+	/** How long the fiber waited for an interpreter to become available. */
+	@field:Label("Queued")
+	@field:Timespan(Timespan.NANOSECONDS)
+	var queuedNanos = 0L
+}
+
+/**
+ * An action ran at a safe point, while no interpreters were running.
+ */
+@Name("avail.SafePoint")
+@Label("Safe Point")
+@Category("Avail", "Fibers")
+@Description("An action run while all interpreters are paused")
+class SafePointEvent : Event()
+{
+	/** The priority of the safe-point task. */
+	@field:Label("Priority")
+	var priority = 0
+
+	/** How long the request waited for the interpreters to pause. */
+	@field:Label("Queued")
+	@field:Timespan(Timespan.NANOSECONDS)
+	var queuedNanos = 0L
+}
+
+/**
+ * A raw function was translated from level one into a level two chunk,
+ * including the chunk's subsequent translation into JVM bytecodes.
+ */
+@Name("avail.L2Translation")
+@Label("L2 Translation")
+@Category("Avail", "Optimizer")
+@Description("Translation of a raw function into an optimized L2 chunk")
+class L2TranslationEvent : Event()
+{
+	/** The name of the translated code. */
+	@field:Label("Code")
+	var codeName: String? = null
+
+	/** The requested optimization level. */
+	@field:Label("Optimization Level")
+	var optimizationLevel: String? = null
+
+	/** The number of L2 instructions in the resulting chunk. */
+	@field:Label("Instructions")
+	var instructionCount = 0
+
+	/** The number of values the new chunk depends on. */
+	@field:Label("Dependencies")
+	var dependencyCount = 0
+}
+
+/**
+ * A level two chunk was translated into a JVM class.
+ */
+@Name("avail.JVMTranslation")
+@Label("JVM Translation")
+@Category("Avail", "Optimizer")
+@Description("Generation of a JVM class from an L2 chunk")
+class JVMTranslationEvent : Event()
+{
+	/** The name of the chunk being translated. */
+	@field:Label("Chunk")
+	var chunkName: String? = null
+
+	/** The name of the generated class. */
+	@field:Label("Class Name")
+	var className: String? = null
+}
+
+/**
+ * A level two chunk was invalidated.
+ */
+@Name("avail.ChunkInvalidation")
+@Label("Chunk Invalidation")
+@Category("Avail", "Optimizer")
+@Description("Invalidation of an optimized L2 chunk")
+class ChunkInvalidationEvent : Event()
+{
+	/** The name of the invalidated chunk. */
+	@field:Label("Chunk")
+	var chunkName: String? = null
+
+	/** Why the chunk was invalidated. */
+	@field:Label("Reason")
+	var reason: String? = null
+}
+
+/**
+ * The oldest generations of level two chunks were evicted to bound the total
+ * number of chunks.
+ */
+@Name("avail.ChunkEviction")
+@Label("Chunk Eviction")
+@Category("Avail", "Optimizer")
+@Description("Eviction of the least recently used L2 chunks")
+class ChunkEvictionEvent : Event()
+{
+	/** How many chunks were queued for invalidation. */
+	@field:Label("Evicted Chunks")
+	var evictedCount = 0
+}
+
+/**
+ * A method dispatch had to search a lookup tree, rather than using a cached
+ * or statically determined definition.
+ */
+@Name("avail.DynamicLookup")
+@Label("Dynamic Lookup")
+@Category("Avail", "Dispatch")
+@Description("A search of a lookup tree to find the applicable definition")
+class DynamicLookupEvent : Event()
+{
+	/** The name of the lookup statistics, usually naming the method. */
+	@field:Label("Lookup")
+	var lookup: String? = null
+
+	/**
+	 * How deep the search had to go in the lookup tree, or zero if the tree
+	 * was [compiled].
+	 */
+	@field:Label("Depth")
+	var depth = 0
+
+	/** Whether the search went through a compiled lookup tree. */
+	@field:Label("Compiled")
+	var compiled = false
+
+	/** How long the lookup took. */
+	@field:Label("Lookup Time")
+	@field:Timespan(Timespan.NANOSECONDS)
+	var lookupNanos = 0L
+}
+
+/**
+ * A primitive was attempted.  Primitives run far too often to record them by
+ * default, so this event must be enabled explicitly in a recording's
+ * settings.
+ */
+@Name("avail.Primitive")
+@Label("Primitive")
+@Category("Avail", "Primitives")
+@Description("An attempt to run a primitive")
+@Enabled(false)
+class PrimitiveEvent : Event()
+{
+	/** The name of the primitive. */
+	@field:Label("Primitive")
+	var primitive: String? = null
+
+	/** The primitive's result, such as SUCCESS or FAILURE. */
+	@field:Label("Result")
+	var result: String? = null
+
+	/** How long the primitive ran. */
+	@field:Label("Running Time")
+	@field:Timespan(Timespan.NANOSECONDS)
+	var runningNanos = 0L
+}
+
+/**
+ * A module was loaded into the runtime, either from its compiled form in a
+ * repository or by compiling it.
+ */
+@Name("avail.ModuleLoad")
+@Label("Module Load")
+@Category("Avail", "Builder")
+@Description("Loading or compiling a module")
+class ModuleLoadEvent : Event()
+{
+	/** The qualified name of the module. */
+	@field:Label("Module")
+	var moduleName: String? = null
+
+	/** Either "load" (from the repository) or "compile". */
+	@field:Label("Phase")
+	var phase: String? = null
+
+	/** Whether the module ended up loaded. */
+	@field:Label("Succeeded")
+	var succeeded = false
+}
@@ -0,0 +1,322 @@
+/*
+ * MetricsExporter.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.performance
+
+import avail.performance.ReportingUnit.BYTES
+import avail.performance.ReportingUnit.NANOSECONDS
+import org.availlang.json.JSONWriter
+import org.availlang.json.jsonWriter
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption.ATOMIC_MOVE
+import java.nio.file.StandardCopyOption.REPLACE_EXISTING
+import java.util.Timer
+import java.util.TimerTask
+import java.util.logging.Level
+import java.util.logging.Logger
+import kotlin.concurrent.timerTask
+
+/**
+ * `MetricsExporter` publishes every registered [Statistic] of every
+ * [StatisticReport] in machine-readable forms, for dashboards that watch the
+ * runtime continuously:
+ *
+ *  * [prometheusText] produces the Prometheus text exposition format, with a
+ *    summary (count, sum, and quantiles) per report and gauges for the mean,
+ *    standard deviation, minimum, and maximum of each statistic.
+ *  * [jsonSnapshot] produces the same information as a JSON document.
+ *  * [startPeriodicSnapshots] writes a JSON snapshot to a file periodically.
+ *
+ * Quantiles are only exported for statistics that keep a histogram; see
+ * [StatisticReport.histograms].
+ *
+ * Exports never reset the statistics they read, since they're shared with
+ * every other reader, including the textual
+ * [reports][StatisticReport.produceReports].  Each export is therefore
+ * cumulative since the statistics were last [cleared][StatisticReport.clear],
+ * and consumers that want rates or windows should compute them from the
+ * differences between consecutive exports, as Prometheus does.
+ */
+object MetricsExporter
+{
+	/** The quantiles reported for each statistic, by their JSON names. */
+	private val quantiles =
+		listOf("p50" to 0.5, "p90" to 0.9, "p99" to 0.99, "p999" to 0.999)
+
+	/**
+	 * The gauges reported for each statistic, by the suffixes of their
+	 * Prometheus metric names.
+	 */
+	private val gauges = listOf(
+		"mean" to PerInterpreterStatistic::mean,
+		"stddev" to PerInterpreterStatistic::standardDeviation,
+		"min" to PerInterpreterStatistic::min,
+		"max" to PerInterpreterStatistic::max)
+
+	/** When the exporter was first used, in milliseconds since the epoch. */
+	private val startTime = System.currentTimeMillis()
+
+	/** The [Logger] for failures to write periodic snapshots. */
+	private val logger = Logger.getLogger(MetricsExporter::class.java.name)
+
+	/** The [Timer] that writes periodic snapshots, created on demand. */
+	private val timer by lazy { Timer("metrics snapshots", true) }
+
+	/**
+	 * A captured snapshot of the statistics.
+	 *
+	 * @property time
+	 *   When the snapshot was captured, in milliseconds since the epoch.
+	 * @property reports
+	 *   The non-empty statistics of each [StatisticReport], by name.
+	 */
+	private class Snapshot(
+		val time: Long,
+		val reports: List<Pair<StatisticReport,
+			List<Pair<String, PerInterpreterStatistic>>>>)
+
+	/**
+	 * Capture the current statistics of every [StatisticReport].
+	 *
+	 * @return
+	 *   The captured [Snapshot].
+	 */
+	private fun capture(): Snapshot
+	{
+		val time = System.currentTimeMillis()
+		val reports = StatisticReport.values().map { report ->
+			val stats = synchronized(report.statistics) {
+				report.statistics.map { it.name() to it.aggregate() }
+			}
+			report to stats.filter { (_, stat) -> stat.count() > 0L }
+		}
+		return Snapshot(time, reports)
+	}
+
+	/**
+	 * Answer the factor that converts samples in the given [ReportingUnit] to
+	 * the base unit used for export: seconds for [NANOSECONDS], and the unit
+	 * itself otherwise.
+	 *
+	 * @param unit
+	 *   The unit of the samples.
+	 * @return
+	 *   The scale factor.
+	 */
+	private fun scale(unit: ReportingUnit) =
+		if (unit == NANOSECONDS) 1.0e-9 else 1.0
+
+	/**
+	 * Answer the Prometheus metric name for the given [StatisticReport],
+	 * including the suffix of its base unit.
+	 *
+	 * @param report
+	 *   The report.
+	 * @return
+	 *   The metric name.
+	 */
+	private fun metricName(report: StatisticReport) =
+		"avail_" + report.name.lowercase() + when (report.unit)
+		{
+			NANOSECONDS -> "_seconds"
+			BYTES -> "_bytes"
+			else -> ""
+		}
+
+	/**
+	 * Escape a label value for the Prometheus text format.
+	 *
+	 * @param value
+	 *   The raw label value.
+	 * @return
+	 *   The escaped label value, without the enclosing quotes.
+	 */
+	private fun escape(value: String) =
+		value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+
+	/**
+	 * Produce every statistic in the Prometheus text exposition format
+	 * (version 0.0.4).  Durations are reported in seconds.
+	 *
+	 * @return
+	 *   The exposition text.
+	 */
+	fun prometheusText(): String = buildString {
+		val snapshot = capture()
+		snapshot.reports.forEach { (report, stats) ->
+			if (stats.isEmpty()) return@forEach
+			val name = metricName(report)
+			val factor = scale(report.unit)
+			append("# HELP $name ${report.title}\n")
+			append("# TYPE $name summary\n")
+			stats.forEach { (statName, stat) ->
+				val label = "statistic=\"${escape(statName)}\""
+				if (stat.hasHistogram)
+				{
+					quantiles.forEach { (_, q) ->
+						append("$name{$label,quantile=\"$q\"} ")
+						append(stat.quantile(q) * factor)
+						append('\n')
+					}
+				}
+				append("${name}_sum{$label} ${stat.sum() * factor}\n")
+				append("${name}_count{$label} ${stat.count()}\n")
+			}
+			gauges.forEach { (suffix, extract) ->
+				val gaugeName = "${name}_$suffix"
+				append("# HELP $gaugeName ${report.title} ($suffix)\n")
+				append("# TYPE $gaugeName gauge\n")
+				stats.forEach { (statName, stat) ->
+					append("$gaugeName{statistic=\"${escape(statName)}\"} ")
+					append(extract(stat) * factor)
+					append('\n')
+				}
+			}
+		}
+		append("# HELP avail_metrics_start_seconds ")
+		append("When the metrics exporter started.\n")
+		append("# TYPE avail_metrics_start_seconds gauge\n")
+		append("avail_metrics_start_seconds ")
+		append(startTime / 1000.0)
+		append('\n')
+	}
+
+	/**
+	 * Write one statistic as a JSON object.
+	 *
+	 * @param writer
+	 *   The [JSONWriter].
+	 * @param name
+	 *   The name of the statistic.
+	 * @param stat
+	 *   The aggregated statistic.
+	 * @param factor
+	 *   The factor that converts samples to the exported unit.
+	 */
+	private fun writeStatistic(
+		writer: JSONWriter,
+		name: String,
+		stat: PerInterpreterStatistic,
+		factor: Double)
+	{
+		writer.writeObject {
+			at("name") { write(name) }
+			at("count") { write(stat.count()) }
+			at("sum") { write(stat.sum() * factor) }
+			at("mean") { write(stat.mean() * factor) }
+			at("stddev") { write(stat.standardDeviation() * factor) }
+			at("min") { write(stat.min() * factor) }
+			at("max") { write(stat.max() * factor) }
+			if (stat.hasHistogram)
+			{
+				quantiles.forEach { (key, q) ->
+					at(key) { write(stat.quantile(q) * factor) }
+				}
+			}
+		}
+	}
+
+	/**
+	 * Produce every statistic as a JSON document.  Durations are reported in
+	 * seconds.
+	 *
+	 * @return
+	 *   The JSON text.
+	 */
+	fun jsonSnapshot(): String
+	{
+		val snapshot = capture()
+		return jsonWriter {
+			writeObject {
+				at("start") { write(startTime) }
+				at("time") { write(snapshot.time) }
+				at("reports") {
+					writeArray {
+						snapshot.reports.forEach { (report, stats) ->
+							if (stats.isEmpty()) return@forEach
+							val factor = scale(report.unit)
+							writeObject {
+								at("report") { write(report.title) }
+								at("metric") { write(metricName(report)) }
+								at("statistics") {
+									writeArray {
+										stats.forEach { (name, stat) ->
+											writeStatistic(
+												this, name, stat, factor)
+										}
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}.toString()
+	}
+
+	/**
+	 * Periodically write a [JSON&#32;snapshot][jsonSnapshot] of every
+	 * statistic to the given file, replacing its previous content atomically.
+	 *
+	 * @param file
+	 *   The file to write.
+	 * @param periodMillis
+	 *   The number of milliseconds between snapshots.
+	 * @return
+	 *   The scheduled [TimerTask], which can be [cancelled][TimerTask.cancel]
+	 *   to stop writing snapshots.
+	 */
+	fun startPeriodicSnapshots(file: Path, periodMillis: Long): TimerTask
+	{
+		val task = timerTask {
+			val snapshot = jsonSnapshot()
+			var temp: Path? = null
+			try
+			{
+				val parent = file.toAbsolutePath().parent
+				temp = Files.createTempFile(parent, "metrics", ".tmp")
+				Files.writeString(temp, snapshot)
+				Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING)
+			}
+			catch (e: IOException)
+			{
+				logger.log(
+					Level.WARNING, "unable to write metrics to $file", e)
+				temp?.toFile()?.delete()
+			}
+		}
+		timer.scheduleAtFixedRate(task, periodMillis, periodMillis)
+		return task
+	}
+}
@@ -35,9 +35,12 @@ package avail.performance
 import avail.AvailRuntimeConfiguration
 import avail.interpreter.execution.Interpreter
 import java.lang.String.format
+import java.lang.Long.numberOfLeadingZeros
 import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.ceil
 import kotlin.math.max
 import kotlin.math.min
+import kotlin.math.pow
 import kotlin.math.sqrt
 
 /**
@@ -72,6 +75,10 @@ import kotlin.math.sqrt
  * @constructor
  * Construct a new statistic with the given values.
  *
+ * @param keepsHistogram
+ *   Whether to keep a [histogram] of the recorded samples.  Without one,
+ *   [quantile] can't be estimated.  Statistics that are only the targets of
+ *   [addTo] acquire a histogram if any of their sources have one.
  * @param count
  *   The number of samples.
  * @param min
@@ -84,6 +91,7 @@ import kotlin.math.sqrt
  *   The sum of squares of differences of the samples from the mean.
  */
 class PerInterpreterStatistic internal constructor(
+	private val keepsHistogram: Boolean = true,
 	private val lock: AtomicInteger = AtomicInteger(0),
 	private var count: Long = 0L,
 	private var min: Double = Double.POSITIVE_INFINITY,
@@ -91,6 +99,24 @@ class PerInterpreterStatistic internal constructor(
 	private var mean: Double = 0.0,
 	private var sumOfDeltaSquares: Double = 0.0
 ) : Comparable<PerInterpreterStatistic> {
+	/**
+	 * The number of samples that fell into each of the log-linear buckets
+	 * described by [bucketIndex], or `null` if no samples have been recorded
+	 * yet or no histogram is [kept][keepsHistogram].  It's allocated lazily,
+	 * since most statistics are only ever recorded by a few of the
+	 * interpreters.
+	 */
+	private var histogram: LongArray? = null
+
+	/**
+	 * Whether this statistic has a [histogram], and can therefore estimate
+	 * [quantile]s.
+	 *
+	 * Unsynchronized, so only use if you know no other Thread could have
+	 * written to it since the last happens-before/happens-after fence.
+	 */
+	internal val hasHistogram get() = histogram !== null
+
 	/**
 	 * Acquire a spin-lock, run the body, and release the spin-lock.  The body
 	 * should be very short (or the lock rarely contended) to avoid starvation.
@@ -187,9 +213,75 @@ class PerInterpreterStatistic internal constructor(
 	 * @return
 	 *   The Bessel-corrected standard deviation of the samples.
 	 */
-	@Suppress("unused")
 	internal fun standardDeviation() = sqrt(variance())
 
+	/**
+	 * Answer the smallest sample, or zero if there are no samples.
+	 *
+	 * Unsynchronized, so only use if you know no other Thread could have
+	 * written to it since the last happens-before/happens-after fence.
+	 *
+	 * @return
+	 *   The minimum sample.
+	 */
+	internal fun min() = if (count == 0L) 0.0 else min
+
+	/**
+	 * Answer the largest sample, or zero if there are no samples.
+	 *
+	 * Unsynchronized, so only use if you know no other Thread could have
+	 * written to it since the last happens-before/happens-after fence.
+	 *
+	 * @return
+	 *   The maximum sample.
+	 */
+	internal fun max() = if (count == 0L) 0.0 else max
+
+	/**
+	 * Answer the mean of the samples.
+	 *
+	 * Unsynchronized, so only use if you know no other Thread could have
+	 * written to it since the last happens-before/happens-after fence.
+	 *
+	 * @return
+	 *   The mean.
+	 */
+	internal fun mean() = mean
+
+	/**
+	 * Estimate the sample below which the given fraction of the samples lie,
+	 * from the [histogram].  The estimate is the middle of the bucket that
+	 * contains that rank, so it's within an eighth of the true value, and is
+	 * never outside the range of the samples.
+	 *
+	 * Unsynchronized, so only use if you know no other Thread could have
+	 * written to it since the last happens-before/happens-after fence.
+	 *
+	 * @param fraction
+	 *   The quantile, in [0.0, 1.0].
+	 * @return
+	 *   The estimated sample at that quantile, or zero if there are no
+	 *   samples or no [histogram].
+	 */
+	internal fun quantile(fraction: Double): Double
+	{
+		val buckets = histogram ?: return 0.0
+		if (count == 0L) return 0.0
+		val rank = ceil(fraction * count).toLong().coerceIn(1L, count)
+		var seen = 0L
+		for (index in buckets.indices)
+		{
+			seen += buckets[index]
+			if (seen >= rank)
+			{
+				val low = bucketLowerBound(index)
+				val high = bucketLowerBound(index + 1)
+				return ((low + high) / 2.0).coerceIn(min, max)
+			}
+		}
+		return max
+	}
+
 	/**
 	 * Describe this statistic as though its samples are durations in
 	 * nanoseconds.
@@ -241,6 +333,13 @@ class PerInterpreterStatistic internal constructor(
 			val delta = sample - mean
 			mean += delta / count
 			sumOfDeltaSquares += delta * (sample - mean)
+			if (keepsHistogram)
+			{
+				val buckets = histogram ?: LongArray(bucketCount).also {
+					histogram = it
+				}
+				buckets[bucketIndex(sample)]++
+			}
 		}
 	}
 
@@ -254,21 +353,39 @@ class PerInterpreterStatistic internal constructor(
 	 */
 	internal fun addTo(target: PerInterpreterStatistic)
 	{
-		spinLockWhile {
-			if (count > 0) {
-				val newCount = target.count + count
-				val delta = mean - target.mean
-				// Be careful of the order of overwrites.
-				target.mean =
-					(target.count * target.mean + count * mean) / newCount
-				target.sumOfDeltaSquares +=
-					sumOfDeltaSquares +
-					delta * delta / newCount *
-						target.count.toDouble() * count.toDouble()
-				// Now overwrite the target.
-				target.count = newCount
-				target.min = min(target.min, min)
-				target.max = max(target.max, max)
+		spinLockWhile { addToWhileLocked(target) }
+	}
+
+	/**
+	 * Add my information to another `PerInterpreterStatistic`.  The caller
+	 * must hold my spin-lock.
+	 *
+	 * @param target
+	 *   The statistic to add the receiver to.
+	 */
+	private fun addToWhileLocked(target: PerInterpreterStatistic)
+	{
+		if (count > 0) {
+			val newCount = target.count + count
+			val delta = mean - target.mean
+			// Be careful of the order of overwrites.
+			target.mean =
+				(target.count * target.mean + count * mean) / newCount
+			target.sumOfDeltaSquares +=
+				sumOfDeltaSquares +
+				delta * delta / newCount *
+					target.count.toDouble() * count.toDouble()
+			// Now overwrite the target.
+			target.count = newCount
+			target.min = min(target.min, min)
+			target.max = max(target.max, max)
+			histogram?.let { buckets ->
+				val targetBuckets = target.histogram
+					?: LongArray(bucketCount).also { target.histogram = it }
+				for (index in buckets.indices)
+				{
+					targetBuckets[index] += buckets[index]
+				}
 			}
 		}
 	}
@@ -276,12 +393,68 @@ class PerInterpreterStatistic internal constructor(
 	/** Reset this statistic as though no samples had ever been recorded. */
 	fun clear()
 	{
-		spinLockWhile {
-			count = 0
-			min = java.lang.Double.POSITIVE_INFINITY
-			max = java.lang.Double.NEGATIVE_INFINITY
-			mean = 0.0
-			sumOfDeltaSquares = 0.0
+		spinLockWhile { clearWhileLocked() }
+	}
+
+	/**
+	 * Reset this statistic as though no samples had ever been recorded.  The
+	 * caller must hold my spin-lock.
+	 */
+	private fun clearWhileLocked()
+	{
+		count = 0
+		min = java.lang.Double.POSITIVE_INFINITY
+		max = java.lang.Double.NEGATIVE_INFINITY
+		mean = 0.0
+		sumOfDeltaSquares = 0.0
+		histogram?.fill(0L)
+	}
+
+	companion object
+	{
+		/**
+		 * The number of [histogram] buckets: one for each sample below four,
+		 * then four for each power of two up to the largest [Long].
+		 */
+		private const val bucketCount = 248
+
+		/**
+		 * Answer which [histogram] bucket the given sample belongs in.
+		 * Samples below four each have their own bucket (with fractions
+		 * truncated, and negative samples treated as zero).  Above that, each
+		 * power of two is divided into four equal buckets, so a bucket's
+		 * width is at most a quarter of its lower bound.
+		 *
+		 * @param sample
+		 *   The sample.
+		 * @return
+		 *   The bucket index, in [0, [bucketCount]).
+		 */
+		private fun bucketIndex(sample: Double): Int
+		{
+			// Double-to-Long conversion saturates, and maps NaN to zero.
+			val value = max(sample, 0.0).toLong()
+			if (value < 4) return value.toInt()
+			val exponent = 63 - numberOfLeadingZeros(value)
+			val quarter = (value ushr (exponent - 2)).toInt() and 3
+			return ((exponent - 1) shl 2) + quarter
+		}
+
+		/**
+		 * Answer the smallest sample that belongs in the [histogram] bucket
+		 * with the given index.  This is the inverse of [bucketIndex].
+		 *
+		 * @param index
+		 *   The bucket index, in [0, [bucketCount]].
+		 * @return
+		 *   The bucket's lower bound.
+		 */
+		private fun bucketLowerBound(index: Int): Double
+		{
+			if (index < 4) return index.toDouble()
+			val exponent = (index shr 2) + 1
+			val quarter = index and 3
+			return (4 + quarter) * 2.0.pow(exponent - 2)
 		}
 	}
 }
@@ -0,0 +1,236 @@
+/*
+ * SamplingProfiler.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.performance
+
+import avail.AvailRuntime
+import avail.AvailRuntime.Companion.clockPeriodMillis
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.codeStartingLineNumber
+import avail.descriptor.functions.A_RawFunction.Companion.methodName
+import avail.descriptor.functions.A_RawFunction.Companion.module
+import avail.descriptor.module.A_Module.Companion.moduleNameNative
+import avail.descriptor.tuples.A_String.Companion.asNativeString
+import avail.interpreter.execution.Interpreter
+import java.lang.String.format
+import java.util.IdentityHashMap
+
+/**
+ * A `SamplingProfiler` attributes Avail-level CPU time to
+ * [raw&#32;functions][A_RawFunction].  On each tick of the
+ * [AvailRuntime.clock], the runtime's timer thread already
+ * [polls][Interpreter.pollActiveRawFunction] every [Interpreter] for the code
+ * it is running.  While [isSampling], each of those polls is also counted
+ * here, so the counts approximate the time spent in each raw function, in
+ * units of [clockPeriodMillis].
+ *
+ * Only the running raw function is recorded, not its callers.  The callers'
+ * frames are either unreified (on the interpreter thread's JVM stack) or
+ * owned by the running fiber, and neither may be examined from the timer
+ * thread.  The [collapsedStacks] therefore nest each function under its
+ * module, which is still enough for a flame graph to show where the time
+ * goes.
+ *
+ * Samples are only written by the timer thread, and only read when a report
+ * is requested, so a simple monitor suffices.
+ */
+class SamplingProfiler
+{
+	/**
+	 * Whether to count the raw functions polled on each clock tick.  When
+	 * `false`, the only cost to the timer thread is reading this flag.
+	 */
+	@Volatile
+	var isSampling = false
+		private set
+
+	/**
+	 * The number of samples that found each [A_RawFunction] running.  Raw
+	 * functions are compared by identity, since computing their hashes from
+	 * the timer thread is not safe.
+	 */
+	private val samples = IdentityHashMap<A_RawFunction, Long>()
+
+	/** The number of samples that found an interpreter idle. */
+	private var idleSamples = 0L
+
+	/** Begin counting samples, keeping any that were already counted. */
+	fun start()
+	{
+		isSampling = true
+	}
+
+	/** Stop counting samples, keeping the ones that were counted. */
+	fun stop()
+	{
+		isSampling = false
+	}
+
+	/** Discard all samples counted so far. */
+	@Synchronized
+	fun clear()
+	{
+		samples.clear()
+		idleSamples = 0L
+	}
+
+	/**
+	 * Record that an interpreter was found running the given raw function.
+	 * This is called from the [AvailRuntime.timer] thread.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] that was running, or `null` if the interpreter
+	 *   was idle.
+	 */
+	@Synchronized
+	fun recordSample(code: A_RawFunction?)
+	{
+		if (code === null) idleSamples++
+		else samples[code] = (samples[code] ?: 0L) + 1L
+	}
+
+	/**
+	 * A snapshot of the samples of one raw function.
+	 *
+	 * @property moduleName
+	 *   The qualified name of the function's module, or `""` if none.
+	 * @property functionName
+	 *   The method name of the function and its starting line number.
+	 * @property count
+	 *   How many samples found the function running.
+	 */
+	private data class Sample(
+		val moduleName: String,
+		val functionName: String,
+		val count: Long)
+
+	/**
+	 * Capture the current samples, describing each raw function.
+	 *
+	 * @return
+	 *   The [Sample]s, most frequent first.
+	 */
+	private fun snapshot(): List<Sample>
+	{
+		val counts = synchronized(this) { samples.entries.map { it.toPair() } }
+		return counts
+			.map { (code, count) ->
+				val module = code.module
+				val moduleName =
+					if (module.isNil) "" else module.moduleNameNative
+				val line = code.codeStartingLineNumber
+				val functionName = buildString {
+					append(code.methodName.asNativeString())
+					if (line != 0) append(":$line")
+				}
+				Sample(moduleName, functionName, count)
+			}
+			.sortedByDescending { it.count }
+	}
+
+	/**
+	 * Produce the samples in the "collapsed stack" format understood by
+	 * flame graph tools: one line per raw function, consisting of the
+	 * semicolon-separated frames (the module, then the function), a space,
+	 * and the number of samples.
+	 *
+	 * @return
+	 *   The collapsed stacks, one per line.
+	 */
+	fun collapsedStacks(): String = buildString {
+		snapshot().forEach { (moduleName, functionName, count) ->
+			if (moduleName.isNotEmpty())
+			{
+				append(frameName(moduleName))
+				append(';')
+			}
+			append(frameName(functionName))
+			append(' ')
+			append(count)
+			append('\n')
+		}
+	}
+
+	/**
+	 * Produce a human-readable report of the samples, aggregated by module
+	 * and then by raw function, with the estimated time and the percentage of
+	 * the non-idle samples of each.
+	 *
+	 * @return
+	 *   The report.
+	 */
+	fun report(): String = buildString {
+		val all = snapshot()
+		val total = all.sumOf { it.count }
+		val idle = synchronized(this@SamplingProfiler) { idleSamples }
+		append(
+			format(
+				"Sampled every %d ms: %,d busy, %,d idle%n",
+				clockPeriodMillis,
+				total,
+				idle))
+		if (total == 0L) return@buildString
+		val line = { count: Long, name: String ->
+			append(
+				format(
+					"%,10d ms %6.2f%%  %s%n",
+					count * clockPeriodMillis,
+					count * 100.0 / total,
+					name))
+		}
+		all.groupBy { it.moduleName }
+			.entries
+			.sortedByDescending { (_, group) -> group.sumOf { it.count } }
+			.forEach { (moduleName, group) ->
+				append('\n')
+				line(
+					group.sumOf { it.count },
+					moduleName.ifEmpty { "(no module)" })
+				group.forEach { line(it.count, "    ${it.functionName}") }
+			}
+	}
+
+	companion object
+	{
+		/**
+		 * Make the given name usable as a frame of a collapsed stack, which
+		 * may not contain the frame separator or line breaks.
+		 *
+		 * @param name
+		 *   The name of a module or function.
+		 * @return
+		 *   The name with separators and line breaks replaced.
+		 */
+		private fun frameName(name: String): String =
+			name.replace(';', ',').replace('\n', ' ')
+	}
+}
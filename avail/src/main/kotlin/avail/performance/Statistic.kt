@@ -48,13 +48,19 @@ import avail.interpreter.execution.Interpreter
  *   A lambda that supplies the name for this statistic.
  * @param report
  *   The report under which this statistic is classified.
+ * @param histogram
+ *   Whether to keep a histogram of the samples, from which quantiles can be
+ *   estimated.  By default, this is decided by the
+ *   [report][StatisticReport.histograms].
  */
 class Statistic constructor(
 	report: StatisticReport,
-	private val nameSupplier: () -> String)
+	private val nameSupplier: () -> String,
+	histogram: Boolean = report.histograms)
 {
 	/** The array of [PerInterpreterStatistic]s. */
-	val statistics = Array(maxInterpreters) { PerInterpreterStatistic() }
+	val statistics =
+		Array(maxInterpreters) { PerInterpreterStatistic(histogram) }
 
 	/**
 	 * Answer the name of this `Statistic`.  Note that the [nameSupplier] may
@@ -62,6 +62,11 @@ import java.util.EnumSet
  *  The title of the StatisticReport.
  * @property unit
  *   The units which the contained reports use.
+ * @property histograms
+ *   Whether the report's [Statistic]s keep histograms of their samples, from
+ *   which quantiles can be estimated.  Each histogram costs about 2KB for
+ *   each interpreter that records into it, so only reports whose latency
+ *   distributions matter opt in.
  * @constructor
  * Create the enumeration value.
  *
@@ -69,7 +74,9 @@ import java.util.EnumSet
  * The title of the statistic report.
  */
 enum class StatisticReport constructor(
-	val title: String, val unit: ReportingUnit)
+	val title: String,
+	val unit: ReportingUnit,
+	val histograms: Boolean = false)
 {
 	/** Statistics for executing parsing instructions. */
 	RUNNING_PARSING_INSTRUCTIONS("Running Parsing Operations", NANOSECONDS),
@@ -83,7 +90,7 @@ enum class StatisticReport constructor(
 	EXPANDING_PARSING_INSTRUCTIONS("Expanding Parsing Operations", NANOSECONDS),
 
 	/** A breakdown of the time spent in L2 optimization phases. */
-	L2_OPTIMIZATION_TIME("L2 Translation time", NANOSECONDS),
+	L2_OPTIMIZATION_TIME("L2 Translation time", NANOSECONDS, true),
 
 	/** A breakdown of the time spent in L2 optimization phases. */
 	L1_NAIVE_TRANSLATION_TIME(
@@ -93,16 +100,17 @@ enum class StatisticReport constructor(
 	L2_TRANSLATION_VALUES("L2 Translation values", DIMENSIONLESS_INTEGRAL),
 
 	/** A breakdown of final generation phases of L2->JVM. */
-	FINAL_JVM_TRANSLATION_TIME("Final JVM Translation time", NANOSECONDS),
+	FINAL_JVM_TRANSLATION_TIME(
+		"Final JVM Translation time", NANOSECONDS, true),
 
 	/** Reifications of the Java stack.  See [StackReifier]. */
-	REIFICATIONS("Java stack reifications", NANOSECONDS),
+	REIFICATIONS("Java stack reifications", NANOSECONDS, true),
 
 	/** The Primitives report. */
-	PRIMITIVES("Primitives", NANOSECONDS),
+	PRIMITIVES("Primitives", NANOSECONDS, true),
 
 	/** A report of how long and deep dynamic lookups are. */
-	DYNAMIC_LOOKUP("Dynamic Lookup", NANOSECONDS),
+	DYNAMIC_LOOKUP("Dynamic Lookup", NANOSECONDS, true),
 
 	/** The Primitive Return Type Checks report. */
 	PRIMITIVE_RETURNER_TYPE_CHECKS("Primitive Return Type Checks", NANOSECONDS),
@@ -131,13 +139,19 @@ enum class StatisticReport constructor(
 	WORKBENCH_TRANSCRIPT("Workbench transcript", NANOSECONDS),
 
 	/** Time spent serializing, by SerializerOperation. */
-	SERIALIZE_TRACE("Serialization tracing", NANOSECONDS),
+	SERIALIZE_TRACE("Serialization tracing", NANOSECONDS, true),
 
 	/** Time spent serializing, by SerializerOperation. */
-	SERIALIZE_WRITE("Serialization writing", NANOSECONDS),
+	SERIALIZE_WRITE("Serialization writing", NANOSECONDS, true),
 
 	/** Time spent deserializing, by SerializerOperation. */
-	DESERIALIZE("Deserialization", NANOSECONDS),
+	DESERIALIZE("Deserialization", NANOSECONDS, true),
+
+	/**
+	 * Hits and misses of the [avail.descriptor.types.TypeMemoCache], by type
+	 * operation.
+	 */
+	TYPE_MEMO_CACHE("Type operation memoization", DIMENSIONLESS_INTEGRAL),
 
 	/**
 	 * The estimated number of bytes allocated for descriptors with the given
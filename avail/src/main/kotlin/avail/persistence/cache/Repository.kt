@@ -175,7 +175,7 @@ class Repository constructor(
 	 * @author Mark van Gulik &lt;mark@availlang.org&gt;
 	 */
 	private object IndexedRepositoryBuilder : IndexedFileBuilder(
-		"Avail compiled module repository V13")
+		"Avail compiled module repository V14")
 
 	/**
 	 * The [lock][ReentrantLock] responsible for guarding against unsafe
@@ -498,6 +498,28 @@ class Repository constructor(
 				markDirty()
 			}
 
+		/**
+		 * Answer the most recent [compilation][ModuleCompilation] of any
+		 * recorded [version][ModuleVersion] of this module that was compiled
+		 * under the given [ModuleCompilationKey], or `null` if there is none.
+		 * Since the key captures the compilation times of the module's
+		 * predecessors, the answered compilation ran against the same
+		 * predecessors as a new compilation under that key would.
+		 *
+		 * @param compilationKey
+		 *   The [ModuleCompilationKey] that the compilation must match.
+		 * @return
+		 *   The most recent matching compilation, or `null`.
+		 */
+		fun mostRecentCompilation(
+			compilationKey: ModuleCompilationKey
+		): ModuleCompilation? =
+			lock.withLock {
+				versions.values
+					.mapNotNull { it.compilations[compilationKey] }
+					.maxByOrNull { it.compilationTime }
+			}
+
 		/**
 		 * Delete all compiled versions of this module.  Don't remove the cached
 		 * file digests.  Note that the compiled versions are still in the
@@ -1052,12 +1074,39 @@ class Repository constructor(
 		 * file position to a series of phrases (of descending extent) which
 		 * ultimately contain the token at that file position.
 		 */
-		val recordNumberOfPhrasePaths: Long
+		val recordNumberOfPhrasePaths: Long,
+
+		/**
+		 * The record number at which a [ByteArray] was recorded for this
+		 * module. That record should be fetched as needed and decoded into a
+		 * [CheckpointRecord].
+		 */
+		val recordNumberOfCheckpoints: Long
 	) {
 		/** The byte array containing a serialization of this compilation. */
 		val bytes: ByteArray
 			get() = lock.withLock { repository!![recordNumber] }
 
+		/** The [ManifestRecord] captured during this compilation. */
+		val manifestRecord: ManifestRecord
+			get() = ManifestRecord(
+				lock.withLock { repository!![recordNumberOfManifest] })
+
+		/** The [StylingRecord] captured during this compilation. */
+		val stylingRecord: StylingRecord
+			get() = StylingRecord(
+				lock.withLock { repository!![recordNumberOfStyling] })
+
+		/** The [PhrasePathRecord] captured during this compilation. */
+		val phrasePathRecord: PhrasePathRecord
+			get() = PhrasePathRecord(
+				lock.withLock { repository!![recordNumberOfPhrasePaths] })
+
+		/** The [CheckpointRecord] captured during this compilation. */
+		val checkpointRecord: CheckpointRecord
+			get() = CheckpointRecord(
+				lock.withLock { repository!![recordNumberOfCheckpoints] })
+
 		/**
 		 * Output this module compilation to the provided [DataOutputStream].
 		 * It can later be reconstructed via the constructor taking a
@@ -1077,18 +1126,20 @@ class Repository constructor(
 			binaryStream.zigzag(recordNumberOfManifest)
 			binaryStream.zigzag(recordNumberOfStyling)
 			binaryStream.zigzag(recordNumberOfPhrasePaths)
+			binaryStream.zigzag(recordNumberOfCheckpoints)
 		}
 
 		override fun toString(): String =
 			String.format(
 				"Compilation(%tFT%<tTZ, rec=%d, phrases=%d, manifest=%d, " +
-					"styling=%d, phrase paths=%d)",
+					"styling=%d, phrase paths=%d, checkpoints=%d)",
 				compilationTime,
 				recordNumber,
 				recordNumberOfBlockPhrases,
 				recordNumberOfManifest,
 				recordNumberOfStyling,
-				recordNumberOfPhrasePaths)
+				recordNumberOfPhrasePaths,
+				recordNumberOfCheckpoints)
 
 		/**
 		 * Reconstruct a `ModuleCompilation`, having previously been written via
@@ -1106,7 +1157,8 @@ class Repository constructor(
 			recordNumberOfBlockPhrases = binaryStream.unzigzagLong(),
 			recordNumberOfManifest = binaryStream.unzigzagLong(),
 			recordNumberOfStyling = binaryStream.unzigzagLong(),
-			recordNumberOfPhrasePaths = binaryStream.unzigzagLong())
+			recordNumberOfPhrasePaths = binaryStream.unzigzagLong(),
+			recordNumberOfCheckpoints = binaryStream.unzigzagLong())
 	}
 
 	/**
@@ -1128,6 +1180,9 @@ class Repository constructor(
 	 * @param phrasePaths
 	 *   The [PhrasePathRecord] containing information about file position
 	 *   ranges for tokens, and the trees of phrases containing them.
+	 * @param checkpoints
+	 *   The [CheckpointRecord] describing the top-level statement boundaries
+	 *   at which a subsequent compilation may resume.
 	 */
 	fun createModuleCompilation(
 		compilationTime: Long,
@@ -1135,7 +1190,8 @@ class Repository constructor(
 		serializedBlockPhrases: ByteArray,
 		manifest: ManifestRecord,
 		stylingRecord: StylingRecord,
-		phrasePaths: PhrasePathRecord
+		phrasePaths: PhrasePathRecord,
+		checkpoints: CheckpointRecord
 	) : ModuleCompilation
 	{
 		// No need to hold a lock during initialization.
@@ -1145,6 +1201,8 @@ class Repository constructor(
 		stylingRecord.write(DataOutputStream(innerStylingRecordBytes))
 		val innerPhrasePathsBytes = ByteArrayOutputStream(4096)
 		phrasePaths.write(DataOutputStream(innerPhrasePathsBytes))
+		val checkpointBytes = ByteArrayOutputStream(1024)
+		checkpoints.write(DataOutputStream(checkpointBytes))
 		return repository!!.run {
 			lock.withLock {
 				ModuleCompilation(
@@ -1155,7 +1213,9 @@ class Repository constructor(
 					recordNumberOfStyling = add(
 						innerStylingRecordBytes.toByteArray()),
 					recordNumberOfPhrasePaths = add(
-						innerPhrasePathsBytes.toByteArray()))
+						innerPhrasePathsBytes.toByteArray()),
+					recordNumberOfCheckpoints = add(
+						checkpointBytes.toByteArray()))
 			}
 		}
 	}
@@ -1230,6 +1290,108 @@ class Repository constructor(
 		}
 	}
 
+	/**
+	 * The top-level statement boundaries of a [module][A_Module] at which a
+	 * later compilation of an edited version of the module may resume, having
+	 * replayed the serialized statements that precede the boundary rather
+	 * than compiling them again.  Each boundary is summarized as a
+	 * [Checkpoint].
+	 *
+	 * @property checkpoints
+	 *   The [Checkpoint]s, in ascending order of position.
+	 */
+	class CheckpointRecord constructor(val checkpoints: List<Checkpoint>)
+	{
+		/**
+		 * A top-level statement boundary within a compiled module.  At this
+		 * point no serialized effects were pending and no forward declarations
+		 * were unresolved, so the module body serialized so far completely
+		 * captures the effects of the source up to [sourcePosition].
+		 *
+		 * @property sourcePosition
+		 *   The one-based position in the module source just after the last
+		 *   statement before the boundary.
+		 * @property lineNumber
+		 *   The line number at [sourcePosition].
+		 * @property sourceDigest
+		 *   The SHA-256 digest of the source text preceding [sourcePosition].
+		 * @property bodyPosition
+		 *   The number of bytes of the serialized module body that were
+		 *   written before the boundary.
+		 * @property manifestEntryCount
+		 *   The number of [ModuleManifestEntry]s recorded before the boundary.
+		 * @property phrasePathCount
+		 *   The number of root [PhraseNode]s recorded in the module's
+		 *   [PhrasePathRecord] before the boundary.
+		 */
+		class Checkpoint constructor(
+			val sourcePosition: Int,
+			val lineNumber: Int,
+			val sourceDigest: ByteArray,
+			val bodyPosition: Int,
+			val manifestEntryCount: Int,
+			val phrasePathCount: Int)
+		{
+			override fun toString(): String =
+				"Checkpoint(@$sourcePosition, line $lineNumber, " +
+					"body=$bodyPosition)"
+		}
+
+		/**
+		 * Output this checkpoint record to the provided [DataOutputStream].
+		 * It can later be reconstructed via the constructor taking a
+		 * [ByteArray].
+		 *
+		 * @param binaryStream
+		 *   A DataOutputStream on which to write this checkpoint record.
+		 * @throws IOException
+		 *   If I/O fails.
+		 */
+		@Throws(IOException::class)
+		internal fun write(binaryStream: DataOutputStream)
+		{
+			binaryStream.vlq(checkpoints.size)
+			checkpoints.forEach { checkpoint ->
+				binaryStream.vlq(checkpoint.sourcePosition)
+				binaryStream.vlq(checkpoint.lineNumber)
+				binaryStream.write(checkpoint.sourceDigest)
+				binaryStream.vlq(checkpoint.bodyPosition)
+				binaryStream.vlq(checkpoint.manifestEntryCount)
+				binaryStream.vlq(checkpoint.phrasePathCount)
+			}
+		}
+
+		override fun toString(): String =
+			String.format(
+				"CheckpointRecord (%d checkpoints)",
+				checkpoints.size)
+
+		/**
+		 * Reconstruct a [CheckpointRecord], having previously been written via
+		 * [write].
+		 *
+		 * @param bytes
+		 *   Where to read the [CheckpointRecord] from.
+		 * @throws IOException
+		 *   If I/O fails.
+		 */
+		@Throws(IOException::class)
+		internal constructor(bytes: ByteArray) : this(
+			DataInputStream(ByteArrayInputStream(bytes)).let { binaryStream ->
+				List(binaryStream.unvlqInt()) {
+					Checkpoint(
+						sourcePosition = binaryStream.unvlqInt(),
+						lineNumber = binaryStream.unvlqInt(),
+						sourceDigest = ByteArray(DIGEST_SIZE).also {
+							binaryStream.readFully(it)
+						},
+						bodyPosition = binaryStream.unvlqInt(),
+						manifestEntryCount = binaryStream.unvlqInt(),
+						phrasePathCount = binaryStream.unvlqInt())
+				}
+			})
+	}
+
 	/**
 	 * Styling information that was collected during compilation of a
 	 * [module][A_Module].
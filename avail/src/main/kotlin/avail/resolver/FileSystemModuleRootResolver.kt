@@ -343,12 +343,20 @@ class FileSystemModuleRootResolver constructor(
 	}
 
 	/**
-	 * Save the data to disk starting at the specified write location.
+	 * Save the data to disk starting at the specified write location, then
+	 * continue with the remaining chunks.
 	 *
+	 * @param file
+	 *   The [AsynchronousFileChannel] to write to.
 	 * @param data
 	 *   The [ByteBuffer] to save containing the contents to save.
 	 * @param writePosition
 	 *   The position in the file to start writing to.
+	 * @param chunks
+	 *   The [ByteBuffer]s to save after `data`.
+	 * @param done
+	 *   What to do with the total size of the file after everything has been
+	 *   written.
 	 * @param failureHandler
 	 *   A function that accepts a [ErrorCode] that describes the nature
 	 *   of the failure and an optional [Throwable].
@@ -357,6 +365,8 @@ class FileSystemModuleRootResolver constructor(
 		file: AsynchronousFileChannel,
 		data: ByteBuffer,
 		writePosition: Long,
+		chunks: Iterator<ByteBuffer>,
+		done: (Long)->Unit,
 		failureHandler: (ErrorCode, Throwable?)->Unit)
 	{
 		file.write(
@@ -366,16 +376,27 @@ class FileSystemModuleRootResolver constructor(
 			object : CompletionHandler<Int, ErrorCode?>
 			{
 				override fun completed(
-					result: Int?,
+					result: Int,
 					attachment: ErrorCode?)
 				{
-					if (data.hasRemaining())
+					val position = writePosition + result
+					when
 					{
-						save(
+						data.hasRemaining() -> save(
 							file,
 							data,
-							data.position().toLong(),
+							position,
+							chunks,
+							done,
+							failureHandler)
+						chunks.hasNext() -> save(
+							file,
+							chunks.next(),
+							position,
+							chunks,
+							done,
 							failureHandler)
+						else -> done(position)
 					}
 				}
 
@@ -383,6 +404,7 @@ class FileSystemModuleRootResolver constructor(
 					exc: Throwable?,
 					attachment: ErrorCode?)
 				{
+					file.close()
 					failureHandler(attachment ?: FileErrorCode.UNSPECIFIED, exc)
 				}
 			})
@@ -394,7 +416,19 @@ class FileSystemModuleRootResolver constructor(
 		successHandler: () -> Unit,
 		failureHandler: (ErrorCode, Throwable?)->Unit)
 	{
-		val data = ByteBuffer.wrap(fileContents)
+		saveFile(
+			reference,
+			listOf(ByteBuffer.wrap(fileContents)).iterator(),
+			successHandler,
+			failureHandler)
+	}
+
+	override fun saveFile(
+		reference: ResolverReference,
+		chunks: Iterator<ByteBuffer>,
+		successHandler: () -> Unit,
+		failureHandler: (ErrorCode, Throwable?)->Unit)
+	{
 		val path = Path.of(reference.uri)
 		val tempPath = path.parent.resolve(tempFilePrefix() + path.fileName)
 		val tempFile = fileManager.ioSystem.openFile(
@@ -403,44 +437,19 @@ class FileSystemModuleRootResolver constructor(
 				StandardOpenOption.CREATE,
 				StandardOpenOption.TRUNCATE_EXISTING,
 				StandardOpenOption.WRITE))
-		tempFile.write(
-			data,
+		save(
+			tempFile,
+			if (chunks.hasNext()) chunks.next() else ByteBuffer.allocate(0),
 			0,
-			null,
-			object : CompletionHandler<Int, ErrorCode?>
-			{
-				override fun completed(
-					result: Int?,
-					attachment: ErrorCode?)
-				{
-					if (data.hasRemaining())
-					{
-						save(
-							tempFile,
-							data,
-							data.position().toLong(),
-							failureHandler)
-					}
-					else
-					{
-						path.deleteIfExists()
-						tempPath.moveTo(path)
-						reference.refresh(
-							System.currentTimeMillis(),
-							fileContents.size.toLong())
-						successHandler()
-					}
-				}
-
-				override fun failed(
-					exc: Throwable?,
-					attachment: ErrorCode?)
-				{
-					failureHandler(
-						attachment ?: FileErrorCode.UNSPECIFIED,
-						exc)
-				}
-			})
+			chunks,
+			{ size ->
+				tempFile.close()
+				path.deleteIfExists()
+				tempPath.moveTo(path)
+				reference.refresh(System.currentTimeMillis(), size)
+				successHandler()
+			},
+			failureHandler)
 	}
 
 	override fun readFile(
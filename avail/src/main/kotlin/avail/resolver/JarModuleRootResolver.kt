@@ -45,6 +45,7 @@ import org.availlang.artifact.jar.AvailArtifactJar
 import java.io.File
 import java.io.IOException
 import java.net.URI
+import java.nio.ByteBuffer
 import java.util.UUID
 import java.util.concurrent.locks.ReentrantLock
 import javax.annotation.concurrent.GuardedBy
@@ -261,6 +262,16 @@ constructor(
 		failureHandler(FileErrorCode.PERMISSIONS, null)
 	}
 
+	override fun saveFile(
+		reference: ResolverReference,
+		chunks: Iterator<ByteBuffer>,
+		successHandler: () -> Unit,
+		failureHandler: (ErrorCode, Throwable?)->Unit)
+	{
+		// Jars are read-only.
+		failureHandler(FileErrorCode.PERMISSIONS, null)
+	}
+
 	override fun readFile(
 		bypassFileManager: Boolean,
 		reference: ResolverReference,
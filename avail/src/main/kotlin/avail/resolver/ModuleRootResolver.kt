@@ -49,9 +49,11 @@ import avail.files.ManagedFileWrapper
 import avail.persistence.cache.Repository
 import avail.utility.Strings.matchesAbbreviation
 import org.availlang.artifact.ResourceType
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.net.URI
 import java.net.URLEncoder
+import java.nio.ByteBuffer
 import java.nio.charset.StandardCharsets
 import java.util.Collections
 import java.util.UUID
@@ -560,6 +562,37 @@ constructor(
 		successHandler: ()->Unit,
 		failureHandler: (ErrorCode, Throwable?)->Unit)
 
+	/**
+	 * Save the file to where it is stored, taking its contents from a sequence
+	 * of buffers so that the whole file need not be materialized at once.
+	 * Resolvers that can write incrementally should override this; the default
+	 * gathers the buffers and delegates to the [ByteArray] variant.
+	 *
+	 * @param reference
+	 *   The [ResolverReference] that identifies the target file to save.
+	 * @param chunks
+	 *   An [Iterator] over the [ByteBuffer]s that, in order, hold the contents
+	 *   of the file to save.
+	 * @param failureHandler
+	 *   A function that accepts an [ErrorCode] that describes the nature
+	 *   of the failure and a `nullable` [Throwable].
+	 */
+	open fun saveFile(
+		reference: ResolverReference,
+		chunks: Iterator<ByteBuffer>,
+		successHandler: ()->Unit,
+		failureHandler: (ErrorCode, Throwable?)->Unit)
+	{
+		val contents = ByteArrayOutputStream()
+		chunks.forEach { chunk ->
+			val bytes = ByteArray(chunk.remaining())
+			chunk.get(bytes)
+			contents.write(bytes)
+		}
+		saveFile(
+			reference, contents.toByteArray(), successHandler, failureHandler)
+	}
+
 	/**
 	 * Answer a [AbstractFileWrapper] for the targeted file.
 	 *
@@ -88,6 +88,22 @@ class Deserializer constructor(
 	 */
 	private val compressor = FourStreamIndexCompressor()
 
+	/**
+	 * A function that answers whether objects previously produced by this
+	 * deserializer might not yet have had their effects.  For example, a
+	 * module's top-level statements may be deserialized ahead of execution, so
+	 * a later statement may refer to an atom or method definition that an
+	 * earlier statement has not yet created.  By default, every produced object
+	 * is assumed to have been fully processed before the next one is requested.
+	 */
+	var priorEffectsPending: ()->Boolean = { false }
+
+	/**
+	 * Whether [deserializeOrRollBack] may be used with this deserializer's
+	 * [input].
+	 */
+	val canRollBack: Boolean get() = input.markSupported()
+
 	/**
 	 * Record a newly reconstituted object.
 	 *
@@ -142,12 +158,77 @@ class Deserializer constructor(
 			producedObject = null
 			return temp?.makeShared()
 		}
+		catch (e: PriorEffectsPendingException)
+		{
+			throw e
+		}
 		catch (e: Exception)
 		{
 			throw MalformedSerialStreamException(e)
 		}
 	}
 
+	/**
+	 * Deserialize an object from the [input] and return it, as for
+	 * [deserialize].  If reconstructing it requires the effects of previously
+	 * produced objects, and [priorEffectsPending], restore this deserializer
+	 * to its state prior to this call, and throw a
+	 * [PriorEffectsPendingException].  The same object may be requested again
+	 * once the prior effects have happened.
+	 *
+	 * The [input] must support [marking][InputStream.mark], as indicated by
+	 * [canRollBack].
+	 *
+	 * @return
+	 *   A fully deserialized object or `null`.
+	 * @throws MalformedSerialStreamException
+	 *   If the stream is malformed.
+	 * @throws PriorEffectsPendingException
+	 *   If the object can't be deserialized yet.
+	 */
+	@Throws(
+		MalformedSerialStreamException::class,
+		PriorEffectsPendingException::class)
+	fun deserializeOrRollBack(): AvailObject?
+	{
+		assert(canRollBack)
+		input.mark(Int.MAX_VALUE)
+		val assembledCount = assembledObjects.size
+		val serializedCount = serializedObjects.size
+		val savedCompressor = compressor.copy()
+		try
+		{
+			return deserialize()
+		}
+		catch (e: PriorEffectsPendingException)
+		{
+			input.reset()
+			assembledObjects.subList(assembledCount, assembledObjects.size)
+				.clear()
+			serializedObjects.subList(serializedCount, serializedObjects.size)
+				.clear()
+			compressor.copyFrom(savedCompressor)
+			producedObject = null
+			throw e
+		}
+	}
+
+	/**
+	 * Invoked by a [SerializerOperation] that is about to consult or create
+	 * state that may depend on the effects of previously produced objects,
+	 * such as the atoms, method definitions, and global variables of the
+	 * [currentModule].  Operations that find what they need without such state
+	 * don't need to call this.
+	 *
+	 * @throws PriorEffectsPendingException
+	 *   If [priorEffectsPending].
+	 */
+	@Throws(PriorEffectsPendingException::class)
+	internal fun requirePriorEffects()
+	{
+		if (priorEffectsPending()) throw PriorEffectsPendingException()
+	}
+
 	override fun fromCompressedObjectIndex(compressedIndex: Int): AvailObject =
 		when (val index = compressor.decompress(compressedIndex))
 		{
@@ -176,6 +257,14 @@ class Deserializer constructor(
 	fun serializedObjects(): A_Tuple =
 		tupleFromList(serializedObjects).makeShared()
 
+	/**
+	 * Thrown by [requirePriorEffects] when the object being deserialized
+	 * depends on the effects of previously produced objects, which have not
+	 * happened yet.  It has no stack trace, since it's expected to occur
+	 * routinely.
+	 */
+	class PriorEffectsPendingException : Exception(null, null, false, false)
+
 	companion object
 	{
 		/**
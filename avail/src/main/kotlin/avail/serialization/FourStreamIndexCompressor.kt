@@ -147,6 +147,33 @@ class FourStreamIndexCompressor : IndexCompressor
 	 */
 	override fun currentIndex(): Int = currentIndex
 
+	/**
+	 * Answer a new `FourStreamIndexCompressor` in the same state as this one.
+	 *
+	 * @return
+	 *   A copy of this compressor.
+	 */
+	fun copy(): FourStreamIndexCompressor
+	{
+		val copy = FourStreamIndexCompressor()
+		copy.copyFrom(this)
+		return copy
+	}
+
+	/**
+	 * Put this compressor into the same state as the given one.
+	 *
+	 * @param other
+	 *   The compressor whose state should be copied.
+	 */
+	fun copyFrom(other: FourStreamIndexCompressor)
+	{
+		other.pointers.copyInto(pointers)
+		other.successors.copyInto(successors)
+		other.predecessors.copyInto(predecessors)
+		currentIndex = other.currentIndex
+	}
+
 	/**
 	 * Move the indicated stream to the head of the (augmented) ring.  While
 	 * there are several reads and writes here, this will either stay hot in the
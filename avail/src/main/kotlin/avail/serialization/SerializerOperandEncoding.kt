@@ -45,6 +45,8 @@ import avail.descriptor.numbers.A_Number.Companion.extractUnsignedByte
 import avail.descriptor.numbers.A_Number.Companion.extractUnsignedShort
 import avail.descriptor.numbers.A_Number.Companion.rawSignedIntegerAt
 import avail.descriptor.numbers.A_Number.Companion.rawSignedIntegerAtPut
+import avail.descriptor.numbers.DoubleDescriptor
+import avail.descriptor.numbers.FloatDescriptor
 import avail.descriptor.numbers.IntegerDescriptor
 import avail.descriptor.numbers.IntegerDescriptor.Companion.createUninitializedInteger
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
@@ -52,10 +54,14 @@ import avail.descriptor.numbers.IntegerDescriptor.Companion.fromLong
 import avail.descriptor.numbers.IntegerDescriptor.Companion.intCount
 import avail.descriptor.representation.AvailObject
 import avail.descriptor.tuples.A_Tuple.Companion.tupleCodePointAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleFloatAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleIntAt
 import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
 import avail.descriptor.tuples.ByteStringDescriptor.Companion.generateByteString
 import avail.descriptor.tuples.ByteTupleDescriptor.Companion.generateByteTupleFrom
+import avail.descriptor.tuples.DoubleTupleDescriptor.Companion.generateDoubleTupleFrom
+import avail.descriptor.tuples.FloatTupleDescriptor.Companion.generateFloatTupleFrom
 import avail.descriptor.tuples.IntTupleDescriptor.Companion.generateIntTupleFrom
 import avail.descriptor.tuples.NybbleTupleDescriptor.Companion.generateNybbleTupleFrom
 import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.generateObjectTupleFrom
@@ -64,6 +70,10 @@ import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
 import avail.descriptor.tuples.TwoByteStringDescriptor.Companion.generateTwoByteString
 import avail.utility.Strings.increaseIndentation
 import java.io.OutputStream
+import java.lang.Double.doubleToRawLongBits
+import java.lang.Double.longBitsToDouble
+import java.lang.Float.floatToRawIntBits
+import java.lang.Float.intBitsToFloat
 
 /**
  * A `SerializerOperandEncoding` is an encoding algorithm for part of a
@@ -480,6 +490,64 @@ internal enum class SerializerOperandEncoding
 		}
 	},
 
+	/**
+	 * This is a [tuple][TupleDescriptor] of [doubles][DoubleDescriptor].
+	 * Write a compressed size and, for each element, the upper and lower 32
+	 * bits of its raw IEEE 754 representation.
+	 */
+	UNCOMPRESSED_DOUBLE_TUPLE
+	{
+		override fun write(obj: AvailObject, serializer: Serializer)
+		{
+			val tupleSize = obj.tupleSize
+			writeCompressedPositiveInt(tupleSize, serializer)
+			for (i in 1..tupleSize)
+			{
+				val bits = doubleToRawLongBits(obj.tupleDoubleAt(i))
+				serializer.writeInt((bits shr 32).toInt())
+				serializer.writeInt(bits.toInt())
+			}
+		}
+
+		override fun read(deserializer: AbstractDeserializer): AvailObject
+		{
+			val tupleSize = readCompressedPositiveInt(deserializer)
+			if (tupleSize == 0) return emptyTuple
+			return generateDoubleTupleFrom(tupleSize) {
+				val high = deserializer.readInt().toLong()
+				val low = deserializer.readInt().toLong() and 0xFFFFFFFFL
+				longBitsToDouble((high shl 32) + low)
+			}
+		}
+	},
+
+	/**
+	 * This is a [tuple][TupleDescriptor] of [floats][FloatDescriptor].  Write
+	 * a compressed size and, for each element, the 32 bits of its raw IEEE 754
+	 * representation.
+	 */
+	UNCOMPRESSED_FLOAT_TUPLE
+	{
+		override fun write(obj: AvailObject, serializer: Serializer)
+		{
+			val tupleSize = obj.tupleSize
+			writeCompressedPositiveInt(tupleSize, serializer)
+			for (i in 1..tupleSize)
+			{
+				serializer.writeInt(floatToRawIntBits(obj.tupleFloatAt(i)))
+			}
+		}
+
+		override fun read(deserializer: AbstractDeserializer): AvailObject
+		{
+			val tupleSize = readCompressedPositiveInt(deserializer)
+			if (tupleSize == 0) return emptyTuple
+			return generateFloatTupleFrom(tupleSize) {
+				intBitsToFloat(deserializer.readInt())
+			}
+		}
+	},
+
 	/**
 	 * This is a [tuple][TupleDescriptor] of integers in the range 0..15.  Write
 	 * a compressed size and the sequence of big endian bytes containing two
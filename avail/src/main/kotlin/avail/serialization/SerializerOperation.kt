@@ -91,6 +91,7 @@ import avail.descriptor.maps.MapDescriptor
 import avail.descriptor.maps.MapDescriptor.Companion.emptyMap
 import avail.descriptor.methods.A_Definition
 import avail.descriptor.methods.A_Macro
+import avail.descriptor.methods.A_Method
 import avail.descriptor.methods.A_Method.Companion.bundles
 import avail.descriptor.methods.A_Method.Companion.definitionsTuple
 import avail.descriptor.methods.A_Sendable.Companion.bodySignature
@@ -99,6 +100,7 @@ import avail.descriptor.methods.A_Sendable.Companion.isForwardDefinition
 import avail.descriptor.methods.A_Sendable.Companion.isMethodDefinition
 import avail.descriptor.methods.AbstractDefinitionDescriptor
 import avail.descriptor.methods.ForwardDefinitionDescriptor
+import avail.descriptor.methods.MacroDescriptor
 import avail.descriptor.methods.MethodDefinitionDescriptor
 import avail.descriptor.methods.MethodDescriptor
 import avail.descriptor.module.A_Module.Companion.addPrivateName
@@ -313,6 +315,8 @@ import avail.serialization.SerializerOperandEncoding.OBJECT_REFERENCE
 import avail.serialization.SerializerOperandEncoding.SIGNED_INT
 import avail.serialization.SerializerOperandEncoding.TUPLE_OF_OBJECTS
 import avail.serialization.SerializerOperandEncoding.UNCOMPRESSED_BYTE_TUPLE
+import avail.serialization.SerializerOperandEncoding.UNCOMPRESSED_DOUBLE_TUPLE
+import avail.serialization.SerializerOperandEncoding.UNCOMPRESSED_FLOAT_TUPLE
 import avail.serialization.SerializerOperandEncoding.UNCOMPRESSED_NYBBLE_TUPLE
 import avail.serialization.SerializerOperandEncoding.UNCOMPRESSED_SHORT
 import avail.serialization.SerializerOperandEncoding.UNSIGNED_INT
@@ -1522,9 +1526,14 @@ enum class SerializerOperation constructor(
 			val flagsInt = flags.extractInt
 			val writeOnce = flagsInt and 1 != 0
 			val stablyComputed = flagsInt and 2 != 0
-			val variable =
-				if (writeOnce) module.constantBindings.mapAt(varName)
-				else module.variableBindings.mapAt(varName)
+			fun bindings() =
+				if (writeOnce) module.constantBindings
+				else module.variableBindings
+			val variable = bindings().mapAtOrNull(varName) ?: run {
+				// A statement that hasn't run yet might declare it.
+				deserializer.requirePriorEffects()
+				bindings().mapAt(varName)
+			}
 			if (stablyComputed != variable.valueWasStablyComputed())
 			{
 				throw RuntimeException(
@@ -1775,19 +1784,29 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_BasicObject
 		{
 			val pairs = subobjects[0]
-			for ((moduleName, atomName) in pairs)
+			fun lookupInModules(): A_Method?
 			{
-				if (moduleName.notNil &&
-					deserializer.loadedModules.hasKey(moduleName))
+				for ((moduleName, atomName) in pairs)
 				{
-					val atom = lookupAtom(atomName, moduleName, deserializer)
-					val bundle = atom.bundleOrNil
-					if (bundle.notNil)
+					if (moduleName.notNil &&
+						deserializer.loadedModules.hasKey(moduleName))
 					{
-						return bundle.bundleMethod
+						val atom =
+							lookupAtom(atomName, moduleName, deserializer)
+						val bundle = atom.bundleOrNil
+						if (bundle.notNil)
+						{
+							return bundle.bundleMethod
+						}
 					}
 				}
+				return null
 			}
+			lookupInModules()?.let { return it }
+			// A statement that hasn't run yet might define the method.  If
+			// so, try again after it has.
+			deserializer.requirePriorEffects()
+			lookupInModules()?.let { return it }
 			// Look it up as a special atom instead.
 			for ((moduleName, atomName) in pairs)
 			{
@@ -1836,8 +1855,13 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_Definition
 		{
 			val (definitionMethod, signature) = subobjects
-			val definitions = definitionMethod.definitionsTuple
-				.filter { it.bodySignature().equals(signature) }
+			val definitions = lookupDefinitions(
+				signature,
+				deserializer,
+				{ it.isMethodDefinition() }
+			) {
+				definitionMethod.definitionsTuple
+			}
 			assert(definitions.size == 1)
 			val definition = definitions[0]
 			assert(definition.isMethodDefinition())
@@ -1868,8 +1892,13 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_BasicObject
 		{
 			val (definitionBundle: A_Bundle, signature: A_Type) = subobjects
-			val definitions = definitionBundle.macrosTuple
-				.filter { it.bodySignature().equals(signature) }
+			val definitions = lookupDefinitions(
+				signature,
+				deserializer,
+				{ it.descriptor() is MacroDescriptor }
+			) {
+				definitionBundle.macrosTuple
+			}
 			assert(definitions.size == 1)
 			return definitions[0]
 		}
@@ -1899,8 +1928,13 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_BasicObject
 		{
 			val (definitionMethod, signature) = subobjects
-			val definitions = definitionMethod.definitionsTuple
-				.filter { it.bodySignature().equals(signature) }
+			val definitions = lookupDefinitions(
+				signature,
+				deserializer,
+				{ it.isAbstractDefinition() }
+			) {
+				definitionMethod.definitionsTuple
+			}
 			assert(definitions.size == 1)
 			val definition = definitions[0]
 			assert(definition.isAbstractDefinition())
@@ -1932,8 +1966,13 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_BasicObject
 		{
 			val (definitionMethod, signature) = subobjects
-			val definitions = definitionMethod.definitionsTuple
-				.filter { it.bodySignature().equals(signature) }
+			val definitions = lookupDefinitions(
+				signature,
+				deserializer,
+				{ it.isForwardDefinition() }
+			) {
+				definitionMethod.definitionsTuple
+			}
 			assert(definitions.size == 1)
 			val definition = definitions[0]
 			assert(definition.isForwardDefinition())
@@ -1960,6 +1999,10 @@ enum class SerializerOperation constructor(
 			deserializer: Deserializer): A_BasicObject
 		{
 			val atom = subobjects[0]
+			val bundle = atom.bundleOrNil
+			if (bundle.notNil) return bundle
+			// A statement that hasn't run yet might create the bundle.
+			deserializer.requirePriorEffects()
 			try
 			{
 				return atom.bundleOrCreate()
@@ -3458,6 +3501,48 @@ enum class SerializerOperation constructor(
 			val (read, write) = subobjects
 			return variableReadWriteType(read, write)
 		}
+	},
+
+	/**
+	 * A [tuple][TupleDescriptor] of [doubles][DoubleDescriptor], serialized
+	 * as their raw bits rather than as separate double objects.
+	 */
+	DOUBLE_TUPLE(102, UNCOMPRESSED_DOUBLE_TUPLE.named("tuple of doubles"))
+	{
+		override fun decompose(
+			obj: AvailObject,
+			serializer: Serializer): Array<out A_BasicObject>
+		{
+			return array(obj)
+		}
+
+		override fun compose(
+			subobjects: Array<AvailObject>,
+			deserializer: Deserializer): A_BasicObject
+		{
+			return subobjects[0]
+		}
+	},
+
+	/**
+	 * A [tuple][TupleDescriptor] of [floats][FloatDescriptor], serialized as
+	 * their raw bits rather than as separate float objects.
+	 */
+	FLOAT_TUPLE(103, UNCOMPRESSED_FLOAT_TUPLE.named("tuple of floats"))
+	{
+		override fun decompose(
+			obj: AvailObject,
+			serializer: Serializer): Array<out A_BasicObject>
+		{
+			return array(obj)
+		}
+
+		override fun compose(
+			subobjects: Array<AvailObject>,
+			deserializer: Deserializer): A_BasicObject
+		{
+			return subobjects[0]
+		}
 	};
 
 	/**
@@ -3611,7 +3696,13 @@ enum class SerializerOperation constructor(
 			{
 				// An atom in the current module.  Create it if necessary.
 				// Check if it's already defined somewhere...
-				val trueNames = currentModule.trueNamesForStringName(atomName)
+				var trueNames = currentModule.trueNamesForStringName(atomName)
+				if (trueNames.setSize != 1)
+				{
+					// A statement that hasn't run yet might create it.
+					deserializer.requirePriorEffects()
+					trueNames = currentModule.trueNamesForStringName(atomName)
+				}
 				if (trueNames.setSize == 1)
 				{
 					return trueNames.asTuple.tupleAt(1)
@@ -3639,6 +3730,44 @@ enum class SerializerOperation constructor(
 				"Unknown atom $atomName in module $module")
 		}
 
+		/**
+		 * Answer the definitions or macros with the given body signature.  If
+		 * there isn't exactly one of the expected kind, a statement that
+		 * hasn't run yet might be about to add or replace it (e.g., a forward
+		 * definition that will be replaced by a method definition with the
+		 * same signature), so [require][Deserializer.requirePriorEffects]
+		 * that prior statements have run, and look again.
+		 *
+		 * @param signature
+		 *   The body signature of the desired definition.
+		 * @param deserializer
+		 *   The [Deserializer] that is reconstructing the definition.
+		 * @param hasExpectedKind
+		 *   Whether a definition with the signature is of the kind being
+		 *   reconstructed.
+		 * @param definitions
+		 *   How to fetch the current tuple of [A_Definition]s or [A_Macro]s to
+		 *   search.
+		 * @return
+		 *   The matching definitions, normally exactly one.
+		 */
+		private inline fun lookupDefinitions(
+			signature: A_Type,
+			deserializer: Deserializer,
+			hasExpectedKind: (AvailObject)->Boolean,
+			definitions: ()->A_Tuple
+		): List<AvailObject>
+		{
+			val matches = definitions().filter {
+				it.bodySignature().equals(signature)
+			}
+			if (matches.size == 1 && hasExpectedKind(matches[0])) return matches
+			deserializer.requirePriorEffects()
+			return definitions().filter {
+				it.bodySignature().equals(signature)
+			}
+		}
+
 		/**
 		 * This helper function takes a variable number of arguments as an
 		 * array, and conveniently returns that array.  This is syntactically
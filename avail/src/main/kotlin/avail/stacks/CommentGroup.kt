@@ -324,7 +324,27 @@ class CommentGroup
 	}
 
 	/**
-	 * Create JSON file from implementation.
+	 * Settle the parts of this group that are shared with other groups before
+	 * any of them is [written][toJSON]: drop the "Unclassified" category when
+	 * a real one is present, and merge all [grammaticalRestrictions] into the
+	 * first of them. Groups created by renaming share their comments with the
+	 * original, so this must happen serially; the groups may then be written
+	 * concurrently.
+	 */
+	fun prepareForOutput()
+	{
+		categories()
+		val restrictions = grammaticalRestrictions.values.toList()
+		for (i in 1 until restrictions.size)
+		{
+			restrictions[0].mergeGrammaticalRestrictionImplementations(
+				restrictions[i])
+		}
+	}
+
+	/**
+	 * Create JSON file from implementation. The group must already have been
+	 * [prepared][prepareForOutput].
 	 *
 	 * @param outputPath
 	 *   The [path][Path] to the output [path][BasicFileAttributes.isDirectory]
@@ -354,11 +374,6 @@ class CommentGroup
 	{
 		val jsonWriter = JSONWriter()
 		jsonWriter.startObject()
-		if (categories.size > 1)
-		{
-			categories.remove("Unclassified")
-		}
-
 		if (methods.isNotEmpty())
 		{
 			jsonWriter.write("type")
@@ -367,18 +382,7 @@ class CommentGroup
 			jsonWriter.write(nameOfGroup)
 			if (grammaticalRestrictions.isNotEmpty())
 			{
-				val listSize = grammaticalRestrictions.size
-				val restrictions = grammaticalRestrictions.values.toList()
-				if (listSize > 1)
-				{
-					for (i in 1 until listSize)
-					{
-						restrictions[0]
-							.mergeGrammaticalRestrictionImplementations(
-								restrictions[i])
-					}
-				}
-				restrictions[0].toJSON(
+				grammaticalRestrictions.values.first().toJSON(
 					linkingFileMap, nameOfGroup, errorLog, jsonWriter)
 
 			}
@@ -417,18 +421,7 @@ class CommentGroup
 			jsonWriter.write(nameOfGroup)
 			if (grammaticalRestrictions.isNotEmpty())
 			{
-				val listSize = grammaticalRestrictions.size
-				val restrictions = grammaticalRestrictions.values.toList()
-				if (listSize > 1)
-				{
-					for (i in 1 until listSize)
-					{
-						restrictions[0]
-							.mergeGrammaticalRestrictionImplementations(
-								restrictions[i])
-					}
-				}
-				restrictions[0].toJSON(
+				grammaticalRestrictions.values.first().toJSON(
 					linkingFileMap, nameOfGroup, errorLog, jsonWriter)
 			}
 			jsonWriter.write("definitions")
@@ -42,6 +42,7 @@ import java.nio.file.Path
 import java.nio.file.StandardOpenOption.CREATE
 import java.nio.file.StandardOpenOption.TRUNCATE_EXISTING
 import java.nio.file.StandardOpenOption.WRITE
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * A holder for all categories in stacks
@@ -51,14 +52,18 @@ import java.nio.file.StandardOpenOption.WRITE
 class LinkingFileMap
 {
 	/**
-	 * The map containing categories.  Keyed by name to description.
+	 * The map containing categories.  Keyed by name to description.  Updated
+	 * concurrently while modules are scanned.
 	 */
-	val categoryToDescription = mutableMapOf<String, StacksDescription>()
+	val categoryToDescription =
+		ConcurrentHashMap<String, StacksDescription>()
 
 	/**
-	 * The list of [ModuleComment]s for this compilation
+	 * The list of [ModuleComment]s for this compilation.  Updated concurrently
+	 * while modules are scanned.
 	 */
-	val moduleComments = mutableSetOf<ModuleComment>()
+	val moduleComments: MutableSet<ModuleComment> =
+		ConcurrentHashMap.newKeySet()
 
 	/**
 	 * The map containing categories.  Keyed by name to description.
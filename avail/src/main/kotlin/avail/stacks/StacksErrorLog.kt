@@ -40,6 +40,8 @@ import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.StandardOpenOption
 import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 
 /**
  * A Stacks log file that contains errors from processing comments in Avail
@@ -72,12 +74,12 @@ class StacksErrorLog
 	/**
 	 * The amount of errors listed in the file
 	 */
-	private var errorCount: Int = 0
+	private val errorCount = AtomicInteger(0)
 
 	/**
 	 * File position tracker for error log
 	 */
-	private var errorFilePosition: Long = 0
+	private val errorFilePosition = AtomicLong(0)
 
 	/**
 	 * @return the errorFilePosition
@@ -89,8 +91,6 @@ class StacksErrorLog
 
 	init
 	{
-		this.errorFilePosition = 0
-		this.errorCount = 0
 		try
 		{
 			val errorLogPath = outputPath.resolve("errorlog.html")
@@ -118,19 +118,20 @@ class StacksErrorLog
 	}
 
 	/**
-	 * Add a new error log entry to the error error log.
+	 * Add a new error log entry to the error error log. Each entry reserves
+	 * its own region of the file, so entries may be added concurrently.
+	 *
 	 * @param buffer
 	 * The error log buffer
 	 * @param addToErrorCount
 	 * The amount of errors added with this log update.
 	 */
-	@Synchronized fun addLogEntry(
+	fun addLogEntry(
 		buffer: ByteBuffer,
 		addToErrorCount: Int)
 	{
-		errorCount += addToErrorCount
-		val position = errorFilePosition
-		errorFilePosition += buffer.limit().toLong()
+		errorCount.addAndGet(addToErrorCount)
+		val position = errorFilePosition.getAndAdd(buffer.limit().toLong())
 		errorLog!!.write(buffer, position)
 	}
 
@@ -139,6 +140,6 @@ class StacksErrorLog
 	 */
 	fun errorCount(): Int
 	{
-		return errorCount
+		return errorCount.get()
 	}
 }
@@ -42,6 +42,7 @@ import avail.descriptor.tokens.CommentTokenDescriptor
 import avail.descriptor.tuples.A_Tuple
 import avail.descriptor.tuples.TupleDescriptor
 import avail.stacks.module.CommentsModule
+import avail.stacks.module.ScannedModuleComments
 import avail.utility.IO
 import java.io.FileInputStream
 import java.io.IOException
@@ -51,6 +52,7 @@ import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
 import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.ConcurrentLinkedQueue
 import kotlin.collections.set
 
 /**
@@ -117,6 +119,13 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 	 */
 	private var moduleToComments: MutableMap<String, CommentsModule>
 
+	/**
+	 * The [scanned][ScannedModuleComments] modules, in the order that they
+	 * were [added][add]. Modules are added as the module graph is visited, so
+	 * every module appears after all of its ancestors.
+	 */
+	private val scannedModules = ConcurrentLinkedQueue<ScannedModuleComments>()
+
 	init
 	{
 		require(!(Files.exists(outputPath) && !Files.isDirectory(outputPath)))
@@ -133,7 +142,10 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 
 	/**
 	 * Inform the [generator][StacksGenerator] about the documentation and
-	 * linkage of a [module][ModuleDescriptor].
+	 * linkage of a [module][ModuleDescriptor]. The module's comments are
+	 * scanned and built right away, on the calling thread, so concurrent
+	 * callers scan their modules in parallel; linking against the imported
+	 * modules is deferred until [generate].
 	 *
 	 * @param header
 	 *   The [header][ModuleHeader] of the module.
@@ -141,15 +153,13 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 	 *   The complete [collection][TupleDescriptor] of
 	 *   [comments][CommentTokenDescriptor] produced for the given module.
 	 */
-	@Synchronized fun add(
+	fun add(
 		header: ModuleHeader,
 		commentTokens: A_Tuple)
 	{
-		val commentsModule = CommentsModule(
-			header, commentTokens, errorLog, resolver,
-			moduleToComments, linkingFileMap,
-			linkPrefix)
-		updateModuleToComments(commentsModule)
+		scannedModules.add(
+			ScannedModuleComments.scan(
+				header, commentTokens, errorLog, linkingFileMap))
 	}
 
 	/**
@@ -185,6 +195,10 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 
 		errorLog.addLogEntry(closeHTML, 0)
 
+		scannedModules.forEach {
+			updateModuleToComments(
+				CommentsModule(it, resolver, moduleToComments, linkPrefix))
+		}
 		val outerMost = moduleToComments[outermostModule.qualifiedName]!!
 
 		try
@@ -208,14 +222,12 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 			val synchronizer = StacksSynchronizer(fileToOutPutCount)
 
 			// JSON files
-			moduleToComments[outermostModule.qualifiedName]!!
-				.writeMethodsToJSONFiles(
-					providedDocumentPath,
-					synchronizer,
-					runtime,
-					linkingFileMap,
-					errorLog)
-			synchronizer.waitForWorkUnitsToComplete()
+			outerMost.writeMethodsToJSONFiles(
+				providedDocumentPath,
+				synchronizer,
+				runtime,
+				linkingFileMap,
+				errorLog)
 		}
 
 		linkingFileMap.writeInternalLinksToJSON(
@@ -235,8 +247,9 @@ class StacksGenerator @Throws(IllegalArgumentException::class) constructor(
 	 * Clear all internal data structures and reinitialize this
 	 * [StacksGenerator] for subsequent usage.
 	 */
-	@Synchronized fun clear()
+	fun clear()
 	{
+		scannedModules.clear()
 		moduleToComments.clear()
 		linkingFileMap.clear()
 	}
@@ -37,6 +37,7 @@ import avail.builder.ModuleName
 import avail.builder.ModuleNameResolver
 import avail.builder.UnresolvedDependencyException
 import avail.compiler.ModuleHeader
+import avail.descriptor.fiber.FiberDescriptor.Companion.loaderPriority
 import avail.descriptor.maps.A_Map.Companion.keysAsSet
 import avail.descriptor.maps.A_Map.Companion.mapAt
 import avail.descriptor.maps.A_Map.Companion.valuesAsTuple
@@ -48,7 +49,6 @@ import avail.descriptor.sets.SetDescriptor.Companion.setFromCollection
 import avail.descriptor.tokens.CommentTokenDescriptor
 import avail.descriptor.tuples.A_String
 import avail.descriptor.tuples.A_String.Companion.asNativeString
-import avail.descriptor.tuples.A_Tuple
 import avail.descriptor.tuples.A_Tuple.Companion.asSet
 import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
 import avail.stacks.CommentGroup
@@ -58,9 +58,6 @@ import avail.stacks.StacksFilename
 import avail.stacks.StacksOutputFile
 import avail.stacks.StacksSynchronizer
 import avail.stacks.comment.AvailComment
-import avail.stacks.exceptions.StacksCommentBuilderException
-import avail.stacks.exceptions.StacksScannerException
-import avail.stacks.scanner.StacksScanner
 import org.availlang.json.JSONWriter
 import java.io.IOException
 import java.nio.ByteBuffer
@@ -80,29 +77,20 @@ import java.nio.file.attribute.BasicFileAttributes
  * @constructor
  * Construct a new [CommentsModule].
  *
- * @param header
- *   The [ModuleHeader] of the current file
- * @param commentTokens
- *   A [A_Tuple] of all the comment tokens.
- * @param errorLog
- *   The file for outputting all errors.
+ * @param scanned
+ *   The [ScannedModuleComments] of the current file.
  * @param resolver
  *   The [ModuleNameResolver] for resolving module paths.
  * @param moduleToComments
  *   A map of [module&#32;names][ModuleName] to a list of all the method names
  *   exported from said module
- * @param linkingFileMap
- *   A map for all output files in Stacks
  * @param linkPrefix
  *   An optional prefix to all files' link web links
  */
 class CommentsModule constructor(
-	header: ModuleHeader,
-	commentTokens: A_Tuple,
-	errorLog: StacksErrorLog,
+	scanned: ScannedModuleComments,
 	resolver: ModuleNameResolver,
 	moduleToComments: MutableMap<String, CommentsModule>,
-	linkingFileMap: LinkingFileMap,
 	private val linkPrefix: String)
 {
 	/**
@@ -133,7 +121,7 @@ class CommentsModule constructor(
 	/**
 	 * The name of the module that contains these Stacks Comments.
 	 */
-	val moduleName: String = header.moduleName.qualifiedName
+	val moduleName: String = scanned.header.moduleName.qualifiedName
 
 	/**
 	 * All public methods/classes from this module.
@@ -180,6 +168,7 @@ class CommentsModule constructor(
 
 	init
 	{
+		val header = scanned.header
 		this.inScopeMethodsToFileNames = createFileNames(
 			header.exportedNames, moduleName,
 			fileExtensionName)
@@ -221,49 +210,7 @@ class CommentsModule constructor(
 
 		populateExtendsFromUsesExtends()
 
-		val errorMessages = StringBuilder()
-		var errorCount = 0
-
-		for (aToken in commentTokens)
-		{
-			try
-			{
-				val implementation = StacksScanner.processCommentString(
-					aToken, moduleName, linkingFileMap)
-
-				if (implementation !== null)
-				{
-					addImplementation(implementation)
-				}
-			}
-			catch (e: StacksScannerException)
-			{
-				errorMessages.append(e.message)
-				errorCount++
-			}
-			catch (e: StacksCommentBuilderException)
-			{
-				errorMessages.append(e.message)
-				errorCount++
-			}
-
-		}
-
-		if (errorCount > 0)
-		{
-			val newLogEntry = StringBuilder()
-				.append("<h3>")
-				.append(header.moduleName.qualifiedName)
-				.append(" <em>(")
-				.append(errorCount)
-				.append(")</em></h3>\n<ol>")
-			errorMessages.append("</ol>\n")
-			newLogEntry.append(errorMessages)
-
-			val errorBuffer = ByteBuffer.wrap(
-				newLogEntry.toString().toByteArray(StandardCharsets.UTF_8))
-			errorLog.addLogEntry(errorBuffer, errorCount)
-		}
+		scanned.comments.forEach(::addImplementation)
 	}
 
 	/**
@@ -1038,14 +985,16 @@ class CommentsModule constructor(
 	}
 
 	/**
-	 * Write all the methods and extends methods to file.
+	 * Write all the methods and extends methods to file. Each group is
+	 * rendered to JSON by its own [task][AvailRuntime.execute]; answer once
+	 * every file has been written.
 	 *
 	 * @param outputPath
 	 *   The [path][Path] to the output directory for documentation and data
 	 *   files.
 	 * @param synchronizer
 	 *   The [StacksSynchronizer] used to control the creation of Stacks
-	 *   documentation
+	 *   documentation, expecting one work unit per group.
 	 * @param runtime
 	 *   An [runtime][AvailRuntime].
 	 * @param linkingFileMap
@@ -1068,20 +1017,43 @@ class CommentsModule constructor(
 			newLogEntry.toByteArray(StandardCharsets.UTF_8))
 		errorLog.addLogEntry(errorBuffer, 0)
 
-		for (implementationName in finalImplementationsGroupMap.keys)
+		val groups = finalImplementationsGroupMap.flatMap { (name, byModule) ->
+			val nameOfGroup = name.asNativeString()
+			byModule.values.map { nameOfGroup to it }
+		}
+		groups.forEach { (_, implementation) ->
+			implementation.prepareForOutput()
+		}
+		for ((nameOfGroup, implementation) in groups)
 		{
-			val tempImplementationMap =
-				finalImplementationsGroupMap[implementationName]
-
-			for (modulePath in tempImplementationMap!!.keys)
-			{
-				val implementation = tempImplementationMap[modulePath]!!
-				implementation.toJSON(
-					outputPath, synchronizer, runtime,
-					linkingFileMap, implementationName.asNativeString(),
-					errorLog)
+			runtime.execute(loaderPriority) {
+				// Once the group's file is being written, writing it accounts
+				// for the work unit.  Until then, account for it here, however
+				// this task ends, so that waitForWorkUnitsToComplete returns.
+				var writing = false
+				try
+				{
+					implementation.toJSON(
+						outputPath, synchronizer, runtime,
+						linkingFileMap, nameOfGroup, errorLog)
+					writing = true
+				}
+				catch (e: IOException)
+				{
+					val entry = "<li><strong>$nameOfGroup</strong>: " +
+						"${e.localizedMessage}</li>\n"
+					errorLog.addLogEntry(
+						ByteBuffer.wrap(
+							entry.toByteArray(StandardCharsets.UTF_8)),
+						1)
+				}
+				finally
+				{
+					if (!writing) synchronizer.decrementWorkCounter()
+				}
 			}
 		}
+		synchronizer.waitForWorkUnitsToComplete()
 
 		val closeErrorBuffer = ByteBuffer.wrap(
 			"</ol>\n".toByteArray(StandardCharsets.UTF_8))
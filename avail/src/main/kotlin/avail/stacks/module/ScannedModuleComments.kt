@@ -0,0 +1,146 @@
+/*
+ * ScannedModuleComments.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.stacks.module
+
+import avail.compiler.ModuleHeader
+import avail.descriptor.tokens.CommentTokenDescriptor
+import avail.descriptor.tuples.A_Tuple
+import avail.stacks.LinkingFileMap
+import avail.stacks.StacksErrorLog
+import avail.stacks.comment.AvailComment
+import avail.stacks.comment.CommentBuilder
+import avail.stacks.exceptions.StacksCommentBuilderException
+import avail.stacks.exceptions.StacksScannerException
+import avail.stacks.scanner.StacksScanner
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+/**
+ * The [comments][AvailComment] of a single module, fully scanned and built but
+ * not yet linked against the modules that it imports.
+ *
+ * Scanning and [building][CommentBuilder] only touch the module's own
+ * [comment&#32;tokens][CommentTokenDescriptor], the concurrent parts of the
+ * [LinkingFileMap], and the [StacksErrorLog], so every module can be scanned
+ * on its own thread as the module graph is visited. The results are linked
+ * into [CommentsModule]s afterward, in an order that respects the module
+ * dependencies.
+ *
+ * @property header
+ *   The [ModuleHeader] of the scanned module.
+ * @property comments
+ *   The successfully built comments, in the order they occur in the module.
+ *
+ * @constructor
+ * Construct a new [ScannedModuleComments].
+ *
+ * @param header
+ *   The [ModuleHeader] of the scanned module.
+ * @param comments
+ *   The successfully built comments, in the order they occur in the module.
+ */
+class ScannedModuleComments private constructor(
+	val header: ModuleHeader,
+	val comments: List<AvailComment>)
+{
+	companion object
+	{
+		/**
+		 * Scan and build every comment of a module. Malformed comments are
+		 * reported to the [errorLog] as a single entry for the module.
+		 *
+		 * @param header
+		 *   The [ModuleHeader] of the module.
+		 * @param commentTokens
+		 *   A [A_Tuple] of all the comment tokens.
+		 * @param errorLog
+		 *   The file for outputting all errors.
+		 * @param linkingFileMap
+		 *   A map for all output files in Stacks.
+		 * @return
+		 *   The module's [ScannedModuleComments].
+		 */
+		fun scan(
+			header: ModuleHeader,
+			commentTokens: A_Tuple,
+			errorLog: StacksErrorLog,
+			linkingFileMap: LinkingFileMap): ScannedModuleComments
+		{
+			val moduleName = header.moduleName.qualifiedName
+			val comments = mutableListOf<AvailComment>()
+			val errorMessages = StringBuilder()
+			var errorCount = 0
+
+			for (aToken in commentTokens)
+			{
+				try
+				{
+					val implementation = StacksScanner.processCommentString(
+						aToken, moduleName, linkingFileMap)
+
+					if (implementation !== null)
+					{
+						comments.add(implementation)
+					}
+				}
+				catch (e: StacksScannerException)
+				{
+					errorMessages.append(e.message)
+					errorCount++
+				}
+				catch (e: StacksCommentBuilderException)
+				{
+					errorMessages.append(e.message)
+					errorCount++
+				}
+			}
+
+			if (errorCount > 0)
+			{
+				val newLogEntry = StringBuilder()
+					.append("<h3>")
+					.append(moduleName)
+					.append(" <em>(")
+					.append(errorCount)
+					.append(")</em></h3>\n<ol>")
+				errorMessages.append("</ol>\n")
+				newLogEntry.append(errorMessages)
+
+				val errorBuffer = ByteBuffer.wrap(
+					newLogEntry.toString().toByteArray(StandardCharsets.UTF_8))
+				errorLog.addLogEntry(errorBuffer, errorCount)
+			}
+			return ScannedModuleComments(header, comments)
+		}
+	}
+}
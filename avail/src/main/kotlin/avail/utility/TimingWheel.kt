@@ -0,0 +1,345 @@
+/*
+ * TimingWheel.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of the copyright holder nor the names of the contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.utility
+
+import java.util.concurrent.locks.ReentrantLock
+import java.util.logging.Level
+import java.util.logging.Logger
+import kotlin.concurrent.withLock
+
+/**
+ * A `TimingWheel` schedules actions to run after a delay, with a resolution of
+ * one tick.  It has no thread of its own; instead, something must call
+ * [advanceTo] periodically, passing the current tick.  Every action whose delay
+ * has elapsed then runs, in that caller's [Thread].
+ *
+ * Pending tasks are kept in a hierarchy of [levelCount] wheels, each with
+ * [slotsPerLevel] slots.  The first wheel has a slot for each of the next
+ * [slotsPerLevel] ticks.  Each slot of a higher wheel covers as many ticks as
+ * the entire wheel below it, and its tasks are redistributed to the wheel below
+ * when that wheel wraps around.  Each slot is an intrusive, doubly-linked list,
+ * so both [scheduling][schedule] and [canceling][Task.cancel] take constant
+ * time, and canceled tasks are discarded immediately.  Tasks due further in
+ * the future than the wheels can represent are placed in the last slot of the
+ * highest wheel, and are simply redistributed again when that slot comes due.
+ *
+ * @property tickMillis
+ *   The number of milliseconds between ticks.
+ *
+ * @constructor
+ * Create a `TimingWheel` with no scheduled tasks.
+ *
+ * @param initialTick
+ *   The current tick.
+ */
+class TimingWheel constructor(
+	private val tickMillis: Long,
+	initialTick: Long)
+{
+	/** The lock that protects the wheels and the tasks' links. */
+	private val lock = ReentrantLock()
+
+	/** The most recent tick that has been processed by [advanceTo]. */
+	private var currentTick = initialTick
+
+	/** The number of tasks that have been scheduled but not yet run. */
+	private var pendingCount = 0
+
+	/**
+	 * The heads of the task lists, indexed by level, then slot.
+	 */
+	private val heads = Array(levelCount) { arrayOfNulls<Task>(slotsPerLevel) }
+
+	/**
+	 * A `Task` is an action that has been [scheduled][schedule] to run at a
+	 * particular tick.
+	 *
+	 * @property deadline
+	 *   The tick at which the task should run.
+	 * @property action
+	 *   What to do when the deadline arrives.
+	 */
+	inner class Task internal constructor(
+		internal val deadline: Long,
+		private val action: ()->Unit)
+	{
+		/** The wheel containing this task, or -1 if it's not scheduled. */
+		internal var level = -1
+
+		/** The slot containing this task, if it's scheduled. */
+		internal var slot = 0
+
+		/** The previous task in the same slot, if any. */
+		internal var previous: Task? = null
+
+		/** The next task in the same slot, if any. */
+		internal var next: Task? = null
+
+		/**
+		 * Prevent this task from running, if it hasn't already run.
+		 *
+		 * @return
+		 *   `true` if the task was canceled, or `false` if it had already run
+		 *   or been canceled.
+		 */
+		fun cancel(): Boolean = lock.withLock {
+			if (level == -1) return@withLock false
+			unlink(this)
+			pendingCount--
+			true
+		}
+
+		/** Run the task's action. */
+		internal fun run() = action()
+	}
+
+	/**
+	 * Schedule an action to run after at least the specified number of
+	 * milliseconds.
+	 *
+	 * @param delayMillis
+	 *   The minimum delay, in milliseconds.
+	 * @param action
+	 *   What to do when the delay has elapsed.
+	 * @return
+	 *   The scheduled [Task], which may be [canceled][Task.cancel].
+	 */
+	fun schedule(delayMillis: Long, action: ()->Unit): Task
+	{
+		assert(delayMillis >= 0)
+		// The next tick may be imminent, so wait one extra tick to ensure the
+		// delay is never shortened.
+		val ticks = (delayMillis / tickMillis) +
+			(if (delayMillis % tickMillis == 0L) 1 else 2)
+		return lock.withLock {
+			val deadline =
+				if (ticks > Long.MAX_VALUE - currentTick) Long.MAX_VALUE
+				else currentTick + ticks
+			val task = Task(deadline, action)
+			link(task)
+			pendingCount++
+			task
+		}
+	}
+
+	/**
+	 * Process every tick up to and including the given one, running each task
+	 * whose deadline has arrived.  The tasks run after the wheel's lock has
+	 * been released, in the order of their deadlines, so they may schedule or
+	 * cancel other tasks.
+	 *
+	 * @param tick
+	 *   The current tick.
+	 */
+	fun advanceTo(tick: Long)
+	{
+		val expired = mutableListOf<Task>()
+		lock.withLock {
+			while (currentTick < tick)
+			{
+				if (pendingCount == 0)
+				{
+					currentTick = tick
+					break
+				}
+				currentTick++
+				// Redistribute the tasks of each higher wheel whose slot just
+				// came due, starting with the highest.
+				var level = 1
+				while (level < levelCount && lowBitsAreZero(level)) level++
+				for (cascadeLevel in level - 1 downTo 1)
+				{
+					redistribute(
+						cascadeLevel, slotIndex(currentTick, cascadeLevel))
+				}
+				val slotIndex = slotIndex(currentTick, 0)
+				var task = heads[0][slotIndex]
+				heads[0][slotIndex] = null
+				while (task !== null)
+				{
+					val next = task.next
+					task.level = -1
+					task.previous = null
+					task.next = null
+					if (task.deadline <= currentTick)
+					{
+						pendingCount--
+						expired.add(task)
+					}
+					else
+					{
+						// It was too far in the future to place precisely.
+						link(task)
+					}
+					task = next
+				}
+			}
+		}
+		expired.forEach { task ->
+			try
+			{
+				task.run()
+			}
+			catch (e: Throwable)
+			{
+				// Don't let one failing task prevent the others from running,
+				// or stop whatever is driving the wheel.
+				logger.log(Level.SEVERE, "timing wheel task failed", e)
+			}
+		}
+	}
+
+	/**
+	 * The number of tasks that are scheduled but haven't yet run.
+	 */
+	val size: Int get() = lock.withLock { pendingCount }
+
+	/**
+	 * Answer whether the bits of [currentTick] below the given level are all
+	 * zero, meaning the wheel below that level has just wrapped around.
+	 *
+	 * @param level
+	 *   The level to check.
+	 * @return
+	 *   Whether the lower wheels have wrapped.
+	 */
+	private fun lowBitsAreZero(level: Int): Boolean =
+		currentTick and ((1L shl (bitsPerLevel * level)) - 1) == 0L
+
+	/**
+	 * Move every task from the specified slot to the appropriate slot of a
+	 * lower wheel.  The lock must be held.
+	 *
+	 * @param level
+	 *   The level of the slot to empty.
+	 * @param slotIndex
+	 *   The index of the slot to empty.
+	 */
+	private fun redistribute(level: Int, slotIndex: Int)
+	{
+		var task = heads[level][slotIndex]
+		heads[level][slotIndex] = null
+		while (task !== null)
+		{
+			val next = task.next
+			task.previous = null
+			task.next = null
+			link(task)
+			task = next
+		}
+	}
+
+	/**
+	 * Add the task to the slot appropriate for its deadline, relative to the
+	 * [currentTick].  The lock must be held.
+	 *
+	 * @param task
+	 *   The task to add.
+	 */
+	private fun link(task: Task)
+	{
+		val delta = task.deadline - currentTick
+		var level = 0
+		while (level < levelCount - 1
+			&& delta >= 1L shl (bitsPerLevel * (level + 1)))
+		{
+			level++
+		}
+		val maximumDelta = (1L shl (bitsPerLevel * levelCount)) - 1
+		val placement =
+			if (delta > maximumDelta) currentTick + maximumDelta
+			else task.deadline
+		val slotIndex = slotIndex(placement, level)
+		val head = heads[level][slotIndex]
+		task.level = level
+		task.slot = slotIndex
+		task.next = head
+		head?.previous = task
+		heads[level][slotIndex] = task
+	}
+
+	/**
+	 * Remove the task from its slot.  The lock must be held.
+	 *
+	 * @param task
+	 *   The task to remove.
+	 */
+	private fun unlink(task: Task)
+	{
+		val previous = task.previous
+		val next = task.next
+		if (previous === null) heads[task.level][task.slot] = next
+		else previous.next = next
+		next?.previous = previous
+		task.level = -1
+		task.previous = null
+		task.next = null
+	}
+
+	override fun toString(): String =
+		"TimingWheel(tick=$currentTick, pending=$size)"
+
+	companion object
+	{
+		/** The [Logger] for tasks that failed while being run. */
+		private val logger = Logger.getLogger(TimingWheel::class.java.name)
+
+		/** The number of bits of the tick used to index each wheel. */
+		private const val bitsPerLevel = 8
+
+		/** The number of slots in each wheel. */
+		private const val slotsPerLevel = 1 shl bitsPerLevel
+
+		/**
+		 * The number of wheels.  With [bitsPerLevel] of eight, this can
+		 * represent delays of up to 2^32 ticks before tasks have to be
+		 * redistributed more than once per level.
+		 */
+		private const val levelCount = 4
+
+		/**
+		 * Answer the index of the slot covering the given tick in the wheel at
+		 * the given level.
+		 *
+		 * @param tick
+		 *   The tick.
+		 * @param level
+		 *   The level of the wheel.
+		 * @return
+		 *   The slot index.
+		 */
+		private fun slotIndex(tick: Long, level: Int): Int =
+			((tick ushr (bitsPerLevel * level)) and
+				(slotsPerLevel - 1).toLong()).toInt()
+	}
+}
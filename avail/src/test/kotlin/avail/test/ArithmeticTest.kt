@@ -37,7 +37,9 @@ import avail.descriptor.numbers.A_Number.Companion.bitShift
 import avail.descriptor.numbers.A_Number.Companion.divideCanDestroy
 import avail.descriptor.numbers.A_Number.Companion.extractFloat
 import avail.descriptor.numbers.A_Number.Companion.extractLong
+import avail.descriptor.numbers.A_Number.Companion.extractLongStatic
 import avail.descriptor.numbers.A_Number.Companion.isLong
+import avail.descriptor.numbers.A_Number.Companion.isLongStatic
 import avail.descriptor.numbers.A_Number.Companion.isPositive
 import avail.descriptor.numbers.A_Number.Companion.lessOrEqual
 import avail.descriptor.numbers.A_Number.Companion.minusCanDestroy
@@ -51,8 +53,18 @@ import avail.descriptor.numbers.FloatDescriptor.Companion.fromFloat
 import avail.descriptor.numbers.IntegerDescriptor
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromBigInteger
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromLong
 import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.AvailObject
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.inclusive
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int32
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int64
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.integers
+import avail.interpreter.levelTwo.operand.TypeRestriction
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_LONG_FLAG
+import avail.interpreter.primitive.numbers.P_Addition
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.DisplayName
 import org.junit.jupiter.api.Test
@@ -247,6 +259,108 @@ class ArithmeticTest
 		}
 	} // TODO: [MvG] Write tests for doubles.
 
+	/**
+	 * Test that the boxed arithmetic that unboxed `long` arithmetic falls back
+	 * to agrees with it, and produces a non-`long` result exactly when the
+	 * corresponding `Math.*Exact` operation overflows.
+	 *
+	 * @param a
+	 *   The first `long`.
+	 * @param b
+	 *   The second `long`.
+	 */
+	@ParameterizedTest
+	@MethodSource("longPairs")
+	fun testLongArithmeticOverflow(a: Long, b: Long)
+	{
+		val integerA = fromLong(a)
+		val integerB = fromLong(b)
+		val bigA = BigInteger.valueOf(a)
+		val bigB = BigInteger.valueOf(b)
+		checkLongOperation(
+			{ Math.addExact(a, b) },
+			integerA.plusCanDestroy(integerB, false),
+			bigA.add(bigB))
+		checkLongOperation(
+			{ Math.subtractExact(a, b) },
+			integerA.minusCanDestroy(integerB, false),
+			bigA.subtract(bigB))
+		checkLongOperation(
+			{ Math.multiplyExact(a, b) },
+			integerA.timesCanDestroy(integerB, false),
+			bigA.multiply(bigB))
+	}
+
+	/**
+	 * Test the conversions between boxed integers and unboxed `long`s, which
+	 * the unboxing and boxing L2 operations use.
+	 *
+	 * @param a
+	 *   The `long` to convert.
+	 */
+	@ParameterizedTest
+	@MethodSource("sampleLongs")
+	fun testLongKind(a: Long)
+	{
+		val boxed = fromLong(a)
+		Assertions.assertTrue(isLongStatic(boxed))
+		Assertions.assertEquals(a, extractLongStatic(boxed))
+		Assertions.assertEquals(BigInteger.valueOf(a), boxed.asBigInteger())
+		val beyond = fromBigInteger(
+			BigInteger.valueOf(a).add(BigInteger.ONE).shiftLeft(64))
+		Assertions.assertEquals(a == -1L, isLongStatic(beyond))
+	}
+
+	/**
+	 * Test the [TypeRestriction]s for values held in unboxed `long`
+	 * registers, and that dropping the unboxed form keeps the boxed one, as
+	 * happens when restoring registers after reification.
+	 */
+	@Test
+	fun testUnboxedLongRestriction()
+	{
+		val forLong =
+			restrictionForType(integers, BOXED_FLAG).forUnboxedLong()
+		Assertions.assertTrue(forLong.isUnboxedLong)
+		Assertions.assertFalse(forLong.isBoxed)
+		Assertions.assertEquals(int64, forLong.type)
+		val both =
+			restrictionForType(int64, BOXED_FLAG).withFlag(UNBOXED_LONG_FLAG)
+		Assertions.assertTrue(both.isBoxed)
+		Assertions.assertTrue(both.isUnboxedLong)
+		val boxedOnly = both.withoutFlag(UNBOXED_LONG_FLAG)
+		Assertions.assertTrue(boxedOnly.isBoxed)
+		Assertions.assertFalse(boxedOnly.isUnboxedLong)
+		Assertions.assertEquals(int64, boxedOnly.type)
+	}
+
+	/**
+	 * Test that [P_Addition] only skips int arithmetic when every possible
+	 * sum is outside the [int32] range, using both the lower and the upper
+	 * bounds of the addends.
+	 */
+	@Test
+	fun testAdditionInt32Bounds()
+	{
+		val maxInt = Int.MAX_VALUE.toLong()
+		val minInt = Int.MIN_VALUE.toLong()
+		val half = 1L shl 30
+		// Every sum is at least 2^31.
+		Assertions.assertTrue(P_Addition.sumIsOutsideInt32(
+			inclusive(half, maxInt), inclusive(half, maxInt)))
+		// Every sum is below -2^31.
+		Assertions.assertTrue(P_Addition.sumIsOutsideInt32(
+			inclusive(minInt, -half - 1), inclusive(minInt, -half)))
+		// The lower bounds alone sum to below -2^31, but 0 + 0 is in range.
+		Assertions.assertFalse(P_Addition.sumIsOutsideInt32(
+			inclusive(minInt, 0), inclusive(minInt, 0)))
+		// The upper bounds alone sum to above 2^31, but 0 + 0 is in range.
+		Assertions.assertFalse(P_Addition.sumIsOutsideInt32(
+			inclusive(0, maxInt), inclusive(0, maxInt)))
+		Assertions.assertFalse(
+			P_Addition.sumIsOutsideInt32(int32, int32))
+	}
+
 	companion object
 	{
 		/**
@@ -339,6 +453,86 @@ class ArithmeticTest
 					.map { f2: Float? -> Arguments.of(f1, f2) }
 			}
 
+		/**
+		 * `long`s with which to test unboxed `long` arithmetic, near the
+		 * boundaries where it overflows.
+		 */
+		private val sampleLongs = listOf(
+			0L,
+			1L,
+			-1L,
+			2L,
+			-2L,
+			Int.MAX_VALUE.toLong(),
+			Int.MIN_VALUE.toLong(),
+			Int.MAX_VALUE + 1L,
+			Int.MIN_VALUE - 1L,
+			1L shl 32,
+			3_037_000_499L,  // floor(sqrt(2^63))
+			3_037_000_500L,
+			-3_037_000_500L,
+			Long.MAX_VALUE / 2,
+			Long.MIN_VALUE / 2,
+			Long.MAX_VALUE - 1,
+			Long.MAX_VALUE,
+			Long.MIN_VALUE + 1,
+			Long.MIN_VALUE)
+
+		/**
+		 * Answer the sample longs list.
+		 *
+		 * @return
+		 *   A [List] of [Long]s.
+		 */
+		@Suppress("unused")
+		@JvmStatic
+		fun sampleLongs(): List<Long> = sampleLongs
+
+		/**
+		 * Produce all pairs of sample `long`s.
+		 *
+		 * @return
+		 *   A stream of [Arguments], each containing two sample `long`s.
+		 */
+		@Suppress("unused")
+		@JvmStatic
+		fun longPairs(): Stream<Arguments> = sampleLongs.stream()
+			.flatMap { a: Long? ->
+				sampleLongs.stream().map { b: Long? -> Arguments.of(a, b) }
+			}
+
+		/**
+		 * Check that a boxed Avail operation agrees with the corresponding
+		 * `Math.*Exact` operation on `long`s, and with [BigInteger].
+		 *
+		 * @param exact
+		 *   The `long` operation, which throws an [ArithmeticException] if
+		 *   the result overflows.
+		 * @param boxedResult
+		 *   The result of the boxed Avail operation.
+		 * @param expected
+		 *   The exact result.
+		 */
+		private fun checkLongOperation(
+			exact: () -> Long,
+			boxedResult: A_Number,
+			expected: BigInteger)
+		{
+			Assertions.assertEquals(expected, boxedResult.asBigInteger())
+			val unboxed = try
+			{
+				exact()
+			}
+			catch (e: ArithmeticException)
+			{
+				null
+			}
+			Assertions.assertEquals(unboxed !== null, boxedResult.isLong)
+			unboxed?.let {
+				Assertions.assertEquals(it, boxedResult.extractLong)
+			}
+		}
+
 		/**
 		 * The precision to which the basic calculations should conform. This
 		 * should be treated as a fraction by which to multiply one of the
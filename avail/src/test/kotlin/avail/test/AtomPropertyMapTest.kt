@@ -0,0 +1,313 @@
+/*
+ * AtomPropertyMapTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.descriptor.atoms.A_Atom
+import avail.descriptor.atoms.A_Atom.Companion.getAtomProperty
+import avail.descriptor.atoms.A_Atom.Companion.setAtomProperty
+import avail.descriptor.atoms.AtomDescriptor.Companion.createAtom
+import avail.descriptor.atoms.AtomPropertyMap
+import avail.descriptor.numbers.A_Number.Companion.extractInt
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * A test of [AtomPropertyMap], the immutable property map of shared atoms, and
+ * of its use by concurrent readers and writers of atom properties.
+ */
+class AtomPropertyMapTest
+{
+	/**
+	 * Answer a new shared atom.
+	 *
+	 * @param name
+	 *   The atom's name.
+	 * @return
+	 *   The atom.
+	 */
+	private fun sharedAtom(name: String): A_Atom =
+		createAtom(stringFrom(name), nil).makeShared()
+
+	/**
+	 * Run the given action on each of several threads at once, and wait for
+	 * them all to finish, rethrowing the first failure.
+	 *
+	 * @param threadCount
+	 *   The number of threads.
+	 * @param action
+	 *   What each thread should do, given its index.
+	 */
+	private fun concurrently(threadCount: Int, action: (Int)->Unit)
+	{
+		val start = CountDownLatch(1)
+		val failure = AtomicReference<Throwable>()
+		val threads = List(threadCount) { index ->
+			Thread {
+				try
+				{
+					start.await()
+					action(index)
+				}
+				catch (e: Throwable)
+				{
+					failure.compareAndSet(null, e)
+				}
+			}.apply { start() }
+		}
+		start.countDown()
+		threads.forEach { it.join() }
+		failure.get()?.let { throw it }
+	}
+
+	/** Adding, replacing and removing keys, leaving the original unchanged. */
+	@Test
+	fun testGetPutRemove()
+	{
+		val key1 = sharedAtom("key1")
+		val key2 = sharedAtom("key2")
+		val empty = AtomPropertyMap.empty
+		val one = empty.with(key1, fromInt(1))
+		val two = one.with(key2, fromInt(2))
+		assertTrue(empty.isEmpty())
+		assertNull(empty[key1])
+		assertEquals(1, one.size)
+		assertEquals(1, one[key1]!!.extractInt)
+		assertNull(one[key2])
+		assertEquals(2, two.size)
+		assertEquals(1, two[key1]!!.extractInt)
+		assertEquals(2, two[key2]!!.extractInt)
+		val replaced = two.with(key1, fromInt(3))
+		assertEquals(2, replaced.size)
+		assertEquals(3, replaced[key1]!!.extractInt)
+		assertEquals(1, two[key1]!!.extractInt)
+		val removed = replaced.with(key1, null)
+		assertEquals(1, removed.size)
+		assertFalse(removed.containsKey(key1))
+		assertTrue(replaced.containsKey(key1))
+		assertEquals(2, removed[key2]!!.extractInt)
+		// Removing an absent key changes nothing.
+		assertEquals(1, removed.with(key1, null).size)
+	}
+
+	/** A map with many entries, which has to probe past collisions. */
+	@Test
+	fun testManyEntries()
+	{
+		val keys = List(1000) { sharedAtom("key$it") }
+		var map = AtomPropertyMap.empty
+		keys.forEachIndexed { i, key -> map = map.with(key, fromInt(i)) }
+		assertEquals(keys.size, map.size)
+		keys.forEachIndexed { i, key -> assertEquals(i, map[key]!!.extractInt) }
+		keys.forEachIndexed { i, key ->
+			if (i % 2 == 0) map = map.with(key, null)
+		}
+		assertEquals(keys.size / 2, map.size)
+		keys.forEachIndexed { i, key ->
+			if (i % 2 == 0) assertNull(map[key])
+			else assertEquals(i, map[key]!!.extractInt)
+		}
+		val remaining = keys.filterIndexed { i, _ -> i % 2 == 1 }
+		assertEquals(remaining.toSet(), map.keys.toSet())
+	}
+
+	/** The properties of a shared atom, through the [A_Atom] protocol. */
+	@Test
+	fun testSharedAtomProperties()
+	{
+		val subject = sharedAtom("subject")
+		val key = sharedAtom("key")
+		assertTrue(subject.getAtomProperty(key).isNil)
+		subject.setAtomProperty(key, fromInt(5))
+		assertEquals(5, subject.getAtomProperty(key).extractInt)
+		subject.setAtomProperty(key, fromInt(6))
+		assertEquals(6, subject.getAtomProperty(key).extractInt)
+		subject.setAtomProperty(key, nil)
+		assertTrue(subject.getAtomProperty(key).isNil)
+	}
+
+	/**
+	 * Properties set on an atom before it was shared are carried over to its
+	 * shared form.
+	 */
+	@Test
+	fun testPropertiesSurviveSharing()
+	{
+		val subject = createAtom(stringFrom("subject"), nil)
+		val key = sharedAtom("key")
+		subject.setAtomProperty(key, fromInt(7))
+		val shared = subject.makeShared()
+		assertEquals(7, shared.getAtomProperty(key).extractInt)
+		shared.setAtomProperty(key, fromInt(8))
+		assertEquals(8, shared.getAtomProperty(key).extractInt)
+	}
+
+	/**
+	 * Writers that concurrently set different properties of one atom don't
+	 * lose each other's changes.
+	 */
+	@Test
+	fun testConcurrentWriters()
+	{
+		val threadCount = 8
+		val keysPerThread = 100
+		val subject = sharedAtom("subject")
+		val keys = List(threadCount) { thread ->
+			List(keysPerThread) { sharedAtom("key$thread-$it") }
+		}
+		concurrently(threadCount) { thread ->
+			keys[thread].forEachIndexed { i, key ->
+				subject.setAtomProperty(key, fromInt(i))
+			}
+			// Remove every other key again, while the others are writing.
+			keys[thread].forEachIndexed { i, key ->
+				if (i % 2 == 0) subject.setAtomProperty(key, nil)
+			}
+		}
+		keys.forEach { threadKeys ->
+			threadKeys.forEachIndexed { i, key ->
+				val value = subject.getAtomProperty(key)
+				if (i % 2 == 0) assertTrue(value.isNil)
+				else assertEquals(i, value.extractInt)
+			}
+		}
+	}
+
+	/**
+	 * Readers that race a writer see each property move only forward, and
+	 * never see a property vanish once it has been set.
+	 */
+	@Test
+	fun testConcurrentReaders()
+	{
+		val subject = sharedAtom("subject")
+		val keys = List(10) { sharedAtom("key$it") }
+		val limit = 2000
+		val done = AtomicBoolean(false)
+		concurrently(4) { thread ->
+			if (thread == 0)
+			{
+				for (value in 1..limit)
+				{
+					keys.forEach { subject.setAtomProperty(it, fromInt(value)) }
+				}
+				done.set(true)
+			}
+			else
+			{
+				val lastSeen = IntArray(keys.size)
+				while (!done.get())
+				{
+					keys.forEachIndexed { i, key ->
+						val value = subject.getAtomProperty(key)
+						if (value.isNil)
+						{
+							assertEquals(0, lastSeen[i])
+						}
+						else
+						{
+							val seen = value.extractInt
+							assertTrue(seen >= lastSeen[i])
+							lastSeen[i] = seen
+						}
+					}
+				}
+			}
+		}
+		keys.forEach {
+			assertEquals(limit, subject.getAtomProperty(it).extractInt)
+		}
+	}
+
+	/**
+	 * A reader that holds on to a map sees a consistent snapshot, no matter
+	 * what changes are published after it was read.
+	 */
+	@Test
+	fun testReadersSeeConsistentSnapshots()
+	{
+		val key1 = sharedAtom("key1")
+		val key2 = sharedAtom("key2")
+		val extraKeys = List(20) { sharedAtom("extra$it") }
+		val published = AtomicReference(
+			AtomPropertyMap.empty
+				.with(key1, fromInt(0))
+				.with(key2, fromInt(0)))
+		val limit = 2000
+		val done = AtomicBoolean(false)
+		concurrently(4) { thread ->
+			if (thread == 0)
+			{
+				for (value in 1..limit)
+				{
+					// Publish both keys, and churn the others, in one change.
+					val extra = extraKeys[value % extraKeys.size]
+					val extraValue =
+						if (value % 3 == 0) null else fromInt(value)
+					published.set(
+						published.get()
+							.with(key1, fromInt(value))
+							.with(key2, fromInt(value))
+							.with(extra, extraValue))
+				}
+				done.set(true)
+			}
+			else
+			{
+				while (!done.get())
+				{
+					val snapshot = published.get()
+					val value1 = snapshot[key1]!!.extractInt
+					repeat(10) {
+						assertEquals(value1, snapshot[key1]!!.extractInt)
+						assertEquals(value1, snapshot[key2]!!.extractInt)
+					}
+					val entries = snapshot.entries.map { it.key to it.value }
+					assertEquals(snapshot.size, entries.size)
+					entries.forEach { (key, value) ->
+						assertSame(value, snapshot[key])
+					}
+				}
+			}
+		}
+		assertEquals(limit, published.get()[key1]!!.extractInt)
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * AvailEventsTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.descriptor.fiber.FiberDescriptor
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.optimizer.L1Translator
+import avail.optimizer.OptimizationLevel.SECOND_JVM_TRANSLATION
+import avail.performance.AvailEvents
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.nio.file.Files
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import jdk.jfr.FlightRecorder
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+
+/**
+ * A test that the JDK Flight Recorder [events][AvailEvents] emitted by the
+ * runtime actually show up in a [Recording].
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class AvailEventsTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** The module in which the test's code is defined. */
+	private lateinit var module: A_Module
+
+	/** Create the [module]. */
+	@BeforeAll
+	fun createModule()
+	{
+		module = newModule(helper.runtime, stringFrom("Avail Events Test"))
+		helper.runtime.addModule(module)
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Wait up to ten seconds for [AvailEvents.isRecording] to have the
+	 * expected value, since the flight recorder notifies its listeners as a
+	 * side effect of starting and stopping recordings.
+	 *
+	 * @param expected
+	 *   The expected value of [AvailEvents.isRecording].
+	 */
+	private fun awaitRecording(expected: Boolean)
+	{
+		val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+		while (AvailEvents.isRecording != expected
+			&& System.nanoTime() < deadline)
+		{
+			Thread.sleep(10)
+		}
+		assertEquals(expected, AvailEvents.isRecording)
+	}
+
+	/**
+	 * Run the action while a [Recording] of the named event is active, then
+	 * answer the events of that type that were recorded.
+	 *
+	 * @param eventName
+	 *   The name of the event type to enable.
+	 * @param action
+	 *   What to do while recording.
+	 * @return
+	 *   The [RecordedEvent]s of that type.
+	 */
+	private fun record(
+		eventName: String,
+		action: ()->Unit
+	): List<RecordedEvent>
+	{
+		val file = Files.createTempFile("avail-events", ".jfr")
+		try
+		{
+			Recording().use { recording ->
+				recording.enable(eventName).withoutThreshold()
+				recording.start()
+				awaitRecording(true)
+				action()
+				recording.stop()
+				recording.dump(file)
+			}
+			return RecordingFile.readAllEvents(file).filter {
+				it.eventType.name == eventName
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(file)
+		}
+	}
+
+	/**
+	 * Test: [AvailEvents.isRecording] follows the starting and stopping of a
+	 * [Recording].
+	 */
+	@Test
+	fun testIsRecordingFollowsRecordings()
+	{
+		// Only meaningful if no other recording, such as one requested on the
+		// command line, is already running.
+		if (FlightRecorder.isInitialized()
+			&& FlightRecorder.getFlightRecorder().recordings.isNotEmpty())
+		{
+			return
+		}
+		assertFalse(AvailEvents.isRecording)
+		Recording().use { recording ->
+			recording.start()
+			awaitRecording(true)
+			recording.stop()
+			awaitRecording(false)
+		}
+	}
+
+	/**
+	 * Test: A safe point taken while recording produces a safe point event
+	 * with the priority of the request.
+	 */
+	@Test
+	fun testSafePointIsRecorded()
+	{
+		val priority = FiberDescriptor.commandPriority
+		val events = record("avail.SafePoint") {
+			val ranSafely = CountDownLatch(1)
+			val resumed = CountDownLatch(1)
+			helper.runtime.whenSafePointDo(priority) { ranSafely.countDown() }
+			assertTrue(ranSafely.await(10, TimeUnit.SECONDS))
+			// The event is committed as the safe point finishes, before the
+			// interpreters are allowed to run again.
+			helper.runtime.whenRunningInterpretersDo(priority) {
+				resumed.countDown()
+			}
+			assertTrue(resumed.await(10, TimeUnit.SECONDS))
+		}
+		assertTrue(events.any { it.getInt("priority") == priority })
+	}
+
+	/**
+	 * Test: Translating a raw function while recording produces a translation
+	 * event that describes the translation.
+	 */
+	@Test
+	fun testTranslationIsRecorded()
+	{
+		val code: A_RawFunction = L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(ANY.o)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			compiledCode()
+		}
+		val events = record("avail.L2Translation") {
+			L1Translator.translateToLevelTwo(
+				code, SECOND_JVM_TRANSLATION, Interpreter(helper.runtime))
+		}.filter {
+			// Ignore any translations by the runtime's own threads.
+			it.thread?.javaThreadId == Thread.currentThread().id
+		}
+		assertEquals(1, events.size)
+		val event = events[0]
+		assertEquals(
+			SECOND_JVM_TRANSLATION.name, event.getString("optimizationLevel"))
+		assertTrue(event.getInt("instructionCount") > 0)
+		val codeName = event.getString("codeName")
+		assertTrue(codeName.startsWith(code.methodName.asNativeString()))
+		assertFalse(codeName.contains('\n'))
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * BackgroundOptimizerTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.AvailRuntimeConfiguration.maxOptimizerInterpreters
+import avail.AvailThread
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.decreaseCountdownToReoptimizeFromPoll
+import avail.descriptor.functions.A_RawFunction.Companion.decrementCountdownToReoptimize
+import avail.descriptor.functions.A_RawFunction.Companion.startingChunk
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.interpreter.levelTwo.L2JVMChunk
+import avail.optimizer.BackgroundOptimizer
+import avail.optimizer.OptimizationLevel
+import avail.optimizer.OptimizationLevel.FIRST_JVM_TRANSLATION
+import avail.optimizer.OptimizationLevel.SECOND_JVM_TRANSLATION
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.logging.Handler
+import java.util.logging.Level
+import java.util.logging.LogRecord
+import java.util.logging.Logger
+
+/**
+ * A test of the [BackgroundOptimizer], which translates hot code in its own
+ * threads.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class BackgroundOptimizerTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** The module in which the test's code is defined. */
+	private lateinit var module: A_Module
+
+	/** Create the [module]. */
+	@BeforeAll
+	fun createModule()
+	{
+		module = newModule(
+			helper.runtime, stringFrom("Background Optimizer Test"))
+		helper.runtime.addModule(module)
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Create a new raw function that answers its argument.
+	 *
+	 * @return
+	 *   The new raw function.
+	 */
+	private fun newCode(): A_RawFunction =
+		L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(ANY.o)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			compiledCode()
+		}
+
+	/**
+	 * Queue the given code for translation, holding its monitor as
+	 * [BackgroundOptimizer.enqueue] requires.
+	 *
+	 * @param optimizer
+	 *   The [BackgroundOptimizer].
+	 * @param code
+	 *   The [A_RawFunction] to translate.
+	 * @param level
+	 *   The [OptimizationLevel] at which to translate it.
+	 * @return
+	 *   Whether the request was queued.
+	 */
+	private fun enqueue(
+		optimizer: BackgroundOptimizer,
+		code: A_RawFunction,
+		level: OptimizationLevel
+	): Boolean = synchronized(code) { optimizer.enqueue(code, level) }
+
+	/**
+	 * Perform the given action while collecting the records logged by the
+	 * [BackgroundOptimizer], rather than printing them.
+	 *
+	 * @param action
+	 *   What to do, given the queue into which the records are placed.
+	 */
+	private fun withLogRecords(action: (LinkedBlockingQueue<LogRecord>)->Unit)
+	{
+		val logger = Logger.getLogger(BackgroundOptimizer::class.java.name)
+		val records = LinkedBlockingQueue<LogRecord>()
+		val handler = object : Handler()
+		{
+			override fun publish(record: LogRecord) { records.add(record) }
+			override fun flush() = Unit
+			override fun close() = Unit
+		}
+		val useParentHandlers = logger.useParentHandlers
+		logger.useParentHandlers = false
+		logger.addHandler(handler)
+		try
+		{
+			action(records)
+		}
+		finally
+		{
+			logger.removeHandler(handler)
+			logger.useParentHandlers = useParentHandlers
+		}
+	}
+
+	/**
+	 * Test: A queued translation is performed in an optimizer thread, and the
+	 * resulting chunk is installed as the code's starting chunk.
+	 */
+	@Test
+	fun testTranslatesInBackground()
+	{
+		val optimizer = BackgroundOptimizer(helper.runtime)
+		try
+		{
+			val code = newCode()
+			assertFalse(code.startingChunk is L2JVMChunk)
+			assertTrue(enqueue(optimizer, code, FIRST_JVM_TRANSLATION))
+			val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30)
+			while (code.startingChunk !is L2JVMChunk
+				&& System.nanoTime() < deadline)
+			{
+				Thread.sleep(1)
+			}
+			assertTrue(code.startingChunk is L2JVMChunk)
+		}
+		finally
+		{
+			optimizer.destroy()
+		}
+	}
+
+	/**
+	 * Test: A queued translation runs in an optimizer thread, not the thread
+	 * that queued it, and with that thread's own [Interpreter].
+	 */
+	@Test
+	fun testTranslatesInOptimizerThread()
+	{
+		val translated = CountDownLatch(1)
+		var translatingThread: Thread? = null
+		var currentInterpreter: Interpreter? = null
+		var givenInterpreter: Interpreter? = null
+		val optimizer = BackgroundOptimizer(helper.runtime) { _, _, given ->
+			translatingThread = Thread.currentThread()
+			currentInterpreter = Interpreter.currentOrNull()
+			givenInterpreter = given
+			translated.countDown()
+		}
+		try
+		{
+			assertTrue(enqueue(optimizer, newCode(), FIRST_JVM_TRANSLATION))
+			assertTrue(translated.await(30, TimeUnit.SECONDS))
+			assertTrue(translatingThread is AvailThread)
+			assertFalse(translatingThread === Thread.currentThread())
+			assertSame(currentInterpreter, givenInterpreter)
+		}
+		finally
+		{
+			optimizer.destroy()
+		}
+	}
+
+	/**
+	 * Test: When a translation fails, the failure is logged and the code's
+	 * countdown is restored to that of the level below, so the translation is
+	 * attempted again later, rather than the countdown staying parked.
+	 */
+	@Test
+	fun testFailedTranslationRestoresCountdown() = withLogRecords { records ->
+		val optimizer = BackgroundOptimizer(helper.runtime) { _, _, _ ->
+			throw IllegalStateException("Translation failed")
+		}
+		try
+		{
+			val code = newCode()
+			assertTrue(enqueue(optimizer, code, SECOND_JVM_TRANSLATION))
+			val record = records.poll(30, TimeUnit.SECONDS)!!
+			assertEquals(Level.SEVERE, record.level)
+			assertTrue(record.thrown is IllegalStateException)
+			// The countdown is positive, but no more than that of the level
+			// below, so counting down that far triggers another attempt.
+			val countdown = FIRST_JVM_TRANSLATION.countdown
+			assertFalse(code.decrementCountdownToReoptimize { })
+			code.decreaseCountdownToReoptimizeFromPoll(countdown - 2)
+			assertTrue(code.decrementCountdownToReoptimize { })
+		}
+		finally
+		{
+			optimizer.destroy()
+		}
+	}
+
+	/**
+	 * Test: Tasks that fail don't cost the optimizer its threads, so later
+	 * tasks still run.
+	 */
+	@Test
+	fun testFailedTasksKeepThreads() = withLogRecords { records ->
+		val optimizer = BackgroundOptimizer(helper.runtime)
+		try
+		{
+			val failures = maxOptimizerInterpreters * 2
+			repeat(failures) {
+				assertTrue(
+					optimizer.enqueueTask("failing task") {
+						throw IllegalStateException("Task failed")
+					})
+			}
+			val ran = CountDownLatch(1)
+			assertTrue(optimizer.enqueueTask("task") { ran.countDown() })
+			assertTrue(ran.await(30, TimeUnit.SECONDS))
+			repeat(failures) {
+				val record = records.poll(30, TimeUnit.SECONDS)!!
+				assertTrue(record.message.contains("failing task"))
+			}
+		}
+		finally
+		{
+			optimizer.destroy()
+		}
+	}
+
+	/**
+	 * Test: After the optimizer has been destroyed, requests are refused, so
+	 * that the caller translates the code itself.
+	 */
+	@Test
+	fun testRefusesAfterDestroy()
+	{
+		val optimizer = BackgroundOptimizer(helper.runtime)
+		optimizer.destroy()
+		assertFalse(enqueue(optimizer, newCode(), FIRST_JVM_TRANSLATION))
+		assertFalse(optimizer.enqueueTask("task") { })
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * FileHandleTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.tuples.ByteArrayTupleDescriptor.Companion.tupleForByteArray
+import avail.descriptor.tuples.ByteBufferTupleDescriptor.Companion.tupleForByteBuffer
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.io.IOSystem.FileHandle
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.AsynchronousFileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption.ATOMIC_MOVE
+import java.nio.file.StandardCopyOption.REPLACE_EXISTING
+import java.nio.file.StandardOpenOption.READ
+
+/**
+ * A test of [FileHandle.mapForReading], on which the primitive `P_FileMap`
+ * relies.
+ */
+class FileHandleTest
+{
+	/** The directory holding the test's files. */
+	private lateinit var directory: Path
+
+	/** The file that the handles are opened on. */
+	private lateinit var file: Path
+
+	/** The original content of the [file]. */
+	private val original = ByteArray(10_000) { (it * 7).toByte() }
+
+	/** Create the [file] with its [original] content. */
+	@BeforeEach
+	fun createFile()
+	{
+		directory = Files.createTempDirectory("FileHandleTest")
+		file = directory.resolve("mapped.bin")
+		Files.write(file, original)
+	}
+
+	/** Delete the test's files. */
+	@AfterEach
+	fun deleteFiles()
+	{
+		directory.toFile().deleteRecursively()
+	}
+
+	/**
+	 * Open a read-only [FileHandle] on the [file], the way `P_FileOpen` does.
+	 *
+	 * @param mappable
+	 *   Whether the handle may be mapped.
+	 * @return
+	 *   The new handle.
+	 */
+	private fun openHandle(mappable: Boolean = true): FileHandle =
+		FileHandle(
+			stringFrom(file.toString()),
+			4096,
+			canRead = true,
+			canWrite = false,
+			AsynchronousFileChannel.open(file, READ),
+			if (mappable) file else null)
+
+	/**
+	 * Extract the remaining bytes of the buffer.
+	 *
+	 * @param buffer
+	 *   The buffer to read.
+	 * @return
+	 *   The bytes from the buffer's position to its limit.
+	 */
+	private fun bytesOf(buffer: ByteBuffer): ByteArray =
+		ByteArray(buffer.remaining()).also { buffer.duplicate().get(it) }
+
+	/** Map a region in the middle of the file. */
+	@Test
+	fun testMapRegion()
+	{
+		val handle = openHandle()
+		try
+		{
+			val buffer = handle.mapForReading(100, 1000)
+			assertEquals(0, buffer.position())
+			assertEquals(
+				original.copyOfRange(100, 1100).toList(),
+				bytesOf(buffer).toList())
+			val tuple = tupleForByteBuffer(buffer)
+			assertEquals(1000, tuple.tupleSize)
+			assertEquals(
+				tupleForByteArray(original.copyOfRange(100, 1100)), tuple)
+		}
+		finally
+		{
+			handle.close()
+		}
+	}
+
+	/**
+	 * A region that extends past the end of the file is truncated, and one
+	 * that starts at or after the end is empty.
+	 */
+	@Test
+	fun testMapPastEnd()
+	{
+		val handle = openHandle()
+		try
+		{
+			val tail = handle.mapForReading(9_900, 1000)
+			assertEquals(
+				original.copyOfRange(9_900, 10_000).toList(),
+				bytesOf(tail).toList())
+			assertEquals(0, handle.mapForReading(10_000, 1000).limit())
+			assertEquals(0, handle.mapForReading(20_000, 1000).limit())
+		}
+		finally
+		{
+			handle.close()
+		}
+	}
+
+	/**
+	 * Replace the [file] by renaming another file over its path.
+	 */
+	private fun replaceFile()
+	{
+		val replacement = directory.resolve("replacement.bin")
+		Files.write(replacement, ByteArray(50) { -1 })
+		Files.move(replacement, file, ATOMIC_MOVE, REPLACE_EXISTING)
+	}
+
+	/**
+	 * Replacing the file by renaming another over its path after the handle
+	 * has mapped it must not affect what the handle maps.
+	 */
+	@Test
+	fun testMapAfterReplace()
+	{
+		val handle = openHandle()
+		try
+		{
+			handle.mapForReading(0, 1)
+			replaceFile()
+			val buffer = handle.mapForReading(0, 20_000)
+			assertEquals(original.toList(), bytesOf(buffer).toList())
+		}
+		finally
+		{
+			handle.close()
+		}
+	}
+
+	/**
+	 * Replacing the file by renaming another over its path before the handle
+	 * has mapped it must not cause the replacement to be mapped instead.
+	 */
+	@Test
+	fun testMapReplacedBeforeFirstMap()
+	{
+		val handle = openHandle()
+		try
+		{
+			replaceFile()
+			assertThrows(IOException::class.java) {
+				handle.mapForReading(0, 20_000)
+			}
+		}
+		finally
+		{
+			handle.close()
+		}
+	}
+
+	/**
+	 * The synchronous channel is only opened when the file is first mapped,
+	 * and it's closed along with the handle.
+	 */
+	@Test
+	fun testMappableChannelIsOpenedLazily()
+	{
+		val handle = openHandle()
+		assertFalse(handle.hasOpenMappableChannel)
+		handle.mapForReading(0, 100)
+		assertTrue(handle.hasOpenMappableChannel)
+		handle.close()
+		assertFalse(handle.hasOpenMappableChannel)
+		assertThrows(IOException::class.java) {
+			handle.mapForReading(0, 100)
+		}
+	}
+
+	/** A mapping remains readable after its handle has been closed. */
+	@Test
+	fun testMapOutlivesClose()
+	{
+		val handle = openHandle()
+		val buffer = handle.mapForReading(0, 20_000)
+		handle.close()
+		assertTrue(!handle.channel.isOpen)
+		assertFalse(handle.hasOpenMappableChannel)
+		assertEquals(original.toList(), bytesOf(buffer).toList())
+	}
+
+	/** A handle without a mappable channel can't be mapped. */
+	@Test
+	fun testUnmappable()
+	{
+		val handle = openHandle(mappable = false)
+		try
+		{
+			assertThrows(UnsupportedOperationException::class.java) {
+				handle.mapForReading(0, 100)
+			}
+		}
+		finally
+		{
+			handle.close()
+		}
+	}
+}
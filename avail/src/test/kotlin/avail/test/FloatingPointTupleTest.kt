@@ -0,0 +1,325 @@
+/*
+ * FloatingPointTupleTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import avail.descriptor.numbers.DoubleDescriptor.Companion.fromDouble
+import avail.descriptor.numbers.FloatDescriptor.Companion.fromFloat
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.tuples.A_Tuple
+import avail.descriptor.tuples.A_Tuple.Companion.appendCanDestroy
+import avail.descriptor.tuples.A_Tuple.Companion.concatenateWith
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleFloatAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.tuples.DoubleTupleDescriptor
+import avail.descriptor.tuples.DoubleTupleDescriptor.Companion.generateDoubleTupleFrom
+import avail.descriptor.tuples.FloatTupleDescriptor
+import avail.descriptor.tuples.FloatTupleDescriptor.Companion.generateFloatTupleFrom
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
+import avail.descriptor.tuples.TreeTupleDescriptor
+import avail.descriptor.tuples.TupleDescriptor.Companion.staticTupleDoubleAt
+import avail.descriptor.tuples.TupleDescriptor.Companion.toList
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests of the packed representations of tuples of floating point numbers,
+ * [FloatTupleDescriptor] and [DoubleTupleDescriptor], including their
+ * agreement with equivalent tuples of separately boxed elements.
+ */
+class FloatingPointTupleTest
+{
+	/**
+	 * Awkward float values, including a NaN and both zeros.  There's an odd
+	 * number of them, so the last packed slot is only half used.
+	 */
+	private val awkwardFloats = listOf(
+		1.5f,
+		-0.0f,
+		0.0f,
+		Float.NaN,
+		Float.NEGATIVE_INFINITY,
+		Float.MAX_VALUE,
+		Float.MIN_VALUE)
+
+	/** Awkward double values, including a NaN and both zeros. */
+	private val awkwardDoubles = listOf(
+		1.5,
+		-0.0,
+		0.0,
+		Double.NaN,
+		Double.NEGATIVE_INFINITY,
+		Double.MAX_VALUE,
+		Double.MIN_VALUE)
+
+	/**
+	 * Create a tuple with a [FloatTupleDescriptor] from the given values.
+	 *
+	 * @param values
+	 *   The [Float]s to pack.
+	 * @return
+	 *   The new mutable tuple.
+	 */
+	private fun packedFloats(values: List<Float>): A_Tuple =
+		generateFloatTupleFrom(values.size) { values[it - 1] }
+
+	/**
+	 * Create a tuple with a [DoubleTupleDescriptor] from the given values.
+	 *
+	 * @param values
+	 *   The [Double]s to pack.
+	 * @return
+	 *   The new mutable tuple.
+	 */
+	private fun packedDoubles(values: List<Double>): A_Tuple =
+		generateDoubleTupleFrom(values.size) { values[it - 1] }
+
+	/**
+	 * Create a tuple of separately boxed floats.
+	 *
+	 * @param values
+	 *   The [Float]s to box.
+	 * @return
+	 *   The new tuple.
+	 */
+	private fun boxedFloats(values: List<Float>): A_Tuple =
+		tupleFromList(values.map { fromFloat(it) })
+
+	/**
+	 * Create a tuple of separately boxed doubles.
+	 *
+	 * @param values
+	 *   The [Double]s to box.
+	 * @return
+	 *   The new tuple.
+	 */
+	private fun boxedDoubles(values: List<Double>): A_Tuple =
+		tupleFromList(values.map { fromDouble(it) })
+
+	/**
+	 * Test: A [FloatTupleDescriptor] tuple has the same hash as, and is equal
+	 * (in both directions) to, a tuple of the same boxed floats, which are
+	 * compared by their bits.
+	 */
+	@Test
+	fun testFloatTupleEqualsBoxedFloats()
+	{
+		Assertions.assertEquals(
+			boxedFloats(awkwardFloats).hash(),
+			packedFloats(awkwardFloats).hash())
+		Assertions.assertEquals(
+			packedFloats(awkwardFloats), boxedFloats(awkwardFloats))
+		Assertions.assertEquals(
+			boxedFloats(awkwardFloats), packedFloats(awkwardFloats))
+		Assertions.assertEquals(
+			packedFloats(awkwardFloats), packedFloats(awkwardFloats))
+		Assertions.assertEquals(
+			packedFloats(listOf(Float.NaN)), boxedFloats(listOf(Float.NaN)))
+		Assertions.assertNotEquals(
+			packedFloats(listOf(-0.0f)), boxedFloats(listOf(0.0f)))
+		Assertions.assertNotEquals(
+			boxedFloats(listOf(0.0f)), packedFloats(listOf(-0.0f)))
+		Assertions.assertNotEquals(
+			packedFloats(listOf(-0.0f)), packedFloats(listOf(0.0f)))
+	}
+
+	/**
+	 * Test: A [DoubleTupleDescriptor] tuple has the same hash as, and is equal
+	 * (in both directions) to, a tuple of the same boxed doubles, which are
+	 * compared by their bits.
+	 */
+	@Test
+	fun testDoubleTupleEqualsBoxedDoubles()
+	{
+		Assertions.assertEquals(
+			boxedDoubles(awkwardDoubles).hash(),
+			packedDoubles(awkwardDoubles).hash())
+		Assertions.assertEquals(
+			packedDoubles(awkwardDoubles), boxedDoubles(awkwardDoubles))
+		Assertions.assertEquals(
+			boxedDoubles(awkwardDoubles), packedDoubles(awkwardDoubles))
+		Assertions.assertEquals(
+			packedDoubles(awkwardDoubles), packedDoubles(awkwardDoubles))
+		Assertions.assertEquals(
+			packedDoubles(listOf(Double.NaN)),
+			boxedDoubles(listOf(Double.NaN)))
+		Assertions.assertNotEquals(
+			packedDoubles(listOf(-0.0)), boxedDoubles(listOf(0.0)))
+		Assertions.assertNotEquals(
+			boxedDoubles(listOf(0.0)), packedDoubles(listOf(-0.0)))
+		Assertions.assertNotEquals(
+			packedDoubles(listOf(-0.0)), packedDoubles(listOf(0.0)))
+	}
+
+	/**
+	 * Test: Floats are packed two per slot, and tuples of odd length ignore
+	 * the unused half of their last slot.
+	 */
+	@Test
+	fun testFloatTuplePacking()
+	{
+		for (size in 0 .. 7)
+		{
+			val values = List(size) { it + 0.25f }
+			val tuple = packedFloats(values)
+			assert(tuple.descriptor() is FloatTupleDescriptor)
+			Assertions.assertEquals(size, tuple.tupleSize)
+			Assertions.assertEquals(
+				(size + 1) / 2, tuple.variableIntegerSlotsCount())
+			for (i in 1 .. size)
+			{
+				Assertions.assertEquals(values[i - 1], tuple.tupleFloatAt(i))
+				Assertions.assertEquals(
+					fromFloat(values[i - 1]), tuple.tupleAt(i))
+			}
+			Assertions.assertEquals(boxedFloats(values), tuple)
+		}
+	}
+
+	/**
+	 * Test: Appending a float to a mutable float tuple of odd length fills the
+	 * unused half of its last slot in place, while other appends produce a
+	 * new tuple, leaving the original alone.
+	 */
+	@Test
+	fun testFloatTupleAppend()
+	{
+		val odd = packedFloats(listOf(1f, 2f, 3f))
+		val inPlace = odd.appendCanDestroy(fromFloat(4f), true)
+		Assertions.assertTrue(inPlace.sameAddressAs(odd))
+		assert(inPlace.descriptor() is FloatTupleDescriptor)
+		Assertions.assertEquals(boxedFloats(listOf(1f, 2f, 3f, 4f)), inPlace)
+
+		val even = packedFloats(listOf(1f, 2f))
+		val grown = even.appendCanDestroy(fromFloat(3f), true)
+		Assertions.assertFalse(grown.sameAddressAs(even))
+		assert(grown.descriptor() is FloatTupleDescriptor)
+		Assertions.assertEquals(boxedFloats(listOf(1f, 2f, 3f)), grown)
+
+		val shared = packedFloats(listOf(1f)).makeImmutable()
+		val copied = shared.appendCanDestroy(fromFloat(2f), true)
+		Assertions.assertFalse(copied.sameAddressAs(shared))
+		Assertions.assertEquals(1, shared.tupleSize)
+		Assertions.assertEquals(boxedFloats(listOf(1f, 2f)), copied)
+
+		val mixed = packedFloats(listOf(1f)).appendCanDestroy(fromInt(2), true)
+		assert(mixed.descriptor() !is FloatTupleDescriptor)
+		Assertions.assertEquals(
+			listOf(fromFloat(1f), fromInt(2)),
+			toList<A_BasicObject>(mixed))
+	}
+
+	/**
+	 * Test: Concatenating float tuples copies the elements into a single float
+	 * tuple up to the copy threshold, reusing the receiver if it's mutable and
+	 * has room, and builds a tree tuple beyond that threshold.
+	 */
+	@Test
+	fun testFloatTupleConcatenation()
+	{
+		val left = List(15) { it.toFloat() }
+		val receiver = packedFloats(left)
+		val reused = receiver.concatenateWith(packedFloats(listOf(15f)), true)
+		Assertions.assertTrue(reused.sameAddressAs(receiver))
+		Assertions.assertEquals(boxedFloats(left + 15f), reused)
+
+		val first = List(16) { it.toFloat() }
+		val second = List(16) { -it.toFloat() }
+		val atThreshold =
+			packedFloats(first).concatenateWith(boxedFloats(second), false)
+		assert(atThreshold.descriptor() is FloatTupleDescriptor)
+		Assertions.assertEquals(32, atThreshold.tupleSize)
+		Assertions.assertEquals(
+			toList<A_BasicObject>(boxedFloats(first + second)),
+			toList<A_BasicObject>(atThreshold))
+
+		val third = List(17) { it + 0.5f }
+		val beyondThreshold =
+			packedFloats(first).concatenateWith(packedFloats(third), false)
+		assert(beyondThreshold.descriptor() is TreeTupleDescriptor)
+		Assertions.assertEquals(33, beyondThreshold.tupleSize)
+		Assertions.assertEquals(
+			toList<A_BasicObject>(boxedFloats(first + third)),
+			toList<A_BasicObject>(beyondThreshold))
+	}
+
+	/**
+	 * Test: Concatenating double tuples copies the elements into a single
+	 * double tuple up to the copy threshold, and builds a tree tuple beyond
+	 * that threshold.
+	 */
+	@Test
+	fun testDoubleTupleConcatenation()
+	{
+		val first = List(16) { it.toDouble() }
+		val second = List(16) { -it.toDouble() }
+		val atThreshold =
+			packedDoubles(first).concatenateWith(boxedDoubles(second), false)
+		assert(atThreshold.descriptor() is DoubleTupleDescriptor)
+		Assertions.assertEquals(32, atThreshold.tupleSize)
+		Assertions.assertEquals(
+			toList<A_BasicObject>(boxedDoubles(first + second)),
+			toList<A_BasicObject>(atThreshold))
+
+		val third = List(17) { it + 0.5 }
+		val beyondThreshold =
+			packedDoubles(first).concatenateWith(packedDoubles(third), false)
+		assert(beyondThreshold.descriptor() is TreeTupleDescriptor)
+		Assertions.assertEquals(33, beyondThreshold.tupleSize)
+		Assertions.assertEquals(
+			toList<A_BasicObject>(boxedDoubles(first + third)),
+			toList<A_BasicObject>(beyondThreshold))
+	}
+
+	/**
+	 * Test: The unboxed element access used by the generated code for an
+	 * `L2_TUPLE_DOUBLE_AT_NO_FAIL` answers the same bits for packed and boxed
+	 * tuples of doubles.
+	 */
+	@Test
+	fun testUnboxedDoubleAccess()
+	{
+		val packed = packedDoubles(awkwardDoubles)
+		val boxed = boxedDoubles(awkwardDoubles)
+		for (i in 1 .. awkwardDoubles.size)
+		{
+			val expected = awkwardDoubles[i - 1].toRawBits()
+			Assertions.assertEquals(
+				expected, staticTupleDoubleAt(packed, i).toRawBits())
+			Assertions.assertEquals(
+				expected, staticTupleDoubleAt(boxed, i).toRawBits())
+			Assertions.assertEquals(
+				expected, packed.tupleDoubleAt(i).toRawBits())
+		}
+	}
+}
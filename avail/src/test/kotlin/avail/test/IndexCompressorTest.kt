@@ -70,4 +70,39 @@ class IndexCompressorTest
 			Assertions.assertEquals(index, decompressed)
 		}
 	}
+
+	/**
+	 * Test: Check that restoring a [copy][FourStreamIndexCompressor.copy] of a
+	 * decompressor undoes everything it decompressed since the copy was made,
+	 * as happens when a deserializer rolls back.
+	 */
+	@Test
+	fun restoreCopiedState()
+	{
+		val random = Random(90210)
+		val compressor = FourStreamIndexCompressor()
+		val decompressor = FourStreamIndexCompressor()
+		val compressed = mutableListOf<Int>()
+		val expected = mutableListOf<Int>()
+		repeat(1_000) {
+			compressor.incrementIndex()
+			val index = compressor.currentIndex() - random.nextInt(300)
+			compressed.add(compressor.compress(index))
+			expected.add(index)
+		}
+		val checkpoint = 400
+		var saved = decompressor.copy()
+		compressed.forEachIndexed { i, code ->
+			if (i == checkpoint) saved = decompressor.copy()
+			decompressor.incrementIndex()
+			Assertions.assertEquals(expected[i], decompressor.decompress(code))
+		}
+		decompressor.copyFrom(saved)
+		for (i in checkpoint until compressed.size)
+		{
+			decompressor.incrementIndex()
+			Assertions.assertEquals(
+				expected[i], decompressor.decompress(compressed[i]))
+		}
+	}
 }
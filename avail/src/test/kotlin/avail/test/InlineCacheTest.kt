@@ -0,0 +1,318 @@
+/*
+ * InlineCacheTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.descriptor.atoms.A_Atom.Companion.bundleOrCreate
+import avail.descriptor.atoms.AtomDescriptor.Companion.createAtom
+import avail.descriptor.bundles.A_Bundle
+import avail.descriptor.bundles.A_Bundle.Companion.bundleMethod
+import avail.descriptor.character.CharacterDescriptor.Companion.fromCodePoint
+import avail.descriptor.fiber.FiberDescriptor
+import avail.descriptor.functions.A_RawFunction.Companion.startingChunk
+import avail.descriptor.functions.FunctionDescriptor.Companion.createFunction
+import avail.descriptor.methods.A_Definition
+import avail.descriptor.methods.A_Method.Companion.methodAddDefinition
+import avail.descriptor.methods.MethodDefinitionDescriptor.Companion.newMethodDefinition
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.A_Module.Companion.addPrivateName
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.numbers.DoubleDescriptor.Companion.fromDouble
+import avail.descriptor.numbers.FloatDescriptor.Companion.fromFloat
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.integers
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.naturalNumbers
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ATOM
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.CHARACTER
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.NUMBER
+import avail.dispatch.InlineCache
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.interpreter.levelTwoSimple.L2SimpleTranslator
+import avail.interpreter.levelTwoSimple.L2Simple_GeneralCall
+import avail.optimizer.OptimizationLevel.FIRST_JVM_TRANSLATION
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * A test of the [InlineCache] used at polymorphic call sites.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class InlineCacheTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** The module in which the test's methods are defined. */
+	private lateinit var module: A_Module
+
+	/**
+	 * The bundle of a method with disjoint definitions for numbers,
+	 * characters and atoms, so that every lookup can be cached.
+	 */
+	private lateinit var describeBundle: A_Bundle
+
+	/** The definition of [describeBundle]'s method for numbers. */
+	private lateinit var describeNumber: A_Definition
+
+	/** The definition of [describeBundle]'s method for characters. */
+	private lateinit var describeCharacter: A_Definition
+
+	/** The definition of [describeBundle]'s method for atoms. */
+	private lateinit var describeAtom: A_Definition
+
+	/**
+	 * Create a new one-argument method in the [module].
+	 *
+	 * @param name
+	 *   The method's name.
+	 * @return
+	 *   The method's bundle.
+	 */
+	private fun newBundle(name: String): A_Bundle
+	{
+		val atom = createAtom(stringFrom(name), module)
+		module.addPrivateName(atom)
+		return atom.bundleOrCreate()
+	}
+
+	/**
+	 * Add a definition to the given bundle's method, whose body answers its
+	 * argument.
+	 *
+	 * @param bundle
+	 *   The bundle whose method should be extended.
+	 * @param argumentType
+	 *   The type of the definition's argument.
+	 * @return
+	 *   The new definition.
+	 */
+	private fun define(bundle: A_Bundle, argumentType: A_Type): A_Definition
+	{
+		val body = L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(argumentType)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			compiledCode()
+		}
+		val method = bundle.bundleMethod
+		val definition = newMethodDefinition(
+			method, module, createFunction(body, emptyTuple))
+		method.methodAddDefinition(definition)
+		return definition
+	}
+
+	/** Define the method of the [describeBundle]. */
+	@BeforeAll
+	fun defineMethods()
+	{
+		module = newModule(helper.runtime, stringFrom("Inline Cache Test"))
+		helper.runtime.addModule(module)
+		describeBundle = newBundle("describe_")
+		describeNumber = define(describeBundle, NUMBER.o)
+		describeCharacter = define(describeBundle, CHARACTER.o)
+		describeAtom = define(describeBundle, ATOM.o)
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Look up the definition for a single argument.
+	 *
+	 * @param cache
+	 *   The [InlineCache] to use.
+	 * @param argument
+	 *   The argument.
+	 * @return
+	 *   The selected definition.
+	 */
+	private fun lookup(
+		cache: InlineCache,
+		argument: A_BasicObject
+	): A_Definition = cache.lookup(listOf(argument))
+
+	/**
+	 * Test: Arguments of a single shape are looked up once, and then answered
+	 * from a single entry.
+	 */
+	@Test
+	fun testMonomorphicHits()
+	{
+		val cache = InlineCache(describeBundle)
+		assertEquals(0, cache.size)
+		for (i in 1..100)
+		{
+			assertSame(describeNumber, lookup(cache, fromInt(i)))
+			assertEquals(1, cache.size)
+		}
+		assertFalse(cache.isMegamorphic)
+	}
+
+	/**
+	 * Test: Each new argument shape adds an entry, and each entry keeps
+	 * answering its own definition as the site becomes polymorphic.
+	 */
+	@Test
+	fun testPolymorphicTransitions()
+	{
+		val cache = InlineCache(describeBundle)
+		val arguments = listOf(
+			fromInt(5) to describeNumber,
+			fromCodePoint('x'.code) to describeCharacter,
+			createAtom(stringFrom("an atom"), module) to describeAtom,
+			fromInt(-5) to describeNumber)
+		arguments.forEachIndexed { index, (argument, definition) ->
+			assertSame(definition, lookup(cache, argument))
+			assertEquals(index + 1, cache.size)
+		}
+		repeat(3) {
+			arguments.forEach { (argument, definition) ->
+				assertSame(definition, lookup(cache, argument))
+			}
+		}
+		assertEquals(arguments.size, cache.size)
+		assertFalse(cache.isMegamorphic)
+	}
+
+	/**
+	 * Test: A site that sees more shapes than it can cache becomes
+	 * megamorphic, stops growing, and still answers every lookup correctly.
+	 */
+	@Test
+	fun testMegamorphicFallback()
+	{
+		val cache = InlineCache(describeBundle)
+		// Natural, whole, and negative integers, floats and doubles all have
+		// different tags, but select the same definition.
+		val numbers = listOf(
+			fromInt(5),
+			fromInt(-5),
+			fromFloat(1.5f),
+			fromDouble(2.5),
+			fromInt(0))
+		numbers.forEach { assertSame(describeNumber, lookup(cache, it)) }
+		assertTrue(cache.isMegamorphic)
+		val size = cache.size
+		assertSame(describeCharacter, lookup(cache, fromCodePoint('y'.code)))
+		assertSame(
+			describeAtom, lookup(cache, createAtom(stringFrom("atom"), module)))
+		numbers.forEach { assertSame(describeNumber, lookup(cache, it)) }
+		assertEquals(size, cache.size)
+	}
+
+	/**
+	 * Test: A site whose lookups can't be cached, because more than one
+	 * definition applies to the arguments' shape, eventually stops trying,
+	 * but still answers the most specific definition.
+	 */
+	@Test
+	fun testUncacheableFallback()
+	{
+		val bundle = newBundle("overlap_")
+		val general = define(bundle, ANY.o)
+		val specific = define(bundle, integers)
+		val cache = InlineCache(bundle)
+		repeat(20) {
+			assertSame(specific, lookup(cache, fromInt(it + 1)))
+		}
+		assertTrue(cache.isMegamorphic)
+		assertEquals(0, cache.size)
+		// Only the general definition applies to characters, but the site has
+		// already given up on caching.
+		assertSame(general, lookup(cache, fromCodePoint('z'.code)))
+		assertEquals(0, cache.size)
+	}
+
+	/**
+	 * Test: Adding a definition invalidates the chunk that holds a call site's
+	 * cache, so entries that the new definition would make wrong are never
+	 * used again.
+	 */
+	@Test
+	fun testInvalidationWhenDefinitionAdded()
+	{
+		val bundle = newBundle("classify_")
+		define(bundle, NUMBER.o)
+		define(bundle, CHARACTER.o)
+		val caller = L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(ANY.o)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			write(
+				0,
+				L1Operation.L1_doCall,
+				addLiteral(bundle),
+				addLiteral(ANY.o))
+			compiledCode()
+		}
+		val chunk = L2SimpleTranslator.translateToLevelTwoSimple(
+			caller, FIRST_JVM_TRANSLATION, Interpreter(helper.runtime))
+		assertTrue(chunk.instructions.any { it is L2Simple_GeneralCall })
+		assertSame(chunk, caller.startingChunk)
+		assertTrue(chunk.isValid)
+		// Definitions may only change during a safe point.
+		val added = CountDownLatch(1)
+		lateinit var natural: A_Definition
+		helper.runtime.whenSafePointDo(FiberDescriptor.commandPriority) {
+			natural = define(bundle, naturalNumbers)
+			added.countDown()
+		}
+		assertTrue(added.await(30, TimeUnit.SECONDS))
+		assertFalse(chunk.isValid)
+		assertNotSame(chunk, caller.startingChunk)
+		assertSame(natural, lookup(InlineCache(bundle), fromInt(5)))
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * L1TranslatorTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.AvailRuntimeConfiguration
+import avail.descriptor.atoms.A_Atom.Companion.bundleOrCreate
+import avail.descriptor.atoms.AtomDescriptor.Companion.createAtom
+import avail.descriptor.bundles.A_Bundle
+import avail.descriptor.bundles.A_Bundle.Companion.bundleMethod
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.startingChunk
+import avail.descriptor.functions.FunctionDescriptor.Companion.createFunction
+import avail.descriptor.methods.A_Method.Companion.methodAddDefinition
+import avail.descriptor.methods.MethodDefinitionDescriptor.Companion.newMethodDefinition
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.A_Module.Companion.addPrivateName
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.descriptor.types.TupleTypeDescriptor.Companion.mostGeneralTupleType
+import avail.interpreter.execution.Interpreter
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.interpreter.levelTwo.L2JVMChunk
+import avail.interpreter.levelTwo.L2Operation
+import avail.interpreter.levelTwo.operation.L2_CREATE_TUPLE
+import avail.interpreter.levelTwo.operation.L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO
+import avail.interpreter.levelTwo.operation.L2_INVOKE
+import avail.interpreter.levelTwo.operation.L2_INVOKE_CONSTANT_FUNCTION
+import avail.optimizer.L1Translator
+import avail.optimizer.OptimizationLevel
+import avail.optimizer.OptimizationLevel.CHASED_BLOCKS
+import avail.optimizer.OptimizationLevel.SECOND_JVM_TRANSLATION
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+
+/**
+ * A test of the chunks produced by [L1Translator], in particular the inlining
+ * of small callee bodies at the [CHASED_BLOCKS] level, and how that level is
+ * reached.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class L1TranslatorTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** The [Interpreter] that performs the translations. */
+	private val interpreter by lazy { Interpreter(helper.runtime) }
+
+	/** The module in which the test's code is defined. */
+	private lateinit var module: A_Module
+
+	/**
+	 * The bundle of a monomorphic method whose sole definition answers a
+	 * singleton tuple of its argument.
+	 */
+	private lateinit var wrapBundle: A_Bundle
+
+	/** Define the method of the [wrapBundle]. */
+	@BeforeAll
+	fun defineMethod()
+	{
+		module = newModule(helper.runtime, stringFrom("L1 Translator Test"))
+		helper.runtime.addModule(module)
+		val atom = createAtom(stringFrom("wrap_"), module)
+		module.addPrivateName(atom)
+		wrapBundle = atom.bundleOrCreate()
+		val body = L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(ANY.o)
+			returnType = mostGeneralTupleType
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			write(0, L1Operation.L1_doMakeTuple, 1)
+			compiledCode()
+		}
+		val method = wrapBundle.bundleMethod
+		method.methodAddDefinition(
+			newMethodDefinition(
+				method, module, createFunction(body, emptyTuple)))
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Create a new raw function that passes its argument to the [wrapBundle]'s
+	 * method and answers the result.
+	 *
+	 * @return
+	 *   The new raw function.
+	 */
+	private fun newCaller(): A_RawFunction =
+		L1InstructionWriter(module, 0, nil).run {
+			argumentTypes(ANY.o)
+			returnType = mostGeneralTupleType
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			write(
+				0,
+				L1Operation.L1_doCall,
+				addLiteral(wrapBundle),
+				addLiteral(mostGeneralTupleType))
+			compiledCode()
+		}
+
+	/**
+	 * Translate the given code at the given level, and answer the operations
+	 * of the resulting chunk's instructions.
+	 *
+	 * @param code
+	 *   The [A_RawFunction] to translate.
+	 * @param level
+	 *   The [OptimizationLevel] at which to translate it.
+	 * @return
+	 *   The [L2Operation]s of the new chunk.
+	 */
+	private fun translate(
+		code: A_RawFunction,
+		level: OptimizationLevel
+	): List<L2Operation>
+	{
+		L1Translator.translateToLevelTwo(code, level, interpreter)
+		val chunk = code.startingChunk as L2JVMChunk
+		return chunk.instructions.map { it.operation }
+	}
+
+	/**
+	 * Test: Below [CHASED_BLOCKS], the call to the monomorphic method still
+	 * invokes its definition's body.
+	 */
+	@Test
+	fun testCallIsNotInlinedBelowChasedBlocks()
+	{
+		val operations = translate(newCaller(), SECOND_JVM_TRANSLATION)
+		assertTrue(operations.contains(L2_INVOKE_CONSTANT_FUNCTION))
+		assertFalse(operations.contains(L2_CREATE_TUPLE))
+	}
+
+	/**
+	 * Test: At [CHASED_BLOCKS], the body of the monomorphic method's definition
+	 * is spliced into the caller, so the caller builds the tuple itself and
+	 * invokes nothing.
+	 */
+	@Test
+	fun testSmallBodyIsInlinedAtChasedBlocks()
+	{
+		val operations = translate(newCaller(), CHASED_BLOCKS)
+		assertFalse(operations.contains(L2_INVOKE_CONSTANT_FUNCTION))
+		assertFalse(operations.contains(L2_INVOKE))
+		assertTrue(operations.contains(L2_CREATE_TUPLE))
+	}
+
+	/**
+	 * Test: [SECOND_JVM_TRANSLATION] only counts down to [CHASED_BLOCKS] when
+	 * [AvailRuntimeConfiguration.chaseBlocks] is set.
+	 */
+	@Test
+	fun testChasedBlocksIsOptIn()
+	{
+		val saved = AvailRuntimeConfiguration.chaseBlocks
+		try
+		{
+			AvailRuntimeConfiguration.chaseBlocks = false
+			assertEquals(Long.MAX_VALUE, SECOND_JVM_TRANSLATION.countdown)
+			assertFalse(
+				translate(newCaller(), SECOND_JVM_TRANSLATION).contains(
+					L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO))
+
+			AvailRuntimeConfiguration.chaseBlocks = true
+			assertTrue(SECOND_JVM_TRANSLATION.countdown < Long.MAX_VALUE)
+			assertTrue(
+				translate(newCaller(), SECOND_JVM_TRANSLATION).contains(
+					L2_DECREMENT_COUNTER_AND_REOPTIMIZE_ON_ZERO))
+		}
+		finally
+		{
+			AvailRuntimeConfiguration.chaseBlocks = saved
+		}
+	}
+}
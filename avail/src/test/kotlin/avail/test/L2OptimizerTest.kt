@@ -0,0 +1,662 @@
+/*
+ * L2OptimizerTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.test
+
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.inclusive
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.int32
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.DOUBLE
+import avail.descriptor.types.TupleTypeDescriptor.Companion.tupleTypeForTypes
+import avail.descriptor.types.TupleTypeDescriptor.Companion.zeroOrMoreOf
+import avail.interpreter.levelTwo.L2Instruction
+import avail.interpreter.levelTwo.L2Operation
+import avail.interpreter.levelTwo.operand.L2ConstantOperand
+import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2ReadBoxedOperand
+import avail.interpreter.levelTwo.operand.L2ReadBoxedVectorOperand
+import avail.interpreter.levelTwo.operand.L2ReadIntOperand
+import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_FLOAT_FLAG
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.UNBOXED_INT_FLAG
+import avail.interpreter.levelTwo.operation.L2_BOX_FLOAT
+import avail.interpreter.levelTwo.operation.L2_CREATE_TUPLE
+import avail.interpreter.levelTwo.operation.L2_GET_ARGUMENT
+import avail.interpreter.levelTwo.operation.L2_JUMP
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_COMPARE_INT
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_EQUALS_CONSTANT
+import avail.interpreter.levelTwo.operation.L2_RETURN
+import avail.interpreter.levelTwo.operation.L2_TUPLE_AT_CONSTANT
+import avail.interpreter.levelTwo.operation.L2_TUPLE_AT_NO_FAIL
+import avail.interpreter.levelTwo.operation.L2_TUPLE_DOUBLE_AT_NO_FAIL
+import avail.interpreter.levelTwo.operation.L2_TUPLE_SIZE
+import avail.interpreter.levelTwo.operation.L2_UNBOX_FLOAT
+import avail.interpreter.primitive.tuples.P_TupleAt
+import avail.optimizer.L2BasicBlock
+import avail.optimizer.L2Generator
+import avail.optimizer.L2Generator.Companion.backEdgeTo
+import avail.optimizer.L2Generator.Companion.edgeTo
+import avail.optimizer.L2Optimizer
+import avail.optimizer.LoopAnalyzer
+import avail.optimizer.OptimizationLevel
+import avail.optimizer.OptimizationPhase
+import avail.optimizer.OptimizationPhase.ELIMINATE_REDUNDANT_COMPARISONS
+import avail.optimizer.OptimizationPhase.HOIST_LOOP_INVARIANTS
+import avail.optimizer.OptimizationPhase.REMOVE_DEAD_CODE_AFTER_POSTPONEMENTS
+import avail.optimizer.values.Frame
+import avail.optimizer.values.L2SemanticUnboxedFloat
+import avail.optimizer.values.L2SemanticUnboxedInt
+import avail.optimizer.values.L2SemanticValue.Companion.primitiveInvocation
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests of the code produced by the [L2Generator], and the [L2Optimizer]'s
+ * transformations of it, for small, hand-built control flow graphs.
+ */
+class L2OptimizerTest
+{
+	/** The [L2Generator] in which to build the graph. */
+	private val generator = L2Generator(
+		OptimizationLevel.FIRST_JVM_TRANSLATION,
+		Frame(null, nil, "top frame"),
+		"L2OptimizerTest")
+
+	/** Start the graph with an irremovable block. */
+	private fun startGraph()
+	{
+		val startBlock = generator.createBasicBlock("START")
+		startBlock.makeIrremovable()
+		generator.startBlock(startBlock)
+	}
+
+	/**
+	 * Generate a read of the argument with the given zero-based index.
+	 *
+	 * @param zeroIndex
+	 *   Which argument to read.
+	 * @param type
+	 *   The type that the argument is known to have.
+	 * @return
+	 *   The [L2WriteBoxedOperand] holding the argument.
+	 */
+	private fun argument(
+		zeroIndex: Int,
+		type: A_Type = ANY.o
+	): L2WriteBoxedOperand
+	{
+		val write = generator.boxedWriteTemp(
+			restrictionForType(type, BOXED_FLAG))
+		generator.addInstruction(
+			L2_GET_ARGUMENT, L2IntImmediateOperand(zeroIndex), write)
+		return write
+	}
+
+	/**
+	 * Generate the construction of a tuple of the given values.
+	 *
+	 * @param elements
+	 *   The [L2WriteBoxedOperand]s whose values are the tuple's elements.
+	 * @return
+	 *   The [L2WriteBoxedOperand] holding the tuple.
+	 */
+	private fun createTuple(
+		vararg elements: L2WriteBoxedOperand
+	): L2WriteBoxedOperand
+	{
+		val write = generator.boxedWriteTemp(
+			restrictionForType(
+				tupleTypeForTypes(*Array(elements.size) { ANY.o }),
+				BOXED_FLAG))
+		generator.addInstruction(
+			L2_CREATE_TUPLE,
+			L2ReadBoxedVectorOperand(elements.map { generator.readBoxed(it) }),
+			write)
+		return write
+	}
+
+	/**
+	 * Generate the extraction of an element of a tuple.
+	 *
+	 * @param tuple
+	 *   The [L2WriteBoxedOperand] holding the tuple.
+	 * @param subscript
+	 *   The one-based subscript of the element.
+	 * @return
+	 *   The [L2WriteBoxedOperand] holding the element.
+	 */
+	private fun tupleAt(
+		tuple: L2WriteBoxedOperand,
+		subscript: Int
+	): L2WriteBoxedOperand
+	{
+		val write = generator.boxedWriteTemp(
+			restrictionForType(ANY.o, BOXED_FLAG))
+		generator.addInstruction(
+			L2_TUPLE_AT_CONSTANT,
+			generator.readBoxed(tuple),
+			L2IntImmediateOperand(subscript),
+			write)
+		return write
+	}
+
+	/**
+	 * Answer an unboxed read of the given value, which must be known to be an
+	 * [int32].
+	 *
+	 * @param value
+	 *   The [L2WriteBoxedOperand] holding the value.
+	 * @return
+	 *   The [L2ReadIntOperand].
+	 */
+	private fun intOf(value: L2WriteBoxedOperand): L2ReadIntOperand =
+		generator.readInt(
+			L2SemanticUnboxedInt(value.pickSemanticValue()),
+			generator.createBasicBlock("failed to unbox"))
+
+	/**
+	 * Generate a loop that extracts the first element of the given tuple on
+	 * each iteration, exiting when the element is zero.  On exit, return the
+	 * element.
+	 *
+	 * @param tuple
+	 *   The [L2WriteBoxedOperand] holding the tuple.
+	 */
+	private fun generateLoopOver(tuple: L2WriteBoxedOperand)
+	{
+		val head = generator.createLoopHeadBlock("loop head")
+		val latch = generator.createBasicBlock("loop latch")
+		val exit = generator.createBasicBlock("loop exit")
+		generator.jumpTo(head)
+		generator.startBlock(head)
+		val element = tupleAt(tuple, 1)
+		generator.addInstruction(
+			L2_JUMP_IF_EQUALS_CONSTANT,
+			generator.readBoxed(element),
+			L2ConstantOperand(fromInt(0)),
+			edgeTo(exit),
+			edgeTo(latch))
+		generator.startBlock(latch)
+		generator.addInstruction(L2_JUMP, backEdgeTo(head))
+		generator.startBlock(exit)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(element))
+	}
+
+	/**
+	 * Generate a loop that checks on each iteration that a subscript is within
+	 * the bounds of a tuple, and if so, uses the given function to extract the
+	 * element, exiting when the element is zero.  Both the tuple and the
+	 * subscript are defined before the loop.
+	 *
+	 * @param elementType
+	 *   The type of the tuple's elements.
+	 * @param extract
+	 *   How to extract the element, given the tuple and the unboxed subscript.
+	 */
+	private fun generateGuardedLoop(
+		elementType: A_Type,
+		extract: (L2ReadBoxedOperand, L2ReadIntOperand) -> L2WriteBoxedOperand)
+	{
+		val tuple = argument(0, zeroOrMoreOf(elementType))
+		val subscript = argument(1, inclusive(1, 10))
+		intOf(subscript)
+		val head = generator.createLoopHeadBlock("loop head")
+		val inBounds = generator.createBasicBlock("in bounds")
+		val outOfBounds = generator.createBasicBlock("out of bounds")
+		val latch = generator.createBasicBlock("loop latch")
+		val exit = generator.createBasicBlock("loop exit")
+		generator.jumpTo(head)
+		generator.startBlock(head)
+		val size = generator.intWriteTemp(
+			restrictionForType(
+				inclusive(0, Int.MAX_VALUE.toLong()), UNBOXED_INT_FLAG))
+		generator.addInstruction(
+			L2_TUPLE_SIZE, generator.readBoxed(tuple), size)
+		generator.addInstruction(
+			L2_JUMP_IF_COMPARE_INT.lessOrEqual,
+			intOf(subscript),
+			generator.currentManifest.readInt(size.onlySemanticValue()),
+			edgeTo(inBounds),
+			edgeTo(outOfBounds))
+		generator.startBlock(inBounds)
+		val element = extract(generator.readBoxed(tuple), intOf(subscript))
+		generator.addInstruction(
+			L2_JUMP_IF_EQUALS_CONSTANT,
+			generator.readBoxed(element),
+			L2ConstantOperand(fromInt(0)),
+			edgeTo(exit),
+			edgeTo(latch))
+		generator.startBlock(latch)
+		generator.addInstruction(L2_JUMP, backEdgeTo(head))
+		generator.startBlock(exit)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(element))
+		generator.startBlock(outOfBounds)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(tuple))
+	}
+
+	/**
+	 * Check that the only instruction using the given [L2Operation] is still
+	 * guarded by the loop's bounds check, and was not hoisted above it.
+	 *
+	 * @param optimizer
+	 *   The [L2Optimizer] whose graph should be examined.
+	 * @param operation
+	 *   The [L2Operation] of the guarded instruction.
+	 */
+	private fun assertStillGuarded(
+		optimizer: L2Optimizer,
+		operation: L2Operation)
+	{
+		val blocks = optimizer.blocks
+		val access = instructionsOf(blocks, operation).single()
+		val check = blocks.map { it.finalInstruction() }.single {
+			it.operation is L2_JUMP_IF_COMPARE_INT
+		}
+		assertNotSame(check.basicBlock(), access.basicBlock())
+		assertTrue(
+			LoopAnalyzer(generator.controlFlowGraph).dominates(
+				check.basicBlock(), access.basicBlock()))
+	}
+
+	/**
+	 * Run the [OptimizationPhase]s in order, up to and including the given
+	 * one.
+	 *
+	 * @param lastPhase
+	 *   The last [OptimizationPhase] to run.
+	 * @return
+	 *   The [L2Optimizer], for examining the graph.
+	 */
+	private fun optimizeThrough(lastPhase: OptimizationPhase): L2Optimizer
+	{
+		val optimizer = L2Optimizer(generator)
+		for (phase in OptimizationPhase.values())
+		{
+			phase.run(optimizer)
+			if (phase == lastPhase) break
+		}
+		return optimizer
+	}
+
+	/**
+	 * Answer the [L2Instruction]s in the given blocks that use the given
+	 * [L2Operation].
+	 *
+	 * @param blocks
+	 *   The [L2BasicBlock]s to search.
+	 * @param operation
+	 *   The [L2Operation] to look for.
+	 * @return
+	 *   The matching instructions.
+	 */
+	private fun instructionsOf(
+		blocks: List<L2BasicBlock>,
+		operation: L2Operation
+	) = blocks.flatMap { it.instructions() }.filter {
+		it.operation === operation
+	}
+
+	/**
+	 * Answer the instruction that produced the value returned by the given
+	 * [L2_RETURN], looking through moves.
+	 *
+	 * @param returnInstruction
+	 *   The [L2_RETURN] instruction.
+	 * @return
+	 *   The defining [L2Instruction].
+	 */
+	private fun returnedValueSource(returnInstruction: L2Instruction) =
+		returnInstruction.operand<L2ReadBoxedOperand>(0)
+			.definitionSkippingMoves(false)
+
+	/**
+	 * A read of an element of a tuple that doesn't escape is replaced by the
+	 * register that supplied the element, and the tuple is no longer
+	 * constructed at all.
+	 */
+	@Test
+	fun testComponentReadIsForwarded()
+	{
+		startGraph()
+		val first = argument(0)
+		val second = argument(1)
+		val tuple = createTuple(first, second)
+		val element = tupleAt(tuple, 2)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(element))
+
+		val blocks = optimizeThrough(REMOVE_DEAD_CODE_AFTER_POSTPONEMENTS)
+			.blocks
+		assertEquals(0, instructionsOf(blocks, L2_TUPLE_AT_CONSTANT).size)
+		assertEquals(0, instructionsOf(blocks, L2_CREATE_TUPLE).size)
+		val returnInstruction = instructionsOf(blocks, L2_RETURN).single()
+		val source = returnedValueSource(returnInstruction)
+		assertSame(L2_GET_ARGUMENT, source.operation)
+		assertEquals(1, source.operand<L2IntImmediateOperand>(0).value)
+	}
+
+	/**
+	 * When a tuple escapes along only one path, the reads of its elements are
+	 * still forwarded, and the tuple is only constructed along the path where
+	 * it escapes.
+	 */
+	@Test
+	fun testAllocationIsSunkOntoEscapePath()
+	{
+		startGraph()
+		val first = argument(0)
+		val second = argument(1)
+		val tuple = createTuple(first, second)
+		val element = tupleAt(tuple, 1)
+		val escapes = generator.createBasicBlock("tuple escapes")
+		val doesNotEscape = generator.createBasicBlock("tuple doesn't escape")
+		generator.addInstruction(
+			L2_JUMP_IF_EQUALS_CONSTANT,
+			generator.readBoxed(element),
+			L2ConstantOperand(fromInt(0)),
+			edgeTo(escapes),
+			edgeTo(doesNotEscape))
+		generator.startBlock(escapes)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(tuple))
+		generator.startBlock(doesNotEscape)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(second))
+
+		val blocks = optimizeThrough(REMOVE_DEAD_CODE_AFTER_POSTPONEMENTS)
+			.blocks
+		assertEquals(0, instructionsOf(blocks, L2_TUPLE_AT_CONSTANT).size)
+		val jump = instructionsOf(blocks, L2_JUMP_IF_EQUALS_CONSTANT).single()
+		assertSame(
+			L2_GET_ARGUMENT,
+			jump.operand<L2ReadBoxedOperand>(0)
+				.definitionSkippingMoves(false).operation)
+		val creation = instructionsOf(blocks, L2_CREATE_TUPLE).single()
+		val returns = instructionsOf(blocks, L2_RETURN)
+		assertEquals(2, returns.size)
+		val (tupleReturn, otherReturn) = returns.partition {
+			returnedValueSource(it).operation === L2_CREATE_TUPLE
+		}
+		// The tuple is only constructed in the block that returns it.
+		assertSame(creation, returnedValueSource(tupleReturn.single()))
+		assertSame(creation.basicBlock(), tupleReturn.single().basicBlock())
+		assertTrue(
+			instructionsOf(
+				listOf(otherReturn.single().basicBlock()), L2_CREATE_TUPLE
+			).isEmpty())
+	}
+
+	/**
+	 * An extraction from a tuple that doesn't change within a loop is moved
+	 * into the block that jumps to the loop head.
+	 */
+	@Test
+	fun testLoopInvariantIsHoisted()
+	{
+		startGraph()
+		val tuple = argument(0, tupleTypeForTypes(ANY.o))
+		generateLoopOver(tuple)
+
+		val blocks = optimizeThrough(HOIST_LOOP_INVARIANTS).blocks
+		val access = instructionsOf(blocks, L2_TUPLE_AT_CONSTANT).single()
+		val preheader = access.basicBlock()
+		assertFalse(preheader.isLoopHead)
+		assertSame(L2_JUMP, preheader.finalInstruction().operation)
+		assertTrue(preheader.successorEdges().single().targetBlock().isLoopHead)
+	}
+
+	/**
+	 * When the loop is only entered along one branch of a conditional, the
+	 * invariant code is hoisted onto that path, not into the block with the
+	 * branch, since the other branch doesn't enter the loop.
+	 */
+	@Test
+	fun testLoopInvariantIsHoistedOntoEnteringPath()
+	{
+		startGraph()
+		val tuple = argument(0, tupleTypeForTypes(ANY.o))
+		val flag = argument(1)
+		val loop = generator.createBasicBlock("enter loop")
+		val skip = generator.createBasicBlock("skip loop")
+		generator.addInstruction(
+			L2_JUMP_IF_EQUALS_CONSTANT,
+			generator.readBoxed(flag),
+			L2ConstantOperand(fromInt(0)),
+			edgeTo(skip),
+			edgeTo(loop))
+		generator.startBlock(skip)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(flag))
+		generator.startBlock(loop)
+		generateLoopOver(tuple)
+
+		val blocks = optimizeThrough(HOIST_LOOP_INVARIANTS).blocks
+		val access = instructionsOf(blocks, L2_TUPLE_AT_CONSTANT).single()
+		val preheader = access.basicBlock()
+		assertFalse(preheader.isLoopHead)
+		assertSame(L2_JUMP, preheader.finalInstruction().operation)
+		assertTrue(preheader.successorEdges().single().targetBlock().isLoopHead)
+		assertTrue(instructionsOf(listOf(preheader), L2_GET_ARGUMENT).isEmpty())
+	}
+
+	/**
+	 * An element read that relies on a bounds check inside the loop stays
+	 * behind that check, even though the tuple and subscript are both defined
+	 * before the loop.
+	 */
+	@Test
+	fun testGuardedTupleReadIsNotHoisted()
+	{
+		startGraph()
+		generateGuardedLoop(ANY.o) { tuple, subscript ->
+			val element = generator.boxedWriteTemp(
+				restrictionForType(ANY.o, BOXED_FLAG))
+			generator.addInstruction(
+				L2_TUPLE_AT_NO_FAIL, tuple, subscript, element)
+			element
+		}
+
+		assertStillGuarded(
+			optimizeThrough(HOIST_LOOP_INVARIANTS), L2_TUPLE_AT_NO_FAIL)
+	}
+
+	/**
+	 * An unboxed double element read that relies on a bounds check inside the
+	 * loop stays behind that check.
+	 */
+	@Test
+	fun testGuardedDoubleReadIsNotHoisted()
+	{
+		startGraph()
+		generateGuardedLoop(DOUBLE.o) { tuple, subscript ->
+			val unboxed = generator.floatWriteTemp(
+				restrictionForType(DOUBLE.o, UNBOXED_FLOAT_FLAG))
+			generator.addInstruction(
+				L2_TUPLE_DOUBLE_AT_NO_FAIL, tuple, subscript, unboxed)
+			val element = generator.boxedWriteTemp(
+				restrictionForType(DOUBLE.o, BOXED_FLAG))
+			generator.addInstruction(
+				L2_BOX_FLOAT,
+				generator.currentManifest.readFloat(
+					unboxed.onlySemanticValue()),
+				element)
+			element
+		}
+
+		assertStillGuarded(
+			optimizeThrough(HOIST_LOOP_INVARIANTS), L2_TUPLE_DOUBLE_AT_NO_FAIL)
+	}
+
+	/**
+	 * A comparison dominated by the "true" branch of an earlier comparison of
+	 * the same values, even with the operands swapped, is replaced by a jump.
+	 */
+	@Test
+	fun testImpliedComparisonIsEliminated()
+	{
+		startGraph()
+		val first = argument(0, int32)
+		val second = argument(1, int32)
+		val less = generator.createBasicBlock("first < second")
+		val notLess = generator.createBasicBlock("first ≥ second")
+		val greater = generator.createBasicBlock("second > first")
+		val notGreater = generator.createBasicBlock("second ≤ first")
+		generator.addInstruction(
+			L2_JUMP_IF_COMPARE_INT.less,
+			intOf(first),
+			intOf(second),
+			edgeTo(less),
+			edgeTo(notLess))
+		generator.startBlock(less)
+		generator.addInstruction(
+			L2_JUMP_IF_COMPARE_INT.greater,
+			intOf(second),
+			intOf(first),
+			edgeTo(greater),
+			edgeTo(notGreater))
+		generator.startBlock(greater)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(first))
+		generator.startBlock(notGreater)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(second))
+		generator.startBlock(notLess)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(second))
+
+		val blocks = optimizeThrough(ELIMINATE_REDUNDANT_COMPARISONS).blocks
+		val comparison = blocks.map { it.finalInstruction() }.single {
+			it.operation is L2_JUMP_IF_COMPARE_INT
+		}
+		assertSame(L2_JUMP_IF_COMPARE_INT.less, comparison.operation)
+		// The path where the second comparison fails is gone.
+		assertEquals(2, instructionsOf(blocks, L2_RETURN).size)
+	}
+
+	/**
+	 * A comparison whose outcome isn't decided by an earlier comparison of the
+	 * same values is kept.
+	 */
+	@Test
+	fun testUndecidedComparisonIsKept()
+	{
+		startGraph()
+		val first = argument(0, int32)
+		val second = argument(1, int32)
+		val less = generator.createBasicBlock("first < second")
+		val notLess = generator.createBasicBlock("first ≥ second")
+		val greater = generator.createBasicBlock("first > second")
+		val equal = generator.createBasicBlock("first = second")
+		generator.addInstruction(
+			L2_JUMP_IF_COMPARE_INT.less,
+			intOf(first),
+			intOf(second),
+			edgeTo(less),
+			edgeTo(notLess))
+		generator.startBlock(less)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(first))
+		generator.startBlock(notLess)
+		generator.addInstruction(
+			L2_JUMP_IF_COMPARE_INT.greater,
+			intOf(first),
+			intOf(second),
+			edgeTo(greater),
+			edgeTo(equal))
+		generator.startBlock(greater)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(first))
+		generator.startBlock(equal)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(second))
+
+		val blocks = optimizeThrough(ELIMINATE_REDUNDANT_COMPARISONS).blocks
+		assertEquals(
+			2,
+			blocks.count {
+				it.finalInstruction().operation is L2_JUMP_IF_COMPARE_INT
+			})
+		assertEquals(3, instructionsOf(blocks, L2_RETURN).size)
+	}
+
+	/**
+	 * Unboxing a double that was extracted from a tuple, while the tuple and
+	 * the unboxed subscript are still available, reads the element directly
+	 * from the tuple instead of unboxing the extracted double.
+	 */
+	@Test
+	fun testDoubleElementIsReadUnboxed()
+	{
+		startGraph()
+		val tuple = argument(0, tupleTypeForTypes(DOUBLE.o, DOUBLE.o))
+		val subscript = argument(1, inclusive(1, 2))
+		val invocation = primitiveInvocation(
+			P_TupleAt,
+			listOf(tuple.pickSemanticValue(), subscript.pickSemanticValue()))
+		val element = generator.boxedWrite(
+			invocation, restrictionForType(DOUBLE.o, BOXED_FLAG))
+		generator.addInstruction(
+			L2_TUPLE_AT_NO_FAIL,
+			generator.readBoxed(tuple),
+			intOf(subscript),
+			element)
+
+		val unboxed = generator.readFloat(
+			L2SemanticUnboxedFloat(element.pickSemanticValue()),
+			generator.createBasicBlock("failed to unbox"))
+		val source = unboxed.definitionSkippingMoves(false)
+		assertSame(L2_TUPLE_DOUBLE_AT_NO_FAIL, source.operation)
+		assertSame(
+			L2_GET_ARGUMENT,
+			source.operand<L2ReadBoxedOperand>(0)
+				.definitionSkippingMoves(false).operation)
+		assertTrue(
+			instructionsOf(listOf(generator.currentBlock()), L2_UNBOX_FLOAT)
+				.isEmpty())
+	}
+
+	/**
+	 * Unboxing a double that wasn't extracted from a tuple still uses an
+	 * ordinary unboxing instruction.
+	 */
+	@Test
+	fun testOtherDoubleIsUnboxed()
+	{
+		startGraph()
+		val value = argument(0, DOUBLE.o)
+
+		val unboxed = generator.readFloat(
+			L2SemanticUnboxedFloat(value.pickSemanticValue()),
+			generator.createBasicBlock("failed to unbox"))
+		assertSame(
+			L2_UNBOX_FLOAT, unboxed.definitionSkippingMoves(false).operation)
+	}
+}
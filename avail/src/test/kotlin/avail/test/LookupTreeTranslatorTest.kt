@@ -0,0 +1,228 @@
+/*
+ * LookupTreeTranslatorTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.test
+
+import avail.descriptor.numbers.DoubleDescriptor.Companion.fromDouble
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.A_BasicObject
+import avail.descriptor.tuples.A_Tuple
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.tuples.TupleDescriptor.Companion.emptyTuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.integers
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.naturalNumbers
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.descriptor.types.TupleTypeDescriptor.Companion.stringType
+import avail.descriptor.types.TupleTypeDescriptor.Companion.tupleTypeForTypes
+import avail.dispatch.CompiledLookupTree
+import avail.dispatch.InternalLookupTree
+import avail.dispatch.LeafLookupTree
+import avail.dispatch.LookupStatistics
+import avail.dispatch.LookupTree
+import avail.dispatch.LookupTreeAdaptor
+import avail.dispatch.TypeComparison.Companion.compareForDispatch
+import avail.interpreter.levelTwo.operand.TypeRestriction
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.anyRestriction
+import avail.optimizer.jvm.LookupTreeTranslator
+import avail.performance.StatisticReport.DYNAMIC_LOOKUP
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+/**
+ * A test of [LookupTreeTranslator], which compiles [LookupTree]s into JVM
+ * classes.  Every lookup through the compiled tree must agree with the same
+ * lookup through the tree itself, whether it is answered by generated code or
+ * by a fallback into the tree.
+ */
+class LookupTreeTranslatorTest
+{
+	/**
+	 * A [LookupTreeAdaptor] whose elements are their own signatures, and
+	 * whose results are tuples of the most specific applicable signatures.
+	 */
+	private val adaptor = object : LookupTreeAdaptor<A_Type, A_Tuple, Unit>()
+	{
+		override val emptyLeaf = LeafLookupTree<A_Type, A_Tuple>(emptyTuple)
+
+		override fun extractSignature(element: A_Type) = element
+
+		override fun constructResult(elements: List<A_Type>, memento: Unit) =
+			tupleFromList(elements)
+
+		override fun compareTypes(
+			argumentRestrictions: List<TypeRestriction>,
+			signatureType: A_Type
+		) = compareForDispatch(argumentRestrictions, signatureType)
+
+		override fun testsArgumentPositions() = true
+
+		override fun subtypesHideSupertypes() = true
+	}
+
+	/** The signatures to dispatch among, which take two arguments each. */
+	private val signatures = listOf(
+		tupleTypeForTypes(integers, ANY.o),
+		tupleTypeForTypes(naturalNumbers, ANY.o),
+		tupleTypeForTypes(stringType, ANY.o),
+		tupleTypeForTypes(ANY.o, stringType),
+		tupleTypeForTypes(naturalNumbers, naturalNumbers))
+
+	/** The values from which to build argument lists. */
+	private val values: List<A_BasicObject> = listOf(
+		fromInt(5),
+		fromInt(-3),
+		fromDouble(1.5),
+		stringFrom("abc"),
+		emptyTuple,
+		tuple(fromInt(1)))
+
+	/** Every pair of [values], as argument lists. */
+	private val argumentLists = values.flatMap { first ->
+		values.map { second -> listOf(first, second) }
+	}
+
+	/**
+	 * Create a new, unexpanded tree for the [signatures].
+	 *
+	 * @return
+	 *   The root of the tree.
+	 */
+	private fun newTree(): LookupTree<A_Type, A_Tuple> =
+		adaptor.createRoot(
+			signatures, listOf(anyRestriction, anyRestriction), Unit)
+
+	/**
+	 * Compile the tree.
+	 *
+	 * @param tree
+	 *   The tree to compile.
+	 * @param stats
+	 *   The [LookupStatistics] in which to record lookups.
+	 * @return
+	 *   The compiled tree.
+	 */
+	private fun compile(
+		tree: LookupTree<A_Type, A_Tuple>,
+		stats: LookupStatistics
+	): CompiledLookupTree<A_Type, A_Tuple, Unit>
+	{
+		val compiled = LookupTreeTranslator(
+			tree, adaptor, Unit, stats, 2, "test tree"
+		).translate()
+		assertNotNull(compiled)
+		return compiled!!
+	}
+
+	/**
+	 * Answer the results of looking up each of the [argumentLists] through
+	 * the tree.
+	 *
+	 * @param tree
+	 *   The tree to search.
+	 * @param stats
+	 *   The [LookupStatistics] in which to record lookups.
+	 * @return
+	 *   The results, in the order of the [argumentLists].
+	 */
+	private fun lookUpAll(
+		tree: LookupTree<A_Type, A_Tuple>,
+		stats: LookupStatistics
+	) = argumentLists.map { adaptor.lookupByValues(tree, it, Unit, stats) }
+
+	/**
+	 * A fully expanded tree is compiled into generated decision code, and
+	 * answers the same results as the tree.
+	 */
+	@Test
+	fun testExpandedTreeAgrees()
+	{
+		val stats = LookupStatistics("expanded", DYNAMIC_LOOKUP)
+		val tree = newTree()
+		val expected = lookUpAll(tree, stats)
+		assertTrue(tree is InternalLookupTree<*, *>)
+		assertNotNull((tree as InternalLookupTree).decisionStepOrNull)
+		val compiled = compile(tree, stats)
+		argumentLists.forEachIndexed { i, arguments ->
+			assertEquals(expected[i], compiled.lookupByValues(arguments))
+		}
+	}
+
+	/**
+	 * A tree that has not been expanded at all is compiled into a fallback,
+	 * which expands the tree as it goes, and still answers the same results.
+	 */
+	@Test
+	fun testLazyTreeFallsBack()
+	{
+		val stats = LookupStatistics("lazy", DYNAMIC_LOOKUP)
+		val expected = lookUpAll(newTree(), stats)
+		val tree = newTree()
+		val compiled = compile(tree, stats)
+		argumentLists.forEachIndexed { i, arguments ->
+			assertEquals(expected[i], compiled.lookupByValues(arguments))
+		}
+		assertNotNull((tree as InternalLookupTree).decisionStepOrNull)
+	}
+
+	/** A tree that is just a solution is compiled, too. */
+	@Test
+	fun testLeaf()
+	{
+		val stats = LookupStatistics("leaf", DYNAMIC_LOOKUP)
+		val compiled = compile(adaptor.emptyLeaf, stats)
+		argumentLists.forEach {
+			assertEquals(emptyTuple, compiled.lookupByValues(it))
+		}
+	}
+
+	/**
+	 * Lookups through the compiled tree are recorded in the tree's
+	 * [LookupStatistics], just as lookups through the tree itself are.
+	 */
+	@Test
+	fun testRecordsStatistics()
+	{
+		val stats = LookupStatistics("recorded", DYNAMIC_LOOKUP)
+		val tree = newTree()
+		lookUpAll(tree, stats)
+		val compiled = compile(tree, stats)
+		argumentLists.forEach { compiled.lookupByValues(it) }
+		assertEquals(
+			argumentLists.size.toLong(),
+			stats.compiledStat.aggregate().count())
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * LoopAnalyzerTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import avail.descriptor.numbers.IntegerDescriptor.Companion.zero
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.interpreter.levelTwo.operand.L2ConstantOperand
+import avail.interpreter.levelTwo.operand.L2IntImmediateOperand
+import avail.interpreter.levelTwo.operand.L2PcOperand
+import avail.interpreter.levelTwo.operand.L2WriteBoxedOperand
+import avail.interpreter.levelTwo.operand.TypeRestriction.Companion.restrictionForType
+import avail.interpreter.levelTwo.operand.TypeRestriction.RestrictionFlagEncoding.BOXED_FLAG
+import avail.interpreter.levelTwo.operation.L2_GET_ARGUMENT
+import avail.interpreter.levelTwo.operation.L2_JUMP
+import avail.interpreter.levelTwo.operation.L2_JUMP_IF_EQUALS_CONSTANT
+import avail.interpreter.levelTwo.operation.L2_RETURN
+import avail.optimizer.L2BasicBlock
+import avail.optimizer.L2Generator
+import avail.optimizer.L2Generator.Companion.backEdgeTo
+import avail.optimizer.L2Generator.Companion.edgeTo
+import avail.optimizer.LoopAnalyzer
+import avail.optimizer.OptimizationLevel
+import avail.optimizer.values.Frame
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests of the dominator tree and natural loops computed by a [LoopAnalyzer]
+ * over small, hand-built control flow graphs.
+ */
+class LoopAnalyzerTest
+{
+	/** The [L2Generator] in which to build the graph. */
+	private val generator = L2Generator(
+		OptimizationLevel.FIRST_JVM_TRANSLATION,
+		Frame(null, nil, "top frame"),
+		"LoopAnalyzerTest")
+
+	/** Start the graph with an irremovable block. */
+	private fun startGraph()
+	{
+		val startBlock = generator.createBasicBlock("START")
+		startBlock.makeIrremovable()
+		generator.startBlock(startBlock)
+	}
+
+	/**
+	 * Generate a read of the argument with the given zero-based index.
+	 *
+	 * @param zeroIndex
+	 *   Which argument to read.
+	 * @return
+	 *   The [L2WriteBoxedOperand] holding the argument.
+	 */
+	private fun argument(zeroIndex: Int): L2WriteBoxedOperand
+	{
+		val write = generator.boxedWriteTemp(
+			restrictionForType(ANY.o, BOXED_FLAG))
+		generator.addInstruction(
+			L2_GET_ARGUMENT, L2IntImmediateOperand(zeroIndex), write)
+		return write
+	}
+
+	/**
+	 * End the current block with a two-way branch, based on whether the given
+	 * value is zero.
+	 *
+	 * @param value
+	 *   The [L2WriteBoxedOperand] holding the value to test.
+	 * @param ifZero
+	 *   The [L2PcOperand] to take if the value is zero.
+	 * @param otherwise
+	 *   The [L2PcOperand] to take if the value is not zero.
+	 */
+	private fun branch(
+		value: L2WriteBoxedOperand,
+		ifZero: L2PcOperand,
+		otherwise: L2PcOperand)
+	{
+		generator.addInstruction(
+			L2_JUMP_IF_EQUALS_CONSTANT,
+			generator.readBoxed(value),
+			L2ConstantOperand(zero),
+			ifZero,
+			otherwise)
+	}
+
+	/**
+	 * Start generating the given [L2BasicBlock], checking that it wasn't
+	 * merged into its predecessor.
+	 *
+	 * @param block
+	 *   The [L2BasicBlock] to start.
+	 */
+	private fun start(block: L2BasicBlock)
+	{
+		generator.startBlock(block)
+		Assertions.assertSame(block, generator.currentBlock())
+	}
+
+	/**
+	 * Test: In a diamond, the block before the branch immediately dominates
+	 * both arms and the merge, and neither arm dominates the merge.
+	 */
+	@Test
+	fun diamondTest()
+	{
+		startGraph()
+		val startBlock = generator.currentBlock()
+		val value = argument(0)
+		val left = generator.createBasicBlock("left")
+		val right = generator.createBasicBlock("right")
+		val merge = generator.createBasicBlock("merge")
+		val unreachable = generator.createBasicBlock("unreachable")
+		branch(value, edgeTo(left), edgeTo(right))
+		start(left)
+		generator.jumpTo(merge)
+		start(right)
+		generator.jumpTo(merge)
+		start(merge)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(value))
+
+		val analyzer = LoopAnalyzer(generator.controlFlowGraph)
+		Assertions.assertNull(analyzer.immediateDominator(startBlock))
+		Assertions.assertSame(startBlock, analyzer.immediateDominator(left))
+		Assertions.assertSame(startBlock, analyzer.immediateDominator(right))
+		Assertions.assertSame(startBlock, analyzer.immediateDominator(merge))
+		Assertions.assertTrue(analyzer.dominates(startBlock, merge))
+		Assertions.assertTrue(analyzer.dominates(merge, merge))
+		Assertions.assertFalse(analyzer.dominates(left, merge))
+		Assertions.assertFalse(analyzer.dominates(right, merge))
+		Assertions.assertFalse(analyzer.dominates(merge, startBlock))
+		// A block that was never generated is not reachable.
+		Assertions.assertNull(analyzer.immediateDominator(unreachable))
+		Assertions.assertFalse(analyzer.dominates(startBlock, unreachable))
+	}
+
+	/**
+	 * Test: The natural loop of a loop head includes every block that can
+	 * reach the back-edge without passing through the head, and excludes the
+	 * blocks before and after the loop.
+	 */
+	@Test
+	fun naturalLoopTest()
+	{
+		startGraph()
+		val startBlock = generator.currentBlock()
+		val first = argument(0)
+		val second = argument(1)
+		val head = generator.createLoopHeadBlock("head")
+		val body = generator.createBasicBlock("body")
+		val left = generator.createBasicBlock("left")
+		val right = generator.createBasicBlock("right")
+		val latch = generator.createBasicBlock("latch")
+		val exit = generator.createBasicBlock("exit")
+		generator.jumpTo(head)
+		start(head)
+		branch(first, edgeTo(exit), edgeTo(body))
+		start(body)
+		branch(second, edgeTo(left), edgeTo(right))
+		start(left)
+		generator.jumpTo(latch)
+		start(right)
+		generator.jumpTo(latch)
+		start(latch)
+		generator.addInstruction(L2_JUMP, backEdgeTo(head))
+		start(exit)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(first))
+
+		val analyzer = LoopAnalyzer(generator.controlFlowGraph)
+		Assertions.assertSame(startBlock, analyzer.immediateDominator(head))
+		Assertions.assertSame(head, analyzer.immediateDominator(body))
+		Assertions.assertSame(body, analyzer.immediateDominator(latch))
+		Assertions.assertSame(head, analyzer.immediateDominator(exit))
+		// The back-edge doesn't make the latch dominate the head.
+		Assertions.assertFalse(analyzer.dominates(latch, head))
+		Assertions.assertEquals(
+			setOf(head, body, left, right, latch),
+			analyzer.naturalLoop(head))
+	}
+
+	/**
+	 * Test: A loop that can also be entered in the middle, bypassing its head,
+	 * has no natural loop.
+	 */
+	@Test
+	fun irreducibleLoopTest()
+	{
+		startGraph()
+		val first = argument(0)
+		val second = argument(1)
+		val head = generator.createLoopHeadBlock("head")
+		val side = generator.createBasicBlock("side entry")
+		val middle = generator.createBasicBlock("middle")
+		val exit = generator.createBasicBlock("exit")
+		branch(first, edgeTo(head), edgeTo(side))
+		start(head)
+		generator.jumpTo(middle)
+		start(side)
+		generator.jumpTo(middle)
+		start(middle)
+		branch(second, backEdgeTo(head), edgeTo(exit))
+		start(exit)
+		generator.addInstruction(L2_RETURN, generator.readBoxed(second))
+
+		val analyzer = LoopAnalyzer(generator.controlFlowGraph)
+		Assertions.assertFalse(analyzer.dominates(head, middle))
+		Assertions.assertNull(analyzer.naturalLoop(head))
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * ModuleImageTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.builder.ModuleImage
+import avail.builder.ModuleImage.ImagedModule
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * A test of writing and reading a [ModuleImage].
+ */
+class ModuleImageTest
+{
+	/** The directory holding the test's files. */
+	private lateinit var directory: Path
+
+	/** The image file. */
+	private lateinit var file: File
+
+	/** The modules written to the image. */
+	private val modules = listOf(
+		ImagedModule(
+			"/Test/Alpha",
+			ByteArray(32) { it.toByte() },
+			1_000L,
+			ByteArray(100) { (it * 3).toByte() },
+			ByteArray(5_000) { (it * 7).toByte() }),
+		ImagedModule(
+			"/Test/Alpha/Beta",
+			ByteArray(32) { (31 - it).toByte() },
+			2_000L,
+			ByteArray(0),
+			ByteArray(1) { 42 }))
+
+	/** Create the [directory] that will hold the image [file]. */
+	@BeforeEach
+	fun createDirectory()
+	{
+		directory = Files.createTempDirectory("ModuleImageTest")
+		file = directory.resolve("modules.image").toFile()
+	}
+
+	/** Delete the test's files. */
+	@AfterEach
+	fun deleteFiles()
+	{
+		directory.toFile().deleteRecursively()
+	}
+
+	/**
+	 * Write the [modules] to the image [file] and read it back.
+	 *
+	 * @return
+	 *   The image that was read.
+	 */
+	private fun roundTrip(): ModuleImage
+	{
+		ModuleImage.writeImagedModules(file, modules)
+		val image = ModuleImage.read(file)
+		assertNotNull(image)
+		return image!!
+	}
+
+	/**
+	 * Test: Every module's header and body read from an image are the bytes
+	 * that were written, and the temporary file is gone.
+	 */
+	@Test
+	fun testRoundTrip()
+	{
+		val image = roundTrip()
+		assertEquals(modules.size, image.size)
+		modules.forEach { module ->
+			assertArrayEquals(
+				module.header,
+				image.headerFor(
+					module.qualifiedName,
+					module.sourceDigest,
+					module.compilationTime))
+			assertArrayEquals(
+				module.body,
+				image.bodyFor(
+					module.qualifiedName,
+					module.sourceDigest,
+					module.compilationTime))
+		}
+		assertEquals(listOf(file), directory.toFile().listFiles()!!.toList())
+	}
+
+	/**
+	 * Test: Rewriting an image replaces its previous content.
+	 */
+	@Test
+	fun testRewrite()
+	{
+		roundTrip()
+		ModuleImage.writeImagedModules(file, modules.subList(1, 2))
+		val image = ModuleImage.read(file)!!
+		assertEquals(1, image.size)
+		val alpha = modules[0]
+		assertNull(
+			image.bodyFor(
+				alpha.qualifiedName, alpha.sourceDigest, alpha.compilationTime))
+	}
+
+	/**
+	 * Test: An image doesn't answer a module whose source or compilation
+	 * differs from what was imaged, nor a module it doesn't contain.
+	 */
+	@Test
+	fun testStaleEntriesAreIgnored()
+	{
+		val image = roundTrip()
+		val alpha = modules[0]
+		val otherDigest = alpha.sourceDigest.copyOf()
+		otherDigest[0]++
+		assertNull(
+			image.headerFor(
+				alpha.qualifiedName, otherDigest, alpha.compilationTime))
+		assertNull(
+			image.bodyFor(
+				alpha.qualifiedName, otherDigest, alpha.compilationTime))
+		assertNull(
+			image.headerFor(
+				alpha.qualifiedName,
+				alpha.sourceDigest,
+				alpha.compilationTime + 1))
+		assertNull(
+			image.bodyFor(
+				"/Test/Gamma", alpha.sourceDigest, alpha.compilationTime))
+	}
+
+	/**
+	 * Test: A missing file, a file of another format, and a truncated image
+	 * are all read as no image at all.
+	 */
+	@Test
+	fun testInvalidImages()
+	{
+		assertNull(ModuleImage.read(file))
+		file.writeBytes(ByteArray(64) { it.toByte() })
+		assertNull(ModuleImage.read(file))
+		ModuleImage.writeImagedModules(file, modules)
+		val bytes = file.readBytes()
+		file.writeBytes(bytes.copyOf(bytes.size - 1))
+		assertNull(ModuleImage.read(file))
+		file.writeBytes(bytes.copyOf(6))
+		assertNull(ModuleImage.read(file))
+	}
+}
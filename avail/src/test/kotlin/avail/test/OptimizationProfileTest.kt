@@ -0,0 +1,246 @@
+/*
+ * OptimizationProfileTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.AvailRuntimeConfiguration
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.optimizer.OptimizationLevel.CHASED_BLOCKS
+import avail.optimizer.OptimizationLevel.FIRST_JVM_TRANSLATION
+import avail.optimizer.OptimizationLevel.SECOND_JVM_TRANSLATION
+import avail.optimizer.OptimizationLevel.SIMPLE_TRANSLATION
+import avail.optimizer.OptimizationProfile
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * A test of saving and loading an [OptimizationProfile].
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class OptimizationProfileTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** The directory holding the test's profiles. */
+	private lateinit var directory: Path
+
+	/** A raw function in a module of the root named `profiled`. */
+	private val code: A_RawFunction by lazy {
+		val module = newModule(
+			helper.runtime, stringFrom("/profiled/Profile Test"))
+		L1InstructionWriter(module, 1, nil).run {
+			argumentTypes(ANY.o)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(0, L1Operation.L1_doPushLastLocal, 1)
+			compiledCode()
+		}
+	}
+
+	/** Create the [directory] that holds the profiles. */
+	@BeforeEach
+	fun createDirectory()
+	{
+		directory = Files.createTempDirectory("OptimizationProfileTest")
+	}
+
+	/** Delete the test's files. */
+	@AfterEach
+	fun deleteFiles()
+	{
+		directory.toFile().deleteRecursively()
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Answer the file in which the named root's profile is kept.
+	 *
+	 * @param rootName
+	 *   The name of the module root.
+	 * @return
+	 *   The profile file.
+	 */
+	private fun fileFor(rootName: String): File =
+		directory.resolve("$rootName.profile").toFile()
+
+	/**
+	 * Create a new, unstarted [OptimizationProfile] that keeps its profiles in
+	 * the [directory].
+	 *
+	 * @return
+	 *   The new profile.
+	 */
+	private fun newProfile() = OptimizationProfile(::fileFor)
+
+	/**
+	 * Test: The runtime only keeps a profile when it's enabled in the
+	 * configuration.
+	 */
+	@Test
+	fun testProfilesAreOptIn()
+	{
+		assertEquals(
+			AvailRuntimeConfiguration.optimizationProfiles,
+			helper.runtime.optimizationProfile !== null)
+	}
+
+	/**
+	 * Test: A level recorded and saved by one profile promotes the same code
+	 * when it's loaded by another, but never demotes it.
+	 */
+	@Test
+	fun testSaveAndLoad()
+	{
+		val saved = newProfile()
+		saved.record(code, SECOND_JVM_TRANSLATION)
+		saved.save()
+		assertTrue(fileFor("profiled").isFile)
+
+		val loaded = newProfile()
+		assertEquals(
+			SECOND_JVM_TRANSLATION, loaded.promote(code, FIRST_JVM_TRANSLATION))
+		assertEquals(
+			SECOND_JVM_TRANSLATION, loaded.promote(code, SIMPLE_TRANSLATION))
+		assertEquals(CHASED_BLOCKS, loaded.promote(code, CHASED_BLOCKS))
+	}
+
+	/**
+	 * Test: Levels that don't produce a JVM chunk aren't recorded, and an
+	 * unchanged profile isn't written.
+	 */
+	@Test
+	fun testLowLevelsAreNotRecorded()
+	{
+		val profile = newProfile()
+		profile.record(code, SIMPLE_TRANSLATION)
+		profile.save()
+		assertFalse(fileFor("profiled").exists())
+		assertEquals(
+			FIRST_JVM_TRANSLATION,
+			profile.promote(code, FIRST_JVM_TRANSLATION))
+	}
+
+	/**
+	 * Test: Once started, changes are saved periodically, until the profile is
+	 * destroyed.
+	 */
+	@Test
+	fun testPeriodicSavesStopOnDestroy()
+	{
+		val profile = newProfile()
+		val file = fileFor("profiled")
+		profile.startPeriodicSaves(10)
+		profile.record(code, FIRST_JVM_TRANSLATION)
+		val deadline = System.currentTimeMillis() + 10_000
+		while (!file.isFile && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10)
+		}
+		assertTrue(file.isFile)
+
+		profile.destroy()
+		file.delete()
+		profile.record(code, SECOND_JVM_TRANSLATION)
+		Thread.sleep(100)
+		assertFalse(file.exists())
+	}
+
+	/**
+	 * Test: A file written with another version of the format is ignored.
+	 */
+	@Test
+	fun testOtherVersionIsRejected()
+	{
+		val saved = newProfile()
+		saved.record(code, SECOND_JVM_TRANSLATION)
+		saved.save()
+		val file = fileFor("profiled")
+		val bytes = file.readBytes()
+		bytes[3]++
+		file.writeBytes(bytes)
+
+		assertEquals(
+			FIRST_JVM_TRANSLATION,
+			newProfile().promote(code, FIRST_JVM_TRANSLATION))
+	}
+
+	/**
+	 * Test: A recorded [CHASED_BLOCKS] level is only honored when that level is
+	 * enabled.
+	 */
+	@Test
+	fun testChasedBlocksIsCapped()
+	{
+		val saved = newProfile()
+		saved.record(code, CHASED_BLOCKS)
+		saved.save()
+		val wasChasing = AvailRuntimeConfiguration.chaseBlocks
+		try
+		{
+			AvailRuntimeConfiguration.chaseBlocks = false
+			assertEquals(
+				SECOND_JVM_TRANSLATION,
+				newProfile().promote(code, FIRST_JVM_TRANSLATION))
+			AvailRuntimeConfiguration.chaseBlocks = true
+			assertEquals(
+				CHASED_BLOCKS,
+				newProfile().promote(code, FIRST_JVM_TRANSLATION))
+		}
+		finally
+		{
+			AvailRuntimeConfiguration.chaseBlocks = wasChasing
+		}
+	}
+}
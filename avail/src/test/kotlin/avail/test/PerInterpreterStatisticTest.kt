@@ -0,0 +1,178 @@
+/*
+ * PerInterpreterStatisticTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package avail.test
+
+import avail.performance.MetricsExporter
+import avail.performance.PerInterpreterStatistic
+import avail.performance.Statistic
+import avail.performance.StatisticReport.DESERIALIZE
+import avail.performance.StatisticReport.DYNAMIC_LOOKUP
+import avail.performance.StatisticReport.PRIMITIVES
+import avail.performance.StatisticReport.REIFICATIONS
+import avail.performance.StatisticReport.SERIALIZE_TRACE
+import avail.performance.StatisticReport.SERIALIZE_WRITE
+import avail.performance.StatisticReport.WORKBENCH_TRANSCRIPT
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import kotlin.math.abs
+import kotlin.random.Random
+
+/**
+ * A test of the histogram quantiles of [PerInterpreterStatistic], and of their
+ * export by [MetricsExporter].
+ */
+class PerInterpreterStatisticTest
+{
+	/**
+	 * Check that each estimated quantile is within an eighth of the exact
+	 * one, for samples spread over several orders of magnitude.
+	 */
+	@Test
+	fun testQuantiles()
+	{
+		val rnd = Random(42)
+		val samples = List(10_000) { rnd.nextDouble(1.0, 1.0e9) }
+		val stat = PerInterpreterStatistic()
+		samples.forEach(stat::record)
+		val sorted = samples.sorted()
+		for (fraction in listOf(0.01, 0.5, 0.9, 0.99, 0.999, 1.0))
+		{
+			val exact = sorted[(fraction * sorted.size).toInt() - 1]
+			val estimate = stat.quantile(fraction)
+			assertTrue(abs(estimate - exact) <= exact / 8.0) {
+				"quantile $fraction: expected about $exact, got $estimate"
+			}
+		}
+		assertEquals(sorted.first(), stat.min())
+		assertEquals(sorted.last(), stat.max())
+	}
+
+	/**
+	 * Check that adding a statistic to another copies all of its samples,
+	 * including its histogram, into the target, and leaves it intact.
+	 */
+	@Test
+	fun testAddTo()
+	{
+		val source = PerInterpreterStatistic()
+		(1..100).forEach { source.record(it.toDouble()) }
+		val target = PerInterpreterStatistic()
+		source.addTo(target)
+		assertEquals(100L, source.count())
+		assertEquals(100L, target.count())
+		assertEquals(5050.0, target.sum(), 1.0e-9)
+		assertTrue(abs(target.quantile(0.5) - 50.0) <= 50.0 / 8.0)
+		source.clear()
+		assertEquals(0L, source.count())
+		assertEquals(0.0, source.quantile(0.5))
+		source.record(7.0)
+		assertEquals(7.0, source.quantile(0.5))
+	}
+
+	/**
+	 * Check that a statistic without a histogram still records its summary,
+	 * and that a target only acquires a histogram from a source that has one.
+	 */
+	@Test
+	fun testWithoutHistogram()
+	{
+		val stat = PerInterpreterStatistic(keepsHistogram = false)
+		(1..100).forEach { stat.record(it.toDouble()) }
+		assertFalse(stat.hasHistogram)
+		assertEquals(100L, stat.count())
+		assertEquals(0.0, stat.quantile(0.5))
+		val target = PerInterpreterStatistic()
+		stat.addTo(target)
+		assertFalse(target.hasHistogram)
+		assertEquals(100L, target.count())
+		val withHistogram = PerInterpreterStatistic()
+		withHistogram.record(3.0)
+		withHistogram.addTo(target)
+		assertTrue(target.hasHistogram)
+		assertEquals(101L, target.count())
+	}
+
+	/**
+	 * Check that the reports whose latency distributions matter keep
+	 * histograms.
+	 */
+	@Test
+	fun testLatencyReportsKeepHistograms()
+	{
+		listOf(
+			PRIMITIVES,
+			DYNAMIC_LOOKUP,
+			SERIALIZE_TRACE,
+			SERIALIZE_WRITE,
+			DESERIALIZE
+		).forEach { report ->
+			assertTrue(report.histograms) { report.name }
+		}
+	}
+
+	/**
+	 * Check that histograms are kept only for reports that opt in, and that
+	 * exporting leaves the statistics intact.
+	 */
+	@Test
+	fun testExportLeavesStatistics()
+	{
+		val plain = Statistic(WORKBENCH_TRANSCRIPT, "export test")
+		val timed = Statistic(REIFICATIONS, "export test")
+		repeat(5) {
+			plain.record(10L)
+			timed.record(10L)
+		}
+		assertFalse(plain.aggregate().hasHistogram)
+		assertTrue(timed.aggregate().hasHistogram)
+		MetricsExporter.jsonSnapshot()
+		val text = MetricsExporter.prometheusText()
+		assertEquals(5L, plain.aggregate().count())
+		assertEquals(5L, timed.aggregate().count())
+		assertTrue(
+			text.contains(
+				"avail_workbench_transcript_seconds_count"
+					+ "{statistic=\"export test\"} 5"))
+		assertFalse(
+			text.contains(
+				"avail_workbench_transcript_seconds{statistic=\"export test\""))
+		assertTrue(
+			text.contains(
+				"avail_reifications_seconds{statistic=\"export test\""
+					+ ",quantile=\"0.5\"}"))
+		plain.clear()
+		timed.clear()
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * PieceTableTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.files.PieceTable
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+import kotlin.random.Random
+
+/**
+ * A test of [PieceTable].
+ */
+class PieceTableTest
+{
+	/**
+	 * Apply random edits to a [PieceTable] and to a [StringBuilder], checking
+	 * that the texts and the removed ranges agree, and that restoring each
+	 * [snapshot][PieceTable.Snapshot] recovers the corresponding text.
+	 */
+	@Test
+	fun testRandomEdits()
+	{
+		for (seed in 1..50)
+		{
+			val rnd = Random(seed)
+			val original = randomText(rnd, rnd.nextInt(100))
+			val table = PieceTable(original)
+			val expected = StringBuilder(original)
+			val history = mutableListOf(table.snapshot to original)
+			repeat(200) {
+				val start = rnd.nextInt(expected.length + 1)
+				val end = start + rnd.nextInt(expected.length - start + 1)
+				val text = randomText(rnd, rnd.nextInt(5))
+				val removed = table.replace(start, end, text)
+				assertEquals(expected.substring(start, end), removed)
+				expected.replace(start, end, text)
+				assertEquals(expected.toString(), table.toString())
+				assertEquals(expected.length, table.length)
+				history.add(table.snapshot to expected.toString())
+			}
+			for ((snapshot, text) in history.shuffled(rnd))
+			{
+				table.restore(snapshot)
+				assertEquals(text, table.toString())
+			}
+		}
+	}
+
+	/**
+	 * Check that [PieceTable.encodedChunks] produces the same bytes as
+	 * encoding the whole text, even when a chunk boundary falls within a
+	 * surrogate pair.
+	 */
+	@Test
+	fun testEncodedChunks()
+	{
+		val table = PieceTable("a😀b😀😀c")
+		table.replace(3, 3, "😀")
+		val text = table.toString()
+		for (chunkLength in 2..text.length + 1)
+		{
+			val bytes = ByteArrayOutputStream()
+			table.encodedChunks(Charsets.UTF_8, chunkLength).forEach {
+				val chunk = ByteArray(it.remaining())
+				it.get(chunk)
+				bytes.write(chunk)
+			}
+			assertEquals(text, bytes.toString(Charsets.UTF_8))
+		}
+	}
+
+	/**
+	 * Answer a random string of lowercase letters.
+	 *
+	 * @param rnd
+	 *   The source of randomness.
+	 * @param length
+	 *   The length of the string.
+	 * @return
+	 *   The string.
+	 */
+	private fun randomText(rnd: Random, length: Int) =
+		String(CharArray(length) { 'a' + rnd.nextInt(26) })
+}
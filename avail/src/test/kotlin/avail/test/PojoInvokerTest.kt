@@ -0,0 +1,111 @@
+/*
+ * PojoInvokerTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.interpreter.primitive.pojos.PojoInvoker
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+
+/**
+ * A test of [PojoInvoker], invoking Java members with already marshaled
+ * arguments.
+ */
+class PojoInvokerTest
+{
+	/** Static methods unbox their arguments and box their results. */
+	@Test
+	fun testStaticMethod()
+	{
+		val method = Math::class.java.getMethod(
+			"max", Int::class.java, Int::class.java)
+		val invoker = PojoInvoker.forMethod(method)
+		assertEquals(7, invoker.invoke(arrayOf<Any?>(3, 7)))
+		assertSame(invoker, PojoInvoker.forMethod(method))
+	}
+
+	/** Instance methods take their receiver as the first argument. */
+	@Test
+	fun testInstanceMethod()
+	{
+		val invoker = PojoInvoker.forMethod(
+			String::class.java.getMethod(
+				"substring", Int::class.java, Int::class.java))
+		assertEquals("vai", invoker.invoke(arrayOf<Any?>("Avail", 1, 4)))
+	}
+
+	/** `void` methods answer `null`. */
+	@Test
+	fun testVoidMethod()
+	{
+		val list = mutableListOf(1, 2, 3)
+		val invoker = PojoInvoker.forMethod(
+			List::class.java.getMethod("clear"))
+		assertNull(invoker.invoke(arrayOf<Any?>(list)))
+		assertEquals(0, list.size)
+	}
+
+	/** Variable arity methods take their trailing array as is. */
+	@Test
+	fun testVarargsMethod()
+	{
+		val invoker = PojoInvoker.forMethod(
+			String::class.java.getMethod(
+				"format", String::class.java, Array<Any>::class.java))
+		assertEquals(
+			"1-2",
+			invoker.invoke(arrayOf<Any?>("%d-%d", arrayOf<Any>(1, 2))))
+	}
+
+	/** Constructors answer the new instance. */
+	@Test
+	fun testConstructor()
+	{
+		val invoker = PojoInvoker.forConstructor(
+			StringBuilder::class.java.getConstructor(String::class.java))
+		val builder = invoker.invoke(arrayOf<Any?>("abc")) as StringBuilder
+		assertEquals("abc", builder.toString())
+	}
+
+	/** Exceptions raised by the Java code are not wrapped. */
+	@Test
+	fun testException()
+	{
+		val invoker = PojoInvoker.forMethod(
+			Int::class.javaObjectType.getMethod("parseInt", String::class.java))
+		assertThrows(NumberFormatException::class.java) {
+			invoker.invoke(arrayOf<Any?>("not a number"))
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * ReusablePrefixTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.compiler.ModuleManifestEntry
+import avail.compiler.ReusablePrefix
+import avail.compiler.ReusablePrefix.SourceDigester
+import avail.compiler.SideEffectKind.ATOM_DEFINITION_KIND
+import avail.descriptor.tuples.A_String.SurrogateIndexConverter
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.persistence.cache.Repository.CheckpointRecord
+import avail.persistence.cache.Repository.CheckpointRecord.Checkpoint
+import avail.persistence.cache.Repository.ManifestRecord
+import avail.persistence.cache.Repository.PhraseNode
+import avail.persistence.cache.Repository.PhrasePathRecord
+import avail.persistence.cache.Repository.StylingRecord
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.security.MessageDigest
+
+/**
+ * A test of [ReusablePrefix], its [SourceDigester], and the [CheckpointRecord]
+ * that a compilation records for it.
+ */
+class ReusablePrefixTest
+{
+	/**
+	 * A module body of three statements, each occupying eight code points.
+	 * The second statement starts with a code point outside the Basic
+	 * Multilingual Plane, so it occupies nine UTF-16 characters.
+	 */
+	private val original = "a := 1;\n😀 := 2;\nc := 3;\n"
+
+	/**
+	 * Answer the SHA-256 digest of the UTF-8 encoding of the code points of
+	 * the source before the given position.
+	 *
+	 * @param source
+	 *   The source.
+	 * @param sourcePosition
+	 *   A one-based code point position in the source.
+	 * @return
+	 *   The digest.
+	 */
+	private fun expectedDigest(source: String, sourcePosition: Int): ByteArray
+	{
+		val end = source.offsetByCodePoints(0, sourcePosition - 1)
+		return MessageDigest.getInstance("SHA-256").digest(
+			source.substring(0, end).toByteArray())
+	}
+
+	/**
+	 * Answer a checkpoint after each statement of the [original] source.
+	 *
+	 * @return
+	 *   Three [Checkpoint]s.
+	 */
+	private fun checkpoints(): List<Checkpoint> =
+		listOf(9, 17, 25).mapIndexed { i, position ->
+			Checkpoint(
+				sourcePosition = position,
+				lineNumber = i + 2,
+				sourceDigest = expectedDigest(original, position),
+				bodyPosition = (i + 1) * 10,
+				manifestEntryCount = i + 1,
+				phrasePathCount = i + 1)
+		}
+
+	/**
+	 * Answer which of the [checkpoints] are still valid for the given source.
+	 *
+	 * @param source
+	 *   The edited source.
+	 * @return
+	 *   The source positions of the matching checkpoints.
+	 */
+	private fun matchingPositions(source: String): List<Int> =
+		ReusablePrefix.matchingCheckpoints(
+			CheckpointRecord(checkpoints()),
+			stringFrom(source),
+			SurrogateIndexConverter(source)
+		).map { it.sourcePosition }
+
+	/**
+	 * The digester answers the digest of each successively longer prefix,
+	 * counting positions in code points rather than UTF-16 characters.
+	 */
+	@Test
+	fun testSourceDigester()
+	{
+		val digester =
+			SourceDigester(original, SurrogateIndexConverter(original))
+		for (position in listOf(1, 5, 9, 10, 10, 17, 25))
+		{
+			assertArrayEquals(
+				expectedDigest(original, position),
+				digester.digestBefore(position))
+		}
+		val fromAvailString = SourceDigester(
+			stringFrom(original), SurrogateIndexConverter(original))
+		assertArrayEquals(
+			expectedDigest(original, 17), fromAvailString.digestBefore(17))
+	}
+
+	/** Only the checkpoints before the first edit remain valid. */
+	@Test
+	fun testMatchingCheckpoints()
+	{
+		assertEquals(listOf(9, 17, 25), matchingPositions(original))
+		assertEquals(
+			listOf(9, 17),
+			matchingPositions(original.replace("c := 3", "c := 4")))
+		assertEquals(
+			listOf(9),
+			matchingPositions(original.replace("\uDE00", "\uDE01")))
+		assertEquals(
+			emptyList<Int>(),
+			matchingPositions(original.replace("a := 1", "b := 1")))
+		// A checkpoint beyond the end of a truncated source can't match.
+		assertEquals(
+			listOf(9, 17),
+			matchingPositions(original.substring(0, 17)))
+		// Appending statements leaves every checkpoint valid.
+		assertEquals(
+			listOf(9, 17, 25),
+			matchingPositions(original + "d := 4;\n"))
+	}
+
+	/** A [CheckpointRecord] survives being written and read back. */
+	@Test
+	fun testCheckpointRecordRoundTrip()
+	{
+		val record = CheckpointRecord(checkpoints())
+		val bytes = ByteArrayOutputStream()
+		DataOutputStream(bytes).use(record::write)
+		val copy = CheckpointRecord(bytes.toByteArray())
+		assertEquals(record.checkpoints.size, copy.checkpoints.size)
+		record.checkpoints.zip(copy.checkpoints) { expected, actual ->
+			assertEquals(expected.sourcePosition, actual.sourcePosition)
+			assertEquals(expected.lineNumber, actual.lineNumber)
+			assertArrayEquals(expected.sourceDigest, actual.sourceDigest)
+			assertEquals(expected.bodyPosition, actual.bodyPosition)
+			assertEquals(
+				expected.manifestEntryCount, actual.manifestEntryCount)
+			assertEquals(expected.phrasePathCount, actual.phrasePathCount)
+		}
+		val empty = ByteArrayOutputStream()
+		DataOutputStream(empty).use(CheckpointRecord(emptyList())::write)
+		assertEquals(
+			0, CheckpointRecord(empty.toByteArray()).checkpoints.size)
+	}
+
+	/**
+	 * A prefix ending at the second checkpoint answers only the part of the
+	 * previous compilation's body, manifest, phrase paths, and styling that
+	 * precedes that checkpoint.
+	 */
+	@Test
+	fun testPrefixContents()
+	{
+		val body = ByteArray(100) { it.toByte() }
+		val manifest = ManifestRecord(
+			List(4) {
+				ModuleManifestEntry(ATOM_DEFINITION_KIND, "atom$it", it, it)
+			})
+		val paths = PhrasePathRecord(
+			MutableList(4) { PhraseNode(null, null, emptyList(), null) })
+		val styling = StylingRecord(
+			listOf(
+				0 .. 2 to "header",
+				8 .. 9 to "emoji",
+				15 .. 15 to "semicolon",
+				17 .. 17 to "third"),
+			listOf(
+				11 .. 12 to 8 .. 9,
+				11 .. 12 to 0 .. 0,
+				18 .. 18 to 8 .. 9))
+		val prefix = ReusablePrefix(
+			checkpoints().take(2), body, manifest, paths, styling)
+		assertEquals(17, prefix.resumePoint.sourcePosition)
+		assertEquals(20, prefix.bodySize)
+		assertArrayEquals(
+			body.copyOfRange(0, 20), prefix.newBodyStream().readBytes())
+		assertEquals(
+			listOf("atom1"),
+			prefix.manifestEntries(1).map { it.summaryText })
+		val replayedPaths = prefix.phrasePaths(0)
+		assertEquals(2, replayedPaths.size)
+		assertSame(paths.rootTrees[0], replayedPaths[0])
+		assertSame(paths.rootTrees[1], replayedPaths[1])
+		val replayedStyling =
+			prefix.styling(9, SurrogateIndexConverter(original))
+		assertEquals(
+			listOf(8 .. 9 to "emoji", 15 .. 15 to "semicolon"),
+			replayedStyling.styleRuns)
+		assertEquals(listOf(11 .. 12 to 8 .. 9), replayedStyling.variableUses)
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * SamplingProfilerTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.AvailRuntime.Companion.clockPeriodMillis
+import avail.descriptor.fiber.FiberDescriptor
+import avail.descriptor.functions.A_RawFunction
+import avail.descriptor.functions.A_RawFunction.Companion.methodName
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.representation.NilDescriptor.Companion.nil
+import avail.descriptor.tuples.A_String.Companion.asNativeString
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.descriptor.types.BottomTypeDescriptor.Companion.bottom
+import avail.descriptor.types.PrimitiveTypeDescriptor.Types.ANY
+import avail.interpreter.levelOne.L1InstructionWriter
+import avail.interpreter.levelOne.L1Operation
+import avail.performance.SamplingProfiler
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.lang.String.format
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * A test of the [SamplingProfiler], both on its own and as driven by the
+ * runtime's timer.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class SamplingProfilerTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/**
+	 * The module in which the test's code is defined.  Its name contains the
+	 * frame separator of the collapsed stack format.
+	 */
+	private lateinit var module: A_Module
+
+	/** Create the [module]. */
+	@BeforeAll
+	fun createModule()
+	{
+		module = newModule(helper.runtime, stringFrom("Sampling;Test"))
+		helper.runtime.addModule(module)
+	}
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/**
+	 * Create a new raw function that answers its argument.
+	 *
+	 * @param line
+	 *   The line number at which the raw function starts.
+	 * @return
+	 *   The new raw function.
+	 */
+	private fun newCode(line: Int): A_RawFunction =
+		L1InstructionWriter(module, line, nil).run {
+			argumentTypes(ANY.o)
+			returnType = ANY.o
+			returnTypeIfPrimitiveFails = bottom
+			write(line, L1Operation.L1_doPushLastLocal, 1)
+			compiledCode()
+		}
+
+	/**
+	 * Test: The collapsed stacks list each sampled raw function under its
+	 * module, most frequent first, with the frame separator escaped.
+	 */
+	@Test
+	fun testCollapsedStacks()
+	{
+		val profiler = SamplingProfiler()
+		val codeA = newCode(10)
+		val codeB = newCode(20)
+		repeat(3) { profiler.recordSample(codeA) }
+		profiler.recordSample(codeB)
+		repeat(2) { profiler.recordSample(null) }
+		val name = codeA.methodName.asNativeString()
+		assertEquals(
+			"Sampling,Test;$name:10 3\nSampling,Test;$name:20 1\n",
+			profiler.collapsedStacks())
+	}
+
+	/**
+	 * Test: The report counts the busy and idle samples, and attributes each
+	 * module's and function's share of the busy ones.
+	 */
+	@Test
+	fun testReport()
+	{
+		val profiler = SamplingProfiler()
+		val codeA = newCode(10)
+		val codeB = newCode(20)
+		repeat(3) { profiler.recordSample(codeA) }
+		profiler.recordSample(codeB)
+		repeat(2) { profiler.recordSample(null) }
+		val report = profiler.report()
+		assertTrue(report.contains("4 busy, 2 idle"), report)
+		assertTrue(
+			report.contains(format("%6.2f%%  Sampling;Test", 100.0)), report)
+		assertTrue(report.contains(format("%6.2f%%      ", 75.0)), report)
+		assertTrue(report.contains(format("%6.2f%%      ", 25.0)), report)
+	}
+
+	/** Test: Clearing the profiler discards every sample. */
+	@Test
+	fun testClear()
+	{
+		val profiler = SamplingProfiler()
+		profiler.recordSample(newCode(10))
+		profiler.recordSample(null)
+		profiler.clear()
+		assertEquals("", profiler.collapsedStacks())
+		assertTrue(profiler.report().contains("0 busy, 0 idle"))
+	}
+
+	/**
+	 * Test: The runtime's timer only feeds the runtime's profiler while it is
+	 * sampling.  With no fibers running, every sample is idle.
+	 */
+	@Test
+	fun testRuntimeSamplesOnlyWhileSampling()
+	{
+		val profiler = helper.runtime.samplingProfiler
+		// Make sure at least one interpreter thread exists to be polled.
+		val ran = CountDownLatch(1)
+		helper.runtime.whenRunningInterpretersDo(
+			FiberDescriptor.commandPriority) { ran.countDown() }
+		assertTrue(ran.await(10, TimeUnit.SECONDS))
+		profiler.clear()
+		assertFalse(profiler.isSampling)
+		Thread.sleep(5 * clockPeriodMillis)
+		assertTrue(profiler.report().contains("0 busy, 0 idle"))
+		profiler.start()
+		try
+		{
+			val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+			while (profiler.report().contains(" 0 idle")
+				&& System.nanoTime() < deadline)
+			{
+				Thread.sleep(clockPeriodMillis)
+			}
+		}
+		finally
+		{
+			profiler.stop()
+		}
+		// Let any tick that began before stopping finish.
+		Thread.sleep(2 * clockPeriodMillis)
+		val report = profiler.report()
+		assertFalse(report.contains(" 0 idle"), report)
+		Thread.sleep(5 * clockPeriodMillis)
+		assertEquals(report, profiler.report())
+		profiler.clear()
+	}
+}
@@ -37,10 +37,12 @@ import avail.builder.ModuleRoots
 import avail.builder.RenamesFileParser
 import avail.builder.RenamesFileParserException
 import avail.descriptor.atoms.A_Atom
+import avail.descriptor.atoms.A_Atom.Companion.bundleOrCreate
 import avail.descriptor.atoms.AtomDescriptor
 import avail.descriptor.atoms.AtomDescriptor.Companion.createAtom
 import avail.descriptor.atoms.AtomDescriptor.Companion.falseObject
 import avail.descriptor.atoms.AtomDescriptor.Companion.trueObject
+import avail.descriptor.bundles.A_Bundle.Companion.bundleMethod
 import avail.descriptor.character.CharacterDescriptor.Companion.fromCodePoint
 import avail.descriptor.functions.A_Function
 import avail.descriptor.functions.A_RawFunction
@@ -54,6 +56,10 @@ import avail.descriptor.functions.A_RawFunction.Companion.nybbles
 import avail.descriptor.functions.FunctionDescriptor.Companion.createFunction
 import avail.descriptor.maps.A_Map.Companion.mapAtPuttingCanDestroy
 import avail.descriptor.maps.MapDescriptor.Companion.emptyMap
+import avail.descriptor.methods.A_Method.Companion.methodAddDefinition
+import avail.descriptor.methods.A_Method.Companion.removeDefinition
+import avail.descriptor.methods.ForwardDefinitionDescriptor.Companion.newForwardDefinition
+import avail.descriptor.methods.MethodDefinitionDescriptor.Companion.newMethodDefinition
 import avail.descriptor.module.A_Module.Companion.addPrivateName
 import avail.descriptor.module.ModuleDescriptor.Companion.newModule
 import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
@@ -62,6 +68,11 @@ import avail.descriptor.representation.A_BasicObject
 import avail.descriptor.representation.AvailObject
 import avail.descriptor.representation.NilDescriptor.Companion.nil
 import avail.descriptor.sets.SetDescriptor.Companion.setFromCollection
+import avail.descriptor.tuples.A_Tuple.Companion.tupleDoubleAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleFloatAt
+import avail.descriptor.tuples.A_Tuple.Companion.tupleSize
+import avail.descriptor.tuples.DoubleTupleDescriptor.Companion.generateDoubleTupleFrom
+import avail.descriptor.tuples.FloatTupleDescriptor.Companion.generateFloatTupleFrom
 import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
 import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tupleFromList
 import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
@@ -73,12 +84,16 @@ import avail.files.FileManager
 import avail.interpreter.levelOne.L1InstructionWriter
 import avail.interpreter.primitive.floats.P_FloatFloor
 import avail.serialization.Deserializer
+import avail.serialization.Deserializer.PriorEffectsPendingException
 import avail.serialization.Serializer
+import avail.serialization.SerializerOperation
 import org.availlang.persistence.MalformedSerialStreamException
 import org.junit.jupiter.api.AfterAll
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertNotNull
 import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
 import org.junit.jupiter.api.BeforeAll
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.TestInstance
@@ -373,6 +388,51 @@ class SerializerTest
 			tuple(fromLong(Long.MIN_VALUE), fromLong(Long.MAX_VALUE)))
 	}
 
+	/**
+	 * Test serialization of packed tuples of floats and doubles, including
+	 * NaNs and negative zeros, which must survive with their exact bits.
+	 *
+	 * @throws MalformedSerialStreamException
+	 *   If the stream is malformed.
+	 */
+	@Test
+	@Throws(MalformedSerialStreamException::class)
+	fun testFloatingPointTuples()
+	{
+		val floats = listOf(-0.0f, Float.NaN, 0.0f, 1.5f, Float.MIN_VALUE)
+		val doubles = listOf(-0.0, Double.NaN, 0.0, 1.5, Double.MIN_VALUE)
+		for (size in 1 .. floats.size)
+		{
+			val floatTuple = generateFloatTupleFrom(size) { floats[it - 1] }
+			val newFloatTuple = roundTrip(floatTuple)
+			assertSame(
+				SerializerOperation.FLOAT_TUPLE,
+				newFloatTuple.serializerOperation())
+			assertEquals(size, newFloatTuple.tupleSize)
+			for (i in 1 .. size)
+			{
+				assertEquals(
+					floats[i - 1].toRawBits(),
+					newFloatTuple.tupleFloatAt(i).toRawBits())
+			}
+			assertEquals(floatTuple, newFloatTuple)
+
+			val doubleTuple = generateDoubleTupleFrom(size) { doubles[it - 1] }
+			val newDoubleTuple = roundTrip(doubleTuple)
+			assertSame(
+				SerializerOperation.DOUBLE_TUPLE,
+				newDoubleTuple.serializerOperation())
+			assertEquals(size, newDoubleTuple.tupleSize)
+			for (i in 1 .. size)
+			{
+				assertEquals(
+					doubles[i - 1].toRawBits(),
+					newDoubleTuple.tupleDoubleAt(i).toRawBits())
+			}
+			assertEquals(doubleTuple, newDoubleTuple)
+		}
+	}
+
 	/**
 	 * Test random combinations of tuples, sets, maps, integers, and characters.
 	 *
@@ -506,4 +566,52 @@ class SerializerTest
 			assertEquals(code.literalAt(i), code2.literalAt(i))
 		}
 	}
+
+	/**
+	 * Test that a reference to a method definition isn't resolved to a
+	 * forward definition with the same signature, while the statement that
+	 * replaces the forward definition has yet to run.
+	 *
+	 * @throws MalformedSerialStreamException
+	 *   If the stream is malformed.
+	 */
+	@Test
+	@Throws(MalformedSerialStreamException::class)
+	fun testForwardReplacedByMethodDefinition()
+	{
+		val module = newModule(runtime(), stringFrom("Replacement"))
+		val atom: A_Atom = createAtom(stringFrom("replaced_"), module)
+		module.addPrivateName(atom)
+		runtime().addModule(module)
+		val method = atom.bundleOrCreate().bundleMethod
+		val writer = L1InstructionWriter(nil, 0, nil)
+		writer.argumentTypes(Types.FLOAT.o)
+		writer.primitive = P_FloatFloor
+		writer.returnType = Types.FLOAT.o
+		writer.returnTypeIfPrimitiveFails = bottom
+		val code: A_RawFunction = writer.compiledCode()
+		val forward = newForwardDefinition(method, module, code.functionType())
+		method.methodAddDefinition(forward)
+		val definition = newMethodDefinition(
+			method, module, createFunction(code, emptyTuple))
+		prepareToWrite()
+		serializer().serialize(definition)
+
+		// Looking ahead, before the forward has been replaced, must wait for
+		// the earlier statements.
+		prepareToReadBack()
+		deserializer().currentModule = module
+		deserializer().priorEffectsPending = { true }
+		assertThrows(PriorEffectsPendingException::class.java) {
+			deserializer().deserialize()
+		}
+
+		// Once the replacement has happened, the method definition is found.
+		method.removeDefinition(forward)
+		method.methodAddDefinition(definition)
+		prepareToReadBack()
+		deserializer().currentModule = module
+		val newObject = deserializer().deserialize()
+		assertSame(definition, newObject)
+	}
 }
@@ -0,0 +1,135 @@
+/*
+ * StacksErrorLogTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.stacks.StacksErrorLog
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * A test of the [StacksErrorLog], whose entries are added concurrently while
+ * the comments of modules are scanned in parallel.
+ */
+class StacksErrorLogTest
+{
+	/** The directory in which the error log is written. */
+	private lateinit var outputPath: Path
+
+	/** Create the [outputPath]. */
+	@BeforeEach
+	fun createDirectory()
+	{
+		outputPath = Files.createTempDirectory("StacksErrorLogTest")
+	}
+
+	/** Delete the test's files. */
+	@AfterEach
+	fun deleteFiles()
+	{
+		outputPath.toFile().deleteRecursively()
+	}
+
+	/**
+	 * Test: Entries added from many threads at once each occupy their own
+	 * region of the log file, so none is lost or overwritten.
+	 */
+	@Test
+	fun testConcurrentEntries()
+	{
+		val threadCount = 8
+		val entriesPerThread = 200
+		val log = StacksErrorLog(outputPath)
+		val logPath = outputPath.resolve("errorlog.html")
+		// The header is written asynchronously, in a single write.
+		val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+		while (Files.size(logPath) == 0L && System.nanoTime() < deadline)
+		{
+			Thread.sleep(10)
+		}
+		val headerSize = Files.size(logPath)
+		val entry = { thread: Int, index: Int ->
+			"<li>Thread $thread, entry $index</li>\n"
+		}
+		val go = CountDownLatch(1)
+		val threads = (0 until threadCount).map { thread ->
+			Thread {
+				go.await()
+				repeat(entriesPerThread) { index ->
+					log.addLogEntry(
+						ByteBuffer.wrap(
+							entry(thread, index)
+								.toByteArray(StandardCharsets.UTF_8)),
+						1)
+				}
+			}.apply { start() }
+		}
+		go.countDown()
+		threads.forEach { it.join() }
+		assertEquals(threadCount * entriesPerThread, log.errorCount())
+		val expectedSize = headerSize + (0 until threadCount).sumOf { thread ->
+			(0 until entriesPerThread).sumOf { index ->
+				entry(thread, index).length.toLong()
+			}
+		}
+		// The entries are written asynchronously too, so wait until every
+		// region is filled.
+		var bytes = Files.readAllBytes(logPath)
+		while ((bytes.size.toLong() != expectedSize || 0.toByte() in bytes)
+			&& System.nanoTime() < deadline)
+		{
+			Thread.sleep(10)
+			bytes = Files.readAllBytes(logPath)
+		}
+		log.file()!!.close()
+		assertEquals(expectedSize, bytes.size.toLong())
+		val text = String(bytes, StandardCharsets.UTF_8)
+		assertTrue(text.startsWith("<!DOCTYPE html>"))
+		val lines = text.substring(headerSize.toInt()).lines().dropLast(1)
+		assertEquals(
+			(0 until threadCount).flatMap { thread ->
+				(0 until entriesPerThread).map { index ->
+					entry(thread, index).trimEnd()
+				}
+			}.toSet(),
+			lines.toSet())
+		assertEquals(threadCount * entriesPerThread, lines.size)
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * StatementPipelineTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.builder.StatementPipeline
+import avail.descriptor.atoms.A_Atom
+import avail.descriptor.atoms.AtomDescriptor.Companion.createAtom
+import avail.descriptor.module.A_Module
+import avail.descriptor.module.A_Module.Companion.addPrivateName
+import avail.descriptor.module.ModuleDescriptor.Companion.newModule
+import avail.descriptor.numbers.A_Number.Companion.extractInt
+import avail.descriptor.numbers.IntegerDescriptor.Companion.fromInt
+import avail.descriptor.representation.AvailObject
+import avail.descriptor.tuples.A_Tuple.Companion.tupleAt
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.tuples.StringDescriptor.Companion.stringFrom
+import avail.serialization.Deserializer
+import avail.serialization.Serializer
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import org.junit.jupiter.api.TestInstance.Lifecycle
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * A test of the [StatementPipeline], which deserializes a module's top-level
+ * statements ahead of their execution.  Whatever the look-ahead, the
+ * statements must be delivered in the same order, and be the same objects,
+ * as when each is deserialized only after its predecessor has run.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class StatementPipelineTest
+{
+	/** The [AvailRuntimeTestHelper] used for the tests. */
+	private val helper = AvailRuntimeTestHelper(false)
+
+	/** Shut down the runtime after the tests. */
+	@AfterAll
+	fun tearDownRuntime()
+	{
+		helper.tearDownRuntime()
+	}
+
+	/** The name of the module whose statements are serialized. */
+	private val moduleName = "Statement Pipeline Test"
+
+	/** The number of statements to serialize. */
+	private val statementCount = 40
+
+	/**
+	 * The names of the atoms that are created by running the statement at
+	 * each index, and which the next statement refers to.
+	 */
+	private val atomCreatedBy = (0 until statementCount)
+		.filter { it % 4 == 2 }
+		.associateWith { "atom${it + 1}" }
+
+	/** The serialized statements. */
+	private lateinit var bytes: ByteArray
+
+	/**
+	 * Serialize the statements.  Every fourth statement refers to an atom
+	 * that its predecessor creates when it runs, so it can't be deserialized
+	 * any earlier.  The others can be deserialized at any time.
+	 */
+	@BeforeAll
+	fun serializeStatements()
+	{
+		val module = newModule(helper.runtime, stringFrom(moduleName))
+		val out = ByteArrayOutputStream()
+		val serializer = Serializer(out)
+		for (i in 0 until statementCount)
+		{
+			val name = atomCreatedBy[i - 1]
+			val statement = when (name)
+			{
+				null -> tuple(fromInt(i), stringFrom("statement $i"))
+				else ->
+				{
+					val atom = createAtom(stringFrom(name), module)
+					module.addPrivateName(atom)
+					tuple(fromInt(i), atom)
+				}
+			}
+			serializer.serialize(statement)
+		}
+		bytes = out.toByteArray()
+	}
+
+	/**
+	 * The outcome of deserializing and "running" the statements.
+	 *
+	 * @property statements
+	 *   The statements, in the order in which they were delivered.
+	 * @property atoms
+	 *   The atoms that running the statements created.
+	 */
+	private class Outcome constructor(
+		val statements: List<AvailObject>,
+		val atoms: Map<String, A_Atom>)
+
+	/**
+	 * Create a fresh module with the serialized module's name, and a
+	 * [Deserializer] for the serialized statements that resolves the atoms
+	 * of that module in it.
+	 *
+	 * @return
+	 *   The new module and deserializer.
+	 */
+	private fun newReader(): Pair<A_Module, Deserializer>
+	{
+		val module = newModule(helper.runtime, stringFrom(moduleName))
+		val deserializer =
+			Deserializer(ByteArrayInputStream(bytes), helper.runtime)
+		deserializer.currentModule = module
+		return module to deserializer
+	}
+
+	/**
+	 * Perform the effect of running the statement at the given index.
+	 *
+	 * @param index
+	 *   The index of the statement.
+	 * @param module
+	 *   The module being loaded.
+	 * @param atoms
+	 *   The atoms created so far, by name.
+	 */
+	private fun run(
+		index: Int,
+		module: A_Module,
+		atoms: MutableMap<String, A_Atom>)
+	{
+		atomCreatedBy[index]?.let { name ->
+			val atom = createAtom(stringFrom(name), module).makeShared()
+			module.addPrivateName(atom)
+			atoms[name] = atom
+		}
+	}
+
+	/**
+	 * Deserialize each statement after the previous one has run, as the
+	 * loader did before statements were deserialized ahead.
+	 *
+	 * @return
+	 *   The [Outcome].
+	 */
+	private fun loadSequentially(): Outcome
+	{
+		val (module, deserializer) = newReader()
+		val statements = mutableListOf<AvailObject>()
+		val atoms = mutableMapOf<String, A_Atom>()
+		while (true)
+		{
+			val statement = deserializer.deserialize() ?: break
+			run(statements.size, module, atoms)
+			statements.add(statement)
+		}
+		return Outcome(statements, atoms)
+	}
+
+	/**
+	 * Deliver the statements through a [StatementPipeline] with the given
+	 * look-ahead, running each before requesting the next.
+	 *
+	 * @param lookahead
+	 *   The maximum number of statements to deserialize ahead.
+	 * @return
+	 *   The [Outcome].
+	 */
+	private fun loadThroughPipeline(lookahead: Int): Outcome
+	{
+		val (module, deserializer) = newReader()
+		val pipeline =
+			StatementPipeline(helper.runtime, deserializer, lookahead)
+		val statements = mutableListOf<AvailObject>()
+		val atoms = mutableMapOf<String, A_Atom>()
+		val done = CountDownLatch(1)
+		var failure: Throwable? = null
+		fun requestNext()
+		{
+			pipeline.next(
+				onFailure = {
+					failure = it
+					done.countDown()
+				},
+				onStatement = { statement ->
+					if (statement === null)
+					{
+						done.countDown()
+					}
+					else
+					{
+						run(statements.size, module, atoms)
+						statements.add(statement as AvailObject)
+						requestNext()
+					}
+				})
+		}
+		requestNext()
+		assertTrue(done.await(30, TimeUnit.SECONDS))
+		assertNull(failure)
+		return Outcome(statements, atoms)
+	}
+
+	/**
+	 * Check that the given [Outcome] matches the sequential one.  The atoms
+	 * created by running the statements are different in each load, so each
+	 * statement that refers to one must refer to the one created in the same
+	 * load.
+	 *
+	 * @param expected
+	 *   The [Outcome] of [loadSequentially].
+	 * @param actual
+	 *   The [Outcome] to check.
+	 */
+	private fun assertSameOutcome(expected: Outcome, actual: Outcome)
+	{
+		assertEquals(statementCount, expected.statements.size)
+		assertEquals(expected.statements.size, actual.statements.size)
+		expected.statements.indices.forEach { index ->
+			val expectedStatement = expected.statements[index]
+			val actualStatement = actual.statements[index]
+			assertEquals(index, actualStatement.tupleAt(1).extractInt)
+			when (val name = atomCreatedBy[index - 1])
+			{
+				null -> assertEquals(expectedStatement, actualStatement)
+				else ->
+				{
+					assertEquals(
+						expected.atoms[name], expectedStatement.tupleAt(2))
+					assertEquals(actual.atoms[name], actualStatement.tupleAt(2))
+				}
+			}
+		}
+	}
+
+	/** Test: Without look-ahead, the pipeline loads sequentially. */
+	@Test
+	fun testWithoutLookahead()
+	{
+		assertSameOutcome(loadSequentially(), loadThroughPipeline(0))
+	}
+
+	/**
+	 * Test: With look-ahead, statements that depend on their predecessors'
+	 * effects are still deserialized after those effects, and everything is
+	 * delivered in order.
+	 */
+	@Test
+	fun testWithLookahead()
+	{
+		val expected = loadSequentially()
+		listOf(1, 2, 8, statementCount * 2).forEach { lookahead ->
+			repeat(5) {
+				assertSameOutcome(expected, loadThroughPipeline(lookahead))
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * TimingWheelTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.utility.TimingWheel
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+/**
+ * A test of [TimingWheel].
+ */
+class TimingWheelTest
+{
+	/**
+	 * Schedule tasks with random delays, some of which span several wheels,
+	 * then advance one tick at a time, checking that each task runs on the
+	 * first tick at which its delay has certainly elapsed.
+	 */
+	@Test
+	fun testRandomDelays()
+	{
+		val tickMillis = 10L
+		for (seed in 1..10)
+		{
+			val rnd = Random(seed)
+			val start = rnd.nextLong(1_000_000)
+			val wheel = TimingWheel(tickMillis, start)
+			val ranAt = mutableMapOf<Int, Long>()
+			var now = start
+			val expected = (0 until 200).associateWith {
+				val delay = when (rnd.nextInt(3))
+				{
+					0 -> rnd.nextLong(3_000)
+					1 -> rnd.nextLong(700_000)
+					else -> rnd.nextLong(10_000_000)
+				}
+				wheel.schedule(delay) { ranAt[it] = now }
+				start + delay / tickMillis +
+					(if (delay % tickMillis == 0L) 1 else 2)
+			}
+			val last = expected.values.maxOrNull()!!
+			while (now < last)
+			{
+				now++
+				wheel.advanceTo(now)
+			}
+			assertEquals(expected, ranAt)
+			assertEquals(0, wheel.size)
+		}
+	}
+
+	/**
+	 * Check that a canceled task never runs, and that canceling has no effect
+	 * once a task has run.
+	 */
+	@Test
+	fun testCancel()
+	{
+		val wheel = TimingWheel(10, 0)
+		var ran = 0
+		val canceled = wheel.schedule(50) { ran += 1 }
+		val kept = wheel.schedule(50) { ran += 10 }
+		assertEquals(2, wheel.size)
+		assertTrue(canceled.cancel())
+		assertFalse(canceled.cancel())
+		assertEquals(1, wheel.size)
+		wheel.advanceTo(100)
+		assertEquals(10, ran)
+		assertFalse(kept.cancel())
+		assertEquals(0, wheel.size)
+	}
+
+	/**
+	 * Check that a delay too long for the wheels to represent doesn't run
+	 * early, even when the clock jumps while nothing else is pending.
+	 */
+	@Test
+	fun testVeryLongDelay()
+	{
+		val wheel = TimingWheel(1, 0)
+		var ran = false
+		wheel.schedule(Long.MAX_VALUE) { ran = true }
+		wheel.advanceTo(1L shl 20)
+		assertFalse(ran)
+		assertEquals(1, wheel.size)
+	}
+}
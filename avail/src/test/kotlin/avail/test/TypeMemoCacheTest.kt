@@ -0,0 +1,165 @@
+/*
+ * TypeMemoCacheTest.kt
+ * Copyright © 1993-2022, The Avail Foundation, LLC.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of the contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package avail.test
+
+import avail.descriptor.tuples.ObjectTupleDescriptor.Companion.tuple
+import avail.descriptor.types.A_Type
+import avail.descriptor.types.A_Type.Companion.isSubtypeOf
+import avail.descriptor.types.A_Type.Companion.typeIntersection
+import avail.descriptor.types.A_Type.Companion.typeUnion
+import avail.descriptor.types.FunctionTypeDescriptor.Companion.functionType
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.bytes
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.integers
+import avail.descriptor.types.IntegerRangeTypeDescriptor.Companion.naturalNumbers
+import avail.descriptor.types.TupleTypeDescriptor.Companion.stringType
+import avail.descriptor.types.TupleTypeDescriptor.Companion.tupleTypeForTypes
+import avail.descriptor.types.TypeMemoCache
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * A test of [TypeMemoCache].
+ */
+class TypeMemoCacheTest
+{
+	/**
+	 * Create a list of fresh, unshared, structured types, some related by
+	 * subtyping and some not.  Each call produces distinct objects.
+	 *
+	 * @return
+	 *   The new types.
+	 */
+	private fun freshTypes(): List<A_Type> = listOf(
+		tupleTypeForTypes(bytes, stringType),
+		tupleTypeForTypes(naturalNumbers, stringType),
+		tupleTypeForTypes(integers, stringType),
+		tupleTypeForTypes(integers),
+		functionType(tuple(integers), bytes),
+		functionType(tuple(bytes), integers),
+		functionType(tuple(naturalNumbers), naturalNumbers))
+
+	/** Start each test with an empty cache. */
+	@BeforeEach
+	fun clearCache() = TypeMemoCache.clear()
+
+	/** Leave the statistics off after each test. */
+	@AfterEach
+	fun stopRecording()
+	{
+		TypeMemoCache.recordStatistics = false
+	}
+
+	/** Only distinct, shared, structured types are memoized. */
+	@Test
+	fun testMemoizable()
+	{
+		val (a, b) = freshTypes()
+		assertFalse(TypeMemoCache.isMemoizable(a, b))
+		a.makeShared()
+		assertFalse(TypeMemoCache.isMemoizable(a, b))
+		b.makeShared()
+		assertTrue(TypeMemoCache.isMemoizable(a, b))
+		assertFalse(TypeMemoCache.isMemoizable(a, a))
+		assertFalse(TypeMemoCache.isMemoizable(a, integers))
+		assertFalse(TypeMemoCache.isMemoizable(integers, naturalNumbers))
+	}
+
+	/**
+	 * The memoized union, intersection, and subtype results agree with those
+	 * computed on equal but unshared types, which bypass the cache, both when
+	 * the cache misses and when it hits.
+	 */
+	@Test
+	fun testResultsAgree()
+	{
+		val shared = freshTypes().map { it.makeShared() }
+		val unshared = freshTypes()
+		repeat(2) {
+			for (i in shared.indices)
+			{
+				for (j in shared.indices)
+				{
+					val a = shared[i]
+					val b = shared[j]
+					val x = unshared[i]
+					val y = unshared[j]
+					assertEquals(x.typeUnion(y), a.typeUnion(b))
+					assertEquals(
+						x.typeIntersection(y), a.typeIntersection(b))
+					assertEquals(x.isSubtypeOf(y), a.isSubtypeOf(b))
+				}
+			}
+		}
+	}
+
+	/**
+	 * While a memoized result is still alive, asking again answers the very
+	 * same object.
+	 */
+	@Test
+	fun testHitAnswersSameResult()
+	{
+		val (a, b) = freshTypes().map { it.makeShared() }
+		val union = a.typeUnion(b)
+		assertSame(union, a.typeUnion(b))
+		val intersection = a.typeIntersection(b)
+		assertSame(intersection, a.typeIntersection(b))
+		// The operands are ordered, so the reverse is a separate entry.
+		assertEquals(union, b.typeUnion(a))
+	}
+
+	/** Hits and misses are only recorded when requested. */
+	@Test
+	fun testStatistics()
+	{
+		val (a, b, c) = freshTypes().map { it.makeShared() }
+		val hits = TypeMemoCache.Operation.SUBTYPE.hits
+		val misses = TypeMemoCache.Operation.SUBTYPE.misses
+		val hitsBefore = hits.aggregate().count()
+		val missesBefore = misses.aggregate().count()
+		a.isSubtypeOf(b)
+		a.isSubtypeOf(b)
+		assertEquals(hitsBefore, hits.aggregate().count())
+		assertEquals(missesBefore, misses.aggregate().count())
+		TypeMemoCache.recordStatistics = true
+		a.isSubtypeOf(b)
+		a.isSubtypeOf(c)
+		a.isSubtypeOf(c)
+		assertEquals(hitsBefore + 2, hits.aggregate().count())
+		assertEquals(missesBefore + 1, misses.aggregate().count())
+	}
+}
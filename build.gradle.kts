@@ -53,6 +53,7 @@ plugins {
 	`java-library`
 	kotlin("jvm") version Versions.kotlin
 	id("com.github.johnrengelman.shadow") version Versions.shadow apply false
+	id("me.champeau.jmh") version Versions.jmhPlugin apply false
 	`maven-publish`
 	publishing
 	id("org.jetbrains.dokka") version "1.7.10" apply false
@@ -65,6 +65,12 @@ object Versions
 	/** The `org.junit.jupiter:junit-jupiter` version. */
 	const val junitVersion = "5.8.2"
 
+	/** The `me.champeau.jmh` Gradle plugin version. */
+	const val jmhPlugin = "0.6.8"
+
+	/** The `org.openjdk.jmh:jmh-core` version. */
+	const val jmhVersion = "1.36"
+
 	/** The language level version of Kotlin. */
 	const val kotlinLanguage = "1.6"
 
@@ -39,4 +39,6 @@ package avail.build.modules
  * @author Richard Arriaga &lt;rich@availlang.org&gt;
  */
 object AvailServerModule: ModuleDependencies(
-	apis = listOf(Libraries.jsr305))
+	apis = listOf(Libraries.jsr305),
+	testImplementations = listOf(
+		Libraries.junitJupiterParams, Libraries.junitJupiterEngine))
@@ -40,6 +40,7 @@ pluginManagement {
 rootProject.name = "avail"
 include(
 	"avail",
+	"avail-benchmark",
 	"avail-bootstrap",
 	"avail-cli",
 	"avail-server",